@@ -0,0 +1,66 @@
+package com.felipe.rehabgame;
+
+/**
+ * Estado da simulação de um ciclista guardado ao passar por um checkpoint (tile CHECKPOINT do
+ * {@link TileRegistry}), para quem cair no lago voltar ali em vez do spawn.
+ *
+ * Um por ciclista, alocado junto com ele: capturar e restaurar só copiam campos (física, estimador de cadência,
+ * relógio e estatísticas da tentativa, posição da gravação do fantasma), em tempo constante e sem recarregar a
+ * fase, refazer o parse nem reconstruir o índice de colisão ou o framebuffer. As fases fixas não têm tiles que
+ * mudam durante o jogo, então os tiles não entram no snapshot.
+ */
+public class Checkpoint {
+
+    /** Falso até o primeiro checkpoint da tentativa. */
+    public boolean active;
+    /** Coluna do último checkpoint alcançado; só um mais à frente substitui o snapshot. */
+    public int column = -1;
+
+    // RiderPhysics
+    float x;
+    float y;
+    float velocityY;
+    float speedPxPerSec;
+    boolean onGround;
+
+    // PedalCadence: intervalo suavizado e idade do último pulso (o relógio do pedal não volta)
+    float smoothedIntervalMs;
+    long pulseAgeMs;
+
+    // Tempo e estatísticas da tentativa; o jogo preenche e usa estes só para o ciclista 1
+    public float elapsedTime;
+    public float attemptRpmSeconds;
+    public float attemptMaxRpm;
+    public final GhostRecorder.Mark ghost = new GhostRecorder.Mark();
+
+    /** Esquece o checkpoint (spawn, nova fase, reinício). */
+    public void clear() {
+        active = false;
+        column = -1;
+    }
+
+    /** Guarda o ciclista e o pedal dele no checkpoint da coluna {@code column}. */
+    public void capture(int column, RiderPhysics rider, PedalCadence cadence) {
+        this.column = column;
+        active = true;
+        x = rider.x;
+        y = rider.y;
+        velocityY = rider.velocityY;
+        speedPxPerSec = rider.speedPxPerSec;
+        onGround = rider.onGround;
+        cadence.saveTo(this, System.currentTimeMillis());
+    }
+
+    /** Devolve o ciclista e o pedal ao estado do último {@link #capture}. */
+    public void restore(RiderPhysics rider, PedalCadence cadence) {
+        rider.x = x;
+        rider.y = y;
+        rider.velocityY = velocityY;
+        rider.speedPxPerSec = speedPxPerSec;
+        rider.onGround = onGround;
+        rider.inLake = false;
+        rider.touching = 0;
+        rider.touchingCheckpointColumn = -1;
+        cadence.restoreFrom(this, System.currentTimeMillis());
+    }
+}
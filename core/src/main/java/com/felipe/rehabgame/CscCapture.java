@@ -0,0 +1,167 @@
+package com.felipe.rehabgame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Gravação de notificações CSC para reproduzir sem o sensor (testes, demonstrações, comparação de quadros).
+ *
+ * Arquivo: {@code RRCS}, versão e uma sequência de {@code [ms desde o início][tamanho][bytes da notificação]}.
+ * A reprodução mapeia o arquivo em memória e entrega cada notificação ao {@link CscDecoder} como uma janela
+ * do próprio buffer mapeado, nos mesmos intervalos em que chegou.
+ *
+ * {@code main} gera uma gravação sintética: CscCapture saida.csc [--rpm 60] [--rate 4] [--loss 10]
+ * [--seconds 120] [--seed N]. A cadência oscila em torno de {@code --rpm}, o contador começa perto do fim para
+ * exercitar a volta dos 16 bits e {@code --loss} descarta essa porcentagem das notificações.
+ */
+public class CscCapture {
+
+    static final int MAGIC = 0x52524353; // "RRCS"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+
+    /** Acrescenta notificações a uma gravação (usado pela fonte UDP com --csc-record). */
+    public static class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer record = ByteBuffer.allocate(5 + 255);
+        private final long startMs;
+
+        public Writer(Path file, long startMs) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+            this.startMs = startMs;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            channel.write(header);
+        }
+
+        /** Grava a notificação entre a posição e o limite de {@code payload} (sem alterar a posição). */
+        public void write(ByteBuffer payload, long arrivalMs) throws IOException {
+            int length = Math.min(payload.remaining(), 255);
+            record.clear();
+            record.putInt((int) (arrivalMs - startMs));
+            record.put((byte) length);
+            for (int i = 0; i < length; i++) {
+                record.put(payload.get(payload.position() + i));
+            }
+            record.flip();
+            channel.write(record);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reproduz a gravação numa thread própria, no ritmo original. Com {@code loop}, recomeça ao terminar (o
+     * salto do contador faz o decodificador ressincronizar).
+     */
+    public static Thread startReplay(Path file, CscDecoder decoder, boolean loop) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (mapped.limit() < HEADER_BYTES || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+            throw new IOException("não é uma gravação CSC: " + file);
+        }
+        Thread thread = new Thread(() -> replay(mapped, decoder, loop), "csc-replay");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void replay(ByteBuffer mapped, CscDecoder decoder, boolean loop) {
+        // Uma janela sobre o buffer mapeado, reposicionada a cada notificação
+        ByteBuffer view = mapped.duplicate();
+        try {
+            do {
+                long startMs = System.currentTimeMillis();
+                int position = HEADER_BYTES;
+                while (position + 5 <= mapped.limit()) {
+                    int offsetMs = mapped.getInt(position);
+                    int length = mapped.get(position + 4) & 0xFF;
+                    int payloadStart = position + 5;
+                    if (payloadStart + length > mapped.limit()) break;
+
+                    long waitMs = startMs + offsetMs - System.currentTimeMillis();
+                    if (waitMs > 0) Thread.sleep(waitMs);
+
+                    view.limit(payloadStart + length);
+                    view.position(payloadStart);
+                    decoder.decode(view, System.currentTimeMillis());
+                    view.limit(view.capacity());
+                    position = payloadStart + length;
+                }
+                // Espaço entre a última notificação e a primeira da volta seguinte
+                if (loop) Thread.sleep(1000L);
+            } while (loop);
+        } catch (InterruptedException e) {
+            // Encerrada pelo jogo
+        }
+        System.out.println("Reprodução CSC terminou. " + decoder.describe());
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Uso: CscCapture saida.csc [--rpm 60] [--rate 4] [--loss 10] [--seconds 120] [--seed N]");
+            System.exit(2);
+        }
+        Path output = Paths.get(args[0]);
+        float rpm = 60f;
+        float rateHz = 4f;
+        float lossPercent = 0f;
+        float seconds = 120f;
+        long seed = 1L;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--rpm": rpm = Float.parseFloat(value); break;
+                case "--rate": rateHz = Float.parseFloat(value); break;
+                case "--loss": lossPercent = Float.parseFloat(value); break;
+                case "--seconds": seconds = Float.parseFloat(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                default: System.err.println("Opção desconhecida: " + args[i]);
+            }
+        }
+
+        Random random = new Random(seed);
+        ByteBuffer payload = ByteBuffer.allocate(5);
+        int written = 0;
+        int revolutionCount = 0;
+        try (Writer writer = new Writer(output, 0L)) {
+            // Sensor: contador e relógio de 16 bits perto do fim, para a volta acontecer logo
+            int crankRevolutions = 0xFFFF - 5;
+            double lastEventSeconds = 0.0;
+            double nextRevolution = 60.0 / rpm;
+            for (double t = 0.0; t < seconds; t += 1.0 / rateHz) {
+                while (nextRevolution <= t) {
+                    crankRevolutions = (crankRevolutions + 1) & 0xFFFF;
+                    revolutionCount++;
+                    lastEventSeconds = nextRevolution;
+                    double current = rpm * (1.0 + 0.25 * Math.sin(nextRevolution * 2.0 * Math.PI / 30.0));
+                    nextRevolution += 60.0 / current;
+                }
+                if (random.nextFloat() * 100f < lossPercent) continue;
+                int eventTicks = (int) (0xFFF0 + Math.round(lastEventSeconds * CscDecoder.TICKS_PER_SECOND)) & 0xFFFF;
+                payload.clear();
+                payload.put((byte) CscDecoder.FLAG_CRANK_DATA);
+                payload.put((byte) crankRevolutions).put((byte) (crankRevolutions >> 8));
+                payload.put((byte) eventTicks).put((byte) (eventTicks >> 8));
+                payload.flip();
+                // Atraso de entrega de 5 a 60 ms depois do instante da notificação
+                writer.write(payload, Math.round(t * 1000.0) + 5 + random.nextInt(56));
+                written++;
+            }
+        }
+        System.out.println(String.format("%s: %d notificações, %d voltas em %.0f s", output, written, revolutionCount, seconds));
+    }
+}
@@ -0,0 +1,151 @@
+package com.felipe.rehabgame;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodifica notificações CSC Measurement (Cycling Speed and Cadence do Bluetooth) em voltas do pedal.
+ *
+ * O sensor não manda um pulso por volta: cada notificação traz o total acumulado de voltas do pedal
+ * (16 bits) e o instante da última volta no relógio do sensor (16 bits, em 1/1024 s, que dá a volta a cada
+ * 64 s). A diferença entre duas notificações diz quantas voltas houve e quando terminou a última; com
+ * notificações perdidas chegam várias voltas de uma vez, distribuídas por igual no intervalo. Cada volta é
+ * entregue ao {@link Listener} com o instante do sensor convertido para o relógio do computador, então o
+ * intervalo entre voltas é o medido pelo sensor, sem o atraso variável da entrega das notificações.
+ *
+ * A conversão segue o menor atraso observado (um evento não pode ter acontecido depois de chegar), relaxando
+ * 0,1 ms por segundo para acompanhar a deriva entre os relógios. Sem voltas por mais tempo do que o relógio do
+ * sensor consegue representar, ou com valores impossíveis (sensor reiniciado), o decodificador ressincroniza.
+ *
+ * {@link #decode} lê o buffer com acessos absolutos, sem alocar nem mexer na posição. Não é thread-safe: cada
+ * sensor tem o seu decodificador, alimentado por uma única thread.
+ */
+public class CscDecoder {
+
+    /** Recebe as voltas do pedal com o instante (ms, relógio de {@link System#currentTimeMillis()}). */
+    public interface Listener {
+        void onCrankRevolution(long timeMs);
+    }
+
+    public static final int FLAG_WHEEL_DATA = 0x01;
+    public static final int FLAG_CRANK_DATA = 0x02;
+    public static final int TICKS_PER_SECOND = 1024;
+    // Abaixo de 64 s, a diferença de 16 bits do relógio do sensor não é ambígua
+    private static final long RESYNC_AFTER_MS = 60_000L;
+    // Acima disso o salto no contador não é pedalada (sensor reiniciado, pacote corrompido). O dobro da cadência
+    // de velocidade máxima: qualquer cadência que ainda muda a velocidade do ciclista passa com folga
+    private static final float MAX_PLAUSIBLE_RPM = 2f * RiderPhysics.TARGET_RPM_FOR_MAX_SPEED;
+    // 100 ppm: acima da deriva de um cristal comum, pequeno o bastante para não aparecer nos intervalos
+    private static final double RELAX_MS_PER_MS = 0.0001;
+
+    private final Listener listener;
+
+    private boolean synced;
+    private int lastRevolutions;
+    private int lastEventTicks;
+    /** Relógio do sensor estendido para 64 bits, em 1/1024 s desde a sincronização. */
+    private long sensorClock;
+    /** Instante (ms do computador) que corresponde a {@code sensorClock == 0}. */
+    private double anchorMs;
+    private long lastArrivalMs;
+    private long lastEventArrivalMs;
+
+    // Estatísticas
+    public int notifications;
+    public int revolutions;
+    /** Voltas que chegaram juntas por causa de notificações perdidas (tempo interpolado). */
+    public int interpolatedRevolutions;
+    /** Notificações repetidas, sem volta nova (o sensor reenvia enquanto o pedal está parado). */
+    public int repeats;
+    public int resyncs;
+    public int malformed;
+
+    public CscDecoder(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Processa uma notificação que ocupa {@code payload} da posição até o limite, recebida em
+     * {@code arrivalMs}. Devolve o número de voltas entregues ao listener.
+     */
+    public int decode(ByteBuffer payload, long arrivalMs) {
+        int start = payload.position();
+        int end = payload.limit();
+        if (end - start < 1) {
+            malformed++;
+            return 0;
+        }
+        int flags = payload.get(start) & 0xFF;
+        int offset = start + 1;
+        if ((flags & FLAG_WHEEL_DATA) != 0) offset += 6; // voltas da roda (32 bits) + instante (16 bits)
+        if ((flags & FLAG_CRANK_DATA) == 0) return 0;     // sensor só de velocidade
+        if (offset + 4 > end) {
+            malformed++;
+            return 0;
+        }
+        int crankRevolutions = readUint16(payload, offset);
+        int eventTicks = readUint16(payload, offset + 2);
+        notifications++;
+
+        if (!synced || arrivalMs - lastEventArrivalMs > RESYNC_AFTER_MS) {
+            sync(crankRevolutions, eventTicks, arrivalMs);
+            return 0;
+        }
+        anchorMs += (arrivalMs - lastArrivalMs) * RELAX_MS_PER_MS;
+        lastArrivalMs = arrivalMs;
+
+        int deltaRevolutions = (crankRevolutions - lastRevolutions) & 0xFFFF;
+        int deltaTicks = (eventTicks - lastEventTicks) & 0xFFFF;
+        if (deltaRevolutions == 0) {
+            repeats++;
+            return 0;
+        }
+        if (deltaTicks == 0 || deltaRevolutions * 60f * TICKS_PER_SECOND / deltaTicks > MAX_PLAUSIBLE_RPM) {
+            resyncs++;
+            sync(crankRevolutions, eventTicks, arrivalMs);
+            return 0;
+        }
+
+        long eventClock = sensorClock + deltaTicks;
+        double mappedMs = anchorMs + eventClock * 1000.0 / TICKS_PER_SECOND;
+        if (mappedMs > arrivalMs) {
+            anchorMs -= mappedMs - arrivalMs;
+        }
+        for (int k = 1; k <= deltaRevolutions; k++) {
+            double clock = sensorClock + (double) deltaTicks * k / deltaRevolutions;
+            listener.onCrankRevolution(Math.round(anchorMs + clock * 1000.0 / TICKS_PER_SECOND));
+        }
+        revolutions += deltaRevolutions;
+        interpolatedRevolutions += deltaRevolutions - 1;
+
+        sensorClock = eventClock;
+        lastRevolutions = crankRevolutions;
+        lastEventTicks = eventTicks;
+        lastEventArrivalMs = arrivalMs;
+        return deltaRevolutions;
+    }
+
+    /** Esquece o estado do sensor; a próxima notificação só serve de referência. */
+    public void reset() {
+        synced = false;
+    }
+
+    public String describe() {
+        return String.format("CSC: %d notificações, %d voltas (%d interpoladas), %d repetidas, %d ressincronizações, %d inválidas",
+            notifications, revolutions, interpolatedRevolutions, repeats, resyncs, malformed);
+    }
+
+    private void sync(int crankRevolutions, int eventTicks, long arrivalMs) {
+        synced = true;
+        lastRevolutions = crankRevolutions;
+        lastEventTicks = eventTicks;
+        sensorClock = 0L;
+        anchorMs = arrivalMs;
+        lastArrivalMs = arrivalMs;
+        lastEventArrivalMs = arrivalMs;
+    }
+
+    private static int readUint16(ByteBuffer buffer, int index) {
+        // Campos CSC são little-endian, independente da ordem configurada no buffer
+        return (buffer.get(index) & 0xFF) | (buffer.get(index + 1) & 0xFF) << 8;
+    }
+}
@@ -0,0 +1,65 @@
+package com.felipe.rehabgame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.file.Path;
+
+/**
+ * Recebe notificações CSC por UDP, uma por datagrama, exatamente como o sensor as envia (ex.: de uma ponte
+ * BLE no celular ou num microcontrolador). Os datagramas caem num buffer direto reaproveitado e vão para o
+ * {@link CscDecoder} sem cópia; opcionalmente são gravados para {@link CscCapture} reproduzir depois.
+ */
+public class CscUdpSource implements Closeable {
+
+    private final DatagramChannel channel;
+    private final CscDecoder decoder;
+    private final CscCapture.Writer recorder;
+    private final Thread thread;
+
+    public CscUdpSource(int port, CscDecoder decoder, Path recordFile) throws IOException {
+        this.decoder = decoder;
+        this.channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(port));
+        this.recorder = recordFile != null ? new CscCapture.Writer(recordFile, System.currentTimeMillis()) : null;
+        this.thread = new Thread(this::receiveLoop, "csc-udp");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("Sensor CSC: aguardando notificações na porta UDP " + port);
+    }
+
+    private void receiveLoop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(512);
+        while (channel.isOpen()) {
+            try {
+                buffer.clear();
+                channel.receive(buffer);
+                buffer.flip();
+                long now = System.currentTimeMillis();
+                decoder.decode(buffer, now);
+                if (recorder != null) recorder.write(buffer, now);
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                System.err.println("Sensor CSC: erro ao receber: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+            thread.join(1000L);
+            if (recorder != null) recorder.close();
+        } catch (IOException e) {
+            System.err.println("Sensor CSC: erro ao fechar: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println(decoder.describe());
+    }
+}
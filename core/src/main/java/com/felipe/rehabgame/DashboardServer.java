@@ -0,0 +1,485 @@
+package com.felipe.rehabgame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Painel do terapeuta: publica o estado ao vivo da sessão (cadência, velocidade, progresso na fase, tempo
+ * restante e estado do jogo) por HTTP com Server-Sent Events, para acompanhar várias bicicletas de outra tela.
+ *
+ * Rotas: {@code /} devolve a página do painel, {@code /events} é o fluxo SSE e {@code /state} o estado atual
+ * em JSON. Por padrão o servidor só escuta em loopback (o próprio computador); outro endereço é uma escolha
+ * explícita ({@code --dashboard-bind}). CORS só é liberado para as origens da lista ({@code --dashboard-origins}),
+ * que é o que permite a página aberta numa bicicleta acompanhar as outras; nenhuma outra página lê o estado.
+ *
+ * A thread do jogo só chama {@link #publish}: copia alguns primitivos sob a escrita de um {@link StampedLock},
+ * sem alocar e sem nunca esperar (a thread de E/S só faz leituras otimistas). Uma única thread de E/S com um
+ * {@link Selector} atende todos os espectadores: na taxa configurada ela lê o último estado, monta o evento uma
+ * vez e entrega os mesmos bytes a todos. Os estados publicados entre dois envios se fundem no último; um
+ * espectador que ainda não terminou de receber o evento anterior pula este (recebe o próximo), e quem fica
+ * parado por {@link #STALLED_MS} é desconectado. O mesmo vale para uma resposta comum que não anda, e uma
+ * conexão que não completa o pedido em {@link #REQUEST_TIMEOUT_MS} é fechada.
+ */
+public class DashboardServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 7780;
+    public static final int MAX_RIDERS = 4;
+    static final long STALLED_MS = 10_000L;
+    static final long REQUEST_TIMEOUT_MS = 5_000L;
+    // Comentário SSE sem mudança de estado: mantém proxies e o EventSource sabendo que a conexão vive
+    private static final long KEEPALIVE_MS = 15_000L;
+    private static final int MAX_REQUEST_BYTES = 2048;
+    private static final byte[] PING = ": ping\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    /** Um navegador (ou outro cliente HTTP) conectado. */
+    private static class Watcher {
+        final SocketChannel channel;
+        final ByteBuffer request = ByteBuffer.allocate(MAX_REQUEST_BYTES);
+        ByteBuffer pending;
+        boolean streaming;
+        boolean closeWhenSent;
+        final long acceptedMs = System.currentTimeMillis();
+        long lastProgressMs = acceptedMs;
+
+        Watcher(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    // Estado publicado pela thread do jogo (guardado pelo lock)
+    private final StampedLock lock = new StampedLock();
+    private long version;
+    private String state = "LOADING";
+    private String levelId = "";
+    private int levelNumber;
+    private int levelCount;
+    private float progress = -1f;
+    private float timeRemaining = -1f;
+    private float elapsed;
+    private int riderCount;
+    private final float[] rpm = new float[MAX_RIDERS];
+    private final float[] speed = new float[MAX_RIDERS];
+
+    // Cópia da thread de E/S
+    private long copyVersion = -1;
+    private String copyState;
+    private String copyLevelId;
+    private int copyLevelNumber;
+    private int copyLevelCount;
+    private float copyProgress;
+    private float copyTimeRemaining;
+    private float copyElapsed;
+    private int copyRiderCount;
+    private final float[] copyRpm = new float[MAX_RIDERS];
+    private final float[] copySpeed = new float[MAX_RIDERS];
+
+    private final String patientId;
+    private final List<String> allowedOrigins;
+    private final long intervalMs;
+    private final byte[] pageResponse;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final List<Watcher> watchers = new ArrayList<>();
+    private final StringBuilder json = new StringBuilder(512);
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Último evento de estado, também entregue a quem acaba de se conectar
+    private ByteBuffer event = ByteBuffer.allocate(0);
+    private long sentVersion = -1;
+    private long lastEventMs;
+
+    // Contadores da thread de E/S (lidos no fechamento)
+    public long eventsBuilt;
+    public long eventsDelivered;
+    public long eventsSkipped;
+    public int peakWatchers;
+
+    /**
+     * @param bindAddress    endereço em que escutar (null: só loopback)
+     * @param port           porta TCP (0 para uma porta livre, ex.: testes)
+     * @param rateHz         eventos por segundo, no máximo
+     * @param page           página HTML servida em {@code /} (null para não ter página)
+     * @param allowedOrigins origens (ex.: {@code http://192.168.0.12:7780}) que podem ler o estado de outra página
+     */
+    public DashboardServer(InetAddress bindAddress, int port, int rateHz, String patientId, byte[] page,
+                           List<String> allowedOrigins) throws IOException {
+        this.patientId = patientId;
+        this.allowedOrigins = new ArrayList<>();
+        for (String origin : allowedOrigins) {
+            this.allowedOrigins.add(normalizeOrigin(origin));
+        }
+        this.intervalMs = 1000L / Math.max(1, rateHz);
+        this.pageResponse = page != null ? response("200 OK", "text/html; charset=utf-8", "", page) : null;
+        InetAddress address = bindAddress != null ? bindAddress : InetAddress.getLoopbackAddress();
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.configureBlocking(false);
+        server.bind(new InetSocketAddress(address, port));
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        thread = new Thread(this::ioLoop, "dashboard-io");
+        thread.setDaemon(true);
+        thread.start();
+        String host = address.isAnyLocalAddress() ? "localhost" : address.getHostAddress();
+        if (host.indexOf(':') >= 0) host = "[" + host + "]";
+        System.out.println("Painel do terapeuta em http://" + host + ":" + getLocalPort() + "/ (" + rateHz + " atualizações/s"
+            + (address.isLoopbackAddress() ? ", só neste computador" : ", escutando em " + address.getHostAddress()) + ")");
+    }
+
+    public int getLocalPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Estado atual do jogo (thread do jogo, a cada quadro). Não aloca nem bloqueia.
+     * @param progress    fração do caminho do spawn até a bandeira, ou negativo se não se aplica
+     * @param timeRemaining segundos até o fim do tempo, ou negativo se a fase não tem limite
+     */
+    public void publish(String gameState, String level, int number, int count, float progress, float timeRemaining,
+                        float elapsedSeconds, float[] riderRpms, RiderPhysics[] riders) {
+        long stamp = lock.writeLock();
+        try {
+            version++;
+            state = gameState;
+            levelId = level;
+            levelNumber = number;
+            levelCount = count;
+            this.progress = progress;
+            this.timeRemaining = timeRemaining;
+            elapsed = elapsedSeconds;
+            riderCount = Math.min(MAX_RIDERS, Math.min(riders.length, riderRpms.length));
+            for (int i = 0; i < riderCount; i++) {
+                rpm[i] = riderRpms[i];
+                speed[i] = riders[i].speedPxPerSec;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public String describe() {
+        return String.format("Painel: %d evento(s) montado(s), %d entregue(s), %d pulado(s) por espectador lento, pico de %d espectador(es)",
+            eventsBuilt, eventsDelivered, eventsSkipped, peakWatchers);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---- Thread de E/S ----
+
+    private void ioLoop() {
+        long nextTickMs = System.currentTimeMillis();
+        try {
+            while (running) {
+                long wait = nextTickMs - System.currentTimeMillis();
+                if (wait > 0) selector.select(wait);
+                else selector.selectNow();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+                long now = System.currentTimeMillis();
+                if (now >= nextTickMs) {
+                    // Sem acumular atraso: um tick perdido não vira uma rajada de eventos
+                    nextTickMs = Math.max(nextTickMs + intervalMs, now);
+                    dropIdle(now);
+                    broadcast(now);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Painel do terapeuta parou: " + e.getMessage());
+        } finally {
+            for (Watcher watcher : watchers) closeQuietly(watcher.channel);
+            watchers.clear();
+            closeQuietly(server);
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) return;
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Watcher watcher = (Watcher) key.attachment();
+        try {
+            if (key.isReadable()) read(watcher, key);
+            if (key.isValid() && key.isWritable()) write(watcher, key);
+        } catch (IOException e) {
+            drop(watcher);
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = server.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                Watcher watcher = new Watcher(channel);
+                channel.register(selector, SelectionKey.OP_READ, watcher);
+                watchers.add(watcher);
+                peakWatchers = Math.max(peakWatchers, watchers.size());
+            }
+        } catch (IOException e) {
+            System.err.println("Painel: conexão recusada (" + e.getMessage() + ")");
+        }
+    }
+
+    private void read(Watcher watcher, SelectionKey key) throws IOException {
+        if (watcher.streaming || watcher.closeWhenSent) {
+            // Depois do pedido só esperamos o fechamento; o resto é descartado
+            ByteBuffer sink = watcher.request;
+            sink.clear();
+            if (watcher.channel.read(sink) < 0) drop(watcher);
+            return;
+        }
+        if (watcher.channel.read(watcher.request) < 0) {
+            drop(watcher);
+            return;
+        }
+        String head = requestHead(watcher.request);
+        if (head == null) {
+            if (!watcher.request.hasRemaining()) respond(watcher, key, response("431 Request Header Fields Too Large", "text/plain", "", new byte[0]));
+            return;
+        }
+        String[] parts = head.substring(0, head.indexOf('\r')).split(" ");
+        String path = parts.length >= 2 ? parts[1] : "";
+        int query = path.indexOf('?');
+        if (query >= 0) path = path.substring(0, query);
+        String cors = corsHeaders(headerValue(head, "Origin"));
+        if ("/events".equals(path)) {
+            watcher.streaming = true;
+            watcher.pending = ByteBuffer.wrap(("HTTP/1.1 200 OK\r\nContent-Type: text/event-stream\r\nCache-Control: no-cache\r\n"
+                + "Connection: keep-alive\r\n" + cors + "\r\nretry: 2000\n\n").getBytes(StandardCharsets.US_ASCII));
+            write(watcher, key);
+            // O recém-chegado recebe o último estado sem esperar por uma mudança
+            if (watcher.pending == null && event.limit() > 0) {
+                watcher.pending = event.duplicate();
+                write(watcher, key);
+            }
+        } else if ("/state".equals(path)) {
+            snapshot();
+            respond(watcher, key, response("200 OK", "application/json", cors, formatJson().getBytes(StandardCharsets.UTF_8)));
+        } else if (("/".equals(path) || "/index.html".equals(path)) && pageResponse != null) {
+            respond(watcher, key, pageResponse);
+        } else {
+            respond(watcher, key, response("404 Not Found", "text/plain", "", "Não encontrado\n".getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    private void respond(Watcher watcher, SelectionKey key, byte[] bytes) throws IOException {
+        watcher.closeWhenSent = true;
+        watcher.pending = ByteBuffer.wrap(bytes);
+        write(watcher, key);
+    }
+
+    /** Envia o que couber no socket; o resto espera o OP_WRITE. */
+    private void write(Watcher watcher, SelectionKey key) throws IOException {
+        ByteBuffer pending = watcher.pending;
+        if (pending == null) return;
+        int written = watcher.channel.write(pending);
+        if (written > 0) watcher.lastProgressMs = System.currentTimeMillis();
+        if (pending.hasRemaining()) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            return;
+        }
+        watcher.pending = null;
+        key.interestOps(SelectionKey.OP_READ);
+        if (watcher.closeWhenSent) drop(watcher);
+    }
+
+    /**
+     * Fecha quem não completou o pedido a tempo e quem não recebe nada há {@link #STALLED_MS} (resposta comum ou
+     * evento pendente). Sem isso, conexões abertas e esquecidas ocupariam a thread de E/S para sempre.
+     */
+    private void dropIdle(long now) {
+        for (int i = watchers.size() - 1; i >= 0; i--) {
+            Watcher watcher = watchers.get(i);
+            boolean waitingRequest = !watcher.streaming && !watcher.closeWhenSent;
+            if (waitingRequest && now - watcher.acceptedMs > REQUEST_TIMEOUT_MS) {
+                drop(watcher);
+            } else if (watcher.pending != null && now - watcher.lastProgressMs > STALLED_MS) {
+                drop(watcher);
+            }
+        }
+    }
+
+    private void broadcast(long now) {
+        snapshot();
+        ByteBuffer outgoing;
+        if (copyVersion != sentVersion) {
+            sentVersion = copyVersion;
+            event = ByteBuffer.wrap(("data: " + formatJson() + "\n\n").getBytes(StandardCharsets.UTF_8));
+            outgoing = event;
+            eventsBuilt++;
+        } else if (now - lastEventMs >= KEEPALIVE_MS) {
+            outgoing = ByteBuffer.wrap(PING);
+        } else {
+            return;
+        }
+        lastEventMs = now;
+
+        for (int i = watchers.size() - 1; i >= 0; i--) {
+            Watcher watcher = watchers.get(i);
+            if (!watcher.streaming) continue;
+            SelectionKey key = watcher.channel.keyFor(selector);
+            if (watcher.pending != null) {
+                // Ainda recebendo o evento anterior: este se funde no próximo (dropIdle fecha quem não anda)
+                eventsSkipped++;
+                continue;
+            }
+            watcher.pending = outgoing.duplicate();
+            eventsDelivered++;
+            try {
+                write(watcher, key);
+            } catch (IOException e) {
+                drop(watcher);
+            }
+        }
+    }
+
+    /** Copia o último estado publicado com uma leitura otimista (repetida se a thread do jogo escreveu no meio). */
+    private void snapshot() {
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0L) {
+                Thread.yield();
+                continue;
+            }
+            copyVersion = version;
+            copyState = state;
+            copyLevelId = levelId;
+            copyLevelNumber = levelNumber;
+            copyLevelCount = levelCount;
+            copyProgress = progress;
+            copyTimeRemaining = timeRemaining;
+            copyElapsed = elapsed;
+            copyRiderCount = Math.min(MAX_RIDERS, riderCount);
+            for (int i = 0; i < copyRiderCount; i++) {
+                copyRpm[i] = rpm[i];
+                copySpeed[i] = speed[i];
+            }
+            if (lock.validate(stamp)) return;
+        }
+    }
+
+    private String formatJson() {
+        StringBuilder out = json;
+        out.setLength(0);
+        out.append("{\"patient\":");
+        appendString(out, patientId);
+        out.append(",\"state\":");
+        appendString(out, copyState);
+        out.append(",\"level\":");
+        appendString(out, copyLevelId);
+        out.append(",\"levelNumber\":").append(copyLevelNumber);
+        out.append(",\"levelCount\":").append(copyLevelCount);
+        out.append(String.format(Locale.ROOT, ",\"progress\":%.3f,\"timeRemaining\":%.1f,\"elapsed\":%.1f",
+            copyProgress, copyTimeRemaining, copyElapsed));
+        out.append(",\"riders\":[");
+        for (int i = 0; i < copyRiderCount; i++) {
+            if (i > 0) out.append(',');
+            out.append(String.format(Locale.ROOT, "{\"rpm\":%.1f,\"speedKmh\":%.1f}", copyRpm[i],
+                copySpeed[i] / SessionLogWriter.PIXELS_PER_METER * 3.6f));
+        }
+        out.append("],\"seq\":").append(copyVersion).append('}');
+        return out.toString();
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        if (value == null) value = "";
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') out.append('\\').append(c);
+            else if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+            else out.append(c);
+        }
+        out.append('"');
+    }
+
+    /** Cabeçalho do pedido quando já chegou inteiro; null se ainda falta. */
+    private static String requestHead(ByteBuffer request) {
+        byte[] bytes = request.array();
+        int length = request.position();
+        for (int i = 3; i < length; i++) {
+            if (bytes[i - 3] == '\r' && bytes[i - 2] == '\n' && bytes[i - 1] == '\r' && bytes[i] == '\n') {
+                return new String(bytes, 0, i + 1, StandardCharsets.US_ASCII);
+            }
+        }
+        return null;
+    }
+
+    /** Valor do campo {@code name} do cabeçalho (sem diferenciar maiúsculas), ou null. */
+    private static String headerValue(String head, String name) {
+        for (String line : head.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase(name)) {
+                return line.substring(colon + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    /** Libera CORS só para uma origem da lista, ecoando-a (nunca {@code *}). */
+    private String corsHeaders(String origin) {
+        if (origin == null || !allowedOrigins.contains(normalizeOrigin(origin))) return "";
+        return "Access-Control-Allow-Origin: " + origin + "\r\nVary: Origin\r\n";
+    }
+
+    private static String normalizeOrigin(String origin) {
+        String normalized = origin.trim().toLowerCase(Locale.ROOT);
+        while (normalized.endsWith("/")) normalized = normalized.substring(0, normalized.length() - 1);
+        return normalized;
+    }
+
+    private static byte[] response(String status, String contentType, String extraHeaders, byte[] body) {
+        byte[] head = ("HTTP/1.1 " + status + "\r\nContent-Type: " + contentType + "\r\nContent-Length: " + body.length
+            + "\r\n" + extraHeaders + "Cache-Control: no-cache\r\nConnection: close\r\n\r\n")
+            .getBytes(StandardCharsets.US_ASCII);
+        byte[] bytes = new byte[head.length + body.length];
+        System.arraycopy(head, 0, bytes, 0, head.length);
+        System.arraycopy(body, 0, bytes, head.length, body.length);
+        return bytes;
+    }
+
+    private void drop(Watcher watcher) {
+        watchers.remove(watcher);
+        closeQuietly(watcher.channel);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
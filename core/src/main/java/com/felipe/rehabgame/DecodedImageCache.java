@@ -0,0 +1,343 @@
+package com.felipe.rehabgame;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.glutils.PixmapTextureData;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Cache de imagens já decodificadas, para não descomprimir PNG a cada inicialização.
+ *
+ * Na primeira vez que uma imagem é carregada, os pixels decodificados (RGBA8888 ou RGB888, exatamente o
+ * que o decodificador de PNG produz) são gravados em {@code decoded-cache/} nos dados locais ({@link LocalData}), com
+ * o tamanho e a data de modificação do arquivo de origem no cabeçalho. Nas próximas execuções o arquivo é
+ * mapeado em memória e enviado direto para a GPU, sem passar por um Pixmap e sem nem abrir o PNG. Se a imagem
+ * de origem mudar, tamanho ou data não batem e o cache é refeito. Imagens lidas de dentro do jar não têm data;
+ * para elas vale o CRC do conteúdo.
+ *
+ * O cabeçalho é conferido com uma leitura pequena antes de mapear, e o cache refeito é gravado num arquivo
+ * temporário e renomeado por cima do antigo: um arquivo de cache nunca é truncado nem fica pela metade (no
+ * Windows, truncar falha enquanto houver um mapeamento aberto).
+ */
+public class DecodedImageCache {
+
+    private static final int MAGIC = 0x52525058; // "RRPX"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 40;
+
+    // Origem de cada imagem já vista nesta execução: reler o cache depois não consulta o arquivo de novo
+    private final Map<String, Source> sources = new HashMap<>();
+    private int hits = 0;
+    private int misses = 0;
+    private long loadNanos = 0L;
+
+    /**
+     * Pixels da imagem prontos para virar textura, sem enviá-los ainda (quem cria a textura confere o
+     * orçamento de VRAM antes): o cache mapeado quando válido; senão decodifica e grava o cache.
+     */
+    public TextureData loadData(String path) {
+        long start = System.nanoTime();
+        try {
+            Source source = source(path);
+            FileHandle cached = cacheFile(path);
+
+            MappedPixels mapped = mapIfValid(cached, source);
+            if (mapped != null) {
+                hits++;
+                return new MappedTextureData(mapped);
+            }
+
+            misses++;
+            byte[] encoded = source.encoded();
+            Pixmap pixmap = new Pixmap(encoded, 0, encoded.length);
+            write(cached, source, pixmap);
+            // A textura descarta o Pixmap depois do envio
+            return new PixmapTextureData(pixmap, null, false, true);
+        } finally {
+            loadNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Cópia dos pixels da imagem num Pixmap novo (o chamador descarta), para processar na CPU. Vem do cache
+     * mapeado quando válido, sem decodificar.
+     */
+    public Pixmap loadPixmap(String path) {
+        long start = System.nanoTime();
+        try {
+            Source source = source(path);
+            FileHandle cached = cacheFile(path);
+
+            MappedPixels mapped = mapIfValid(cached, source);
+            if (mapped != null) {
+                hits++;
+                Pixmap pixmap = new Pixmap(mapped.width, mapped.height, mapped.format);
+                ByteBuffer pixels = pixmap.getPixels();
+                pixels.position(0);
+                pixels.put(mapped.pixels.duplicate());
+                pixels.position(0);
+                return pixmap;
+            }
+
+            misses++;
+            byte[] encoded = source.encoded();
+            Pixmap pixmap = new Pixmap(encoded, 0, encoded.length);
+            write(cached, source, pixmap);
+            return pixmap;
+        } finally {
+            loadNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Garante que o cache de {@code path} está atualizado sem criar texturas (não precisa de contexto GL).
+     * Usado pela etapa de build que pré-decodifica os assets. Retorna true se o cache foi (re)escrito.
+     */
+    public boolean ensureCached(String path) {
+        Source source = new Source(Gdx.files.internal(path));
+        FileHandle cached = cacheFile(path);
+        if (headerMatches(cached, source)) return false;
+
+        byte[] encoded = source.encoded();
+        Pixmap pixmap = new Pixmap(encoded, 0, encoded.length);
+        try {
+            write(cached, source, pixmap);
+        } finally {
+            pixmap.dispose();
+        }
+        return true;
+    }
+
+    public String describeStats() {
+        return "Imagens: " + (hits + misses) + " (" + hits + " do cache decodificado) em "
+            + (loadNanos / 1_000_000L) + " ms";
+    }
+
+    private static FileHandle cacheFile(String path) {
+        return LocalData.file(LocalData.DECODED_CACHE, path.replace('/', '_').replace('\\', '_') + ".px");
+    }
+
+    private Source source(String path) {
+        Source source = sources.get(path);
+        if (source == null) {
+            source = new Source(Gdx.files.internal(path));
+            sources.put(path, source);
+        }
+        return source;
+    }
+
+    /** Mapeia os pixels do arquivo de cache prontos para envio, ou null se ausente ou desatualizado. */
+    private static MappedPixels mapIfValid(FileHandle cached, Source source) {
+        if (!cached.exists()) return null;
+
+        try (FileChannel channel = FileChannel.open(cached.file().toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = readValidHeader(channel, source);
+            if (header == null) return null;
+
+            int width = header.getInt(24);
+            int height = header.getInt(28);
+            Pixmap.Format format = Pixmap.Format.values()[header.getInt(32)];
+            int pixelBytes = header.getInt(36);
+            // Só os pixels: o mapeamento continua válido depois que o canal fecha
+            ByteBuffer pixels = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, pixelBytes);
+            return new MappedPixels(pixels, width, height, format);
+        } catch (IOException e) {
+            System.err.println("Cache de imagem ilegível, refazendo: " + cached.path());
+            return null;
+        }
+    }
+
+    /** Confere só o cabeçalho, sem mapear nada (a etapa de build não precisa dos pixels). */
+    private static boolean headerMatches(FileHandle cached, Source source) {
+        if (!cached.exists()) return false;
+
+        try (FileChannel channel = FileChannel.open(cached.file().toPath(), StandardOpenOption.READ)) {
+            return readValidHeader(channel, source) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Lê o cabeçalho do início do arquivo; null se for de outra versão, de outra origem ou estiver truncado. */
+    private static ByteBuffer readValidHeader(FileChannel channel, Source source) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) return null;
+        }
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) return null;
+        if (header.getLong(8) != source.length || header.getLong(16) != source.stamp) return null;
+        int formatOrdinal = header.getInt(32);
+        int pixelBytes = header.getInt(36);
+        if (formatOrdinal < 0 || formatOrdinal >= Pixmap.Format.values().length || pixelBytes < 0) return null;
+        if (channel.size() != (long) HEADER_BYTES + pixelBytes) return null;
+        return header;
+    }
+
+    /**
+     * Grava o cache num temporário ao lado e o renomeia por cima do antigo. Se o rename falhar (no Windows,
+     * quando outro processo ainda mapeia o arquivo antigo), o cache antigo fica e a próxima execução tenta de novo.
+     */
+    private static void write(FileHandle cached, Source source, Pixmap pixmap) {
+        ByteBuffer pixels = pixmap.getPixels();
+        pixels.position(0);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(source.length).putLong(source.stamp)
+            .putInt(pixmap.getWidth()).putInt(pixmap.getHeight())
+            .putInt(pixmap.getFormat().ordinal()).putInt(pixels.remaining());
+        header.position(0);
+        Path target = cached.file().toPath();
+        Path temp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) channel.write(header);
+                while (pixels.hasRemaining()) channel.write(pixels);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temp = null;
+        } catch (IOException e) {
+            // Sem armazenamento gravável: segue sem cache, só perde o ganho na próxima execução
+            System.err.println("Não foi possível gravar o cache de " + cached.path() + ": " + e.getMessage());
+        } finally {
+            pixels.position(0);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // sobra um .tmp na pasta do cache; não atrapalha a leitura
+                }
+            }
+        }
+    }
+
+    /**
+     * Arquivo de origem e a chave que invalida o cache: tamanho e data de modificação, sem ler o conteúdo.
+     * Dentro do jar não há data (lastModified() é 0); aí a chave é o CRC32 do conteúdo.
+     */
+    private static final class Source {
+        final FileHandle file;
+        final long length;
+        final long stamp;
+        private byte[] encoded;
+
+        Source(FileHandle file) {
+            this.file = file;
+            long modified = file.lastModified();
+            if (modified > 0L) {
+                length = file.length();
+                stamp = modified;
+            } else {
+                encoded = file.readBytes();
+                CRC32 crc = new CRC32();
+                crc.update(encoded, 0, encoded.length);
+                length = encoded.length;
+                stamp = crc.getValue();
+            }
+        }
+
+        /** Conteúdo codificado (PNG/JPEG), lido só quando é preciso decodificar; não fica guardado depois. */
+        byte[] encoded() {
+            byte[] bytes = encoded != null ? encoded : file.readBytes();
+            encoded = null;
+            return bytes;
+        }
+    }
+
+    /** Pixels mapeados e seus metadados. */
+    private static final class MappedPixels {
+        final ByteBuffer pixels;
+        final int width;
+        final int height;
+        final Pixmap.Format format;
+
+        MappedPixels(ByteBuffer pixels, int width, int height, Pixmap.Format format) {
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.format = format;
+        }
+    }
+
+    /** TextureData que envia os pixels mapeados com um único glTexImage2D. */
+    private static final class MappedTextureData implements TextureData {
+        private final MappedPixels mapped;
+
+        MappedTextureData(MappedPixels mapped) {
+            this.mapped = mapped;
+        }
+
+        @Override
+        public TextureDataType getType() {
+            return TextureDataType.Custom;
+        }
+
+        @Override
+        public boolean isPrepared() {
+            return true;
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public Pixmap consumePixmap() {
+            throw new GdxRuntimeException("MappedTextureData envia os pixels direto (consumeCustomData)");
+        }
+
+        @Override
+        public boolean disposePixmap() {
+            return false;
+        }
+
+        @Override
+        public void consumeCustomData(int target) {
+            int glFormat = Pixmap.Format.toGlFormat(mapped.format);
+            int glType = Pixmap.Format.toGlType(mapped.format);
+            Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+            Gdx.gl.glTexImage2D(target, 0, glFormat, mapped.width, mapped.height, 0, glFormat, glType, mapped.pixels);
+        }
+
+        @Override
+        public int getWidth() {
+            return mapped.width;
+        }
+
+        @Override
+        public int getHeight() {
+            return mapped.height;
+        }
+
+        @Override
+        public Pixmap.Format getFormat() {
+            return mapped.format;
+        }
+
+        @Override
+        public boolean useMipMaps() {
+            return false;
+        }
+
+        @Override
+        public boolean isManaged() {
+            return false;
+        }
+    }
+}
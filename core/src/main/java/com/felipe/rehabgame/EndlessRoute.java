@@ -0,0 +1,159 @@
+package com.felipe.rehabgame;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Percurso infinito transmitido em chunks.
+ *
+ * Mantém uma janela fixa de {@link #SLOTS} chunks em um único {@link LevelData}. Uma thread em segundo plano
+ * gera os próximos chunks com o {@link RouteGenerator}; quando o jogador entra no terceiro slot, a janela é
+ * deslocada um chunk para a esquerda (o chunk atrás da câmera é descartado) e o chunk seguinte é copiado no
+ * final. As coordenadas do mundo também são deslocadas, então posições continuam pequenas mesmo após horas.
+ * O quadro nunca espera pela thread geradora: se o próximo chunk ainda não estiver pronto, o deslocamento fica
+ * para um quadro seguinte. O jogador ainda tem o slot 3 inteiro à frente, e com {@link #PREFETCH} chunks
+ * prontos a espera não chega a aparecer.
+ *
+ * Memória constante: a janela e os buffers dos chunks são alocados uma vez e reaproveitados.
+ */
+public class EndlessRoute {
+
+    public static final int SLOTS = 4;
+    /** Quantos chunks prontos a thread geradora mantém à frente do jogador. */
+    private static final int PREFETCH = 2;
+
+    /** Chunk gerado em segundo plano; circula entre as filas livre e pronta. */
+    private static class Chunk {
+        long index;
+        final int[][] tiles = new int[RouteGenerator.ROWS][RouteGenerator.CHUNK_COLS];
+    }
+
+    private final RouteGenerator generator;
+    private final LevelData window;
+    private final float chunkWidthPx;
+
+    private final BlockingQueue<Chunk> freeChunks = new ArrayBlockingQueue<>(PREFETCH);
+    private final BlockingQueue<Chunk> readyChunks = new ArrayBlockingQueue<>(PREFETCH);
+    private Thread generatorThread;
+    private volatile boolean running = false;
+
+    /** Índice do chunk que ocupa o slot 0 da janela. */
+    private long firstChunkIndex = 0L;
+
+    public EndlessRoute(long seed, float tileSize) {
+        this.generator = new RouteGenerator(seed);
+        this.window = new LevelData(SLOTS * RouteGenerator.CHUNK_COLS, RouteGenerator.ROWS, tileSize);
+        this.chunkWidthPx = RouteGenerator.CHUNK_COLS * tileSize;
+        for (int i = 0; i < PREFETCH; i++) {
+            freeChunks.add(new Chunk());
+        }
+    }
+
+    /** Inicia a geração e preenche a janela com os primeiros chunks. Retorna a janela como fase atual. */
+    public LevelData start() {
+        running = true;
+        generatorThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                generateLoop();
+            }
+        }, "endless-route-generator");
+        generatorThread.setDaemon(true);
+        generatorThread.start();
+
+        // Aqui ainda é carregamento: esperar pelos primeiros chunks é aceitável
+        for (int slot = 0; slot < SLOTS; slot++) {
+            Chunk chunk;
+            try {
+                chunk = readyChunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            copyChunkInto(chunk, slot);
+        }
+        firstChunkIndex = 0L;
+
+        // Spawn do primeiro chunk (linha, coluna) guardado como no LevelLoader
+        window.playerSpawn.set(1 * window.tileSize, (RouteGenerator.SURFACE_ROW - 1) * window.tileSize);
+        window.timeLimit = 0f;
+
+        System.out.println("Modo infinito iniciado (semente " + generator.getSeed() + ")");
+        return window;
+    }
+
+    private void generateLoop() {
+        long nextIndex = 0L;
+        try {
+            while (running) {
+                Chunk chunk = freeChunks.take();
+                chunk.index = nextIndex++;
+                generator.generateChunk(chunk.index, chunk.tiles);
+                readyChunks.put(chunk);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Desloca a janela quando o jogador entra no slot 2.
+     * Retorna o deslocamento em pixels a ser subtraído das coordenadas X do mundo (0 se nada mudou, inclusive
+     * quando o próximo chunk ainda não está pronto; nesse caso tenta de novo no próximo quadro).
+     */
+    public float update(float playerX) {
+        if (playerX < 2 * chunkWidthPx) {
+            return 0f;
+        }
+        Chunk next = readyChunks.poll();
+        if (next == null) {
+            return 0f;
+        }
+
+        int keep = (SLOTS - 1) * RouteGenerator.CHUNK_COLS;
+        for (int row = 0; row < window.height; row++) {
+            System.arraycopy(window.tiles[row], RouteGenerator.CHUNK_COLS, window.tiles[row], 0, keep);
+        }
+        copyChunkInto(next, SLOTS - 1);
+        firstChunkIndex++;
+
+        // Renascer no início do chunk em que o jogador está agora (sempre começa em chão plano)
+        window.playerSpawn.set((RouteGenerator.CHUNK_COLS + 1) * window.tileSize,
+            (RouteGenerator.SURFACE_ROW - 1) * window.tileSize);
+        return chunkWidthPx;
+    }
+
+    /** Copia o chunk no slot e devolve o buffer para a thread geradora. */
+    private void copyChunkInto(Chunk chunk, int slot) {
+        int startCol = slot * RouteGenerator.CHUNK_COLS;
+        for (int row = 0; row < RouteGenerator.ROWS; row++) {
+            System.arraycopy(chunk.tiles[row], 0, window.tiles[row], startCol, RouteGenerator.CHUNK_COLS);
+        }
+        freeChunks.offer(chunk);
+    }
+
+    public LevelData getWindow() {
+        return window;
+    }
+
+    public float getChunkWidthPx() {
+        return chunkWidthPx;
+    }
+
+    /** Índice absoluto do chunk em que o jogador está (slot 1 após o primeiro deslocamento). */
+    public long getCurrentChunkIndex(float playerX) {
+        return firstChunkIndex + (long) (playerX / chunkWidthPx);
+    }
+
+    public long getSeed() {
+        return generator.getSeed();
+    }
+
+    public void dispose() {
+        running = false;
+        if (generatorThread != null) {
+            generatorThread.interrupt();
+            generatorThread = null;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.felipe.rehabgame;
+
+import com.badlogic.gdx.Gdx;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.Locale;
+
+/**
+ * Política de ritmo de quadros.
+ *
+ * Durante o jogo a renderização é contínua (taxa cheia). Em menus (pausa, game over, vitória) a renderização
+ * contínua é desligada: o backend só chama render() quando chega um evento de entrada (teclado/mouse), o que
+ * basta para redesenhar o menu.
+ *
+ * Também mede o uso médio de CPU do processo em cada fase (jogo / menu) e imprime ao trocar de fase. Com
+ * {@code --always-render} a política fica desligada (menus a taxa cheia, como antes) e só a medição continua;
+ * a tarefa Gradle {@code idleCpuBenchmark} roda o menu de pausa nos dois modos e compara essas medições.
+ */
+public class FramePacer {
+
+    private final boolean onDemandMenus;
+    private boolean interactive = true;
+    private boolean continuous = true;
+
+    private long phaseStartWallNs;
+    private long phaseStartCpuNs;
+
+    public FramePacer(boolean onDemandMenus) {
+        this.onDemandMenus = onDemandMenus;
+        phaseStartWallNs = System.nanoTime();
+        phaseStartCpuNs = processCpuTimeNs();
+    }
+
+    /**
+     * Aplica a política para o estado atual. Deve ser chamado uma vez por quadro.
+     * Retorna true quando o modo mudou neste quadro.
+     */
+    public boolean update(boolean interactive) {
+        if (interactive == this.interactive) {
+            return false;
+        }
+
+        reportPhase(this.interactive ? "jogo" : "menu");
+        this.interactive = interactive;
+        if (!onDemandMenus) {
+            return true;
+        }
+        continuous = interactive;
+        Gdx.graphics.setContinuousRendering(continuous);
+        if (!continuous) {
+            // Garante um último quadro para desenhar o menu recém-aberto
+            Gdx.graphics.requestRendering();
+        }
+        return true;
+    }
+
+    public boolean isContinuous() {
+        return continuous;
+    }
+
+    /**
+     * Fecha a medição do menu aberto por {@code --idle-benchmark} e imprime a linha "IDLE_CPU_PERCENT=..." lida
+     * pela tarefa {@code idleCpuBenchmark}.
+     */
+    public void finishIdleBenchmark() {
+        double cpuPercent = reportPhase(interactive ? "jogo" : "menu");
+        System.out.println(String.format(Locale.ROOT, "IDLE_CPU_PERCENT=%.2f PACING=%s", cpuPercent,
+            onDemandMenus ? "on-demand" : "continuous"));
+    }
+
+    /** Imprime e devolve o CPU médio da fase que termina (em % de todos os núcleos; -1 se indisponível). */
+    private double reportPhase(String phaseName) {
+        long nowWallNs = System.nanoTime();
+        long nowCpuNs = processCpuTimeNs();
+        long wallNs = nowWallNs - phaseStartWallNs;
+
+        double cpuPercent = -1.0;
+        if (wallNs > 0L && nowCpuNs >= 0L && phaseStartCpuNs >= 0L) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            cpuPercent = 100.0 * (nowCpuNs - phaseStartCpuNs) / (double) wallNs / cores;
+            System.out.println(String.format("CPU médio (%s): %.1f%% em %.1f s", phaseName, cpuPercent, wallNs / 1e9));
+        }
+
+        phaseStartWallNs = nowWallNs;
+        phaseStartCpuNs = nowCpuNs;
+        return cpuPercent;
+    }
+
+    /** Tempo de CPU do processo em ns, ou -1 se a JVM não expõe essa medida. */
+    private static long processCpuTimeNs() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1L;
+    }
+}
@@ -0,0 +1,57 @@
+package com.felipe.rehabgame;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Ponte do {@link FrameTracer} para o JDK Flight Recorder, isolada numa classe própria para o resto do jogo
+ * carregar mesmo numa JVM sem {@code jdk.jfr}. Só cria eventos enquanto uma gravação os tiver habilitado
+ * (ex.: {@code -XX:StartFlightRecording}); fora disso custa uma leitura de flag por fase.
+ */
+final class FrameTraceJfr {
+
+    @Name("com.felipe.rehabgame.FramePhase")
+    @Label("Frame Phase")
+    @Category("RehabGame")
+    @StackTrace(false)
+    static class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Frame")
+        int frame;
+
+        @Label("Phase Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long phaseDuration;
+    }
+
+    private final EventType type = EventType.getEventType(PhaseEvent.class);
+
+    private FrameTraceJfr() {
+    }
+
+    /** null se a JVM não tem o Flight Recorder. */
+    static FrameTraceJfr createIfAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return new FrameTraceJfr();
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    void emit(FrameTracer.Phase phase, int frame, long durationNs) {
+        if (!type.isEnabled()) return;
+        PhaseEvent event = new PhaseEvent();
+        event.phase = phase.label;
+        event.frame = frame;
+        event.phaseDuration = durationNs;
+        event.commit();
+    }
+}
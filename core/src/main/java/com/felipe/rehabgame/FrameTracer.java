@@ -0,0 +1,170 @@
+package com.felipe.rehabgame;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Registro das fases de cada quadro (e do carregamento) para descobrir de onde vem um engasgo.
+ *
+ * Cada fase é medida com {@code long t = tracer.begin(); ...; tracer.end(Phase.X, t);}: dois
+ * {@link System#nanoTime()} e quatro escritas em arrays pré-alocados, sem alocar. Os eventos ficam num buffer
+ * circular com os últimos {@link #getCapacity()} registros e são exportados sob demanda no formato de eventos
+ * do Chrome (abre em chrome://tracing ou ui.perfetto.dev). Com uma gravação JFR ativa cada fase também vira um
+ * evento {@code com.felipe.rehabgame.FramePhase}. Desligado, {@link #begin()} devolve 0 e {@link #end} retorna
+ * na primeira comparação.
+ *
+ * As fases de desenho medem o tempo de CPU para montar e enviar os comandos; o trabalho da GPU aparece
+ * somado na fase em que o driver bloquear (em geral a troca de buffers, fora do quadro).
+ *
+ * Usado só pela thread de render.
+ */
+public class FrameTracer {
+
+    public enum Phase {
+        FRAME("frame"),
+        INPUT("entrada"),
+        PHYSICS("física e colisão"),
+        PARTICLES("partículas"),
+        GHOST("fantasma"),
+        NETWORK("rede"),
+        ENDLESS_STREAM("chunks do modo infinito"),
+        FLAG_CHECK("bandeira"),
+        WORLD_RENDER("mundo"),
+        PARALLAX("parallax"),
+        LEVEL_DRAW("fase"),
+        RIDERS_DRAW("ciclistas"),
+        HUD("HUD"),
+        MENU("menu"),
+        WORLD_SNAPSHOT("quadro congelado"),
+        LOAD_ASSETS("loadAssets"),
+        LOAD_LEVEL("carregar fase"),
+        LEVEL_PARSE("ler fase"),
+        BUILD_LEVEL_CACHE("buildLevelCache");
+
+        public final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    public static final int DEFAULT_CAPACITY = 1 << 15;
+    private static final Phase[] PHASES = Phase.values();
+
+    private final boolean enabled;
+    private final int mask;
+    private final byte[] phases;
+    private final long[] starts;
+    private final long[] durations;
+    private final int[] frames;
+    private long written;
+    private int frame;
+    private final FrameTraceJfr jfr;
+
+    /** {@code capacity} é arredondada para a próxima potência de 2. */
+    public FrameTracer(boolean enabled, int capacity) {
+        this.enabled = enabled;
+        int size = enabled ? Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) : 1;
+        this.mask = size - 1;
+        this.phases = new byte[size];
+        this.starts = new long[size];
+        this.durations = new long[size];
+        this.frames = new int[size];
+        this.jfr = enabled ? createJfr() : null;
+    }
+
+    /**
+     * Exportador JFR, ou null. Carregar a própria FrameTraceJfr já falha (NoClassDefFoundError) num runtime
+     * sem o módulo jdk.jfr, antes do teste dentro de createIfAvailable; nesse caso fica só o trace do Chrome.
+     */
+    private static FrameTraceJfr createJfr() {
+        try {
+            return FrameTraceJfr.createIfAvailable();
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getCapacity() {
+        return enabled ? mask + 1 : 0;
+    }
+
+    /** Início de uma fase; passar o valor para {@link #end}. */
+    public long begin() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void end(Phase phase, long startNs) {
+        if (startNs == 0L) return;
+        long durationNs = System.nanoTime() - startNs;
+        int i = (int) (written++ & mask);
+        phases[i] = (byte) phase.ordinal();
+        starts[i] = startNs;
+        durations[i] = durationNs;
+        frames[i] = frame;
+        if (jfr != null) jfr.emit(phase, frame, durationNs);
+    }
+
+    /** Marca o começo de um quadro novo (os eventos levam o número do quadro). */
+    public void nextFrame() {
+        frame++;
+    }
+
+    /** Número de eventos no buffer (no máximo a capacidade). */
+    public int size() {
+        return (int) Math.min(written, getCapacity());
+    }
+
+    /** Grava os eventos do buffer, do mais antigo ao mais novo, como JSON de eventos do Chrome. */
+    public void writeChromeTrace(Writer out) throws IOException {
+        int count = size();
+        long first = written - count;
+        long originNs = Long.MAX_VALUE;
+        for (long n = first; n < written; n++) {
+            originNs = Math.min(originNs, starts[(int) (n & mask)]);
+        }
+        StringBuilder line = new StringBuilder(160);
+        out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        out.write("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":1,\"args\":{\"name\":\"RehabGame\"}},\n");
+        out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":1,\"args\":{\"name\":\"render\"}}");
+        for (long n = first; n < written; n++) {
+            int i = (int) (n & mask);
+            line.setLength(0);
+            line.append(",\n{\"name\":\"").append(PHASES[phases[i]].label)
+                .append("\",\"cat\":\"").append(PHASES[phases[i]].name().toLowerCase(Locale.ROOT))
+                .append("\",\"ph\":\"X\",\"pid\":1,\"tid\":1,\"ts\":").append((starts[i] - originNs) / 1000.0)
+                .append(",\"dur\":").append(durations[i] / 1000.0)
+                .append(",\"args\":{\"frame\":").append(frames[i]).append("}}");
+            out.write(line.toString());
+        }
+        out.write("\n]}\n");
+    }
+
+    /** Resumo por fase do que está no buffer: ocorrências, média e máximo. */
+    public String describe() {
+        int[] counts = new int[PHASES.length];
+        long[] totals = new long[PHASES.length];
+        long[] maxima = new long[PHASES.length];
+        int count = size();
+        for (long n = written - count; n < written; n++) {
+            int i = (int) (n & mask);
+            int p = phases[i];
+            counts[p]++;
+            totals[p] += durations[i];
+            maxima[p] = Math.max(maxima[p], durations[i]);
+        }
+        StringBuilder text = new StringBuilder("Fases registradas (últimos " + count + " eventos):");
+        for (Phase phase : PHASES) {
+            int p = phase.ordinal();
+            if (counts[p] == 0) continue;
+            text.append(String.format("%n  %-24s %6d x  média %7.3f ms  máx %8.3f ms", phase.label, counts[p],
+                totals[p] / (counts[p] * 1_000_000.0), maxima[p] / 1_000_000.0));
+        }
+        return text.toString();
+    }
+}
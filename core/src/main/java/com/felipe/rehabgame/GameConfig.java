@@ -0,0 +1,252 @@
+package com.felipe.rehabgame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opções de execução do jogo, normalmente lidas dos argumentos de linha de comando pelo launcher.
+ *
+ * Argumentos reconhecidos:
+ * --endless [semente]          modo infinito com percurso gerado a partir da semente (padrão: aleatória)
+ * --pack nome                  pacote de fases em levels/nome.pack (padrão: main; editor = cenas do Hyperlap2D)
+ * --startup-profile nome       rótulo do perfil de inicialização impresso junto com o tempo até o primeiro quadro
+ * --exit-after-first-frame     fecha o jogo logo após o primeiro quadro (medições e treino do AppCDS)
+ * --idle-benchmark S           abre o menu de pausa no primeiro quadro, mede o CPU por S segundos e fecha o jogo
+ * --always-render              redesenha os menus a taxa cheia, sem o ritmo sob demanda (para comparar o CPU)
+ * --vram-budget-mb N           orçamento estimado de memória de GPU para texturas e caches (padrão: 160)
+ * --no-image-cache             decodifica as imagens a cada execução, sem o cache de pixels (para comparar a partida)
+ * --two-riders                 corrida local de dois ciclistas com a tela dividida (ESPAÇO e SHIFT direito pedalam)
+ * --host [porta]               hospeda uma corrida em rede (padrão: 7777); a simulação de todos roda aqui
+ * --join endereço[:porta]      entra na corrida hospedada em outro computador
+ * --snapshot-rate N            snapshots por segundo do host para cada cliente (padrão: 20)
+ * --interp-delay-ms N          atraso com que o cliente desenha os outros ciclistas, para interpolar (padrão: 100)
+ * --no-ghost                   não grava nem mostra o fantasma da melhor volta
+ * --patient id                 paciente a quem as sessões jogadas são atribuídas no progresso (padrão: local)
+ * --no-session-log             não grava o registro quadro a quadro da sessão em sessions/ (relatórios dos terapeutas)
+ * --csc-udp porta              recebe notificações do sensor de cadência (CSC Measurement do Bluetooth) por UDP
+ * --csc-record arquivo         grava as notificações recebidas por --csc-udp para reproduzir depois
+ * --csc-replay arquivo         reproduz uma gravação CSC em loop no lugar do sensor
+ * --no-trace                   desliga o registro das fases de cada quadro (F9 exporta o registro para traces/)
+ * --trace-events N             eventos guardados no buffer circular do registro (padrão: 32768)
+ * --level-cache-mb N           memória para manter fases jogadas prontas para voltar (padrão: 128)
+ * --render-scale X|auto        resolução do mundo em fração da tela, de 0.25 a 1 (o HUD fica nativo); auto
+ *                              ajusta sozinho para manter --target-fps (padrão: 1)
+ * --target-fps N               taxa que a escala automática tenta manter (padrão: 60)
+ * --dashboard [porta]          painel do terapeuta: página e estado ao vivo por HTTP/SSE (padrão: 7780)
+ * --dashboard-rate N           atualizações por segundo enviadas ao painel (padrão: 5)
+ * --dashboard-bind endereço    endereço em que o painel escuta (padrão: só loopback; 0.0.0.0 abre para a rede)
+ * --dashboard-origins a,b      origens que podem ler o painel de outra página (ex.: http://192.168.0.12:7780)
+ * --particles N                máximo de partículas de poeira e respingo ao mesmo tempo (padrão: 1024; 0 desliga)
+ */
+public class GameConfig {
+    public boolean endless = false;
+    public long endlessSeed = 0L;
+    public String levelPack = "main";
+
+    public String startupProfile = "default";
+    public boolean exitAfterFirstFrame = false;
+    /** Instante em que o launcher começou (fallback quando o início da JVM não está disponível). */
+    public long launchTimeMs = System.currentTimeMillis();
+    /** Segundos no menu de pausa antes de imprimir o CPU e sair; 0 fora da medição. */
+    public int idleBenchmarkSeconds = 0;
+    public boolean onDemandMenus = true;
+
+    // Cabe com folga em GPUs integradas de 512 MB, que dividem essa memória com o sistema
+    public int vramBudgetMb = 160;
+
+    public boolean decodedImageCache = true;
+
+    public boolean twoRiders = false;
+
+    public static final int DEFAULT_NET_PORT = 7777;
+    public boolean netHost = false;
+    /** Endereço do host ao entrar numa corrida em rede; null fora dela. */
+    public String netJoinHost = null;
+    public int netPort = DEFAULT_NET_PORT;
+    public int snapshotRateHz = 20;
+    // Dois intervalos de snapshot: um pacote perdido ainda deixa um par para interpolar
+    public int interpolationDelayMs = 100;
+
+    public boolean ghost = true;
+
+    public String patientId = "local";
+    public boolean sessionLog = true;
+
+    /** Porta UDP do sensor CSC do ciclista 1; 0 sem sensor. */
+    public int cscUdpPort = 0;
+    public String cscRecordFile = null;
+    public String cscReplayFile = null;
+
+    public boolean trace = true;
+    public int traceEvents = FrameTracer.DEFAULT_CAPACITY;
+
+    // As três fases do pacote principal com seus framebuffers (~120 MB); sob pressão de VRAM os
+    // framebuffers das fases fora de jogo são devolvidos antes de qualquer outra coisa visível
+    public int levelCacheMb = 128;
+
+    public int particleBudget = 1024;
+
+    public boolean dashboard = false;
+    public int dashboardPort = DashboardServer.DEFAULT_PORT;
+    public int dashboardRateHz = 5;
+    /** Null: só loopback. Outro endereço expõe o estado do paciente na rede, então é sempre explícito. */
+    public String dashboardBind = null;
+    public final List<String> dashboardOrigins = new ArrayList<>();
+
+    public float renderScale = 1f;
+    public boolean renderScaleAuto = false;
+    public int targetFps = 60;
+
+    public static GameConfig fromArgs(String[] args) {
+        GameConfig config = new GameConfig();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--endless".equals(arg)) {
+                config.endless = true;
+                config.endlessSeed = System.nanoTime();
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    try {
+                        config.endlessSeed = Long.parseLong(args[i + 1]);
+                        i++;
+                    } catch (NumberFormatException e) {
+                        System.err.println("Semente inválida: " + args[i + 1]);
+                    }
+                }
+            } else if ("--pack".equals(arg) && i + 1 < args.length) {
+                config.levelPack = args[++i];
+            } else if ("--startup-profile".equals(arg) && i + 1 < args.length) {
+                config.startupProfile = args[++i];
+            } else if ("--exit-after-first-frame".equals(arg)) {
+                config.exitAfterFirstFrame = true;
+            } else if ("--idle-benchmark".equals(arg) && i + 1 < args.length) {
+                try {
+                    config.idleBenchmarkSeconds = Math.max(1, Integer.parseInt(args[++i]));
+                } catch (NumberFormatException e) {
+                    System.err.println("Duração da medição inválida: " + args[i]);
+                }
+            } else if ("--always-render".equals(arg)) {
+                config.onDemandMenus = false;
+            } else if ("--vram-budget-mb".equals(arg) && i + 1 < args.length) {
+                try {
+                    config.vramBudgetMb = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Orçamento de VRAM inválido: " + args[i]);
+                }
+            } else if ("--no-image-cache".equals(arg)) {
+                config.decodedImageCache = false;
+            } else if ("--two-riders".equals(arg)) {
+                config.twoRiders = true;
+            } else if ("--host".equals(arg)) {
+                config.netHost = true;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    config.netPort = parsePort(args[++i]);
+                }
+            } else if ("--join".equals(arg) && i + 1 < args.length) {
+                String address = args[++i];
+                int colon = address.lastIndexOf(':');
+                if (colon > 0) {
+                    config.netJoinHost = address.substring(0, colon);
+                    config.netPort = parsePort(address.substring(colon + 1));
+                } else {
+                    config.netJoinHost = address;
+                }
+            } else if ("--no-ghost".equals(arg)) {
+                config.ghost = false;
+            } else if ("--patient".equals(arg) && i + 1 < args.length) {
+                config.patientId = args[++i];
+            } else if ("--no-session-log".equals(arg)) {
+                config.sessionLog = false;
+            } else if ("--csc-udp".equals(arg) && i + 1 < args.length) {
+                try {
+                    config.cscUdpPort = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Porta do sensor CSC inválida: " + args[i]);
+                }
+            } else if ("--csc-record".equals(arg) && i + 1 < args.length) {
+                config.cscRecordFile = args[++i];
+            } else if ("--csc-replay".equals(arg) && i + 1 < args.length) {
+                config.cscReplayFile = args[++i];
+            } else if ("--level-cache-mb".equals(arg) && i + 1 < args.length) {
+                try {
+                    config.levelCacheMb = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Orçamento do cache de fases inválido: " + args[i]);
+                }
+            } else if ("--render-scale".equals(arg) && i + 1 < args.length) {
+                String value = args[++i];
+                if ("auto".equalsIgnoreCase(value)) {
+                    config.renderScaleAuto = true;
+                } else {
+                    try {
+                        config.renderScale = Float.parseFloat(value);
+                    } catch (NumberFormatException e) {
+                        System.err.println("Escala de render inválida: " + value);
+                    }
+                }
+            } else if ("--target-fps".equals(arg) && i + 1 < args.length) {
+                try {
+                    config.targetFps = Math.max(1, Integer.parseInt(args[++i]));
+                } catch (NumberFormatException e) {
+                    System.err.println("Taxa de quadros alvo inválida: " + args[i]);
+                }
+            } else if ("--dashboard".equals(arg)) {
+                config.dashboard = true;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    try {
+                        config.dashboardPort = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        System.err.println("Porta do painel inválida: " + args[i]);
+                    }
+                }
+            } else if ("--dashboard-rate".equals(arg) && i + 1 < args.length) {
+                try {
+                    config.dashboardRateHz = Math.max(1, Integer.parseInt(args[++i]));
+                } catch (NumberFormatException e) {
+                    System.err.println("Taxa do painel inválida: " + args[i]);
+                }
+            } else if ("--dashboard-bind".equals(arg) && i + 1 < args.length) {
+                config.dashboardBind = args[++i];
+            } else if ("--dashboard-origins".equals(arg) && i + 1 < args.length) {
+                for (String origin : args[++i].split(",")) {
+                    if (!origin.trim().isEmpty()) config.dashboardOrigins.add(origin.trim());
+                }
+            } else if ("--particles".equals(arg) && i + 1 < args.length) {
+                try {
+                    config.particleBudget = Math.max(0, Integer.parseInt(args[++i]));
+                } catch (NumberFormatException e) {
+                    System.err.println("Orçamento de partículas inválido: " + args[i]);
+                }
+            } else if ("--no-trace".equals(arg)) {
+                config.trace = false;
+            } else if ("--trace-events".equals(arg) && i + 1 < args.length) {
+                try {
+                    config.traceEvents = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Número de eventos do registro inválido: " + args[i]);
+                }
+            } else if ("--snapshot-rate".equals(arg) && i + 1 < args.length) {
+                try {
+                    config.snapshotRateHz = Math.max(1, Integer.parseInt(args[++i]));
+                } catch (NumberFormatException e) {
+                    System.err.println("Taxa de snapshots inválida: " + args[i]);
+                }
+            } else if ("--interp-delay-ms".equals(arg) && i + 1 < args.length) {
+                try {
+                    config.interpolationDelayMs = Math.max(0, Integer.parseInt(args[++i]));
+                } catch (NumberFormatException e) {
+                    System.err.println("Atraso de interpolação inválido: " + args[i]);
+                }
+            }
+        }
+        return config;
+    }
+
+    private static int parsePort(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            System.err.println("Porta inválida: " + text);
+            return DEFAULT_NET_PORT;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.felipe.rehabgame;
+
+/**
+ * Reproduz uma {@link GhostRun} sem alocar: decodifica as amostras em sequência, guardando só a anterior e a
+ * próxima do instante pedido, e interpola entre elas. Como o tempo de fase só avança, cada byte é lido uma
+ * vez por tentativa; voltar no tempo (reinício) recomeça do início.
+ */
+public class GhostPlayer {
+
+    private GhostRun run;
+    private float interval;
+
+    // Cursor de decodificação e as duas amostras em volta do instante atual (quantizadas)
+    private int cursor;
+    private int decoded;
+    private int prevX;
+    private int prevY;
+    private int prevSpeed;
+    private int nextX;
+    private int nextY;
+    private int nextSpeed;
+    // Os bytes acabaram antes das amostras prometidas: o resto da volta não é mostrado
+    private boolean truncated;
+
+    /** Posição do fantasma no último {@link #seek}. */
+    public float x;
+    public float y;
+    public float speed;
+    /** Falso sem fantasma ou depois que a volta gravada terminou. */
+    public boolean visible;
+
+    public void setRun(GhostRun run) {
+        this.run = run;
+        this.interval = run != null ? run.sampleIntervalMs / 1000f : 0f;
+        rewind();
+    }
+
+    public GhostRun getRun() {
+        return run;
+    }
+
+    /** Volta ao início da volta gravada. */
+    public void rewind() {
+        cursor = 0;
+        decoded = 0;
+        prevX = prevY = prevSpeed = 0;
+        nextX = nextY = nextSpeed = 0;
+        truncated = false;
+        visible = false;
+        if (run != null && run.sampleCount > 0) {
+            decodeNext(); // amostra 0 em "next"
+        }
+    }
+
+    /** Posiciona o fantasma no tempo de fase {@code seconds}. */
+    public void seek(float seconds) {
+        if (run == null || run.sampleCount == 0) {
+            visible = false;
+            return;
+        }
+        // Amostra "next" é a de índice decoded-1; avançar até ela passar do instante pedido
+        if (decoded >= 2 && seconds < (decoded - 2) * interval) {
+            rewind();
+        }
+        while ((decoded - 1) * interval < seconds && decoded < run.sampleCount && !truncated) {
+            decodeNext();
+        }
+        if (truncated) {
+            visible = false;
+            return;
+        }
+
+        float nextTime = (decoded - 1) * interval;
+        if (seconds > nextTime) {
+            // Passou do fim da gravação (a volta gravada já chegou na bandeira)
+            visible = false;
+            return;
+        }
+        visible = true;
+        if (decoded < 2) {
+            x = nextX / GhostRun.POSITION_SCALE;
+            y = nextY / GhostRun.POSITION_SCALE;
+            speed = nextSpeed;
+            return;
+        }
+        float t = (seconds - (nextTime - interval)) / interval;
+        if (t < 0f) t = 0f;
+        x = (prevX + (nextX - prevX) * t) / GhostRun.POSITION_SCALE;
+        y = (prevY + (nextY - prevY) * t) / GhostRun.POSITION_SCALE;
+        speed = prevSpeed + (nextSpeed - prevSpeed) * t;
+    }
+
+    private void decodeNext() {
+        prevX = nextX;
+        prevY = nextY;
+        prevSpeed = nextSpeed;
+        nextX += readVarint();
+        nextY += readVarint();
+        nextSpeed += readVarint();
+        decoded++;
+    }
+
+    private int readVarint() {
+        byte[] data = run.data;
+        int zigzag = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (cursor >= run.length) {
+                truncated = true;
+                return 0;
+            }
+            b = data[cursor++] & 0xFF;
+            zigzag |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 35);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
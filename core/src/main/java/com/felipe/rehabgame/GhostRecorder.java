@@ -0,0 +1,154 @@
+package com.felipe.rehabgame;
+
+import java.util.Arrays;
+
+/**
+ * Grava a trajetória do jogador numa {@link GhostRun}.
+ *
+ * O jogo informa a posição a cada quadro; as amostras saem numa grade fixa de tempo
+ * ({@code sampleIntervalMs}), interpoladas entre os dois quadros que cercam cada instante, então a gravação
+ * não depende do FPS. O buffer é reaproveitado entre tentativas e só cresce (dobrando) se uma volta passar
+ * do tamanho inicial.
+ */
+public class GhostRecorder {
+
+    public static final int DEFAULT_SAMPLE_INTERVAL_MS = 50;
+
+    private final int sampleIntervalMs;
+    private byte[] buffer = new byte[64 * 1024];
+    private int length;
+    private int sampleCount;
+
+    // Último quadro informado e última amostra gravada (quantizada)
+    private boolean hasFrame;
+    private float lastTime;
+    private float lastX;
+    private float lastY;
+    private float lastSpeed;
+    private int prevQx;
+    private int prevQy;
+    private int prevSpeed;
+
+    /** Ponto da gravação para voltar depois (checkpoint); o buffer só cresce, então basta o estado do codificador. */
+    public static class Mark {
+        int length;
+        int sampleCount;
+        boolean hasFrame;
+        float lastTime;
+        float lastX;
+        float lastY;
+        float lastSpeed;
+        int prevQx;
+        int prevQy;
+        int prevSpeed;
+    }
+
+    public GhostRecorder() {
+        this(DEFAULT_SAMPLE_INTERVAL_MS);
+    }
+
+    public GhostRecorder(int sampleIntervalMs) {
+        this.sampleIntervalMs = sampleIntervalMs;
+    }
+
+    /** Começa uma tentativa nova (reinício, nova fase). */
+    public void reset() {
+        length = 0;
+        sampleCount = 0;
+        hasFrame = false;
+        prevQx = 0;
+        prevQy = 0;
+        prevSpeed = 0;
+    }
+
+    public void mark(Mark mark) {
+        mark.length = length;
+        mark.sampleCount = sampleCount;
+        mark.hasFrame = hasFrame;
+        mark.lastTime = lastTime;
+        mark.lastX = lastX;
+        mark.lastY = lastY;
+        mark.lastSpeed = lastSpeed;
+        mark.prevQx = prevQx;
+        mark.prevQy = prevQy;
+        mark.prevSpeed = prevSpeed;
+    }
+
+    /** Descarta o que foi gravado depois de {@code mark}; as próximas amostras continuam dali. */
+    public void rewind(Mark mark) {
+        length = mark.length;
+        sampleCount = mark.sampleCount;
+        hasFrame = mark.hasFrame;
+        lastTime = mark.lastTime;
+        lastX = mark.lastX;
+        lastY = mark.lastY;
+        lastSpeed = mark.lastSpeed;
+        prevQx = mark.prevQx;
+        prevQy = mark.prevQy;
+        prevSpeed = mark.prevSpeed;
+    }
+
+    /** Registra o estado do jogador no tempo de fase {@code seconds}. */
+    public void record(float seconds, float x, float y, float speed) {
+        if (!hasFrame) {
+            hasFrame = true;
+            appendSample(x, y, speed);
+        } else {
+            // Todas as amostras da grade entre o quadro anterior e este
+            float interval = sampleIntervalMs / 1000f;
+            float nextSampleTime = sampleCount * interval;
+            while (nextSampleTime <= seconds && seconds > lastTime) {
+                float t = (nextSampleTime - lastTime) / (seconds - lastTime);
+                if (t < 0f) t = 0f;
+                appendSample(lastX + (x - lastX) * t, lastY + (y - lastY) * t, lastSpeed + (speed - lastSpeed) * t);
+                nextSampleTime = sampleCount * interval;
+            }
+        }
+        lastTime = seconds;
+        lastX = x;
+        lastY = y;
+        lastSpeed = speed;
+    }
+
+    /** Fecha a tentativa concluída em {@code finishSeconds} e devolve uma cópia independente da gravação. */
+    public GhostRun finish(String levelId, float finishSeconds) {
+        GhostRun run = new GhostRun();
+        run.levelId = levelId;
+        run.sampleIntervalMs = sampleIntervalMs;
+        run.sampleCount = sampleCount;
+        run.finishSeconds = finishSeconds;
+        run.data = Arrays.copyOf(buffer, length);
+        run.length = length;
+        return run;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    private void appendSample(float x, float y, float speed) {
+        int qx = Math.round(x * GhostRun.POSITION_SCALE);
+        int qy = Math.round(y * GhostRun.POSITION_SCALE);
+        int qs = Math.round(speed);
+        // Três varints de no máximo 5 bytes
+        if (length + 15 > buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        writeVarint(qx - prevQx);
+        writeVarint(qy - prevQy);
+        writeVarint(qs - prevSpeed);
+        prevQx = qx;
+        prevQy = qy;
+        prevSpeed = qs;
+        sampleCount++;
+    }
+
+    private void writeVarint(int value) {
+        int zigzag = (value << 1) ^ (value >> 31);
+        while ((zigzag & ~0x7F) != 0) {
+            buffer[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        buffer[length++] = (byte) zigzag;
+    }
+}
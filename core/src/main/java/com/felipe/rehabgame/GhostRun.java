@@ -0,0 +1,118 @@
+package com.felipe.rehabgame;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+/**
+ * Trajetória gravada de uma fase, usada como fantasma ("corra contra a sua melhor volta").
+ *
+ * Uma amostra a cada {@link #sampleIntervalMs} de tempo de fase; cada amostra guarda a diferença em relação à
+ * anterior de x e y (em 1/{@link #POSITION_SCALE} px) e da velocidade (px/s), em zigzag + varint. Um
+ * ciclista em movimento gasta 3 a 4 bytes por amostra: 40 minutos a 20 amostras/s cabem em cerca de 200 KB.
+ *
+ * Arquivo: {@code RRGH}, versão, id da fase, intervalo, número de amostras, tempo de chegada, os bytes e um
+ * CRC32 de tudo o que vem antes. Um arquivo cortado, corrompido ou com amostras que não fecham é ignorado
+ * inteiro (a fase fica sem fantasma até a próxima melhor volta).
+ */
+public class GhostRun {
+
+    static final int MAGIC = 0x52524748; // "RRGH"
+    static final int VERSION = 2;
+    private static final int CRC_BYTES = 4;
+    public static final float POSITION_SCALE = 4f;
+
+    public String levelId;
+    public int sampleIntervalMs;
+    public int sampleCount;
+    /** Tempo de fase em que a bandeira foi alcançada. */
+    public float finishSeconds;
+    /** Amostras codificadas; só os primeiros {@link #length} bytes valem. */
+    public byte[] data;
+    public int length;
+
+    /** Duração gravada em segundos. */
+    public float durationSeconds() {
+        return sampleCount * sampleIntervalMs / 1000f;
+    }
+
+    public void write(FileHandle file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(length + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(levelId);
+        out.writeInt(sampleIntervalMs);
+        out.writeInt(sampleCount);
+        out.writeFloat(finishSeconds);
+        out.writeInt(length);
+        out.write(data, 0, length);
+        out.flush();
+        byte[] content = bytes.toByteArray();
+        out.writeInt(crc(content, content.length));
+        out.flush();
+        file.writeBytes(bytes.toByteArray(), false);
+    }
+
+    /** Lê um fantasma salvo; null se o arquivo não existe, não é de uma versão conhecida ou não decodifica. */
+    public static GhostRun read(FileHandle file) {
+        if (!file.exists()) return null;
+        try {
+            byte[] bytes = file.readBytes();
+            int contentBytes = bytes.length - CRC_BYTES;
+            if (contentBytes < 8) return ignore(file, "arquivo curto demais");
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, contentBytes));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return ignore(file, "formato desconhecido");
+            int storedCrc = new DataInputStream(new ByteArrayInputStream(bytes, contentBytes, CRC_BYTES)).readInt();
+            if (storedCrc != crc(bytes, contentBytes)) return ignore(file, "CRC não confere");
+
+            GhostRun run = new GhostRun();
+            run.levelId = in.readUTF();
+            run.sampleIntervalMs = in.readInt();
+            run.sampleCount = in.readInt();
+            run.finishSeconds = in.readFloat();
+            run.length = in.readInt();
+            // Nunca alocar pelo que o arquivo diz antes de conferir que os bytes estão mesmo lá
+            if (run.length < 0 || run.length > in.available()) return ignore(file, "tamanho inválido: " + run.length);
+            if (run.sampleIntervalMs <= 0 || run.sampleCount < 0) return ignore(file, "cabeçalho inválido");
+            run.data = new byte[run.length];
+            in.readFully(run.data);
+            if (!samplesFit(run.data, run.length, run.sampleCount)) return ignore(file, "amostras não fecham");
+            return run;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro ao ler o fantasma " + file.path() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static GhostRun ignore(FileHandle file, String reason) {
+        System.err.println("Fantasma ignorado (" + reason + "): " + file.path());
+        return null;
+    }
+
+    private static int crc(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    /** Confere que os bytes são exatamente {@code sampleCount} amostras de três varints (o que o GhostPlayer lê). */
+    private static boolean samplesFit(byte[] data, int length, int sampleCount) {
+        int cursor = 0;
+        for (long varints = 3L * sampleCount; varints > 0; varints--) {
+            int bytes = 0;
+            int b;
+            do {
+                if (cursor >= length) return false;
+                b = data[cursor++] & 0xFF;
+                bytes++;
+            } while ((b & 0x80) != 0 && bytes < 5);
+        }
+        return cursor == length;
+    }
+}
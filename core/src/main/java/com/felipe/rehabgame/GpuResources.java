@@ -0,0 +1,282 @@
+package com.felipe.rehabgame;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.graphics.glutils.PixmapTextureData;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registro de recursos de GPU (texturas e framebuffers) com contagem de referências.
+ *
+ * Cada recurso é contabilizado em uma {@link Category} com uma estimativa de bytes de VRAM. Quando uma
+ * alocação faria o total passar do orçamento configurado, os {@link PressureHandler}s registrados são
+ * chamados em ordem (ex.: descartar o quadro congelado, reduzir o fundo, despejar o cache da fase) até
+ * haver espaço. O orçamento é conferido antes de enviar qualquer coisa à GPU; o que não couber nem depois
+ * do alívio é recusado (retorno null), igual para texturas e framebuffers. No encerramento,
+ * {@link #reportLeaks()} lista o que não foi liberado.
+ */
+public class GpuResources {
+
+    public enum Category {
+        LEVEL_CACHE,
+        BACKGROUND,
+        SPRITE,
+        SNAPSHOT,
+        RENDER_TARGET
+    }
+
+    /** Libera memória de GPU sob pressão. Retorna quantos bytes foram liberados. */
+    public interface PressureHandler {
+        long relieve(long bytesToFree);
+    }
+
+    private static class Entry {
+        final String key;
+        final Disposable resource;
+        final Category category;
+        final long bytes;
+        int refCount = 1;
+
+        Entry(String key, Disposable resource, Category category, long bytes) {
+            this.key = key;
+            this.resource = resource;
+            this.category = category;
+            this.bytes = bytes;
+        }
+    }
+
+    private final long budgetBytes;
+    private final Map<Object, Entry> byResource = new IdentityHashMap<>();
+    private final Map<String, Entry> texturesByPath = new HashMap<>();
+    private final EnumMap<Category, Long> bytesByCategory = new EnumMap<>(Category.class);
+    private final List<PressureHandler> pressureHandlers = new ArrayList<>();
+    private long totalBytes = 0L;
+    private boolean relieving = false;
+    private DecodedImageCache imageCache;
+
+    public GpuResources(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        for (Category category : Category.values()) {
+            bytesByCategory.put(category, 0L);
+        }
+    }
+
+    /** Quando definido, texturas de arquivo passam pelo cache de imagens decodificadas. */
+    public void setImageCache(DecodedImageCache imageCache) {
+        this.imageCache = imageCache;
+    }
+
+    /** Handlers são chamados na ordem em que foram adicionados; registre primeiro o que é mais barato perder. */
+    public void addPressureHandler(PressureHandler handler) {
+        pressureHandlers.add(handler);
+    }
+
+    /**
+     * Carrega (ou reaproveita) a textura do arquivo. Cada chamada deve ter um {@link #release} correspondente.
+     * Os pixels são lidos antes e só vão para a GPU se couberem no orçamento; retorna null se não couberem
+     * mesmo depois de aliviar a pressão (o chamador segue sem a imagem).
+     */
+    public Texture acquireTexture(String path, Category category) {
+        Entry existing = texturesByPath.get(path);
+        if (existing != null) {
+            existing.refCount++;
+            return (Texture) existing.resource;
+        }
+
+        TextureData data = imageCache != null ? imageCache.loadData(path)
+            : new PixmapTextureData(new Pixmap(Gdx.files.internal(path)), null, false, true);
+        long bytes = estimateBytes(data.getWidth(), data.getHeight(), data.getFormat());
+        if (!ensureRoom(bytes)) {
+            refuse(path, bytes);
+            discard(data);
+            return null;
+        }
+        Texture texture = new Texture(data);
+        Entry entry = track(path, texture, category, bytes);
+        texturesByPath.put(path, entry);
+        return texture;
+    }
+
+    /**
+     * Envia um Pixmap do chamador como textura contabilizada; o Pixmap continua com o chamador. Retorna null
+     * se não couber no orçamento mesmo depois de aliviar a pressão.
+     */
+    public Texture registerTexture(String key, Pixmap pixmap, Category category) {
+        long bytes = estimateBytes(pixmap.getWidth(), pixmap.getHeight(), pixmap.getFormat());
+        if (!ensureRoom(bytes)) {
+            refuse(key, bytes);
+            return null;
+        }
+        Texture texture = new Texture(pixmap);
+        track(key, texture, category, bytes);
+        return texture;
+    }
+
+    /**
+     * Pixels do arquivo num Pixmap novo, para processar na CPU (o chamador descarta): pelo cache de imagens
+     * decodificadas quando definido, sem decodificar o PNG de novo.
+     */
+    public Pixmap loadPixmap(String path) {
+        return imageCache != null ? imageCache.loadPixmap(path) : new Pixmap(Gdx.files.internal(path));
+    }
+
+    /**
+     * Cria um framebuffer contabilizado. Retorna null se não couber no orçamento mesmo depois de aliviar a
+     * pressão; o chamador deve ter um caminho alternativo (ex.: desenhar sem cache).
+     */
+    public FrameBuffer createFrameBuffer(String key, Pixmap.Format format, int width, int height, Category category) {
+        long bytes = estimateBytes(width, height, format);
+        if (!ensureRoom(bytes)) {
+            refuse(key, bytes);
+            return null;
+        }
+        FrameBuffer frameBuffer = new FrameBuffer(format, width, height, false);
+        track(key, frameBuffer, category, bytes);
+        return frameBuffer;
+    }
+
+    /** Acrescenta uma referência a um recurso já registrado. */
+    public void retain(Disposable resource) {
+        Entry entry = byResource.get(resource);
+        if (entry == null) {
+            throw new IllegalArgumentException("Recurso não registrado: " + resource);
+        }
+        entry.refCount++;
+    }
+
+    /** Remove uma referência; o recurso é descartado quando a contagem chega a zero. Aceita null. */
+    public void release(Disposable resource) {
+        if (resource == null) return;
+        Entry entry = byResource.get(resource);
+        if (entry == null) {
+            throw new IllegalArgumentException("Recurso não registrado: " + resource);
+        }
+        entry.refCount--;
+        if (entry.refCount > 0) return;
+
+        byResource.remove(resource);
+        if (texturesByPath.get(entry.key) == entry) {
+            texturesByPath.remove(entry.key);
+        }
+        totalBytes -= entry.bytes;
+        bytesByCategory.put(entry.category, bytesByCategory.get(entry.category) - entry.bytes);
+        entry.resource.dispose();
+    }
+
+    /**
+     * Garante espaço para {@code bytes} adicionais chamando os handlers de pressão se preciso.
+     * Retorna false se o orçamento continuar estourado.
+     */
+    public boolean ensureRoom(long bytes) {
+        if (totalBytes + bytes <= budgetBytes) return true;
+        if (relieving) return false; // um handler alocando durante o alívio não dispara outra rodada
+
+        relieving = true;
+        try {
+            for (PressureHandler handler : pressureHandlers) {
+                long excess = totalBytes + bytes - budgetBytes;
+                if (excess <= 0) break;
+                handler.relieve(excess);
+            }
+        } finally {
+            relieving = false;
+        }
+        return totalBytes + bytes <= budgetBytes;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getBytes(Category category) {
+        return bytesByCategory.get(category);
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public String describeUsage() {
+        StringBuilder text = new StringBuilder();
+        text.append("VRAM ").append(toMb(totalBytes)).append('/').append(toMb(budgetBytes)).append(" MB (");
+        boolean first = true;
+        for (Category category : Category.values()) {
+            if (!first) text.append(", ");
+            text.append(category.name().toLowerCase()).append(' ').append(toMb(bytesByCategory.get(category)));
+            first = false;
+        }
+        return text.append(')').toString();
+    }
+
+    /** Lista recursos ainda registrados (vazamentos) e os descarta. Chamar depois que o jogo liberou tudo. */
+    public void reportLeaks() {
+        if (byResource.isEmpty()) {
+            System.out.println("GpuResources: nenhum vazamento");
+            return;
+        }
+        System.err.println("GpuResources: " + byResource.size() + " recurso(s) não liberado(s):");
+        for (Entry entry : byResource.values()) {
+            System.err.println("  " + entry.category + " " + entry.key + " refs=" + entry.refCount + " " + toMb(entry.bytes) + " MB");
+            entry.resource.dispose();
+        }
+        byResource.clear();
+        texturesByPath.clear();
+        totalBytes = 0L;
+    }
+
+    private void refuse(String key, long bytes) {
+        System.err.println("Sem VRAM para " + key + " (" + (bytes / 1024) + " KB) - " + describeUsage());
+    }
+
+    /** Descarta pixels lidos que não chegaram a virar textura. */
+    private static void discard(TextureData data) {
+        if (data.getType() == TextureData.TextureDataType.Pixmap && data.disposePixmap()) {
+            data.consumePixmap().dispose();
+        }
+    }
+
+    private Entry track(String key, Disposable resource, Category category, long bytes) {
+        Entry entry = new Entry(key, resource, category, bytes);
+        byResource.put(resource, entry);
+        totalBytes += bytes;
+        bytesByCategory.put(category, bytesByCategory.get(category) + bytes);
+        return entry;
+    }
+
+    /** Estimativa sem mipmaps, pelos bytes por pixel do formato. */
+    static long estimateBytes(int width, int height, Pixmap.Format format) {
+        int bytesPerPixel;
+        switch (format) {
+            case Alpha:
+            case Intensity:
+                bytesPerPixel = 1;
+                break;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444:
+                bytesPerPixel = 2;
+                break;
+            case RGB888:
+                bytesPerPixel = 3;
+                break;
+            default:
+                bytesPerPixel = 4;
+                break;
+        }
+        return (long) width * height * bytesPerPixel;
+    }
+
+    private static String toMb(long bytes) {
+        return String.format("%.1f", bytes / (1024.0 * 1024.0));
+    }
+}
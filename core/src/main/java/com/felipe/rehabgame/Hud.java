@@ -0,0 +1,210 @@
+package com.felipe.rehabgame;
+
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+/**
+ * HUD em modo retido.
+ *
+ * Cada elemento guarda seu próprio texto e {@link GlyphLayout}; o layout só é refeito quando o valor
+ * exibido muda (ex.: o RPM inteiro ou o segundo do cronômetro). O desenho é feito em duas passadas,
+ * cada uma com uma única escala de fonte, então o custo por quadro é praticamente constante e não aloca.
+ */
+public class Hud {
+
+    private static final float SMALL_SCALE = 1.5f;
+    private static final float LARGE_SCALE = 3.0f;
+    private static final float MARGIN = 10f;
+    private static final float LINE_SPACING = 30f;
+
+    /** Um texto do HUD com layout em cache. */
+    private static class Element {
+        final StringBuilder text = new StringBuilder(64);
+        final GlyphLayout layout = new GlyphLayout();
+        boolean dirty = true;
+        boolean visible = false;
+
+        StringBuilder begin() {
+            text.setLength(0);
+            dirty = true;
+            visible = true;
+            return text;
+        }
+
+        void draw(BitmapFont font, SpriteBatch batch, float x, float y) {
+            if (!visible) return;
+            if (dirty) {
+                layout.setText(font, text);
+                dirty = false;
+            }
+            font.draw(batch, layout, x, y);
+        }
+
+        void drawCentered(BitmapFont font, SpriteBatch batch, float centerX, float y) {
+            if (!visible) return;
+            if (dirty) {
+                layout.setText(font, text);
+                dirty = false;
+            }
+            font.draw(batch, layout, centerX - layout.width / 2f, y);
+        }
+    }
+
+    public enum Banner {
+        NONE,
+        TIME_UP,
+        LEVEL_COMPLETE,
+        /** Corrida de dois ciclistas: o outro chegou primeiro. */
+        RIVAL_FINISHED,
+        CHECKPOINT
+    }
+
+    private final BitmapFont font;
+    private final String pedalKey;
+
+    private final Element status = new Element();
+    private final Element timer = new Element();
+    private final Element levelInfo = new Element();
+    private final Element bannerTitle = new Element();
+    private final Element bannerSubtitle = new Element();
+
+    // Últimos valores exibidos; o layout só é refeito quando mudam
+    private int shownRpm = Integer.MIN_VALUE;
+    private int shownSpeed = Integer.MIN_VALUE;
+    private int shownVelocityY = Integer.MIN_VALUE;
+    private int shownTimerSeconds = Integer.MIN_VALUE;
+    private long shownLevelA = Long.MIN_VALUE;
+    private long shownLevelB = Long.MIN_VALUE;
+    private boolean shownEndless = false;
+    private Banner shownBanner = Banner.NONE;
+    private int shownCountdown = Integer.MIN_VALUE;
+
+    public Hud(BitmapFont font) {
+        this(font, "SPACE");
+    }
+
+    /** {@code pedalKey} é a tecla que simula o pulso deste ciclista, mostrada na linha de status. */
+    public Hud(BitmapFont font, String pedalKey) {
+        this.font = font;
+        this.pedalKey = pedalKey;
+    }
+
+    public void setStatus(float rpm, float speedPxPerSec, float velocityY) {
+        int rpmValue = (int) rpm;
+        int speedValue = Math.round(speedPxPerSec);
+        int velocityValue = Math.round(velocityY);
+        if (rpmValue == shownRpm && speedValue == shownSpeed && velocityValue == shownVelocityY) return;
+
+        shownRpm = rpmValue;
+        shownSpeed = speedValue;
+        shownVelocityY = velocityValue;
+        status.begin()
+            .append("RPM: ").append(rpmValue)
+            .append("  Speed: ").append(speedValue)
+            .append(" px/s  Y-Vel: ").append(velocityValue)
+            .append(" (").append(pedalKey).append("=Pedal)");
+    }
+
+    /** Tempo restante em segundos; valores negativos escondem o cronômetro (fase sem limite). */
+    public void setTimer(float remainingSeconds) {
+        if (remainingSeconds < 0f) {
+            timer.visible = false;
+            shownTimerSeconds = Integer.MIN_VALUE;
+            return;
+        }
+        int totalSeconds = (int) remainingSeconds;
+        if (totalSeconds == shownTimerSeconds) return;
+
+        shownTimerSeconds = totalSeconds;
+        int seconds = totalSeconds % 60;
+        StringBuilder text = timer.begin().append("TIME: ").append(totalSeconds / 60).append(':');
+        if (seconds < 10) text.append('0');
+        text.append(seconds);
+    }
+
+    public void setLevel(int levelNumber, int maxLevel) {
+        if (!shownEndless && levelNumber == shownLevelA && maxLevel == shownLevelB) return;
+
+        shownEndless = false;
+        shownLevelA = levelNumber;
+        shownLevelB = maxLevel;
+        levelInfo.begin().append("Level ").append(levelNumber).append('/').append(maxLevel);
+    }
+
+    public void setEndless(long seed, long chunkIndex) {
+        if (shownEndless && seed == shownLevelA && chunkIndex == shownLevelB) return;
+
+        shownEndless = true;
+        shownLevelA = seed;
+        shownLevelB = chunkIndex;
+        levelInfo.begin().append("Endless  seed ").append(seed).append("  chunk ").append(chunkIndex);
+    }
+
+    /**
+     * Define o aviso central. {@code countdown} é o número de segundos mostrado na linha de baixo;
+     * use valores negativos para esconder a linha.
+     */
+    public void setBanner(Banner banner, int countdown) {
+        if (banner == shownBanner && countdown == shownCountdown) return;
+
+        if (banner != shownBanner) {
+            shownBanner = banner;
+            switch (banner) {
+                case TIME_UP:
+                    bannerTitle.begin().append("TIME'S UP!");
+                    break;
+                case LEVEL_COMPLETE:
+                    bannerTitle.begin().append("LEVEL COMPLETE!");
+                    break;
+                case RIVAL_FINISHED:
+                    bannerTitle.begin().append("RIVAL FINISHED!");
+                    break;
+                case CHECKPOINT:
+                    bannerTitle.begin().append("CHECKPOINT!");
+                    break;
+                default:
+                    bannerTitle.visible = false;
+                    break;
+            }
+        }
+
+        shownCountdown = countdown;
+        if (banner == Banner.NONE || countdown < 0) {
+            bannerSubtitle.visible = false;
+        } else {
+            bannerSubtitle.begin()
+                .append(banner == Banner.TIME_UP ? "Resetting in " : "Next level in ")
+                .append(countdown).append("...");
+        }
+    }
+
+    /** Desenha o HUD. Deve ser chamado entre batch.begin()/batch.end() com a projeção da tela. */
+    public void draw(SpriteBatch batch, float screenWidth, float screenHeight) {
+        draw(batch, 0f, 0f, screenWidth, screenHeight);
+    }
+
+    /** Desenha o HUD dentro do retângulo (x, y, largura, altura) da tela, ex.: metade da tela dividida. */
+    public void draw(SpriteBatch batch, float x, float y, float width, float height) {
+        float previousScaleX = font.getData().scaleX;
+        float previousScaleY = font.getData().scaleY;
+        float centerX = x + width / 2f;
+        float centerY = y + height / 2f;
+
+        // Passada 1: textos pequenos
+        font.getData().setScale(SMALL_SCALE);
+        float top = y + height - MARGIN;
+        status.draw(font, batch, x + MARGIN, top);
+        timer.draw(font, batch, x + MARGIN, top - LINE_SPACING);
+        levelInfo.draw(font, batch, x + MARGIN, top - 2 * LINE_SPACING);
+        bannerSubtitle.drawCentered(font, batch, centerX, centerY - 50f);
+
+        // Passada 2: aviso central grande
+        if (bannerTitle.visible) {
+            font.getData().setScale(LARGE_SCALE);
+            bannerTitle.drawCentered(font, batch, centerX, centerY);
+        }
+
+        font.getData().setScale(previousScaleX, previousScaleY);
+    }
+}
@@ -0,0 +1,149 @@
+package com.felipe.rehabgame;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fases já preparadas para jogar: {@link LevelData} lida, {@link LevelCollisionIndex} e o framebuffer com os
+ * tiles desenhados. Reiniciar ou voltar para uma fase recente reaproveita tudo, sem reler o pacote nem
+ * redesenhar o cache.
+ *
+ * A chave é id + tamanho do tile. As entradas ficam em ordem de uso (LRU) e a soma da memória estimada
+ * (arrays na CPU + framebuffer na GPU) fica dentro do orçamento: ao passar dele, as menos usadas saem, nunca
+ * a mais recente (a fase em jogo). Sob pressão de VRAM, {@link #releaseRenderCaches} devolve os framebuffers
+ * das outras fases antes de o jogo precisar abrir mão do cache da fase atual.
+ *
+ * Usado só pela thread de render.
+ */
+public class LevelCache {
+
+    /** Uma fase pronta. {@link #renderCache} pode ser null (sem VRAM ou devolvido sob pressão). */
+    public static class Prepared {
+        public final String key;
+        public final LevelData level;
+        public FrameBuffer renderCache;
+        final long cpuBytes;
+        long gpuBytes;
+
+        Prepared(String key, LevelData level, long cpuBytes) {
+            this.key = key;
+            this.level = level;
+            this.cpuBytes = cpuBytes;
+        }
+    }
+
+    private final GpuResources gpu;
+    private final long budgetBytes;
+    private final LinkedHashMap<String, Prepared> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public int hits;
+    public int misses;
+    public int evictions;
+
+    public LevelCache(GpuResources gpu, long budgetBytes) {
+        this.gpu = gpu;
+        this.budgetBytes = budgetBytes;
+    }
+
+    public static String key(String levelId, float tileSize) {
+        return levelId + '@' + tileSize;
+    }
+
+    /** Fase preparada, marcada como a mais recente; null (e conta uma falta) se não estiver no cache. */
+    public Prepared get(String levelId, float tileSize) {
+        Prepared prepared = entries.get(key(levelId, tileSize));
+        if (prepared != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return prepared;
+    }
+
+    /** Guarda uma fase recém-lida, montando o índice de colisão. O framebuffer vem depois, em {@link #attachRenderCache}. */
+    public Prepared put(String levelId, LevelData level) {
+        String key = key(levelId, level.tileSize);
+        Prepared old = entries.remove(key);
+        if (old != null) discard(old);
+
+        if (level.collisionIndex == null) level.collisionIndex = LevelCollisionIndex.build(level);
+        long cpuBytes = (long) level.width * level.height * 4L + level.height * 16L + level.collisionIndex.estimateBytes();
+        Prepared prepared = new Prepared(key, level, cpuBytes);
+        entries.put(key, prepared);
+        totalBytes += cpuBytes;
+        trim();
+        return prepared;
+    }
+
+    /** Associa o framebuffer desenhado à fase (o cache passa a ser dono dele) e respeita o orçamento. */
+    public void attachRenderCache(Prepared prepared, FrameBuffer frameBuffer) {
+        releaseRenderCache(prepared);
+        if (frameBuffer == null) return;
+        prepared.renderCache = frameBuffer;
+        prepared.gpuBytes = GpuResources.estimateBytes(frameBuffer.getWidth(), frameBuffer.getHeight(), Pixmap.Format.RGBA8888);
+        totalBytes += prepared.gpuBytes;
+        trim();
+    }
+
+    /**
+     * Devolve framebuffers das fases menos usadas, exceto {@code keep}, até liberar {@code bytesToFree}.
+     * Os dados e o índice ficam; a fase é redesenhada se voltar. Retorna os bytes liberados.
+     */
+    public long releaseRenderCaches(long bytesToFree, Prepared keep) {
+        long freed = 0L;
+        for (Prepared prepared : entries.values()) {
+            if (freed >= bytesToFree) break;
+            if (prepared == keep || prepared.renderCache == null) continue;
+            freed += prepared.gpuBytes;
+            releaseRenderCache(prepared);
+        }
+        return freed;
+    }
+
+    /** Devolve o framebuffer da fase (ex.: despejado por falta de VRAM). */
+    public void releaseRenderCache(Prepared prepared) {
+        if (prepared.renderCache == null) return;
+        gpu.release(prepared.renderCache);
+        prepared.renderCache = null;
+        totalBytes -= prepared.gpuBytes;
+        prepared.gpuBytes = 0L;
+    }
+
+    /** Libera tudo (encerramento). */
+    public void clear() {
+        for (Prepared prepared : entries.values()) {
+            discard(prepared);
+        }
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public String describe() {
+        return String.format("Cache de fases: %d acerto(s), %d falta(s), %d despejo(s), %d fase(s) em %.1f/%.1f MB",
+            hits, misses, evictions, entries.size(), totalBytes / (1024.0 * 1024.0), budgetBytes / (1024.0 * 1024.0));
+    }
+
+    /** Tira as menos usadas até caber no orçamento; a mais recente sempre fica. */
+    private void trim() {
+        Iterator<Map.Entry<String, Prepared>> iterator = entries.entrySet().iterator();
+        while (totalBytes > budgetBytes && entries.size() > 1 && iterator.hasNext()) {
+            Prepared eldest = iterator.next().getValue();
+            iterator.remove();
+            discard(eldest);
+            evictions++;
+        }
+    }
+
+    private void discard(Prepared prepared) {
+        releaseRenderCache(prepared);
+        totalBytes -= prepared.cpuBytes;
+    }
+}
@@ -0,0 +1,82 @@
+package com.felipe.rehabgame;
+
+import java.util.Arrays;
+
+/**
+ * Faixa de linhas de cada propriedade de tile ({@link TileRegistry}) em cada coluna de uma fase fixa, para as
+ * checagens por quadro do {@link RiderPhysics} e do {@link TileSweep} percorrerem só essas linhas em vez da
+ * altura inteira da fase. As linhas fora da faixa não têm o tile procurado, então o resultado (e a ordem de
+ * visita) é o mesmo da varredura completa.
+ *
+ * Uma passada pela grade preenche todas as propriedades de uma vez; um tipo de tile novo só entra nas faixas
+ * das propriedades que já tem. Vale enquanto os tiles não mudarem: {@link LevelData#setTile} descarta o
+ * índice, e a janela do modo infinito (que copia tiles direto no array) nunca tem um.
+ */
+public class LevelCollisionIndex {
+
+    /** OU das propriedades dos tiles de cada coluna. */
+    public final int[] columnProperties;
+    /** OU das propriedades da fase inteira: um bit zerado dispensa a checagem daquela propriedade. */
+    public int levelProperties;
+
+    private final int width;
+    // Primeira e última linha (inclusive) de cada propriedade em cada coluna, em [bit * width + coluna]
+    private final int[] top;
+    private final int[] bottom;
+
+    private LevelCollisionIndex(int width) {
+        this.width = width;
+        columnProperties = new int[width];
+        top = new int[TileRegistry.PROPERTY_COUNT * width];
+        bottom = new int[TileRegistry.PROPERTY_COUNT * width];
+        Arrays.fill(top, Integer.MAX_VALUE);
+        Arrays.fill(bottom, -1);
+    }
+
+    public static LevelCollisionIndex build(LevelData level) {
+        LevelCollisionIndex index = new LevelCollisionIndex(level.width);
+        for (int row = 0; row < level.height; row++) {
+            for (int col = 0; col < level.width; col++) {
+                int properties = TileRegistry.properties(level.getTile(row, col));
+                index.columnProperties[col] |= properties;
+                while (properties != 0) {
+                    int slot = Integer.numberOfTrailingZeros(properties) * index.width + col;
+                    index.top[slot] = Math.min(index.top[slot], row);
+                    index.bottom[slot] = row;
+                    properties &= properties - 1;
+                }
+            }
+        }
+        for (int properties : index.columnProperties) {
+            index.levelProperties |= properties;
+        }
+        return index;
+    }
+
+    /** Primeira linha da coluna com alguma das propriedades de {@code mask}; Integer.MAX_VALUE se nenhuma. */
+    public int firstRow(int mask, int col) {
+        int bits = mask & columnProperties[col];
+        int row = Integer.MAX_VALUE;
+        while (bits != 0) {
+            row = Math.min(row, top[Integer.numberOfTrailingZeros(bits) * width + col]);
+            bits &= bits - 1;
+        }
+        return row;
+    }
+
+    /** Última linha da coluna com alguma das propriedades de {@code mask}; -1 se nenhuma. */
+    public int lastRow(int mask, int col) {
+        int bits = mask & columnProperties[col];
+        int row = -1;
+        while (bits != 0) {
+            row = Math.max(row, bottom[Integer.numberOfTrailingZeros(bits) * width + col]);
+            bits &= bits - 1;
+        }
+        return row;
+    }
+
+    /** Memória aproximada dos arrays. */
+    public long estimateBytes() {
+        return 3L * 16 + width * 4L * (1 + 2 * TileRegistry.PROPERTY_COUNT);
+    }
+}
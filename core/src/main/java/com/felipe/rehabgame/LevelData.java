@@ -11,6 +11,10 @@ import com.badlogic.gdx.math.Vector2;
  * 3 = água (lake.png – obstáculo)
  * 4 = bandeira (linha de chegada)
  * 5 = ponto de spawn do jogador
+ * 6 = terra (dirt.png)
+ * 7 a 12 = subidas suaves, descidas e lombada (formas em {@link TerrainProfile})
+ * 13 = checkpoint (quem cai no lago volta ao último alcançado; {@link Checkpoint})
+ * A lista completa, com propriedades, imagens e formas, fica em {@code tiles.txt} ({@link TileRegistry}).
  */
 public class LevelData {
     public int[][] tiles;
@@ -19,6 +23,8 @@ public class LevelData {
     public Vector2 playerSpawn;
     public float tileSize;
     public float timeLimit; // Limite de tempo em segundos (0 = sem limite)
+    /** Índice de colisão das fases fixas (montado pelo {@link LevelCache}); null = varrer todas as linhas. */
+    public LevelCollisionIndex collisionIndex;
 
     public LevelData(int width, int height, float tileSize) {
         this.width = width;
@@ -39,6 +45,7 @@ public class LevelData {
     public void setTile(int row, int col, int tileType) {
         if (row >= 0 && row < height && col >= 0 && col < width) {
             tiles[row][col] = tileType;
+            collisionIndex = null;
         }
     }
 
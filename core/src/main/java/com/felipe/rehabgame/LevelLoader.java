@@ -7,7 +7,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Carrega dados de fases a partir de arquivos de texto na pasta assets.
+ * Carrega dados de fases a partir de arquivos de texto na pasta assets (ou de dentro de um {@link LevelPack}).
  */
 public class LevelLoader {
 
@@ -19,7 +19,13 @@ public class LevelLoader {
             return createEmptyLevel(10, 10, tileSize);
         }
 
-        String content = file.readString();
+        return parseLevel(file.readString(), filename, tileSize);
+    }
+
+    /**
+     * Interpreta o texto de uma fase (mesmo formato dos arquivos .txt). {@code name} só aparece nos logs.
+     */
+    public static LevelData parseLevel(String content, String name, float tileSize) {
         String[] lines = content.split("\n");
 
         float timeLimit = 0f; // Padrão: sem limite de tempo
@@ -77,7 +83,7 @@ public class LevelLoader {
                 int tile = tempTiles[row][col];
                 level.setTile(row, col, tile);
 
-                if (tile == 5 && !foundSpawn) {
+                if (!foundSpawn && TileRegistry.any(tile, TileRegistry.SPAWN)) {
                     // Armazena as coordenadas da grade para o spawn, conversão ocorre no jogo
                     level.playerSpawn.set(col * tileSize, row * tileSize);
                     foundSpawn = true;
@@ -85,11 +91,11 @@ public class LevelLoader {
             }
         }
 
-        System.out.println("Fase carregada: " + filename + " (" + width + "x" + height + ")");
+        System.out.println("Fase carregada: " + name + " (" + width + "x" + height + ")");
         return level;
     }
 
-    private static LevelData createEmptyLevel(int width, int height, float tileSize) {
+    static LevelData createEmptyLevel(int width, int height, float tileSize) {
         LevelData level = new LevelData(width, height, tileSize);
         for (int col = 0; col < width; col++) {
             level.setTile(height - 1, col, 1);
@@ -0,0 +1,193 @@
+package com.felipe.rehabgame;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Pacote de fases: um único arquivo com um manifesto seguido do texto de todas as fases.
+ *
+ * Formato (gerado por {@link LevelPackBuilder}):
+ * <pre>
+ * RRPACK 1 &lt;bytes do manifesto&gt;
+ * id  ordem  tileSize  tempo  offset  tamanho  crc32  nome     (uma linha por fase, separada por tabs)
+ * ...texto das fases, concatenado...
+ * </pre>
+ * Só o manifesto é lido ao abrir o pacote. Cada fase é lida do arquivo na primeira vez que é pedida,
+ * conferida pelo checksum e guardada em um cache LRU pequeno, então pacotes com centenas de fases não
+ * custam nada a mais na inicialização.
+ */
+public class LevelPack {
+
+    static final String MAGIC = "RRPACK";
+    static final int VERSION = 1;
+
+    // Fase atual, a próxima e a primeira (reinício) cabem com folga
+    private static final int CACHE_SIZE = 4;
+
+    /** Uma fase do manifesto. */
+    public static class Entry {
+        public String id;
+        public String name;
+        public int order;
+        public float tileSize;
+        public float timeLimit;
+        long offset;
+        int length;
+        long checksum;
+    }
+
+    private final FileHandle file;
+    private final long dataStart;
+    private final List<Entry> entries;
+    private final Map<String, LevelData> cache = new LinkedHashMap<String, LevelData>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LevelData> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private LevelPack(FileHandle file, long dataStart, List<Entry> entries) {
+        this.file = file;
+        this.dataStart = dataStart;
+        this.entries = entries;
+    }
+
+    /** Abre o pacote lendo apenas o cabeçalho e o manifesto. */
+    public static LevelPack open(String path) {
+        return open(Gdx.files.internal(path));
+    }
+
+    /** Igual a {@link #open(String)}, para qualquer arquivo (ex.: {@code new FileHandle(file)} em ferramentas sem Gdx). */
+    public static LevelPack open(FileHandle file) {
+        String path = file.path();
+        if (!file.exists()) {
+            throw new GdxRuntimeException("Pacote de fases não encontrado: " + path);
+        }
+
+        try (InputStream in = file.read()) {
+            String header = readLine(in);
+            String[] parts = header.split(" ");
+            if (parts.length != 3 || !MAGIC.equals(parts[0]) || Integer.parseInt(parts[1]) != VERSION) {
+                throw new GdxRuntimeException("Cabeçalho de pacote inválido em " + path + ": " + header);
+            }
+            int manifestLength = Integer.parseInt(parts[2]);
+            String manifest = new String(readFully(in, manifestLength), StandardCharsets.UTF_8);
+
+            List<Entry> entries = parseManifest(manifest);
+            long dataStart = header.getBytes(StandardCharsets.UTF_8).length + 1L + manifestLength;
+            System.out.println("Pacote de fases " + path + ": " + entries.size() + " fase(s)");
+            return new LevelPack(file, dataStart, entries);
+        } catch (IOException | NumberFormatException e) {
+            throw new GdxRuntimeException("Erro ao ler o pacote de fases " + path, e);
+        }
+    }
+
+    public int getLevelCount() {
+        return entries.size();
+    }
+
+    /** Entrada do manifesto; {@code index} começa em 0 e segue a ordem de jogo. */
+    public Entry getEntry(int index) {
+        return entries.get(index);
+    }
+
+    /** Fase na posição {@code index} (a partir de 0), lida do pacote na primeira vez e depois do cache. */
+    public LevelData load(int index) {
+        Entry entry = entries.get(index);
+        LevelData level = cache.get(entry.id);
+        if (level != null) return level;
+
+        String content = new String(readEntry(entry), StandardCharsets.UTF_8);
+        level = LevelLoader.parseLevel(content, entry.id, entry.tileSize);
+        // O manifesto é a fonte do limite de tempo (o "time:" no texto continua valendo para .txt soltos)
+        level.timeLimit = entry.timeLimit;
+        cache.put(entry.id, level);
+        return level;
+    }
+
+    private byte[] readEntry(Entry entry) {
+        try (InputStream in = file.read()) {
+            skipFully(in, dataStart + entry.offset);
+            byte[] bytes = readFully(in, entry.length);
+            if (checksum(bytes) != entry.checksum) {
+                throw new GdxRuntimeException("Checksum inválido para a fase " + entry.id + " em " + file.path());
+            }
+            return bytes;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Erro ao ler a fase " + entry.id + " de " + file.path(), e);
+        }
+    }
+
+    private static List<Entry> parseManifest(String manifest) {
+        List<Entry> entries = new ArrayList<>();
+        for (String line : manifest.split("\n")) {
+            if (line.trim().isEmpty()) continue;
+            String[] fields = line.split("\t", 8);
+            if (fields.length != 8) {
+                throw new GdxRuntimeException("Linha de manifesto inválida: " + line);
+            }
+            Entry entry = new Entry();
+            entry.id = fields[0];
+            entry.order = Integer.parseInt(fields[1]);
+            entry.tileSize = Float.parseFloat(fields[2]);
+            entry.timeLimit = Float.parseFloat(fields[3]);
+            entry.offset = Long.parseLong(fields[4]);
+            entry.length = Integer.parseInt(fields[5]);
+            entry.checksum = Long.parseLong(fields[6], 16);
+            entry.name = fields[7];
+            entries.add(entry);
+        }
+        Collections.sort(entries, (a, b) -> Integer.compare(a.order, b.order));
+        return entries;
+    }
+
+    static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(32);
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(bytes, read, length - read);
+            if (n < 0) throw new IOException("Fim inesperado do pacote");
+            read += n;
+        }
+        return bytes;
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() < 0) throw new IOException("Fim inesperado do pacote");
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+}
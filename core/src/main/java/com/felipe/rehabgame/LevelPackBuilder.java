@@ -0,0 +1,92 @@
+package com.felipe.rehabgame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Gera um {@link LevelPack} a partir de uma pasta com as fases em .txt e um {@code pack.txt}.
+ *
+ * Cada linha não comentada do {@code pack.txt} descreve uma fase, na ordem de jogo:
+ * <pre>
+ * id  tileSize  arquivo  nome da fase
+ * </pre>
+ * O limite de tempo vem da linha {@code time:} do arquivo da fase. Um arquivo {@code .dt} é uma cena do
+ * Hyperlap2D (caminho relativo à pasta, ex.: {@code ../../map/scenes/MainScene.dt}) e entra no pacote já
+ * convertida em grade pelo {@link SceneImporter}. Roda sem o jogo aberto (tarefa Gradle
+ * {@code core:packLevels}): {@code LevelPackBuilder <pasta de origem> <arquivo .pack>}.
+ */
+public class LevelPackBuilder {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: LevelPackBuilder <pasta de origem> <arquivo .pack>");
+            System.exit(2);
+        }
+        Path sourceDir = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+
+        StringBuilder manifest = new StringBuilder();
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        int order = 0;
+
+        List<String> lines = Files.readAllLines(sourceDir.resolve("pack.txt"), StandardCharsets.UTF_8);
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+            String[] fields = trimmed.split("\\s+", 4);
+            if (fields.length != 4) {
+                throw new IOException("Linha inválida em pack.txt: " + line);
+            }
+            String id = fields[0];
+            float tileSize = Float.parseFloat(fields[1]);
+            Path source = sourceDir.resolve(fields[2]);
+            byte[] content = fields[2].endsWith(".dt")
+                ? SceneImporter.compile(source).getBytes(StandardCharsets.UTF_8)
+                : Files.readAllBytes(source);
+            order++;
+
+            manifest.append(id).append('\t')
+                .append(order).append('\t')
+                .append(tileSize).append('\t')
+                .append(readTimeLimit(content)).append('\t')
+                .append(data.size()).append('\t')
+                .append(content.length).append('\t')
+                .append(Long.toHexString(LevelPack.checksum(content))).append('\t')
+                .append(fields[3]).append('\n');
+            data.write(content);
+        }
+
+        byte[] manifestBytes = manifest.toString().getBytes(StandardCharsets.UTF_8);
+        String header = LevelPack.MAGIC + " " + LevelPack.VERSION + " " + manifestBytes.length + "\n";
+
+        ByteArrayOutputStream pack = new ByteArrayOutputStream();
+        pack.write(header.getBytes(StandardCharsets.UTF_8));
+        pack.write(manifestBytes);
+        data.writeTo(pack);
+
+        if (output.getParent() != null) Files.createDirectories(output.getParent());
+        Files.write(output, pack.toByteArray());
+        System.out.println("Pacote gerado: " + output + " (" + order + " fase(s), " + pack.size() + " bytes)");
+    }
+
+    /** Mesmo formato aceito pelo LevelLoader ("time: 60"); 0 quando ausente. */
+    private static float readTimeLimit(byte[] content) {
+        for (String line : new String(content, StandardCharsets.UTF_8).split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.toLowerCase().startsWith("time:")) {
+                try {
+                    return Float.parseFloat(trimmed.substring(5).trim());
+                } catch (NumberFormatException e) {
+                    System.err.println("Formato de tempo inválido: " + trimmed);
+                }
+            }
+        }
+        return 0f;
+    }
+}
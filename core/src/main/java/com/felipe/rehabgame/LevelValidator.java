@@ -0,0 +1,334 @@
+package com.felipe.rehabgame;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Validador de fases sem janela: simula cada fase com várias cadências usando a mesma física do jogo
+ * ({@link RiderPhysics}) e informa se ela pode ser concluída, em quanto tempo e em quais cadências o
+ * jogador cai em um lago.
+ *
+ * As simulações (fase x perfil de cadência) são independentes e rodam em paralelo em um ForkJoinPool
+ * com todos os núcleos. Uso (tarefa Gradle {@code core:validateLevels}):
+ * <pre>
+ * LevelValidator [--verbose] [--threads N] [--rpm-step N] [--tile-size N] arquivo.pack|fase.txt|pasta ...
+ * </pre>
+ * Sai com código 1 se alguma fase não puder ser concluída com nenhuma cadência constante.
+ */
+public class LevelValidator {
+
+    // Mesmo passo fixo de um jogo a 60 FPS
+    private static final float STEP_SECONDS = 1f / 60f;
+    // Fases sem limite de tempo são simuladas no máximo por este tempo
+    private static final float MAX_SIMULATED_SECONDS = 600f;
+    // Sem avançar por este tempo a simulação é dada como parada
+    private static final float STALL_SECONDS = 10f;
+
+    // moto.png (348x207) na escala PLAYER_SCALE (0.35) do MainGame
+    private static final float DEFAULT_RIDER_WIDTH = 348 * 0.35f;
+    private static final float DEFAULT_RIDER_HEIGHT = 207 * 0.35f;
+
+    /** Cadência (RPM) em função do tempo de fase; 0 significa parado. */
+    interface Cadence {
+        float rpmAt(float seconds);
+    }
+
+    /** Perfil de cadência com nome para o relatório. */
+    static class CadenceProfile {
+        final String name;
+        final float baseRpm;
+        final boolean constant;
+        final Cadence cadence;
+
+        CadenceProfile(String name, float baseRpm, boolean constant, Cadence cadence) {
+            this.name = name;
+            this.baseRpm = baseRpm;
+            this.constant = constant;
+            this.cadence = cadence;
+        }
+    }
+
+    enum Outcome {
+        COMPLETED("concluída"),
+        TOO_SLOW("concluída fora do tempo"),
+        LAKE("caiu no lago"),
+        FELL("caiu para fora da fase"),
+        STALLED("parou"),
+        TIME_OUT("não chegou");
+
+        final String label;
+
+        Outcome(String label) {
+            this.label = label;
+        }
+    }
+
+    /** Uma fase a validar. */
+    static class NamedLevel {
+        final String name;
+        final LevelData level;
+
+        NamedLevel(String name, LevelData level) {
+            this.name = name;
+            this.level = level;
+        }
+    }
+
+    /** Resultado de uma simulação (fase x perfil). */
+    static class Result {
+        Outcome outcome;
+        float seconds;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean verbose = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int rpmStep = 10;
+        float tileSize = 64f;
+        List<String> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--verbose".equals(arg)) {
+                verbose = true;
+            } else if ("--threads".equals(arg) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("--rpm-step".equals(arg) && i + 1 < args.length) {
+                rpmStep = Integer.parseInt(args[++i]);
+            } else if ("--tile-size".equals(arg) && i + 1 < args.length) {
+                tileSize = Float.parseFloat(args[++i]);
+            } else {
+                inputs.add(arg);
+            }
+        }
+        if (inputs.isEmpty()) {
+            System.err.println("Uso: LevelValidator [--verbose] [--threads N] [--rpm-step N] [--tile-size N] arquivo.pack|fase.txt|pasta ...");
+            System.exit(2);
+        }
+
+        List<NamedLevel> levels = new ArrayList<>();
+        for (String input : inputs) {
+            collectLevels(new File(input), tileSize, levels);
+        }
+        List<CadenceProfile> profiles = buildProfiles(rpmStep);
+
+        long start = System.nanoTime();
+        Result[] results = new Result[levels.size() * profiles.size()];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new SimulationTask(levels, profiles, results, 0, results.length));
+        } finally {
+            pool.shutdown();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+
+        boolean allCompletable = true;
+        for (int l = 0; l < levels.size(); l++) {
+            Result[] levelResults = Arrays.copyOfRange(results, l * profiles.size(), (l + 1) * profiles.size());
+            allCompletable &= report(levels.get(l), profiles, levelResults, verbose);
+        }
+        System.out.println(results.length + " simulações (" + levels.size() + " fase(s) x " + profiles.size()
+            + " perfis) em " + elapsedMs + " ms com " + threads + " thread(s)");
+        System.exit(allCompletable ? 0 : 1);
+    }
+
+    /** Divide o intervalo de simulações ao meio até ficar pequeno o bastante para rodar direto. */
+    static class SimulationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 4;
+
+        private final List<NamedLevel> levels;
+        private final List<CadenceProfile> profiles;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        SimulationTask(List<NamedLevel> levels, List<CadenceProfile> profiles, Result[] results, int from, int to) {
+            this.levels = levels;
+            this.profiles = profiles;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    LevelData level = levels.get(i / profiles.size()).level;
+                    results[i] = simulate(level, profiles.get(i % profiles.size()).cadence);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SimulationTask(levels, profiles, results, from, middle),
+                new SimulationTask(levels, profiles, results, middle, to));
+        }
+    }
+
+    /** Roda a fase do spawn até a bandeira (ou até falhar) com a cadência dada. */
+    static Result simulate(LevelData level, Cadence cadence) {
+        RiderPhysics rider = new RiderPhysics(DEFAULT_RIDER_WIDTH, DEFAULT_RIDER_HEIGHT);
+        rider.placeAtSpawn(level);
+
+        float limit = level.timeLimit > 0 ? level.timeLimit * 2f : MAX_SIMULATED_SECONDS;
+        float bestX = rider.x;
+        float lastProgress = 0f;
+        Result result = new Result();
+
+        for (float t = 0f; t < limit; t += STEP_SECONDS) {
+            rider.updateSpeed(cadence.rpmAt(t), STEP_SECONDS);
+            rider.step(level, STEP_SECONDS);
+
+            if (rider.inLake) {
+                return finish(result, Outcome.LAKE, t);
+            }
+            if ((rider.touching & TileRegistry.GOAL) != 0) {
+                boolean inTime = level.timeLimit <= 0 || t <= level.timeLimit;
+                return finish(result, inTime ? Outcome.COMPLETED : Outcome.TOO_SLOW, t);
+            }
+            if (rider.y < -2 * level.tileSize) {
+                return finish(result, Outcome.FELL, t);
+            }
+            if (rider.x > bestX + 1f) {
+                bestX = rider.x;
+                lastProgress = t;
+            } else if (t - lastProgress > STALL_SECONDS) {
+                return finish(result, Outcome.STALLED, t);
+            }
+        }
+        return finish(result, Outcome.TIME_OUT, limit);
+    }
+
+    private static Result finish(Result result, Outcome outcome, float seconds) {
+        result.outcome = outcome;
+        result.seconds = seconds;
+        return result;
+    }
+
+    /**
+     * Cadências constantes de {@code rpmStep} até a cadência de velocidade máxima, mais perfis que imitam
+     * uma sessão de terapia (aquecimento, intervalos, fadiga, pausas) em três intensidades.
+     */
+    static List<CadenceProfile> buildProfiles(int rpmStep) {
+        List<CadenceProfile> profiles = new ArrayList<>();
+        for (int rpm = rpmStep; rpm <= RiderPhysics.TARGET_RPM_FOR_MAX_SPEED; rpm += rpmStep) {
+            final float value = rpm;
+            profiles.add(new CadenceProfile("constante " + rpm, value, true, t -> value));
+        }
+        for (int base : new int[]{100, 200, 300}) {
+            final float rpm = base;
+            profiles.add(new CadenceProfile("aquecimento " + base, rpm, false, t -> rpm * Math.min(1f, t / 20f)));
+            profiles.add(new CadenceProfile("intervalos " + base, rpm, false, t -> ((int) (t / 30f)) % 2 == 0 ? rpm : rpm / 2f));
+            profiles.add(new CadenceProfile("fadiga " + base, rpm, false, t -> rpm * Math.max(0.5f, 1f - t / 240f)));
+            profiles.add(new CadenceProfile("pausas " + base, rpm, false, t -> t % 20f < 17f ? rpm : 0f));
+        }
+        return profiles;
+    }
+
+    /** Imprime o resumo da fase; retorna true se alguma cadência constante conclui a fase no tempo. */
+    private static boolean report(NamedLevel named, List<CadenceProfile> profiles, Result[] results, boolean verbose) {
+        LevelData level = named.level;
+        String limit = level.timeLimit > 0 ? format(level.timeLimit) + " s" : "sem limite";
+        System.out.println(named.name + " (" + level.width + "x" + level.height + ", tempo " + limit + ")");
+
+        CadenceProfile slowest = null;
+        Result slowestResult = null;
+        StringBuilder lakes = new StringBuilder();
+        float rangeStart = -1f;
+        float rangeEnd = -1f;
+        StringBuilder others = new StringBuilder();
+
+        for (int i = 0; i < profiles.size(); i++) {
+            CadenceProfile profile = profiles.get(i);
+            Result result = results[i];
+            if (verbose) {
+                System.out.println(String.format("  %-16s %-24s %s", profile.name, result.outcome.label,
+                    result.outcome == Outcome.TIME_OUT ? "-" : format(result.seconds) + " s"));
+            }
+
+            if (profile.constant) {
+                if (result.outcome == Outcome.COMPLETED && slowest == null) {
+                    slowest = profile;
+                    slowestResult = result;
+                }
+                if (result.outcome == Outcome.LAKE) {
+                    if (rangeStart < 0f) rangeStart = profile.baseRpm;
+                    rangeEnd = profile.baseRpm;
+                } else if (rangeStart >= 0f) {
+                    appendRange(lakes, rangeStart, rangeEnd);
+                    rangeStart = -1f;
+                }
+            } else {
+                if (others.length() > 0) others.append(", ");
+                others.append(profile.name).append(' ').append(result.outcome == Outcome.COMPLETED
+                    ? format(result.seconds) + " s" : result.outcome.label);
+            }
+        }
+        if (rangeStart >= 0f) appendRange(lakes, rangeStart, rangeEnd);
+
+        if (slowest != null) {
+            System.out.println("  concluível a partir de " + (int) slowest.baseRpm + " RPM ("
+                + format(slowestResult.seconds) + " s de " + limit + ")");
+        } else {
+            System.out.println("  NÃO CONCLUÍVEL com nenhuma cadência constante");
+        }
+        Result fastest = results[lastConstant(profiles)];
+        if (fastest.outcome == Outcome.COMPLETED) {
+            System.out.println("  na cadência máxima: " + format(fastest.seconds) + " s");
+        }
+        System.out.println("  lago em: " + (lakes.length() > 0 ? lakes + " RPM" : "nenhuma cadência constante"));
+        System.out.println("  perfis: " + others);
+        return slowest != null;
+    }
+
+    private static int lastConstant(List<CadenceProfile> profiles) {
+        int last = 0;
+        for (int i = 0; i < profiles.size(); i++) {
+            if (profiles.get(i).constant) last = i;
+        }
+        return last;
+    }
+
+    private static void appendRange(StringBuilder text, float from, float to) {
+        if (text.length() > 0) text.append(", ");
+        text.append((int) from);
+        if (to > from) text.append('-').append((int) to);
+    }
+
+    private static String format(float seconds) {
+        return String.format("%.1f", seconds);
+    }
+
+    private static void collectLevels(File input, float tileSize, List<NamedLevel> out) throws IOException {
+        if (input.isDirectory()) {
+            File[] children = input.listFiles();
+            if (children == null) return;
+            Arrays.sort(children);
+            for (File child : children) {
+                String name = child.getName();
+                if (name.endsWith(".pack") || (name.endsWith(".txt") && !"pack.txt".equals(name))) {
+                    collectLevels(child, tileSize, out);
+                }
+            }
+        } else if (input.getName().endsWith(".pack")) {
+            LevelPack pack = LevelPack.open(new FileHandle(input));
+            for (int i = 0; i < pack.getLevelCount(); i++) {
+                LevelPack.Entry entry = pack.getEntry(i);
+                out.add(new NamedLevel(input.getName() + ":" + entry.id + " " + entry.name, pack.load(i)));
+            }
+        } else {
+            String content = new String(Files.readAllBytes(input.toPath()), StandardCharsets.UTF_8);
+            out.add(new NamedLevel(input.getName(), LevelLoader.parseLevel(content, input.getName(), tileSize)));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.felipe.rehabgame;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Pasta única dos dados gravados por esta máquina (uma subpasta por tipo, ver as constantes). Fica fora de
+ * {@code assets/}, então nada disso entra no jar, na lista de assets nem no git, sem exclusões nos builds.
+ *
+ * Padrão: {@code ~/.rehabgame}; a propriedade de sistema {@value #PROPERTY} troca a pasta (ex.: um disco da
+ * clínica com backup). O jogo e as ferramentas sem janela ({@link ProgressReport}, {@link SessionAnalytics})
+ * usam a mesma.
+ */
+public final class LocalData {
+
+    public static final String PROPERTY = "rehabgame.dataDir";
+
+    public static final String DECODED_CACHE = "decoded-cache";
+    public static final String GHOSTS = "ghosts";
+    public static final String PROGRESS = "progress";
+    public static final String SESSIONS = "sessions";
+    public static final String TRACES = "traces";
+    private static final String[] ALL = {DECODED_CACHE, GHOSTS, PROGRESS, SESSIONS, TRACES};
+
+    private LocalData() {
+    }
+
+    public static Path root() {
+        String configured = System.getProperty(PROPERTY);
+        if (configured != null && !configured.trim().isEmpty()) return Paths.get(configured.trim());
+        return Paths.get(System.getProperty("user.home"), ".rehabgame");
+    }
+
+    /** Subpasta {@code name} (uma das constantes desta classe). */
+    public static Path dir(String name) {
+        return root().resolve(name);
+    }
+
+    /** Arquivo {@code child} da subpasta {@code name}, para quem lê e grava pelo libGDX. */
+    public static FileHandle file(String name, String child) {
+        return Gdx.files.absolute(dir(name).resolve(child).toString());
+    }
+
+    /**
+     * Versões anteriores gravavam estas pastas dentro de {@code assets/} (o diretório de trabalho do jogo).
+     * Move cada uma que ainda estiver lá para a pasta de dados, se ainda não existir no destino; sem isso o
+     * progresso dos pacientes sumiria da vista na atualização.
+     */
+    public static void adoptLegacy(Path workingDir) {
+        for (String name : ALL) {
+            Path legacy = workingDir.resolve(name);
+            Path target = dir(name);
+            if (!Files.isDirectory(legacy) || Files.exists(target)) continue;
+            try {
+                Files.createDirectories(target.getParent());
+                Files.move(legacy, target);
+                System.out.println("Dados locais: " + legacy + " movido para " + target);
+            } catch (IOException e) {
+                // Em outro disco a pasta não pode ser só renomeada
+                System.err.println("Dados locais: não foi possível mover " + legacy + " para " + target + " ("
+                    + e.getMessage() + "); mova a pasta à mão");
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.felipe.rehabgame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Repetidor UDP local que imita uma rede ruim: cada datagrama, nos dois sentidos, atrasa
+ * {@code latencyMs} mais um jitter uniforme de até {@code jitterMs} (o que também troca a ordem dos pacotes)
+ * e é descartado com probabilidade {@code lossRate}.
+ *
+ * Os clientes falam com a porta do repetidor como se fosse o host. Para cada cliente o repetidor abre um
+ * socket próprio em direção ao host, então o host continua enxergando um endereço por cliente. Roda numa
+ * thread própria; usado pelo {@link NetRaceHarness} para testar a corrida em rede numa máquina só.
+ */
+public class LossyUdpProxy implements Closeable, Runnable {
+
+    /** Datagrama aguardando a hora de ser entregue. */
+    private static class Delayed {
+        final long dueNs;
+        final long order;
+        final byte[] data;
+        final DatagramChannel via;
+        final SocketAddress to;
+
+        Delayed(long dueNs, long order, byte[] data, DatagramChannel via, SocketAddress to) {
+            this.dueNs = dueNs;
+            this.order = order;
+            this.data = data;
+            this.via = via;
+            this.to = to;
+        }
+    }
+
+    private final DatagramChannel front;
+    private final InetSocketAddress target;
+    private final Selector selector;
+    private final long latencyNs;
+    private final long jitterNs;
+    private final float lossRate;
+    private final Random random;
+
+    // Socket em direção ao host de cada cliente, e o cliente de cada socket (caminho de volta)
+    private final Map<SocketAddress, DatagramChannel> upstreamByClient = new HashMap<>();
+    private final PriorityQueue<Delayed> queue = new PriorityQueue<>((a, b) ->
+        a.dueNs != b.dueNs ? Long.compare(a.dueNs, b.dueNs) : Long.compare(a.order, b.order));
+    private final ByteBuffer buffer = ByteBuffer.allocate(2048);
+    private long order;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    public volatile long forwarded;
+    public volatile long dropped;
+
+    public LossyUdpProxy(int listenPort, InetSocketAddress target, int latencyMs, int jitterMs, float lossRate, long seed) throws IOException {
+        this.target = target;
+        this.latencyNs = latencyMs * 1_000_000L;
+        this.jitterNs = jitterMs * 1_000_000L;
+        this.lossRate = lossRate;
+        this.random = new Random(seed);
+
+        selector = Selector.open();
+        front = DatagramChannel.open();
+        front.configureBlocking(false);
+        front.bind(new InetSocketAddress("127.0.0.1", listenPort));
+        front.register(selector, SelectionKey.OP_READ);
+    }
+
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) front.getLocalAddress();
+    }
+
+    public void start() {
+        thread = new Thread(this, "lossy-udp-proxy");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                long waitMs = 50L;
+                Delayed next = queue.peek();
+                if (next != null) {
+                    waitMs = Math.max(1L, (next.dueNs - System.nanoTime()) / 1_000_000L);
+                }
+                selector.select(waitMs);
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.channel() == front) {
+                        readFromClients();
+                    } else {
+                        readFromHost((DatagramChannel) key.channel(), (SocketAddress) key.attachment());
+                    }
+                }
+                deliverDue();
+            }
+        } catch (IOException e) {
+            if (running) System.err.println("Repetidor UDP parou: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            if (thread != null) thread.join(1000L);
+            for (DatagramChannel upstream : upstreamByClient.values()) upstream.close();
+            front.close();
+            selector.close();
+        } catch (IOException | InterruptedException e) {
+            System.err.println("Erro ao fechar o repetidor UDP: " + e.getMessage());
+        }
+    }
+
+    private void readFromClients() throws IOException {
+        while (true) {
+            buffer.clear();
+            SocketAddress client = front.receive(buffer);
+            if (client == null) return;
+
+            DatagramChannel upstream = upstreamByClient.get(client);
+            if (upstream == null) {
+                upstream = DatagramChannel.open();
+                upstream.configureBlocking(false);
+                upstream.connect(target);
+                upstream.register(selector, SelectionKey.OP_READ, client);
+                upstreamByClient.put(client, upstream);
+            }
+            schedule(upstream, target);
+        }
+    }
+
+    private void readFromHost(DatagramChannel upstream, SocketAddress client) {
+        while (true) {
+            buffer.clear();
+            try {
+                if (upstream.receive(buffer) == null) return;
+            } catch (IOException e) {
+                return; // host fora do ar
+            }
+            schedule(front, client);
+        }
+    }
+
+    private void schedule(DatagramChannel via, SocketAddress to) {
+        if (random.nextFloat() < lossRate) {
+            dropped++;
+            return;
+        }
+        buffer.flip();
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        long jitter = jitterNs > 0L ? (long) (random.nextDouble() * jitterNs) : 0L;
+        queue.add(new Delayed(System.nanoTime() + latencyNs + jitter, order++, data, via, to));
+    }
+
+    private void deliverDue() {
+        long now = System.nanoTime();
+        while (!queue.isEmpty() && queue.peek().dueNs <= now) {
+            Delayed packet = queue.poll();
+            try {
+                if (packet.via == front) {
+                    front.send(ByteBuffer.wrap(packet.data), packet.to);
+                } else {
+                    packet.via.write(ByteBuffer.wrap(packet.data));
+                }
+                forwarded++;
+            } catch (IOException e) {
+                dropped++;
+            }
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.felipe.rehabgame;
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Pixmap;
@@ -10,37 +12,110 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.FrameBuffer;
-import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.ScreenUtils;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
 /** {@link com.badlogic.gdx.ApplicationListener} implementation shared by all platforms. */
 public class MainGame extends ApplicationAdapter {
+    private final GameConfig config;
+    private GpuResources gpu;
+    private DecodedImageCache imageCache;
+
     private SpriteBatch batch;
     private Texture playerTexture;
     private BitmapFont font;
+    private OrthographicCamera hudCamera;
     private ParallaxBackground parallax;
 
-    private float playerX;
-    private float playerY;
-
-    // movimentação
-    private float speedPxPerSec = 0f;
-    private final float MAX_SPEED_PX_PER_SEC = 750f; // ajuste conforme necessário (cap atual)
-    private final float TARGET_RPM_FOR_MAX_SPEED = 400f; // mapeia 400 RPM para velocidade máxima (cap)
-    // desaceleração (px/s^2) — mantém a redução de velocidade quando o usuário para
-    private final float DECELERATION_PX_PER_SEC2 = 200f; // como diminui quando para
-
-    // rastreamento de pulsos de pedal / cadência
-    private final Object pulseLock = new Object();
-    private long lastPulseTime = 0L;
-    private float smoothedIntervalMs = 0f;
-    private final float SMOOTH_ALPHA = 0.2f;
-    private final long PULSE_TIMEOUT_MS = 1500L;
+    // === Ciclistas (dois na corrida local com a tela dividida) ===
+    // Cada um tem sua cadência, física, câmera e HUD; fase, cache da fase e texturas são compartilhados
+    private final int riderCount;
+    private final PedalCadence[] cadences;
+    private RiderPhysics[] riders;
+    private OrthographicCamera[] cameras;
+    private Hud[] huds;
+    private final float[] currentRpms;
+    private int raceWinner = -1;
+    private static final int[] PEDAL_KEYS = {Input.Keys.SPACE, Input.Keys.SHIFT_RIGHT};
+    private static final String[] PEDAL_KEY_NAMES = {"SPACE", "R-SHIFT"};
+    // O segundo ciclista é tingido para distinguir as motos quando se cruzam
+    private static final Color[] RIDER_TINTS = {Color.WHITE, new Color(0.55f, 0.8f, 1f, 1f)};
+    // Faixa escura entre as duas metades da tela
+    private static final int SPLIT_GAP_PX = 1;
+    private RenderTimeStats renderStats;
+    // Fases de cada quadro e do carregamento; F9 exporta para chrome://tracing
+    private FrameTracer tracer;
+
+    // === Corrida em rede ===
+    private RaceHost raceHost;
+    private RaceClient raceClient;
+    private final RaceClient.RemoteRiders remoteRiders = new RaceClient.RemoteRiders();
+    private static final Color REMOTE_TINT = new Color(1f, 0.7f, 0.45f, 1f);
+    // Divergência entre a previsão local e a posição oficial a partir da qual o cliente adota a do host;
+    // abaixo disso a diferença é só a latência (a previsão está adiantada) e não deve ser corrigida
+    private static final float NET_CORRECTION_PX = 256f;
+
+    // === Fantasma da melhor volta (só jogando sozinho, nas fases do pacote) ===
+    private final boolean ghosts;
+    private final GhostRecorder ghostRecorder = new GhostRecorder();
+    private final GhostPlayer ghostPlayer = new GhostPlayer();
+    private static final float GHOST_ALPHA = 0.4f;
+
+    // === Partículas (poeira da roda e respingo do lago) ===
+    private ParticleSystem particles;
+    // Quadros (CPU) mais longos que isso reduzem a emissão; deixa folga dentro dos 16,7 ms de 60 Hz
+    private static final long PARTICLE_FRAME_BUDGET_NS = 12_000_000L;
+    // Quem cai no lago jogando sozinho vê o respingo por esse tempo antes do menu de game over
+    private static final float LAKE_SPLASH_SECONDS = 1.0f;
+    private float lakeSplashTimer = 0f;
+
+    // === Checkpoints ===
+    // Snapshot de cada ciclista local no último checkpoint; quem cai no lago volta para ele em vez do spawn.
+    // Só fora da corrida em rede, onde o host põe os remotos de volta no spawn
+    private Checkpoint[] checkpoints;
+    private boolean respawnAtCheckpoint = false;
+    private static final float CHECKPOINT_BANNER_SECONDS = 1.5f;
+    private float checkpointBannerTimer = 0f;
+
+    // === Progresso do paciente ===
+    // Cada tentativa do ciclista local 1 vira uma sessão; na tela dividida o segundo ciclista não é registrado
+    private ProgressStore progressStore;
+    private boolean attemptOpen = false;
+    private String attemptLevelId;
+    private long attemptStartMs;
+    private float attemptRpmSeconds;
+    private float attemptMaxRpm;
+    // Reinícios logo depois do spawn não contam como sessão abandonada
+    private static final float MIN_ABANDONED_SECONDS = 1f;
+    // Registro quadro a quadro da sessão inteira (ciclista 1), para os relatórios dos terapeutas
+    private SessionLogWriter sessionLog;
+
+    // === Painel do terapeuta (estado ao vivo por HTTP/SSE) ===
+    private DashboardServer dashboard;
+    private static final String DASHBOARD_PAGE = "dashboard/index.html";
+    // Início e bandeira da fase atual no eixo x, para o progresso; bandeira negativa quando não há (modo infinito)
+    private float progressStartX;
+    private float progressFlagX = -1f;
+
+    // === Sensor de cadência CSC (ciclista 1) ===
+    private CscUdpSource cscSource;
+    private Thread cscReplay;
 
     // === Sistema de fases ===
     private LevelData currentLevel;
     private int currentLevelNumber = 1;
-    private final int MAX_LEVEL = 3;
+    private LevelPack levelPack;
     private OrthographicCamera camera;
     private boolean levelComplete = false;
     private float levelCompleteTimer = 0f;
@@ -67,101 +142,244 @@ public class MainGame extends ApplicationAdapter {
     private final float VIEWPORT_WIDTH = 1280f;
     private final float VIEWPORT_HEIGHT = 720f;
 
-    private Texture grassTexture;
-    private Texture rampTexture;
-    private Texture lakeTexture;
-    private Texture flagTexture;
-    private Texture dirtTexture;
-
-    // Renderização do nível em cache
-    private FrameBuffer levelFrameBuffer;
+    // Imagens de cada código de tile, conforme o TileRegistry (null = nada a desenhar); cada arquivo é
+    // carregado uma vez, mesmo usado por vários tipos
+    private Texture[] tileTextures;
+    private Texture[] tileFills;
+    private Color[] tileTints;
+    private final Map<String, Texture> tileImages = new HashMap<>();
+    // Faixas por tile ao desenhar tiles inclinados sem sprite (TerrainProfile)
+    private static final int PROFILE_STRIPS = 16;
+
+    // Renderização do nível em cache; fases recentes ficam prontas (dados, colisão e framebuffer) no LevelCache
+    private LevelCache levelCache;
+    private LevelCache.Prepared currentPrepared;
     private Texture cachedLevelTexture;
 
-    // Física
-    private float velocityY = 0f;
-    private final float GRAVITY = -980f; // pixels/s^2
-    private final float RAMP_LAUNCH_VELOCITY_FACTOR = 0.5f; // Multiplier for launch speed
-    @SuppressWarnings("unused")
-    private boolean isOnGround = false;
+    // === Modo infinito ===
+    private final float ENDLESS_TILE_SIZE = 64f;
+    private EndlessRoute endlessRoute;
+    // Um framebuffer por slot da janela; o do slot que sai é reaproveitado para o chunk que entra
+    private FrameBuffer[] endlessChunkBuffers;
+
+    // === Ritmo de quadros ===
+    private FramePacer framePacer;
+    private boolean idleBenchmarkStarted = false;
+    private StartupTimer startupTimer;
+    // Último quadro do mundo, exibido congelado atrás dos menus
+    private FrameBuffer worldSnapshotBuffer;
+    private boolean worldSnapshotValid = false;
+    // Escala de render: o mundo vai para um framebuffer menor e é ampliado; o HUD fica na resolução da tela
+    private RenderScaleController renderScale;
+    private FrameBuffer sceneBuffer;
+    private boolean sceneBufferUnavailable; // sem VRAM: desenhar direto até a janela mudar de tamanho
+    private int sceneWidth; // área do sceneBuffer usada neste quadro (0 = mundo desenhado direto na tela)
+    private int sceneHeight;
 
     // Renderização do jogador
     private final float PLAYER_SCALE = 0.35f; // Scale down the player texture to match tile size (~64px)
 
+    public MainGame() {
+        this(new GameConfig());
+    }
+
+    public MainGame(GameConfig config) {
+        this.config = config;
+        if (config.twoRiders && config.endless) {
+            // A janela de chunks acompanha um único jogador
+            System.err.println("O modo infinito não suporta dois ciclistas; seguindo com um");
+        }
+        // Ao entrar numa corrida em rede só um ciclista local é enviado ao host
+        riderCount = config.twoRiders && !config.endless && config.netJoinHost == null ? 2 : 1;
+        // Criadas já no construtor: o listener do dispositivo pode mandar pulsos antes do primeiro quadro
+        cadences = new PedalCadence[riderCount];
+        for (int i = 0; i < riderCount; i++) {
+            cadences[i] = new PedalCadence();
+        }
+        currentRpms = new float[riderCount];
+        ghosts = config.ghost && riderCount == 1 && !config.endless && !config.netHost && config.netJoinHost == null;
+    }
+
     @Override
     public void create() {
         batch = new SpriteBatch();
-        camera = new OrthographicCamera();
-        camera.setToOrtho(false, VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
+        gpu = new GpuResources(config.vramBudgetMb * 1024L * 1024L);
+        registerGpuPressureHandlers();
+        if (Gdx.files.isLocalStorageAvailable()) {
+            LocalData.adoptLegacy(Paths.get(Gdx.files.getLocalStoragePath()));
+        }
+        if (config.decodedImageCache && Gdx.files.isLocalStorageAvailable()) {
+            imageCache = new DecodedImageCache();
+            gpu.setImageCache(imageCache);
+        }
+        // Na tela dividida cada visão mostra a mesma largura do mundo com metade da altura
+        cameras = new OrthographicCamera[riderCount];
+        for (int i = 0; i < riderCount; i++) {
+            cameras[i] = new OrthographicCamera();
+            cameras[i].setToOrtho(false, VIEWPORT_WIDTH, VIEWPORT_HEIGHT / riderCount);
+        }
+        camera = cameras[0];
 
         font = new BitmapFont();
         font.getData().setScale(1.5f);
+        huds = new Hud[riderCount];
+        for (int i = 0; i < riderCount; i++) {
+            huds[i] = new Hud(font, PEDAL_KEY_NAMES[i]);
+        }
+
+        hudCamera = new OrthographicCamera();
+        hudCamera.setToOrtho(false, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        hudCamera.update();
+
+        framePacer = new FramePacer(config.onDemandMenus);
+        startupTimer = new StartupTimer(config);
+        renderStats = new RenderTimeStats(riderCount > 1);
+        tracer = new FrameTracer(config.trace, config.traceEvents);
+        particles = new ParticleSystem(config.particleBudget, PARTICLE_FRAME_BUDGET_NS);
+        renderScale = new RenderScaleController(config.renderScale, config.renderScaleAuto, config.targetFps);
+        if (renderScale.isAutomatic() || renderScale.getScale() < 1f) {
+            System.out.println(renderScale.describe());
+        }
+        levelCache = new LevelCache(gpu, config.levelCacheMb * 1024L * 1024L);
+        if (Gdx.files.isLocalStorageAvailable()) {
+            try {
+                progressStore = ProgressStore.open(LocalData.dir(LocalData.PROGRESS));
+            } catch (IOException e) {
+                System.err.println("Progresso indisponível (" + e.getMessage() + "); as sessões não serão salvas");
+            }
+            if (config.sessionLog) {
+                long now = System.currentTimeMillis();
+                try {
+                    sessionLog = new SessionLogWriter(LocalData.dir(LocalData.SESSIONS), config.patientId, now);
+                } catch (IOException e) {
+                    System.err.println("Registro da sessão indisponível: " + e.getMessage());
+                }
+            }
+        }
+        startCadenceSensor();
+        startDashboard();
+    }
+
+    /** Abre o servidor do painel do terapeuta (--dashboard); o jogo segue normalmente se a porta estiver ocupada. */
+    private void startDashboard() {
+        if (!config.dashboard) return;
+        FileHandle page = Gdx.files.internal(DASHBOARD_PAGE);
+        try {
+            InetAddress bind = config.dashboardBind != null ? InetAddress.getByName(config.dashboardBind) : null;
+            dashboard = new DashboardServer(bind, config.dashboardPort, config.dashboardRateHz, config.patientId,
+                page.exists() ? page.readBytes() : null, config.dashboardOrigins);
+        } catch (IOException e) {
+            System.err.println("Painel do terapeuta indisponível na porta " + config.dashboardPort + ": " + e.getMessage());
+        }
+    }
+
+    /** Manda o estado deste quadro ao painel (sem alocar: só referências e primitivos). */
+    private void publishDashboard() {
+        float progress = -1f;
+        if (progressFlagX > progressStartX) {
+            progress = Math.max(0f, Math.min(1f, (riders[0].x - progressStartX) / (progressFlagX - progressStartX)));
+        }
+        float timeRemaining = currentLevel.timeLimit > 0 ? Math.max(0f, currentLevel.timeLimit - elapsedTime) : -1f;
+        dashboard.publish(gameState.name(), attemptLevelId, currentLevelNumber, endlessRoute != null ? 0 : levelPack.getLevelCount(),
+            progress, timeRemaining, elapsedTime, currentRpms, riders);
+    }
+
+    /** Liga o sensor CSC (UDP ou gravação) ao pedal do ciclista 1; sem ele, o teclado continua funcionando. */
+    private void startCadenceSensor() {
+        if (config.cscUdpPort <= 0 && config.cscReplayFile == null) return;
+        CscDecoder decoder = new CscDecoder(timeMs -> registerPedalPulse(0, timeMs));
+        try {
+            if (config.cscReplayFile != null) {
+                cscReplay = CscCapture.startReplay(Paths.get(config.cscReplayFile), decoder, true);
+            } else {
+                cscSource = new CscUdpSource(config.cscUdpPort, decoder,
+                    config.cscRecordFile != null ? Paths.get(config.cscRecordFile) : null);
+            }
+        } catch (IOException e) {
+            System.err.println("Sensor CSC indisponível: " + e.getMessage());
+        }
     }
 
     private void loadAssets() {
         loadingProgress = 0.1f;
 
-        // Carrega a fase do txt
-        String levelFile = "level" + currentLevelNumber + ".txt";
-        currentLevel = LevelLoader.loadLevel(levelFile, 96f);
+        if (config.endless) {
+            // Percurso gerado em segundo plano a partir da semente
+            endlessRoute = new EndlessRoute(config.endlessSeed, ENDLESS_TILE_SIZE);
+            currentLevel = endlessRoute.start();
+        } else {
+            // Só o manifesto é lido aqui; as fases vêm do pacote quando são jogadas
+            levelPack = LevelPack.open("levels/" + config.levelPack + ".pack");
+            currentLevel = loadLevelFromPack(currentLevelNumber);
+        }
         loadingProgress = 0.3f;
 
         // Parallax: inicialize após carregar currentLevel
-        parallax = new ParallaxBackground(camera);
+        parallax = new ParallaxBackground(camera, gpu);
 
         // Adicionar camadas do fundo (5) para a frente (1)
         // Layer 5 - mais ao fundo (mais lenta)
-        parallax.addLayer(new Texture("Background/Background layers_layer 5.png"), 0.1f, true, false);
+        parallax.addLayer("Background/Background layers_layer 5.png", 0.1f, true, false);
 
         // Layer 4
-        parallax.addLayer(new Texture("Background/Background layers_layer 4.png"), 0.2f, true, false);
+        parallax.addLayer("Background/Background layers_layer 4.png", 0.2f, true, false);
 
         // Layer 3
-        parallax.addLayer(new Texture("Background/Background layers_layer 3.png"), 0.35f, true, false);
+        parallax.addLayer("Background/Background layers_layer 3.png", 0.35f, true, false);
 
         // Layer 2
-        parallax.addLayer(new Texture("Background/Background layers_layer 2.png"), 0.5f, true, false);
+        parallax.addLayer("Background/Background layers_layer 2.png", 0.5f, true, false);
 
         // Layer 1 - mais na frente (mais rápida)
-        parallax.addLayer(new Texture("Background/Background layers_layer 1.png"), 0.7f, true, false);
+        parallax.addLayer("Background/Background layers_layer 1.png", 0.7f, true, false);
 
 
-        // Carregar texturas dos assets
-        grassTexture = new Texture("grass.png");
+        // Carregar texturas dos tiles (definidas em tiles.txt)
         loadingProgress = 0.4f;
-
-        rampTexture = new Texture("ramp.png");
-        loadingProgress = 0.5f;
-
-        lakeTexture = new Texture("lake.png");
-        loadingProgress = 0.6f;
-
-        flagTexture = new Texture("flag.jpg");
-        loadingProgress = 0.7f;
-
-        dirtTexture = new Texture("dirt.png");
+        particles.loadTextures(gpu);
+        int tileCodes = TileRegistry.size();
+        tileTextures = new Texture[tileCodes];
+        tileFills = new Texture[tileCodes];
+        tileTints = new Color[tileCodes];
+        for (int code = 0; code < tileCodes; code++) {
+            TileRegistry.Definition definition = TileRegistry.get(code);
+            if (definition == null) continue;
+            tileTextures[code] = acquireTileImage(definition.texture);
+            tileFills[code] = acquireTileImage(definition.fill);
+            tileTints[code] = definition.tint == 0xFFFFFFFF ? null : new Color(definition.tint);
+            loadingProgress = 0.4f + 0.35f * (code + 1) / tileCodes;
+        }
         loadingProgress = 0.75f;
 
         // Carregar textura do jogador
-        playerTexture = new Texture("moto.png");
+        playerTexture = gpu.acquireTexture("moto.png", GpuResources.Category.SPRITE);
+        if (playerTexture == null) {
+            // Sem a moto não há como medir nem desenhar o ciclista
+            throw new GdxRuntimeException("Sem VRAM para a moto - " + gpu.describeUsage());
+        }
         loadingProgress = 0.9f;
 
-        // Definir a posição inicial do jogador a partir do nível
-        // O spawn é armazenado como coordenadas (col * tileSize, row * tileSize)
-        // A linha inferior do nível é Y=0, a linha superior é (height-1) * tileSize
-        int spawnCol = (int)(currentLevel.playerSpawn.x / currentLevel.tileSize);
-        int spawnRow = (int)(currentLevel.playerSpawn.y / currentLevel.tileSize);
-
-        playerX = spawnCol * currentLevel.tileSize;
-        // Coloca o jogador em cima do spawn
-        playerY = (currentLevel.height - spawnRow) * currentLevel.tileSize;
+        // Definir a posição inicial dos ciclistas a partir do nível
+        riders = new RiderPhysics[riderCount];
+        checkpoints = new Checkpoint[riderCount];
+        for (int i = 0; i < riderCount; i++) {
+            riders[i] = new RiderPhysics(playerTexture.getWidth() * PLAYER_SCALE, playerTexture.getHeight() * PLAYER_SCALE);
+            checkpoints[i] = new Checkpoint();
+        }
+        placeRidersAtSpawn();
+        startNetwork();
 
         System.out.println("Player texture size: " + playerTexture.getWidth() + "x" + playerTexture.getHeight());
         System.out.println("Player scaled size: " + (playerTexture.getWidth() * PLAYER_SCALE) + "x" + (playerTexture.getHeight() * PLAYER_SCALE));
         System.out.println("Tile size: " + currentLevel.tileSize);
-        System.out.println("Spawn position: " + playerX + ", " + playerY);
+        System.out.println("Spawn position: " + riders[0].x + ", " + riders[0].y);
 
         // Pré-renderizara o nível no framebuffer para melhorar o desempenho
         buildLevelCache();
+        System.out.println(gpu.describeUsage());
+        if (imageCache != null) {
+            System.out.println(imageCache.describeStats());
+        }
 
         loadingProgress = 1.0f;
         isLoading = false;
@@ -177,37 +395,57 @@ public class MainGame extends ApplicationAdapter {
         // Carregar assets no primeiro frame
         if (isLoading) {
             renderLoadingScreen();
+            long loadTrace = tracer.begin();
             loadAssets();
+            tracer.end(FrameTracer.Phase.LOAD_ASSETS, loadTrace);
             return;
         }
 
+        tracer.nextFrame();
+        long frameTrace = tracer.begin();
+        long frameStartNs = System.nanoTime();
         float delta = Gdx.graphics.getDeltaTime();
+        float frameSeconds = delta; // intervalo real, para a escala de render automática
         // Limitar o delta time para evitar problemas de física
         if (delta > 0.1f) {
             delta = 0.1f;
         }
 
         // Atualiza o tempo se a fase não for concluida a tempo
-        if (!levelComplete && !timeOut && !gameWon) {
+        if (lakeSplashTimer > 0f) {
+            // Caiu no lago: o relógio para e o menu de game over espera o respingo (que também para na pausa)
+            if (gameState == GameState.PLAYING) lakeSplashTimer -= delta;
+            if (lakeSplashTimer <= 0f) {
+                lakeSplashTimer = 0f;
+                if (respawnAtCheckpoint) {
+                    respawnAtCheckpoint = false;
+                    restoreCheckpoint(0);
+                } else {
+                    gameState = GameState.GAME_OVER;
+                }
+            }
+        } else if (!levelComplete && !timeOut && !gameWon) {
             elapsedTime += delta;
 
             // Verificar se o limite de tempo foi excedido
-            if (currentLevel.timeLimit > 0 && elapsedTime >= currentLevel.timeLimit) {
+            if (currentLevel.timeLimit > 0 && elapsedTime >= currentLevel.timeLimit && raceClient == null) {
                 timeOut = true;
+                finishAttempt(SessionRecord.Outcome.TIME_OUT);
                 System.out.println("Time's up! Resetting level...");
-                return; // Congela o estado do jogo
             }
-        }
-
-        // Lida com o estouro do tempo
-        if (timeOut) {
+        } else if (timeOut) {
+            // Lida com o estouro do tempo
             levelCompleteTimer += delta;
             if (levelCompleteTimer >= LEVEL_COMPLETE_DELAY) {
                 gameState = GameState.GAME_OVER;
                 timeOut = false;
                 levelCompleteTimer = 0f;
             }
-            return; // Não processar outras atualizações enquanto o timeout está aparecendo
+        }
+
+        long phaseTrace = tracer.begin();
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F9)) {
+            exportTrace();
         }
 
         // Lidar com estado de game over — mostrar menu
@@ -224,8 +462,9 @@ public class MainGame extends ApplicationAdapter {
             handlePauseMenuInput();
         }
 
+        // Enquanto o aviso de tempo esgotado aparece, o jogo fica congelado (só desenha)
         // Input: espaço simula um pulso do dispositivo (only in playing state)
-        if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
+        if (!timeOut && Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
             if (gameState == GameState.PLAYING) {
                 gameState = GameState.PAUSED;
                 selectedMenuOption = 0; // redefenir seleção do menu
@@ -233,66 +472,120 @@ public class MainGame extends ApplicationAdapter {
                 gameState = GameState.PLAYING;
             }
         }
-        if (gameState == GameState.PLAYING && Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) {
-            registerPedalPulse();
+        if (gameState == GameState.PLAYING && !timeOut) {
+            for (int i = 0; i < riderCount; i++) {
+                if (Gdx.input.isKeyJustPressed(PEDAL_KEYS[i])) {
+                    registerPedalPulse(i);
+                }
+            }
         }
 
-        // Calcular velocidade atual com base no smoothedIntervalMs
-        float currentRpm = 0f;
+        tracer.end(FrameTracer.Phase.INPUT, phaseTrace);
+
+        // Cadência atual de cada ciclista (0 fora do jogo)
+        Arrays.fill(currentRpms, 0f);
 
         // Atualizar física apenas quando estiver jogando
-        if (gameState == GameState.PLAYING) {
-            long nowMs = System.currentTimeMillis();
-            synchronized (pulseLock) {
-                // se passou tempo demais desde o último pulso, considerar que parou
-                if (lastPulseTime > 0L && (nowMs - lastPulseTime) > PULSE_TIMEOUT_MS) {
-                    smoothedIntervalMs = 0f; // força o ramo de 'sem pulsos recentes'
+        if (gameState == GameState.PLAYING && !timeOut) {
+            phaseTrace = tracer.begin();
+            for (int i = 0; i < riderCount; i++) {
+                RiderPhysics rider = riders[i];
+                if (rider.inLake) continue; // parado no lago enquanto o respingo termina
+                currentRpms[i] = cadences[i].currentRpm();
+                rider.updateSpeed(currentRpms[i], delta);
+                if (i == 0 && attemptOpen) {
+                    attemptRpmSeconds += currentRpms[0] * delta;
+                    attemptMaxRpm = Math.max(attemptMaxRpm, currentRpms[0]);
                 }
 
-                if (smoothedIntervalMs > 0.0f) {
-                    currentRpm = (60_000f / smoothedIntervalMs); // ms -> RPM
-                    // mapeamento linear direto: RPM -> target speed
-                    float t = currentRpm / TARGET_RPM_FOR_MAX_SPEED;
-                    if (t > 1f) t = 1f;
-                    if (t < 0f) t = 0f;
-                    float targetSpeed = t * MAX_SPEED_PX_PER_SEC;
-
-                    // Se o alvo for menor que a velocidade atual, desacelerar gradualmente
-                    if (targetSpeed < speedPxPerSec) {
-                        speedPxPerSec = Math.max(targetSpeed, speedPxPerSec - DECELERATION_PX_PER_SEC2 * delta);
+                // Aplicar física (gravidade, chão, rampas e lagos)
+                rider.step(currentLevel, delta);
+                if (i == 0 && attemptOpen && sessionLog != null) {
+                    sessionLog.frame(delta, currentRpms[0], rider.speedPxPerSec, rider.x, rider.y);
+                }
+                particles.emitDust(i, rider.x + rider.width * 0.2f, rider.y, rider.speedPxPerSec, rider.onGround, delta);
+
+                // Verificar colisão com o lago
+                if (rider.inLake) {
+                    particles.splash(rider.x + rider.width / 2f, rider.y);
+                    boolean checkpoint = checkpointsEnabled() && checkpoints[i].active;
+                    if (riderCount == 1 && raceHost == null && raceClient == null) {
+                        // Sozinho: depois do respingo, volta ao checkpoint ou game over
+                        rider.speedPxPerSec = 0f;
+                        lakeSplashTimer = LAKE_SPLASH_SECONDS;
+                        respawnAtCheckpoint = checkpoint;
+                        if (checkpoint) {
+                            System.out.println("Hit the lake! Back to the checkpoint");
+                        } else {
+                            finishAttempt(SessionRecord.Outcome.LAKE);
+                            System.out.println("Hit the lake! Game Over!");
+                        }
+                    } else if (checkpoint) {
+                        // Na corrida o outro continua; quem caiu volta ao último checkpoint
+                        checkpoints[i].restore(rider, cadences[i]);
+                        System.out.println("Ciclista " + (i + 1) + " caiu no lago e volta ao checkpoint");
                     } else {
-                        // Se o alvo for maior, aplicar imediatamente (controle responsivo ao aumento de RPM)
-                        speedPxPerSec = targetSpeed;
+                        // Sem checkpoint, volta ao início da fase
+                        rider.placeAtSpawn(currentLevel);
+                        System.out.println("Ciclista " + (i + 1) + " caiu no lago e volta ao início");
                     }
-                } else {
-                    // sem pulsos recentes -> reduzir velocidade gradualmente (inércia)
-                    speedPxPerSec = Math.max(0f, speedPxPerSec - DECELERATION_PX_PER_SEC2 * delta);
+                } else if (checkpointsEnabled()) {
+                    int column = rider.touchingCheckpointColumn;
+                    if (column > checkpoints[i].column) captureCheckpoint(i, column);
                 }
             }
 
-            // Aplicar física
-            velocityY += GRAVITY * delta;
-            playerY += velocityY * delta;
+            tracer.end(FrameTracer.Phase.PHYSICS, phaseTrace);
+            if (checkpointBannerTimer > 0f) checkpointBannerTimer -= delta;
 
-            // Velocidade do ambiente
-            parallax.update(speedPxPerSec, delta);
+            phaseTrace = tracer.begin();
+            particles.update(delta);
+            tracer.end(FrameTracer.Phase.PARTICLES, phaseTrace);
 
-            // mover personagem horizontalmente
-            playerX += speedPxPerSec * delta;
+            // Velocidade do ambiente
+            phaseTrace = tracer.begin();
+            parallax.update(riders[0].speedPxPerSec, delta);
+            tracer.end(FrameTracer.Phase.PARALLAX, phaseTrace);
+
+            // Fantasma: gravar esta tentativa e posicionar a melhor no mesmo tempo de fase
+            if (ghosts) {
+                phaseTrace = tracer.begin();
+                if (!levelComplete) {
+                    RiderPhysics rider = riders[0];
+                    ghostRecorder.record(elapsedTime, rider.x, rider.y, rider.speedPxPerSec);
+                }
+                ghostPlayer.seek(elapsedTime);
+                tracer.end(FrameTracer.Phase.GHOST, phaseTrace);
+            }
 
-            // Verificar colisão do chão e da rampa
-            checkGroundAndRampCollision();
+            // Corrida em rede: o host simula os remotos e envia snapshots; o cliente envia a cadência e segue o host
+            phaseTrace = tracer.begin();
+            if (raceHost != null) {
+                raceHost.update(delta, currentLevel, currentLevelNumber, riders, currentRpms);
+                tracer.end(FrameTracer.Phase.NETWORK, phaseTrace);
+            } else if (raceClient != null) {
+                raceClient.update(currentRpms[0]);
+                followRaceHost();
+                raceClient.interpolate(System.currentTimeMillis(), remoteRiders);
+                tracer.end(FrameTracer.Phase.NETWORK, phaseTrace);
+            }
 
-            // Verificar colisão com o lago (game over)
-            checkLakeCollision();
+            // Modo infinito: descartar o chunk atrás da câmera e trazer o próximo
+            if (endlessRoute != null) {
+                phaseTrace = tracer.begin();
+                advanceEndlessRoute();
+                tracer.end(FrameTracer.Phase.ENDLESS_STREAM, phaseTrace);
+            }
 
-            // Verificar colisão com a bandeira
-            if (!levelComplete) {
+            // Verificar colisão com a bandeira (no cliente quem decide é o host)
+            if (!levelComplete && raceClient == null) {
+                phaseTrace = tracer.begin();
                 checkFlagCollision();
+                tracer.end(FrameTracer.Phase.FLAG_CHECK, phaseTrace);
             }
 
             // Lidar com conclusão e progressão do nível
-            if (levelComplete) {
+            if (levelComplete && raceClient == null) {
                 levelCompleteTimer += delta;
                 if (levelCompleteTimer >= LEVEL_COMPLETE_DELAY) {
                     loadNextLevel();
@@ -300,87 +593,64 @@ public class MainGame extends ApplicationAdapter {
             }
         }
 
-        // Atualizar câmera para seguir o jogador
+        // Atualizar câmeras para seguir cada ciclista
         if (gameState == GameState.PLAYING) {
-            float camX = playerX + (playerTexture.getWidth() * PLAYER_SCALE) / 2;
-            float camY = Math.max(VIEWPORT_HEIGHT / 2, Math.min(playerY + (playerTexture.getHeight() * PLAYER_SCALE) / 2, (currentLevel.height * currentLevel.tileSize) - VIEWPORT_HEIGHT / 2));
-            camera.position.set(camX, camY, 0);
-            camera.update();
-        }
-
-        // desenho
-        if (gameState == GameState.PLAYING) {
-            batch.setProjectionMatrix(camera.combined);
-            batch.begin();
-
-            //desenho paralaxe
-            parallax.draw(batch);
-
-            // Desenhar o nível em cache (muito mais rápido do que desenhar cada tile individualmente)
-            if (cachedLevelTexture != null) {
-                int levelWidth = (int)(currentLevel.width * currentLevel.tileSize);
-                int levelHeight = (int)(currentLevel.height * currentLevel.tileSize);
-                batch.draw(cachedLevelTexture, 0, 0, levelWidth, levelHeight);
+            for (int i = 0; i < riderCount; i++) {
+                followRider(cameras[i], riders[i]);
             }
+        }
 
-            // Desenhar jogador (reduzido)
-            float scaledWidth = playerTexture.getWidth() * PLAYER_SCALE;
-            float scaledHeight = playerTexture.getHeight() * PLAYER_SCALE;
-            batch.draw(playerTexture, playerX, playerY, scaledWidth, scaledHeight);
+        // Taxa cheia durante o jogo; em menus, só redesenhar quando houver entrada
+        boolean playing = gameState == GameState.PLAYING;
+        boolean pacingChanged = framePacer.update(playing);
 
-            batch.end();
+        // desenho
+        long extraViewNs = 0L;
+        if (playing) {
+            worldSnapshotValid = false;
+            phaseTrace = tracer.begin();
+            extraViewNs = renderWorldScaled(Gdx.graphics.getBackBufferWidth(), Gdx.graphics.getBackBufferHeight());
+            tracer.end(FrameTracer.Phase.WORLD_RENDER, phaseTrace);
+        } else if (!worldSnapshotValid) {
+            phaseTrace = tracer.begin();
+            captureWorldSnapshot();
+            tracer.end(FrameTracer.Phase.WORLD_SNAPSHOT, phaseTrace);
         }
 
         // Desenhar HUD
-        OrthographicCamera hudCamera = new OrthographicCamera();
-        hudCamera.setToOrtho(false, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
-        hudCamera.update();
+        phaseTrace = tracer.begin();
         batch.setProjectionMatrix(hudCamera.combined);
         batch.begin();
 
-        // Mostrar HUD apenas durante o jogo
-        if (gameState == GameState.PLAYING) {
-            // HUD
-            String hud = String.format("RPM: %.1f  Speed: %.0f px/s  Y-Vel: %.0f (SPACE=Pedal)", currentRpm, speedPxPerSec, velocityY);
-            font.draw(batch, hud, 10, Gdx.graphics.getHeight() - 10);
-
-            // Mostrar o temporizador
-            if (currentLevel.timeLimit > 0) {
-                float remainingTime = currentLevel.timeLimit - elapsedTime;
-                if (remainingTime < 0) remainingTime = 0;
-                int minutes = (int)(remainingTime / 60);
-                int seconds = (int)(remainingTime % 60);
-                String timerColor = remainingTime < 10 ? "TIME: " : "TIME: ";
-                String timerText = String.format("%s%d:%02d", timerColor, minutes, seconds);
-                font.draw(batch, timerText, 10, Gdx.graphics.getHeight() - 40);
-            }
-
-            // Informação do level
-            String levelInfo = String.format("Level %d/%d", currentLevelNumber, MAX_LEVEL);
-            font.draw(batch, levelInfo, 10, Gdx.graphics.getHeight() - 70);
-
-            if (timeOut) {
-                font.getData().setScale(3.0f);
-                font.draw(batch, "TIME'S UP!", Gdx.graphics.getWidth() / 2 - 150, Gdx.graphics.getHeight() / 2);
-                font.getData().setScale(1.5f);
-                int timeLeft = (int)(LEVEL_COMPLETE_DELAY - levelCompleteTimer);
-                font.draw(batch, "Resetting in " + (timeLeft + 1) + "...", Gdx.graphics.getWidth() / 2 - 100, Gdx.graphics.getHeight() / 2 - 50);
-                font.getData().setScale(1.5f);
-            } else if (levelComplete) {
-                font.getData().setScale(3.0f);
-                String message = currentLevelNumber >= MAX_LEVEL ? "LEVEL COMPLETE!" : "LEVEL COMPLETE!";
-                font.draw(batch, message, Gdx.graphics.getWidth() / 2 - 250, Gdx.graphics.getHeight() / 2);
-
-                if (currentLevelNumber < MAX_LEVEL) {
-                    font.getData().setScale(1.5f);
-                    int timeLeft = (int)(LEVEL_COMPLETE_DELAY - levelCompleteTimer);
-                    font.draw(batch, "Next level in " + (timeLeft + 1) + "...", Gdx.graphics.getWidth() / 2 - 100, Gdx.graphics.getHeight() / 2 - 50);
-                }
-                font.getData().setScale(1.5f);
+        // Mundo desenhado em resolução reduzida: ampliar para a tela inteira antes do HUD
+        if (playing && sceneWidth > 0) {
+            batch.draw(sceneBuffer.getColorBufferTexture(), 0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight(),
+                0, 0, sceneWidth, sceneHeight, false, true);
+        }
+
+        // Menus: o mundo aparece como um quadro congelado e escurecido, sem ser redesenhado
+        if (!playing && worldSnapshotValid && worldSnapshotBuffer != null) {
+            Texture snapshot = worldSnapshotBuffer.getColorBufferTexture();
+            batch.setColor(0.45f, 0.45f, 0.45f, 1f);
+            batch.draw(snapshot, 0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight(),
+                0, 0, snapshot.getWidth(), snapshot.getHeight(), false, true);
+            batch.setColor(Color.WHITE);
+        }
+
+        // Mostrar HUD apenas durante o jogo (layouts só são refeitos quando o valor exibido muda)
+        if (playing) {
+            float screenWidth = Gdx.graphics.getWidth();
+            float viewHeight = Gdx.graphics.getHeight() / (float) riderCount;
+            for (int i = 0; i < riderCount; i++) {
+                updateHud(huds[i], i);
+                // Mesma divisão das visões do mundo: o primeiro ciclista em cima
+                huds[i].draw(batch, 0f, (riderCount - 1 - i) * viewHeight, screenWidth, viewHeight);
             }
         }
+        tracer.end(FrameTracer.Phase.HUD, phaseTrace);
 
-        // Desenhar menus sobre tudo
+        // Desenhar menus sobre tudo (o fim do batch envia o HUD e os menus)
+        phaseTrace = tracer.begin();
         if (gameState == GameState.GAME_OVER) {
             renderGameOverMenu();
         } else if (gameState == GameState.VICTORY) {
@@ -389,27 +659,276 @@ public class MainGame extends ApplicationAdapter {
             renderPauseMenu();
         }
 
+        batch.end();
+        tracer.end(FrameTracer.Phase.MENU, phaseTrace);
+
+        if (playing) {
+            long frameNs = System.nanoTime() - frameStartNs;
+            renderStats.record(frameNs, extraViewNs);
+            particles.recordFrameTime(frameNs);
+            // O primeiro quadro depois de um menu mede o tempo parado no menu, não o custo do quadro
+            if (!pacingChanged && renderScale.update(frameSeconds)) {
+                System.out.println(renderScale.describe());
+            }
+        }
+        if (dashboard != null) publishDashboard();
+        startupTimer.onGameFrame();
+        if (config.idleBenchmarkSeconds > 0 && !idleBenchmarkStarted) startIdleBenchmark();
+        tracer.end(FrameTracer.Phase.FRAME, frameTrace);
+    }
+
+    /**
+     * {@code --idle-benchmark}: abre o menu de pausa e, passado o tempo pedido, imprime o CPU medido no menu e
+     * fecha o jogo. O relógio fica numa thread à parte porque, com o ritmo sob demanda, render() não é chamado
+     * enquanto ninguém aperta nada; o fim chega pelo postRunnable, que o backend executa mesmo sem quadros.
+     */
+    private void startIdleBenchmark() {
+        idleBenchmarkStarted = true;
+        gameState = GameState.PAUSED;
+        selectedMenuOption = 0;
+        final long durationMs = config.idleBenchmarkSeconds * 1000L;
+        Thread timer = new Thread(() -> {
+            try {
+                Thread.sleep(durationMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            Gdx.app.postRunnable(() -> {
+                framePacer.finishIdleBenchmark();
+                Gdx.app.exit();
+            });
+        }, "idle-benchmark");
+        timer.setDaemon(true);
+        timer.start();
+    }
+
+    /** Salva os eventos do rastreamento em traces/ (formato do chrome://tracing) e imprime o resumo por fase. */
+    private void exportTrace() {
+        if (!tracer.isEnabled()) {
+            System.out.println("Rastreamento de quadros desligado (--no-trace)");
+            return;
+        }
+        if (!Gdx.files.isLocalStorageAvailable()) return;
+        FileHandle file = LocalData.file(LocalData.TRACES, "trace-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json");
+        try (Writer out = file.writer(false, "UTF-8")) {
+            tracer.writeChromeTrace(out);
+        } catch (IOException e) {
+            System.err.println("Erro ao salvar o trace: " + e.getMessage());
+            return;
+        }
+        System.out.println("Trace salvo em " + file.path() + " (" + tracer.size() + " eventos)");
+        System.out.println(tracer.describe());
+    }
+
+    private void updateHud(Hud hud, int riderIndex) {
+        RiderPhysics rider = riders[riderIndex];
+        hud.setStatus(currentRpms[riderIndex], rider.speedPxPerSec, rider.velocityY);
+        hud.setTimer(currentLevel.timeLimit > 0 ? Math.max(0f, currentLevel.timeLimit - elapsedTime) : -1f);
+        if (endlessRoute != null) {
+            hud.setEndless(endlessRoute.getSeed(), endlessRoute.getCurrentChunkIndex(rider.x));
+        } else {
+            hud.setLevel(currentLevelNumber, levelPack.getLevelCount());
+        }
+
+        int countdown = (int)(LEVEL_COMPLETE_DELAY - levelCompleteTimer) + 1;
         if (timeOut) {
-            font.getData().setScale(3.0f);
-            font.draw(batch, "TIME'S UP!", Gdx.graphics.getWidth() / 2 - 150, Gdx.graphics.getHeight() / 2);
-            font.getData().setScale(1.5f);
-            int timeLeft = (int)(LEVEL_COMPLETE_DELAY - levelCompleteTimer);
-            font.draw(batch, "Resetting in " + (timeLeft + 1) + "...", Gdx.graphics.getWidth() / 2 - 100, Gdx.graphics.getHeight() / 2 - 50);
-            font.getData().setScale(1.5f);
+            hud.setBanner(Hud.Banner.TIME_UP, countdown);
         } else if (levelComplete) {
-            font.getData().setScale(3.0f);
-            String message = "LEVEL COMPLETE!";
-            font.draw(batch, message, Gdx.graphics.getWidth() / 2 - 250, Gdx.graphics.getHeight() / 2);
+            Hud.Banner banner = raceWinner == riderIndex ? Hud.Banner.LEVEL_COMPLETE : Hud.Banner.RIVAL_FINISHED;
+            hud.setBanner(banner, currentLevelNumber < levelPack.getLevelCount() ? countdown : -1);
+        } else if (checkpointBannerTimer > 0f) {
+            hud.setBanner(Hud.Banner.CHECKPOINT, -1);
+        } else {
+            hud.setBanner(Hud.Banner.NONE, -1);
+        }
+    }
+
+    /** Centraliza a câmera no ciclista, sem mostrar além do topo nem do fundo da fase. */
+    private void followRider(OrthographicCamera view, RiderPhysics rider) {
+        float halfHeight = view.viewportHeight / 2;
+        float camX = rider.x + rider.width / 2;
+        float camY = Math.max(halfHeight, Math.min(rider.y + rider.height / 2, (currentLevel.height * currentLevel.tileSize) - halfHeight));
+        view.position.set(camX, camY, 0);
+        view.update();
+    }
+
+    /**
+     * Desenha o mundo uma vez por ciclista no alvo atual (tela ou framebuffer) de {@code targetWidth} x
+     * {@code targetHeight} pixels. Com dois ciclistas a área é dividida em faixas horizontais, o primeiro em
+     * cima; todas as passadas usam o mesmo cache da fase, as mesmas texturas e o mesmo parallax, só a câmera
+     * muda. Retorna o tempo gasto nas passadas além da primeira, em ns.
+     */
+    private long renderViews(int targetWidth, int targetHeight) {
+        if (riderCount == 1) {
+            renderWorld(0);
+            return 0L;
+        }
 
-            if (currentLevelNumber < MAX_LEVEL) {
-                font.getData().setScale(1.5f);
-                int timeLeft = (int)(LEVEL_COMPLETE_DELAY - levelCompleteTimer);
-                font.draw(batch, "Next level in " + (timeLeft + 1) + "...", Gdx.graphics.getWidth() / 2 - 100, Gdx.graphics.getHeight() / 2 - 50);
+        long extraViewNs = 0L;
+        int viewHeight = targetHeight / riderCount;
+        for (int i = 0; i < riderCount; i++) {
+            long passStartNs = System.nanoTime();
+            int bottom = targetHeight - (i + 1) * viewHeight;
+            Gdx.gl.glViewport(0, bottom + SPLIT_GAP_PX, targetWidth, viewHeight - 2 * SPLIT_GAP_PX);
+            renderWorld(i);
+            if (i > 0) {
+                extraViewNs += System.nanoTime() - passStartNs;
             }
-            font.getData().setScale(1.5f);
+        }
+        Gdx.gl.glViewport(0, 0, targetWidth, targetHeight);
+        return extraViewNs;
+    }
+
+    /**
+     * Desenha o mundo direto na tela ou, com escala de render abaixo de 1, num canto do {@link #sceneBuffer}
+     * com a resolução reduzida; o HUD amplia essa área para a tela. Retorna o mesmo que {@link #renderViews}.
+     */
+    private long renderWorldScaled(int width, int height) {
+        sceneWidth = 0;
+        sceneHeight = 0;
+        float scale = renderScale.getScale();
+        if (scale >= 1f || width <= 0 || height <= 0 || !ensureSceneBuffer(width, height)) {
+            return renderViews(width, height);
         }
 
+        int scaledWidth = Math.max(1, Math.round(width * scale));
+        int scaledHeight = Math.max(1, Math.round(height * scale));
+        sceneBuffer.begin();
+        Gdx.gl.glViewport(0, 0, scaledWidth, scaledHeight);
+        ScreenUtils.clear(0.15f, 0.15f, 0.2f, 1f);
+        long extraViewNs = renderViews(scaledWidth, scaledHeight);
+        sceneBuffer.end();
+        sceneWidth = scaledWidth;
+        sceneHeight = scaledHeight;
+        return extraViewNs;
+    }
+
+    /**
+     * Framebuffer do mundo no tamanho da maior escala do modo atual, para a escala automática mudar sem
+     * realocar. Refeito só quando a tela muda de tamanho.
+     */
+    private boolean ensureSceneBuffer(int width, int height) {
+        int bufferWidth = Math.max(1, (int) Math.ceil(width * renderScale.getMaxScale()));
+        int bufferHeight = Math.max(1, (int) Math.ceil(height * renderScale.getMaxScale()));
+        if (sceneBuffer != null && sceneBuffer.getWidth() == bufferWidth && sceneBuffer.getHeight() == bufferHeight) {
+            return true;
+        }
+        if (sceneBufferUnavailable) return false;
+
+        gpu.release(sceneBuffer);
+        sceneBuffer = null; // antes de alocar, para o alívio de pressão não liberar o antigo de novo
+        sceneBuffer = gpu.createFrameBuffer("world-scene", Pixmap.Format.RGB888, bufferWidth, bufferHeight, GpuResources.Category.RENDER_TARGET);
+        if (sceneBuffer == null) {
+            sceneBufferUnavailable = true;
+            return false;
+        }
+        // Ampliação suave; Nearest deixaria os tiles serrilhados nas escalas fracionárias
+        sceneBuffer.getColorBufferTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        return true;
+    }
+
+    /** Desenha parallax, nível em cache e ciclistas com a câmera do ciclista {@code viewIndex}. */
+    private void renderWorld(int viewIndex) {
+        OrthographicCamera view = cameras[viewIndex];
+        batch.setProjectionMatrix(view.combined);
+        batch.begin();
+
+        //desenho paralaxe
+        long phaseTrace = tracer.begin();
+        parallax.draw(batch, view);
+        tracer.end(FrameTracer.Phase.PARALLAX, phaseTrace);
+        phaseTrace = tracer.begin();
+
+        // Desenhar o nível em cache (muito mais rápido do que desenhar cada tile individualmente)
+        if (endlessChunkBuffers != null) {
+            float chunkWidth = endlessRoute.getChunkWidthPx();
+            int levelHeight = (int)(currentLevel.height * currentLevel.tileSize);
+            for (int slot = 0; slot < endlessChunkBuffers.length; slot++) {
+                batch.draw(endlessChunkBuffers[slot].getColorBufferTexture(), slot * chunkWidth, 0, chunkWidth, levelHeight);
+            }
+        } else if (cachedLevelTexture != null) {
+            int levelWidth = (int)(currentLevel.width * currentLevel.tileSize);
+            int levelHeight = (int)(currentLevel.height * currentLevel.tileSize);
+            batch.draw(cachedLevelTexture, 0, 0, levelWidth, levelHeight);
+        } else {
+            // Sem cache (despejado por falta de VRAM): desenhar só os tiles visíveis
+            drawVisibleTiles(view);
+        }
+        tracer.end(FrameTracer.Phase.LEVEL_DRAW, phaseTrace);
+
+        // Fantasma da melhor volta, translúcido, atrás dos ciclistas
+        phaseTrace = tracer.begin();
+        if (ghosts && ghostPlayer.visible) {
+            batch.setColor(1f, 1f, 1f, GHOST_ALPHA);
+            batch.draw(playerTexture, ghostPlayer.x, ghostPlayer.y, riders[0].width, riders[0].height);
+        }
+
+        // Desenhar jogadores (reduzidos); o dono da visão por último, na frente do adversário
+        for (int i = 0; i < riderCount; i++) {
+            if (i != viewIndex) drawRider(i);
+        }
+        drawNetRiders();
+        drawRider(viewIndex);
+        batch.setColor(Color.WHITE);
+
+        // Poeira e respingos na frente dos ciclistas (uma chamada por textura)
+        particles.draw(batch);
+
         batch.end();
+        tracer.end(FrameTracer.Phase.RIDERS_DRAW, phaseTrace);
+    }
+
+    private void drawRider(int riderIndex) {
+        RiderPhysics rider = riders[riderIndex];
+        batch.setColor(RIDER_TINTS[riderIndex]);
+        batch.draw(playerTexture, rider.x, rider.y, rider.width, rider.height);
+    }
+
+    /** Ciclistas de outras clínicas: simulados aqui (host) ou interpolados dos snapshots (cliente). */
+    private void drawNetRiders() {
+        batch.setColor(REMOTE_TINT);
+        if (raceHost != null) {
+            for (RaceHost.Peer peer : raceHost.getPeers()) {
+                batch.draw(playerTexture, peer.rider.x, peer.rider.y, peer.rider.width, peer.rider.height);
+            }
+        } else if (raceClient != null) {
+            for (int i = 0; i < remoteRiders.count; i++) {
+                batch.draw(playerTexture, remoteRiders.x[i], remoteRiders.y[i], riders[0].width, riders[0].height);
+            }
+        }
+    }
+
+    /**
+     * Renderiza o mundo uma única vez num framebuffer do tamanho da tela, usado como fundo congelado
+     * enquanto um menu está aberto.
+     */
+    private void captureWorldSnapshot() {
+        int width = Gdx.graphics.getBackBufferWidth();
+        int height = Gdx.graphics.getBackBufferHeight();
+        if (width <= 0 || height <= 0) return; // janela minimizada
+
+        if (worldSnapshotBuffer == null || worldSnapshotBuffer.getWidth() != width || worldSnapshotBuffer.getHeight() != height) {
+            gpu.release(worldSnapshotBuffer);
+            worldSnapshotBuffer = null; // antes de alocar, para o alívio de pressão não liberar o antigo de novo
+            worldSnapshotBuffer = gpu.createFrameBuffer("world-snapshot", Pixmap.Format.RGB888, width, height, GpuResources.Category.SNAPSHOT);
+            if (worldSnapshotBuffer == null) return; // sem VRAM: o menu aparece sem o mundo ao fundo
+        }
+
+        worldSnapshotBuffer.begin();
+        ScreenUtils.clear(0.15f, 0.15f, 0.2f, 1f);
+        renderViews(width, height);
+        worldSnapshotBuffer.end();
+        worldSnapshotValid = true;
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        hudCamera.setToOrtho(false, width, height);
+        hudCamera.update();
+
+        // O quadro congelado tem o tamanho antigo da tela; refazer no próximo quadro de menu
+        worldSnapshotValid = false;
+        sceneBufferUnavailable = false;
     }
 
     private void renderLoadingScreen() {
@@ -426,37 +945,198 @@ public class MainGame extends ApplicationAdapter {
     @Override
     public void dispose() {
         batch.dispose();
-        playerTexture.dispose();
         font.dispose();
 
         if (parallax != null) parallax.dispose();
-        if (grassTexture != null) grassTexture.dispose();
-        if (rampTexture != null) rampTexture.dispose();
-        if (lakeTexture != null) lakeTexture.dispose();
-        if (flagTexture != null) flagTexture.dispose();
-        if (dirtTexture != null) dirtTexture.dispose();
-        if (levelFrameBuffer != null) levelFrameBuffer.dispose();
-        if (cachedLevelTexture != null) cachedLevelTexture.dispose();
+        gpu.release(playerTexture);
+        for (Texture texture : tileImages.values()) {
+            gpu.release(texture);
+        }
+        tileImages.clear();
+        particles.releaseTextures(gpu);
+        System.out.println(particles.describe());
+        gpu.release(sceneBuffer);
+        System.out.println(renderScale.describe());
+        releaseLevelCache();
+        levelCache.clear(); // os framebuffers das fases pertencem ao cache
+        System.out.println(levelCache.describe());
+        if (endlessRoute != null) endlessRoute.dispose();
+        gpu.release(worldSnapshotBuffer);
+
+        if (renderStats != null) renderStats.report();
+        if (cscSource != null) cscSource.close();
+        if (cscReplay != null) cscReplay.interrupt();
+        finishAttempt(SessionRecord.Outcome.ABANDONED);
+        if (progressStore != null) progressStore.close();
+        if (sessionLog != null) {
+            sessionLog.close();
+            if (sessionLog.getRecordCount() > 0) {
+                System.out.println("Sessão registrada em " + sessionLog.getFile() + " (" + sessionLog.getRecordCount() + " registros)");
+            }
+        }
+        if (dashboard != null) {
+            dashboard.close();
+            System.out.println(dashboard.describe());
+        }
+        if (raceHost != null) {
+            System.out.println(raceHost.describeTraffic());
+            raceHost.close();
+        }
+        if (raceClient != null) {
+            System.out.println(raceClient.describeTraffic());
+            raceClient.close();
+        }
+        gpu.reportLeaks();
+    }
+
+    /**
+     * Ordem de alívio quando o orçamento de VRAM estoura: primeiro o quadro congelado dos menus (é refeito),
+     * depois os caches das fases jogadas antes, o fundo em meia resolução e por fim o cache da fase atual
+     * (passa a desenhar só os tiles visíveis).
+     */
+    private void registerGpuPressureHandlers() {
+        gpu.addPressureHandler(bytesToFree -> {
+            if (worldSnapshotBuffer == null) return 0L;
+            long before = gpu.getTotalBytes();
+            gpu.release(worldSnapshotBuffer);
+            worldSnapshotBuffer = null;
+            worldSnapshotValid = false;
+            return before - gpu.getTotalBytes();
+        });
+        gpu.addPressureHandler(bytesToFree -> levelCache != null ? levelCache.releaseRenderCaches(bytesToFree, currentPrepared) : 0L);
+        gpu.addPressureHandler(bytesToFree -> parallax != null ? parallax.downscaleLayers(bytesToFree) : 0L);
+        gpu.addPressureHandler(bytesToFree -> {
+            if (sceneBuffer == null) return 0L;
+            long before = gpu.getTotalBytes();
+            gpu.release(sceneBuffer);
+            sceneBuffer = null;
+            sceneBufferUnavailable = true;
+            System.out.println("Escala de render suspensa por falta de VRAM");
+            return before - gpu.getTotalBytes();
+        });
+        gpu.addPressureHandler(bytesToFree -> {
+            long before = gpu.getTotalBytes();
+            if (currentPrepared != null) levelCache.releaseRenderCache(currentPrepared);
+            releaseLevelCache();
+            long freed = before - gpu.getTotalBytes();
+            if (freed > 0L) System.out.println("Cache da fase despejado por falta de VRAM");
+            return freed;
+        });
+    }
+
+    /**
+     * Deixa de usar o cache da fase (o framebuffer continua no {@link LevelCache} para a fase voltar pronta)
+     * ou libera os chunks do modo infinito; o desenho cai para tiles visíveis.
+     */
+    private void releaseLevelCache() {
+        cachedLevelTexture = null;
+        if (endlessChunkBuffers != null) {
+            for (FrameBuffer chunkBuffer : endlessChunkBuffers) {
+                gpu.release(chunkBuffer);
+            }
+            endlessChunkBuffers = null;
+        }
     }
 
     private void buildLevelCache() {
+        long cacheTrace = tracer.begin();
+        try {
+            buildLevelCacheUntraced();
+        } finally {
+            tracer.end(FrameTracer.Phase.BUILD_LEVEL_CACHE, cacheTrace);
+        }
+    }
+
+    private void buildLevelCacheUntraced() {
+        if (endlessRoute != null) {
+            buildEndlessChunkCaches();
+            return;
+        }
+
+        // Fase jogada há pouco: o framebuffer desenhado continua no cache
+        if (currentPrepared.renderCache != null) {
+            cachedLevelTexture = currentPrepared.renderCache.getColorBufferTexture();
+            return;
+        }
+
         int levelWidth = (int)(currentLevel.width * currentLevel.tileSize);
         int levelHeight = (int)(currentLevel.height * currentLevel.tileSize);
 
         System.out.println("Building level cache: " + levelWidth + "x" + levelHeight);
 
         // Criar framebuffer para renderizar o nível uma vez
-        levelFrameBuffer = new FrameBuffer(Pixmap.Format.RGBA8888, levelWidth, levelHeight, false);
+        FrameBuffer levelFrameBuffer = gpu.createFrameBuffer("level-cache:" + currentPrepared.key, Pixmap.Format.RGBA8888, levelWidth, levelHeight, GpuResources.Category.LEVEL_CACHE);
+        if (levelFrameBuffer == null) return; // sem VRAM: desenhar tiles visíveis a cada quadro
+        int tileCount = renderTilesToFrameBuffer(levelFrameBuffer, 0, currentLevel.width);
+        levelCache.attachRenderCache(currentPrepared, levelFrameBuffer);
+
+        // Pegar textura do framebuffer
+        cachedLevelTexture = levelFrameBuffer.getColorBufferTexture();
+
+        System.out.println("Level cached! Drew " + tileCount + " tiles once.");
+    }
+
+    /** Cria um framebuffer por slot da janela do modo infinito e renderiza os chunks iniciais. */
+    private void buildEndlessChunkCaches() {
+        int chunkWidth = (int) endlessRoute.getChunkWidthPx();
+        int levelHeight = (int)(currentLevel.height * currentLevel.tileSize);
+
+        FrameBuffer[] buffers = new FrameBuffer[EndlessRoute.SLOTS];
+        for (int slot = 0; slot < EndlessRoute.SLOTS; slot++) {
+            buffers[slot] = gpu.createFrameBuffer("endless-chunk-" + slot, Pixmap.Format.RGBA8888, chunkWidth, levelHeight, GpuResources.Category.LEVEL_CACHE);
+            if (buffers[slot] == null) {
+                // sem VRAM para todos os slots: desenhar tiles visíveis a cada quadro
+                for (int i = 0; i < slot; i++) gpu.release(buffers[i]);
+                return;
+            }
+        }
+        endlessChunkBuffers = buffers;
+        for (int slot = 0; slot < EndlessRoute.SLOTS; slot++) {
+            renderTilesToFrameBuffer(endlessChunkBuffers[slot], slot * RouteGenerator.CHUNK_COLS, RouteGenerator.CHUNK_COLS);
+        }
+        System.out.println("Endless chunk caches: " + EndlessRoute.SLOTS + " x " + chunkWidth + "x" + levelHeight);
+    }
+
+    /**
+     * Desloca a janela do modo infinito quando o jogador avança um chunk. O framebuffer do chunk descartado
+     * é reaproveitado para o novo, então nenhum recurso de GPU é criado durante o jogo.
+     */
+    private void advanceEndlessRoute() {
+        // Modo infinito é sempre de um ciclista só
+        RiderPhysics rider = riders[0];
+        float shift = endlessRoute.update(rider.x);
+        if (shift == 0f) {
+            return;
+        }
+
+        rider.x -= shift;
+        parallax.shiftOrigin(shift);
+        particles.shiftOrigin(shift);
+        if (endlessChunkBuffers == null) return; // sem cache: os tiles visíveis são desenhados direto
+
+        FrameBuffer recycled = endlessChunkBuffers[0];
+        System.arraycopy(endlessChunkBuffers, 1, endlessChunkBuffers, 0, EndlessRoute.SLOTS - 1);
+        endlessChunkBuffers[EndlessRoute.SLOTS - 1] = recycled;
+        renderTilesToFrameBuffer(recycled, (EndlessRoute.SLOTS - 1) * RouteGenerator.CHUNK_COLS, RouteGenerator.CHUNK_COLS);
+    }
+
+    /**
+     * Renderiza as colunas [startCol, startCol + cols) da fase atual no framebuffer informado.
+     * Retorna quantos tiles foram desenhados.
+     */
+    private int renderTilesToFrameBuffer(FrameBuffer frameBuffer, int startCol, int cols) {
+        int cacheWidth = (int)(cols * currentLevel.tileSize);
+        int cacheHeight = (int)(currentLevel.height * currentLevel.tileSize);
 
         // Renderizar todos os tiles no framebuffer
-        levelFrameBuffer.begin();
+        frameBuffer.begin();
         Gdx.gl.glClearColor(0, 0, 0, 0);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
-        // Criar câmera temporária para renderizar o nível completo
+        // Criar câmera temporária para renderizar o trecho completo
         OrthographicCamera tempCam = new OrthographicCamera();
-        tempCam.setToOrtho(true, levelWidth, levelHeight); // true flips Y axis
-        tempCam.position.set(levelWidth / 2, levelHeight / 2, 0);
+        tempCam.setToOrtho(true, cacheWidth, cacheHeight); // true flips Y axis
+        tempCam.position.set(cacheWidth / 2, cacheHeight / 2, 0);
         tempCam.update();
 
         batch.setProjectionMatrix(tempCam.combined);
@@ -464,214 +1144,355 @@ public class MainGame extends ApplicationAdapter {
 
         // Desenhar todos os tiles
         int tileCount = 0;
+        int endCol = Math.min(currentLevel.width, startCol + cols);
         for (int row = 0; row < currentLevel.height; row++) {
-            for (int col = 0; col < currentLevel.width; col++) {
+            for (int col = startCol; col < endCol; col++) {
                 int tile = currentLevel.getTile(row, col);
-                if (tile == 0 || tile == 5) continue;
-
-                float worldX = col * currentLevel.tileSize;
+                float worldX = (col - startCol) * currentLevel.tileSize;
                 float worldY = (currentLevel.height - row - 1) * currentLevel.tileSize;
 
-                Texture texture = getTileTexture(tile);
-
-                if (texture != null) {
-                    batch.draw(texture, worldX, worldY, currentLevel.tileSize, currentLevel.tileSize);
+                if (drawTile(tile, worldX, worldY, currentLevel.tileSize)) {
                     tileCount++;
                 }
             }
         }
 
         batch.end();
-        levelFrameBuffer.end();
+        frameBuffer.end();
+        return tileCount;
+    }
 
-        // Pegar textura do framebuffer
-        cachedLevelTexture = levelFrameBuffer.getColorBufferTexture();
+    /** Caminho sem cache: desenha apenas as colunas dentro da câmera. */
+    private void drawVisibleTiles(OrthographicCamera view) {
+        float camLeft = view.position.x - view.viewportWidth / 2f;
+        int startCol = Math.max(0, (int)(camLeft / currentLevel.tileSize));
+        int endCol = Math.min(currentLevel.width - 1, (int)((camLeft + view.viewportWidth) / currentLevel.tileSize) + 1);
 
-        System.out.println("Level cached! Drew " + tileCount + " tiles once.");
+        for (int row = 0; row < currentLevel.height; row++) {
+            float worldY = (currentLevel.height - row - 1) * currentLevel.tileSize;
+            for (int col = startCol; col <= endCol; col++) {
+                drawTile(currentLevel.getTile(row, col), col * currentLevel.tileSize, worldY, currentLevel.tileSize);
+            }
+        }
     }
 
-    private Texture getTileTexture(int tileType) {
-        switch (tileType) {
-            case 1: return grassTexture;
-            case 2: return rampTexture;
-            case 3: return lakeTexture;
-            case 4: return flagTexture;
-            case 6: return dirtTexture;
-            default: return null;
+    /** Textura de um arquivo de tile, carregada na primeira vez que aparece; null para nenhum. */
+    private Texture acquireTileImage(String name) {
+        if (name == null) return null;
+        Texture texture = tileImages.get(name);
+        if (texture == null) {
+            texture = gpu.acquireTexture(name, GpuResources.Category.SPRITE);
+            tileImages.put(name, texture);
         }
+        return texture;
     }
 
-    private void checkGroundAndRampCollision() {
-        float playerWidth = playerTexture.getWidth() * PLAYER_SCALE;
+    /**
+     * Desenha um tile; retorna false se não há nada a desenhar (vazio, spawn, códigos sem definição). A imagem
+     * cobre o tile inteiro; tiles inclinados sem sprite próprio (descidas, subidas suaves, lombadas) viram faixas
+     * verticais da imagem de preenchimento com a altura do {@link TerrainProfile}.
+     */
+    private boolean drawTile(int tileType, float worldX, float worldY, float tileSize) {
+        if (tileType < 0 || tileType >= tileTextures.length) return false;
+        Color tint = tileTints[tileType];
+        Texture texture = tileTextures[tileType];
+        if (texture != null) {
+            if (tint != null) batch.setColor(tint);
+            batch.draw(texture, worldX, worldY, tileSize, tileSize);
+            if (tint != null) batch.setColor(Color.WHITE);
+            return true;
+        }
+        Texture fill = tileFills[tileType];
+        if (fill == null) return false;
+        TerrainProfile profile = TileRegistry.profile(tileType);
+
+        if (tint != null) batch.setColor(tint);
+        float stripWidth = tileSize / PROFILE_STRIPS;
+        int srcWidth = Math.max(1, fill.getWidth() / PROFILE_STRIPS);
+        for (int i = 0; i < PROFILE_STRIPS; i++) {
+            float height = profile.heightAt((i + 0.5f) / PROFILE_STRIPS);
+            int srcHeight = Math.max(1, Math.round(fill.getHeight() * height));
+            batch.draw(fill, worldX + i * stripWidth, worldY, stripWidth, height * tileSize,
+                i * srcWidth, 0, srcWidth, srcHeight, false, false);
+        }
+        if (tint != null) batch.setColor(Color.WHITE);
+        return true;
+    }
 
-        // Encontrar a posição mais alta de chão/rampa sob o jogador
-        float highestY = -1;
-        boolean onRamp = false;
+    private void checkFlagCollision() {
+        if (levelComplete) return;
 
-        int startCol = Math.max(0, (int)(playerX / currentLevel.tileSize));
-        int endCol = Math.min(currentLevel.width - 1, (int)((playerX + playerWidth) / currentLevel.tileSize));
+        // Na corrida, o primeiro a chegar na bandeira fecha a fase
+        int localWinner = -1;
+        for (int i = 0; i < riderCount && localWinner < 0; i++) {
+            // Bits do último passo da física: nenhuma varredura extra dos tiles aqui
+            if ((riders[i].touching & TileRegistry.GOAL) != 0) localWinner = i;
+        }
+        int remoteWinner = raceHost != null ? raceHost.findRemoteFinisher(currentLevel) : RaceSnapshot.NO_RIDER;
+        if (localWinner < 0 && remoteWinner == RaceSnapshot.NO_RIDER) return;
 
-        for (int row = 0; row < currentLevel.height; row++) {
-            for (int col = startCol; col <= endCol; col++) {
-                int tile = currentLevel.getTile(row, col);
-                float worldX = col * currentLevel.tileSize;
-                float worldY = (currentLevel.height - row - 1) * currentLevel.tileSize;
+        levelComplete = true;
+        raceWinner = localWinner;
+        if (raceHost != null) {
+            raceHost.winnerId = localWinner >= 0 ? localWinner : remoteWinner;
+        }
+        if (localWinner < 0) {
+            System.out.println("Ciclista remoto " + remoteWinner + " chegou primeiro!");
+        } else if (riderCount > 1 || raceHost != null) {
+            System.out.println("Ciclista " + (localWinner + 1) + " chegou primeiro!");
+        }
 
-                if (tile == 1) { // Grama
-                    if (playerX + playerWidth > worldX && playerX < worldX + currentLevel.tileSize) {
-                        highestY = Math.max(highestY, worldY + currentLevel.tileSize);
-                    }
-                } else if (tile == 2) { // Rampa
-                    if (playerX + playerWidth > worldX && playerX < worldX + currentLevel.tileSize) {
-                        float relativeX = (playerX + playerWidth / 2) - worldX;
-                        float rampHeight = (relativeX / currentLevel.tileSize) * currentLevel.tileSize;
-                        float currentRampY = worldY + rampHeight;
-                        if (currentRampY > highestY) {
-                            highestY = currentRampY;
-                            onRamp = true;
-                        }
-                    }
-                }
-            }
+        finishAttempt(localWinner == 0 ? SessionRecord.Outcome.COMPLETED : SessionRecord.Outcome.RACE_LOST);
+        if (ghosts && localWinner == 0) {
+            saveGhostIfBest();
         }
 
-        // Colisão
-        if (highestY != -1 && playerY <= highestY) {
-            playerY = highestY;
-            if (onRamp) {
-                // Em uma rampa, a velocidade vertical é influenciada pela velocidade horizontal
-                velocityY = speedPxPerSec * RAMP_LAUNCH_VELOCITY_FACTOR;
-                isOnGround = false;
-            } else {
-                // No chão plano
-                velocityY = 0;
-                isOnGround = true;
-            }
+        // Verificar se este é o último nível — se for, o jogador vence
+        if (currentLevelNumber >= levelPack.getLevelCount()) {
+            gameWon = true;
+            gameState = GameState.VICTORY;
+            System.out.println("YOU WIN! All levels completed!");
         } else {
-            isOnGround = false;
+            System.out.println("Level Complete!");
         }
     }
 
-    private void checkLakeCollision() {
-        float playerWidth = playerTexture.getWidth() * PLAYER_SCALE;
-        float playerHeight = playerTexture.getHeight() * PLAYER_SCALE;
-        Rectangle playerBox = new Rectangle(playerX, playerY, playerWidth, playerHeight);
+    /** Coloca todos os ciclistas (inclusive os remotos, no host) no spawn da fase atual. */
+    private void placeRidersAtSpawn() {
+        for (RiderPhysics rider : riders) {
+            rider.placeAtSpawn(currentLevel);
+        }
+        lakeSplashTimer = 0f;
+        particles.clear();
+        for (Checkpoint checkpoint : checkpoints) {
+            checkpoint.clear();
+        }
+        respawnAtCheckpoint = false;
+        checkpointBannerTimer = 0f;
+        progressStartX = riders[0].x;
+        progressFlagX = endlessRoute != null ? -1f : findFlagX(currentLevel);
+        raceWinner = -1;
+        if (raceHost != null) {
+            raceHost.resetRiders(currentLevel);
+        }
+        if (ghosts) {
+            beginGhostAttempt();
+        }
+        beginProgressAttempt();
+    }
 
-        // Verificar tiles próximos ao jogador para melhor desempenho
-        int startCol = Math.max(0, (int)(playerX / currentLevel.tileSize) - 1);
-        int endCol = Math.min(currentLevel.width - 1, (int)((playerX + playerWidth) / currentLevel.tileSize) + 1);
+    private boolean checkpointsEnabled() {
+        return raceHost == null && raceClient == null;
+    }
 
-        for (int row = 0; row < currentLevel.height; row++) {
-            for (int col = startCol; col <= endCol; col++) {
-                if (currentLevel.getTile(row, col) == 3) { // Lake tile
-                    float worldX = col * currentLevel.tileSize;
-                    float worldY = (currentLevel.height - row - 1) * currentLevel.tileSize;
+    /**
+     * Guarda o ciclista {@code riderIndex} no checkpoint da coluna {@code column}. Do ciclista 1 também vão o
+     * relógio da fase, as estatísticas da tentativa e a posição da gravação do fantasma.
+     */
+    private void captureCheckpoint(int riderIndex, int column) {
+        Checkpoint checkpoint = checkpoints[riderIndex];
+        checkpoint.capture(column, riders[riderIndex], cadences[riderIndex]);
+        if (riderIndex == 0) {
+            checkpoint.elapsedTime = elapsedTime;
+            checkpoint.attemptRpmSeconds = attemptRpmSeconds;
+            checkpoint.attemptMaxRpm = attemptMaxRpm;
+            if (ghosts) ghostRecorder.mark(checkpoint.ghost);
+        }
+        checkpointBannerTimer = CHECKPOINT_BANNER_SECONDS;
+        System.out.println("Checkpoint (coluna " + column + ") do ciclista " + (riderIndex + 1));
+    }
 
-                    Rectangle tileBox = new Rectangle(worldX, worldY, currentLevel.tileSize, currentLevel.tileSize);
+    /** Ciclista 1 sozinho de volta ao checkpoint depois do respingo, com o relógio de quando passou por ele. */
+    private void restoreCheckpoint(int riderIndex) {
+        Checkpoint checkpoint = checkpoints[riderIndex];
+        checkpoint.restore(riders[riderIndex], cadences[riderIndex]);
+        elapsedTime = checkpoint.elapsedTime;
+        attemptRpmSeconds = checkpoint.attemptRpmSeconds;
+        attemptMaxRpm = checkpoint.attemptMaxRpm;
+        if (ghosts) {
+            ghostRecorder.rewind(checkpoint.ghost);
+            ghostPlayer.seek(elapsedTime);
+        }
+        particles.clear();
+    }
 
-                    if (playerBox.overlaps(tileBox)) {
-                        // Game over - cair no lago
-                        gameState = GameState.GAME_OVER;
-                        System.out.println("Hit the lake! Game Over!");
-                        return;
-                    }
-                }
+    /** Borda esquerda da bandeira mais à esquerda da fase, ou -1 se ela não tem bandeira. */
+    private static float findFlagX(LevelData level) {
+        for (int col = 0; col < level.width; col++) {
+            for (int row = 0; row < level.height; row++) {
+                if (TileRegistry.any(level.tiles[row][col], TileRegistry.GOAL)) return col * level.tileSize;
             }
         }
+        return -1f;
     }
 
-    private void checkFlagCollision() {
-        if (levelComplete) return;
+    /** Id da fase atual no progresso: o do pacote, ou a semente no modo infinito. */
+    private String currentLevelId() {
+        return endlessRoute != null ? "endless-" + config.endlessSeed : levelPack.getEntry(currentLevelNumber - 1).id;
+    }
 
-        float playerWidth = playerTexture.getWidth() * PLAYER_SCALE;
-        float playerHeight = playerTexture.getHeight() * PLAYER_SCALE;
-        Rectangle playerBox = new Rectangle(playerX, playerY, playerWidth, playerHeight);
+    /** Começa a contar uma sessão; uma tentativa ainda aberta (reinício no meio da fase) fica como abandonada. */
+    private void beginProgressAttempt() {
+        finishAttempt(SessionRecord.Outcome.ABANDONED);
+        attemptOpen = true;
+        attemptLevelId = currentLevelId();
+        attemptStartMs = System.currentTimeMillis();
+        attemptRpmSeconds = 0f;
+        attemptMaxRpm = 0f;
+        if (sessionLog != null) sessionLog.levelStart(attemptLevelId);
+        if (progressStore == null) return;
+
+        long start = System.nanoTime();
+        SessionRecord best = progressStore.bestTime(config.patientId, attemptLevelId);
+        long queryNs = System.nanoTime() - start;
+        if (best != null) {
+            System.out.println(String.format("Melhor tempo de %s nesta fase: %.2f s (consulta em %.1f µs)",
+                config.patientId, best.durationSeconds, queryNs / 1000f));
+        }
+    }
 
-        for (int row = 0; row < currentLevel.height; row++) {
-            for (int col = 0; col < currentLevel.width; col++) {
-                if (currentLevel.getTile(row, col) == 4) {
-                    float worldX = col * currentLevel.tileSize;
-                    float worldY = (currentLevel.height - row - 1) * currentLevel.tileSize;
+    /** Fecha a tentativa atual e grava a sessão no progresso (sem esperar pelo disco). */
+    private void finishAttempt(SessionRecord.Outcome outcome) {
+        if (!attemptOpen) return;
+        attemptOpen = false;
+        if (sessionLog != null) sessionLog.levelEnd(outcome);
+        if (progressStore == null) return;
+        if (outcome == SessionRecord.Outcome.ABANDONED && elapsedTime < MIN_ABANDONED_SECONDS) return;
+        float averageRpm = elapsedTime > 0f ? attemptRpmSeconds / elapsedTime : 0f;
+        progressStore.recordSession(config.patientId, attemptLevelId, attemptStartMs, elapsedTime, outcome,
+            averageRpm, attemptMaxRpm);
+    }
 
-                    Rectangle tileBox = new Rectangle(worldX, worldY, currentLevel.tileSize, currentLevel.tileSize);
+    /** Nova tentativa: carrega a melhor volta da fase (se mudou de fase), volta o fantasma ao início e zera a gravação. */
+    private void beginGhostAttempt() {
+        String levelId = levelPack.getEntry(currentLevelNumber - 1).id;
+        GhostRun best = ghostPlayer.getRun();
+        if (best == null || !levelId.equals(best.levelId)) {
+            ghostPlayer.setRun(Gdx.files.isLocalStorageAvailable() ? GhostRun.read(ghostFile(levelId)) : null);
+        } else {
+            ghostPlayer.rewind();
+        }
+        ghostRecorder.reset();
+        ghostRecorder.record(0f, riders[0].x, riders[0].y, 0f);
+    }
 
-                    if (playerBox.overlaps(tileBox)) {
-                        levelComplete = true;
+    /** Guarda a tentativa que acabou de chegar na bandeira se ela for a melhor da fase. */
+    private void saveGhostIfBest() {
+        String levelId = levelPack.getEntry(currentLevelNumber - 1).id;
+        GhostRun best = ghostPlayer.getRun();
+        if (best != null && levelId.equals(best.levelId) && best.finishSeconds <= elapsedTime) return;
+
+        GhostRun run = ghostRecorder.finish(levelId, elapsedTime);
+        ghostPlayer.setRun(run);
+        if (!Gdx.files.isLocalStorageAvailable()) return;
+        try {
+            run.write(ghostFile(levelId));
+            System.out.println(String.format("Melhor volta da fase %s: %.2f s (%d amostras, %d bytes)",
+                levelId, elapsedTime, run.sampleCount, run.length));
+        } catch (IOException e) {
+            System.err.println("Erro ao salvar o fantasma de " + levelId + ": " + e.getMessage());
+        }
+    }
 
-                        // Verificar se este é o último nível — se for, o jogador vence
-                        if (currentLevelNumber >= MAX_LEVEL) {
-                            gameWon = true;
-                            gameState = GameState.VICTORY;
-                            System.out.println("YOU WIN! All levels completed!");
-                        } else {
-                            System.out.println("Level Complete!");
-                        }
-                        return;
-                    }
-                }
+    private static FileHandle ghostFile(String levelId) {
+        return LocalData.file(LocalData.GHOSTS, levelId + ".ghost");
+    }
+
+    /** Abre o host ou conecta ao host da corrida em rede, conforme a configuração. Se falhar, o jogo segue offline. */
+    private void startNetwork() {
+        if (!config.netHost && config.netJoinHost == null) return;
+        if (endlessRoute != null) {
+            System.err.println("O modo infinito não tem corrida em rede; jogando offline");
+            return;
+        }
+        try {
+            if (config.netHost) {
+                raceHost = new RaceHost(config.netPort, config.snapshotRateHz, riderCount, riders[0].width, riders[0].height);
+            } else {
+                raceClient = new RaceClient(new InetSocketAddress(config.netJoinHost, config.netPort),
+                    config.snapshotRateHz, config.interpolationDelayMs);
             }
+        } catch (IOException e) {
+            System.err.println("Corrida em rede indisponível (" + e.getMessage() + "); jogando offline");
         }
     }
 
-    private void resetPlayer() {
-        // Reseta o jogador para o spawn
-        int spawnCol = (int)(currentLevel.playerSpawn.x / currentLevel.tileSize);
-        int spawnRow = (int)(currentLevel.playerSpawn.y / currentLevel.tileSize);
+    /**
+     * Cliente: acompanha a fase e o resultado decididos pelo host e corrige o próprio ciclista quando a
+     * previsão local diverge muito da posição oficial (ex.: o host o pôs de volta no spawn).
+     */
+    private void followRaceHost() {
+        int hostLevel = raceClient.hostLevel;
+        if (hostLevel > 0 && hostLevel != currentLevelNumber && hostLevel <= levelPack.getLevelCount()) {
+            loadLevel(hostLevel);
+            return;
+        }
+
+        boolean hostFinished = raceClient.winnerId != RaceSnapshot.NO_RIDER;
+        if (hostFinished != levelComplete) {
+            levelComplete = hostFinished;
+            raceWinner = raceClient.winnerId == raceClient.selfId ? 0 : -1;
+            if (hostFinished) {
+                finishAttempt(raceWinner == 0 ? SessionRecord.Outcome.COMPLETED : SessionRecord.Outcome.RACE_LOST);
+            } else {
+                // O host recomeçou a mesma fase
+                levelCompleteTimer = 0f;
+                resetPlayer();
+            }
+        }
+
+        RiderPhysics rider = riders[0];
+        if (raceClient.selfKnown
+            && (Math.abs(raceClient.selfX - rider.x) > NET_CORRECTION_PX || Math.abs(raceClient.selfY - rider.y) > NET_CORRECTION_PX)) {
+            rider.x = raceClient.selfX;
+            rider.y = raceClient.selfY;
+            rider.velocityY = 0f;
+        }
+    }
 
-        playerX = spawnCol * currentLevel.tileSize;
-        // Coloca o jogador em cima do tile spawn
-        playerY = (currentLevel.height - spawnRow) * currentLevel.tileSize;
+    private void resetCadences() {
+        for (PedalCadence cadence : cadences) {
+            cadence.reset();
+        }
+    }
 
-        // Redefinir a física
-        velocityY = 0f;
-        speedPxPerSec = 0f;
-        isOnGround = false;
+    private void resetPlayer() {
+        // Reseta os jogadores para o spawn e redefine a física
+        placeRidersAtSpawn();
 
         // Resetar temporizador
         elapsedTime = 0f;
 
         // Resetar rastreamento de pedal
-        synchronized (pulseLock) {
-            lastPulseTime = 0L;
-            smoothedIntervalMs = 0f;
-        }
+        resetCadences();
     }
 
     private void loadNextLevel() {
-        if (currentLevelNumber >= MAX_LEVEL) {
+        if (currentLevelNumber >= levelPack.getLevelCount()) {
             System.out.println("All levels completed!");
             return;
         }
 
         // Passa de fase
-        currentLevelNumber++;
+        loadLevel(currentLevelNumber + 1);
+    }
+
+    /** Troca para a fase {@code levelNumber} (a partir de 1), pegando-a pronta do cache se possível, e zera o estado da fase. */
+    private void loadLevel(int levelNumber) {
+        long loadTrace = tracer.begin();
+        currentLevelNumber = levelNumber;
         System.out.println("Loading level " + currentLevelNumber);
 
-        // Descarta cache do nível anterior
-        if (levelFrameBuffer != null) {
-            levelFrameBuffer.dispose();
-            levelFrameBuffer = null;
-        }
-        if (cachedLevelTexture != null) {
-            cachedLevelTexture = null;
-        }
+        // Solta o cache do nível anterior (fica no LevelCache)
+        releaseLevelCache();
 
         // Carrega nova fase
-        String levelFile = "level" + currentLevelNumber + ".txt";
-        currentLevel = LevelLoader.loadLevel(levelFile, 64f);
-
-        // Reseta jogador ao novo spawn
-        int spawnCol = (int)(currentLevel.playerSpawn.x / currentLevel.tileSize);
-        int spawnRow = (int)(currentLevel.playerSpawn.y / currentLevel.tileSize);
+        currentLevel = loadLevelFromPack(currentLevelNumber);
 
-        playerX = spawnCol * currentLevel.tileSize;
-        // Coloca o jogador em cima do tile spawn
-        playerY = (currentLevel.height - spawnRow) * currentLevel.tileSize;
+        // Reseta jogadores ao novo spawn
+        placeRidersAtSpawn();
 
-        // Reseta física e estado
-        velocityY = 0f;
-        speedPxPerSec = 0f;
-        isOnGround = false;
+        // Reseta estado
         levelComplete = false;
         levelCompleteTimer = 0f;
 
@@ -680,13 +1501,11 @@ public class MainGame extends ApplicationAdapter {
         timeOut = false;
 
         // Reseta rastreamento do pedal
-        synchronized (pulseLock) {
-            lastPulseTime = 0L;
-            smoothedIntervalMs = 0f;
-        }
+        resetCadences();
 
-        // Reconstruir cache da fase
+        // Reconstruir cache da fase (se não veio pronto)
         buildLevelCache();
+        tracer.end(FrameTracer.Phase.LOAD_LEVEL, loadTrace);
     }
 
     /**
@@ -694,19 +1513,25 @@ public class MainGame extends ApplicationAdapter {
      * Thread-safe: pode ser chamada a partir de um listener de rede/serial.
      */
     public void registerPedalPulse() {
-        long now = System.currentTimeMillis();
-        synchronized (pulseLock) {
-            if (lastPulseTime > 0L) {
-                float interval = (float) (now - lastPulseTime); // ms
-                if (smoothedIntervalMs <= 0f) {
-                    smoothedIntervalMs = interval;
-                } else {
-                    // suavização exponencial para estabilidade
-                    smoothedIntervalMs = SMOOTH_ALPHA * interval + (1f - SMOOTH_ALPHA) * smoothedIntervalMs;
-                }
-            }
-            lastPulseTime = now;
-        }
+        registerPedalPulse(0);
+    }
+
+    /**
+     * Pulso do pedal do ciclista {@code riderIndex} (0 ou 1 na corrida de dois). Pulsos de um ciclista que
+     * não está no jogo são ignorados. Thread-safe, como {@link #registerPedalPulse()}.
+     */
+    public void registerPedalPulse(int riderIndex) {
+        if (riderIndex < 0 || riderIndex >= riderCount) return;
+        cadences[riderIndex].registerPulse();
+    }
+
+    /**
+     * Volta do pedal do ciclista {@code riderIndex} que aconteceu em {@code timeMs} (ex.: instante medido pelo
+     * sensor CSC). Thread-safe, como {@link #registerPedalPulse()}.
+     */
+    public void registerPedalPulse(int riderIndex, long timeMs) {
+        if (riderIndex < 0 || riderIndex >= riderCount) return;
+        cadences[riderIndex].registerPulse(timeMs);
     }
 
     private void renderGameOverMenu() {
@@ -839,6 +1664,22 @@ public class MainGame extends ApplicationAdapter {
         }
     }
 
+    /** Fase de número {@code levelNumber} (a partir de 1) na ordem do pacote, do cache de fases se estiver lá. */
+    private LevelData loadLevelFromPack(int levelNumber) {
+        LevelPack.Entry entry = levelPack.getEntry(levelNumber - 1);
+        currentPrepared = levelCache.get(entry.id, entry.tileSize);
+        if (currentPrepared != null) {
+            System.out.println("Fase " + levelNumber + "/" + levelPack.getLevelCount() + ": " + entry.name + " (pronta no cache)");
+            return currentPrepared.level;
+        }
+        System.out.println("Fase " + levelNumber + "/" + levelPack.getLevelCount() + ": " + entry.name);
+        long parseTrace = tracer.begin();
+        LevelData level = levelPack.load(levelNumber - 1);
+        currentPrepared = levelCache.put(entry.id, level);
+        tracer.end(FrameTracer.Phase.LEVEL_PARSE, parseTrace);
+        return level;
+    }
+
     private void restartCurrentLevel() {
         // Recomeça a fase atual
         resetPlayer();
@@ -848,30 +1689,17 @@ public class MainGame extends ApplicationAdapter {
     }
 
     private void restartGame() {
-        // Descartar cache da fase anterior
-        if (levelFrameBuffer != null) {
-            levelFrameBuffer.dispose();
-            levelFrameBuffer = null;
-        }
-        if (cachedLevelTexture != null) {
-            cachedLevelTexture = null;
-        }
+        // Soltar o cache da fase anterior (fica no LevelCache)
+        releaseLevelCache();
 
         // Recomeça para o nivel 1
         currentLevelNumber = 1;
-        String levelFile = "level" + currentLevelNumber + ".txt";
-        currentLevel = LevelLoader.loadLevel(levelFile, 64f);
+        currentLevel = loadLevelFromPack(currentLevelNumber);
 
-        // Reseta o jogador
-        int spawnCol = (int)(currentLevel.playerSpawn.x / currentLevel.tileSize);
-        int spawnRow = (int)(currentLevel.playerSpawn.y / currentLevel.tileSize);
-        playerX = spawnCol * currentLevel.tileSize;
-        playerY = (currentLevel.height - spawnRow) * currentLevel.tileSize;
+        // Reseta os jogadores
+        placeRidersAtSpawn();
 
         // Reseta todos estados
-        velocityY = 0f;
-        speedPxPerSec = 0f;
-        isOnGround = false;
         levelComplete = false;
         levelCompleteTimer = 0f;
         elapsedTime = 0f;
@@ -880,12 +1708,9 @@ public class MainGame extends ApplicationAdapter {
         gameState = GameState.PLAYING;
         selectedMenuOption = 0;
 
-        synchronized (pulseLock) {
-            lastPulseTime = 0L;
-            smoothedIntervalMs = 0f;
-        }
+        resetCadences();
 
-        // Reconstruir cache do nível
+        // Reconstruir cache do nível (se não veio pronto)
         buildLevelCache();
     }
 }
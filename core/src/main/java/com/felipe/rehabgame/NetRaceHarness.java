@@ -0,0 +1,185 @@
+package com.felipe.rehabgame;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+/**
+ * Corrida em rede inteira numa máquina só, sem janela: um {@link RaceHost}, um {@link LossyUdpProxy}
+ * com latência, jitter e perda configuráveis, e vários {@link RaceClient} pedalando sozinhos.
+ *
+ * Ao final informa o tráfego por ciclista e o erro da interpolação: para cada quadro, a posição que cada
+ * cliente desenharia para os outros ciclistas é comparada com a posição oficial do host no mesmo instante.
+ * Uso (tarefa Gradle {@code core:netHarness}):
+ * <pre>
+ * NetRaceHarness [--clients N] [--rate HZ] [--latency MS] [--jitter MS] [--loss %] [--delay MS]
+ *                [--seconds S] [--level N] [--seed N] [arquivo.pack]
+ * </pre>
+ */
+public class NetRaceHarness {
+
+    private static final float STEP_SECONDS = 1f / 60f;
+
+    // moto.png (348x207) na escala PLAYER_SCALE (0.35) do MainGame
+    private static final float RIDER_WIDTH = 348 * 0.35f;
+    private static final float RIDER_HEIGHT = 207 * 0.35f;
+
+    /** Posições oficiais de um ciclista ao longo do tempo do host, para medir o erro da interpolação. */
+    static class Track {
+        long[] times = new long[1024];
+        float[] xs = new float[1024];
+        int count;
+
+        void add(long time, float x) {
+            if (count == times.length) {
+                times = Arrays.copyOf(times, count * 2);
+                xs = Arrays.copyOf(xs, count * 2);
+            }
+            times[count] = time;
+            xs[count] = x;
+            count++;
+        }
+
+        /** Posição no instante {@code time}, ou NaN fora do intervalo gravado. */
+        float xAt(long time) {
+            int index = Arrays.binarySearch(times, 0, count, time);
+            if (index >= 0) return xs[index];
+            int after = -index - 1;
+            if (after == 0 || after == count) return Float.NaN;
+            int before = after - 1;
+            float t = (time - times[before]) / (float) (times[after] - times[before]);
+            return xs[before] + (xs[after] - xs[before]) * t;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int clients = 3;
+        int rateHz = 20;
+        int latencyMs = 60;
+        int jitterMs = 20;
+        float lossPercent = 5f;
+        int delayMs = 100;
+        float seconds = 20f;
+        int levelNumber = 1;
+        long seed = 1L;
+        String packPath = "assets/levels/main.pack";
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--clients".equals(arg) && i + 1 < args.length) {
+                clients = Integer.parseInt(args[++i]);
+            } else if ("--rate".equals(arg) && i + 1 < args.length) {
+                rateHz = Integer.parseInt(args[++i]);
+            } else if ("--latency".equals(arg) && i + 1 < args.length) {
+                latencyMs = Integer.parseInt(args[++i]);
+            } else if ("--jitter".equals(arg) && i + 1 < args.length) {
+                jitterMs = Integer.parseInt(args[++i]);
+            } else if ("--loss".equals(arg) && i + 1 < args.length) {
+                lossPercent = Float.parseFloat(args[++i]);
+            } else if ("--delay".equals(arg) && i + 1 < args.length) {
+                delayMs = Integer.parseInt(args[++i]);
+            } else if ("--seconds".equals(arg) && i + 1 < args.length) {
+                seconds = Float.parseFloat(args[++i]);
+            } else if ("--level".equals(arg) && i + 1 < args.length) {
+                levelNumber = Integer.parseInt(args[++i]);
+            } else if ("--seed".equals(arg) && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else {
+                packPath = arg;
+            }
+        }
+
+        LevelPack pack = LevelPack.open(new FileHandle(new File(packPath)));
+        LevelData level = pack.load(levelNumber - 1);
+        System.out.println("Fase " + levelNumber + " (" + pack.getEntry(levelNumber - 1).name + "), " + clients
+            + " cliente(s), " + rateHz + " snapshots/s, latência " + latencyMs + " ms, jitter " + jitterMs
+            + " ms, perda " + lossPercent + "%, atraso de interpolação " + delayMs + " ms");
+
+        RaceHost host = new RaceHost(0, rateHz, 0, RIDER_WIDTH, RIDER_HEIGHT);
+        LossyUdpProxy proxy = new LossyUdpProxy(0, new InetSocketAddress("127.0.0.1", host.getLocalPort()),
+            latencyMs, jitterMs, lossPercent / 100f, seed);
+        proxy.start();
+
+        RaceClient[] raceClients = new RaceClient[clients];
+        RaceClient.RemoteRiders[] views = new RaceClient.RemoteRiders[clients];
+        for (int i = 0; i < clients; i++) {
+            raceClients[i] = new RaceClient(proxy.getAddress(), rateHz, delayMs);
+            views[i] = new RaceClient.RemoteRiders();
+        }
+
+        Track[] tracks = new Track[RaceSnapshot.MAX_RIDERS];
+        for (int i = 0; i < tracks.length; i++) {
+            tracks[i] = new Track();
+        }
+        float[] errors = new float[1 << 16];
+        int errorCount = 0;
+        int finishes = 0;
+
+        long startNs = System.nanoTime();
+        long stepNs = (long) (STEP_SECONDS * 1e9);
+        int steps = (int) (seconds / STEP_SECONDS);
+        for (int step = 0; step < steps; step++) {
+            float elapsed = step * STEP_SECONDS;
+            for (int i = 0; i < clients; i++) {
+                raceClients[i].update(botRpm(i, elapsed));
+            }
+
+            host.update(STEP_SECONDS, level, levelNumber, null, null);
+            long hostTime = host.getHostTimeMs();
+            for (RaceHost.Peer peer : host.getPeers()) {
+                tracks[peer.riderId].add(hostTime, peer.rider.x);
+            }
+            if (host.findRemoteFinisher(level) != RaceSnapshot.NO_RIDER) {
+                // Alguém chegou: todos voltam ao início e a corrida recomeça
+                finishes++;
+                host.resetRiders(level);
+            }
+
+            // Erro da interpolação: posição desenhada por cada cliente x posição oficial no mesmo instante
+            long nowMs = System.currentTimeMillis();
+            for (int i = 0; i < clients; i++) {
+                if (!raceClients[i].interpolate(nowMs, views[i])) continue;
+                long renderTime = raceClients[i].renderHostTimeMs;
+                for (int r = 0; r < views[i].count; r++) {
+                    float official = tracks[views[i].ids[r]].xAt(renderTime);
+                    if (Float.isNaN(official) || errorCount == errors.length) continue;
+                    errors[errorCount++] = Math.abs(views[i].x[r] - official);
+                }
+            }
+
+            long sleepNs = startNs + (step + 1) * stepNs - System.nanoTime();
+            if (sleepNs > 0L) Thread.sleep(sleepNs / 1_000_000L, (int) (sleepNs % 1_000_000L));
+        }
+
+        System.out.println(host.describeTraffic());
+        for (RaceClient client : raceClients) {
+            System.out.println(client.describeTraffic());
+        }
+        System.out.println("Repetidor: " + proxy.forwarded + " pacote(s) entregue(s), " + proxy.dropped + " descartado(s)");
+        System.out.println("Chegadas na bandeira: " + finishes);
+        if (errorCount > 0) {
+            Arrays.sort(errors, 0, errorCount);
+            double sum = 0.0;
+            for (int i = 0; i < errorCount; i++) sum += errors[i];
+            System.out.println(String.format("Erro da interpolação (px): média %.1f, mediana %.1f, p95 %.1f, máx %.1f (%d amostras)",
+                sum / errorCount, errors[errorCount / 2], errors[(int) (errorCount * 0.95)], errors[errorCount - 1], errorCount));
+        } else {
+            System.out.println("Nenhuma amostra de interpolação (com 1 cliente não há outros ciclistas para desenhar)");
+        }
+
+        for (RaceClient client : raceClients) {
+            client.close();
+        }
+        proxy.close();
+        host.close();
+    }
+
+    /** Cadência do robô {@code index}: cada um num ritmo, oscilando como quem pedala de verdade. */
+    private static float botRpm(int index, float seconds) {
+        float base = 260f + 40f * (index % 4);
+        return base + 30f * (float) Math.sin(seconds * (0.7f + 0.2f * index));
+    }
+}
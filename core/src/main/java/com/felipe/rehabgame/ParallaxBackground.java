@@ -1,5 +1,6 @@
 package com.felipe.rehabgame;
 
+import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.OrthographicCamera;
@@ -12,31 +13,60 @@ import java.util.List;
  * Uso recomendado:
  * - Inicialize *após* carregar o Level (para saber worldWidth se quiser).
  * - Preferência: ancore o parallax na câmera (ele já usa a camera passada).
+ * - Camadas adicionadas por caminho são gerenciadas pelo {@link GpuResources} e podem ser reduzidas
+ *   para meia resolução sob pressão de VRAM, mantendo o tamanho na tela.
  */
 public class ParallaxBackground {
 
     public static class Layer {
-        public final Texture texture;
+        public Texture texture;
         public final float speed; // 0 = fixo, 1 = move com a câmera
         public final boolean stretchToViewportHeight; // se true: estica para cobrir a altura da viewport
         public final boolean repeatY; // se true: repete verticalmente em vez de esticar
+        // Tamanho de desenho no mundo; não muda quando a textura é reduzida
+        public final float width;
+        public final float height;
+        /** Caminho do arquivo se a camada é gerenciada pelo GpuResources; null se o chamador gerencia a textura. */
+        public final String path;
+        public boolean downscaled = false;
 
         public Layer(Texture texture, float speed, boolean stretchToViewportHeight, boolean repeatY) {
+            this(texture, null, speed, stretchToViewportHeight, repeatY);
+        }
+
+        Layer(Texture texture, String path, float speed, boolean stretchToViewportHeight, boolean repeatY) {
             this.texture = texture;
+            this.path = path;
             this.speed = speed;
             this.stretchToViewportHeight = stretchToViewportHeight;
             this.repeatY = repeatY;
+            this.width = texture.getWidth();
+            this.height = texture.getHeight();
         }
     }
 
     private final OrthographicCamera camera;
+    private final GpuResources gpu;
     private final List<Layer> layers = new ArrayList<>();
+    // Deslocamento acumulado da origem do mundo (modo infinito); double para não perder precisão após horas
+    private double originX = 0.0;
 
-    public ParallaxBackground(OrthographicCamera camera) {
+    public ParallaxBackground(OrthographicCamera camera, GpuResources gpu) {
         this.camera = camera;
+        this.gpu = gpu;
+    }
+
+    /** Adiciona camada gerenciada a partir de um arquivo. Recomendo: background (stretch=true), trees (stretch=false). */
+    public void addLayer(String path, float speed, boolean stretchToViewportHeight, boolean repeatY) {
+        Texture texture = gpu.acquireTexture(path, GpuResources.Category.BACKGROUND);
+        if (texture == null) {
+            System.err.println("Camada do parallax sem VRAM, ignorada: " + path);
+            return;
+        }
+        layers.add(new Layer(texture, path, speed, stretchToViewportHeight, repeatY));
     }
 
-    /** Adiciona camada. Recomendo: background (stretch=true), trees (stretch=false). */
+    /** Adiciona camada com textura do chamador (não é descartada nem reduzida pelo parallax). */
     public void addLayer(Texture texture, float speed, boolean stretchToViewportHeight, boolean repeatY) {
         layers.add(new Layer(texture, speed, stretchToViewportHeight, repeatY));
     }
@@ -46,6 +76,52 @@ public class ParallaxBackground {
         addLayer(texture, speed, true, false);
     }
 
+    /**
+     * Informa que as coordenadas do mundo foram deslocadas {@code dx} pixels para a esquerda
+     * (ex.: janela do modo infinito), para que as camadas continuem de onde estavam.
+     */
+    public void shiftOrigin(float dx) {
+        originX += dx;
+    }
+
+    /**
+     * Troca as texturas gerenciadas por versões com metade da resolução (1/4 da memória), até liberar
+     * {@code bytesToFree}. As camadas continuam do mesmo tamanho na tela, só ficam mais borradas.
+     * Retorna quantos bytes foram liberados.
+     */
+    public long downscaleLayers(long bytesToFree) {
+        long freed = 0L;
+        for (Layer layer : layers) {
+            if (freed >= bytesToFree) break;
+            if (layer.path == null || layer.downscaled) continue;
+
+            // Pixels do cache de imagens decodificadas: sem decodificar o PNG de novo dentro do alívio
+            Pixmap source = gpu.loadPixmap(layer.path);
+            int halfWidth = Math.max(1, source.getWidth() / 2);
+            int halfHeight = Math.max(1, source.getHeight() / 2);
+            Pixmap half = new Pixmap(halfWidth, halfHeight, source.getFormat());
+            half.setFilter(Pixmap.Filter.BiLinear);
+            half.drawPixmap(source, 0, 0, source.getWidth(), source.getHeight(), 0, 0, halfWidth, halfHeight);
+            source.dispose();
+
+            // A original sai antes, para a reduzida caber no orçamento que está estourado
+            long before = gpu.getBytes(GpuResources.Category.BACKGROUND);
+            gpu.release(layer.texture);
+            Texture reduced = gpu.registerTexture(layer.path + "@0.5", half, GpuResources.Category.BACKGROUND);
+            half.dispose();
+            if (reduced != null) {
+                reduced.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+            }
+            freed += before - gpu.getBytes(GpuResources.Category.BACKGROUND);
+            layer.texture = reduced; // null: a camada some em vez de estourar o orçamento
+            layer.downscaled = true;
+        }
+        if (freed > 0L) {
+            System.out.println("Parallax reduzido para meia resolução (" + (freed / 1024) + " KB liberados)");
+        }
+        return freed;
+    }
+
     /** Atualização opcional — mantido para compatibilidade com seu código. */
     public void update(float playerSpeed, float delta) {
         // Nada necessário aqui: o desenho é calculado a partir da posição da câmera.
@@ -57,19 +133,28 @@ public class ParallaxBackground {
      * Deve ser chamado entre batch.begin() / batch.end() com projectionMatrix = camera.combined.
      */
     public void draw(SpriteBatch batch) {
+        draw(batch, camera);
+    }
+
+    /**
+     * Igual a {@link #draw(SpriteBatch)}, mas enquadrado por outra câmera (ex.: a do segundo ciclista na tela
+     * dividida). As texturas das camadas são as mesmas para todas as câmeras.
+     */
+    public void draw(SpriteBatch batch, OrthographicCamera camera) {
         float camLeft = camera.position.x - camera.viewportWidth / 2f;
         float camBottom = camera.position.y - camera.viewportHeight / 2f;
 
         for (Layer layer : layers) {
             Texture tex = layer.texture;
-            float texW = tex.getWidth();
-            float texH = tex.getHeight();
+            if (tex == null) continue;
+            float texW = layer.width;
+            float texH = layer.height;
 
             // deslocamento do layer em pixels; se speed=0 => fixo, se speed=1 => acompanha a câmera
-            float layerScroll = camLeft * layer.speed;
+            double layerScroll = (camLeft + originX) * layer.speed;
 
             // offset dentro da largura da textura (0..texW)
-            float offset = layerScroll - (float)Math.floor(layerScroll / texW) * texW;
+            float offset = (float)(layerScroll - Math.floor(layerScroll / texW) * texW);
             // startX é a primeira posição a desenhar (pode ser < camLeft)
             float startX = camLeft - offset;
 
@@ -98,7 +183,7 @@ public class ParallaxBackground {
                     float x = startX + i * texW;
                     for (int r = 0; r < rows; r++) {
                         float y = yOffset + r * texH;
-                        batch.draw(tex, x, y);
+                        batch.draw(tex, x, y, texW, texH);
                     }
                 }
             } else {
@@ -107,22 +192,19 @@ public class ParallaxBackground {
                 float y = camBottom + (camera.viewportHeight - texH) / 2f;
                 for (int i = 0; i < repeatCount; i++) {
                     float x = startX + i * texW;
-                    batch.draw(tex, x, y);
+                    batch.draw(tex, x, y, texW, texH);
                 }
             }
         }
     }
 
-    /** Descarta texturas se quiser que o Parallax gerencie elas. */
+    /** Libera as camadas gerenciadas; texturas adicionadas diretamente continuam com o chamador. */
     public void dispose() {
         for (Layer l : layers) {
-            if (l.texture != null) {
-                try {
-                    l.texture.dispose();
-                } catch (Exception e) {
-                    // ignore - caller pode já ter gerenciado a textura
-                }
+            if (l.path != null) {
+                gpu.release(l.texture);
             }
         }
+        layers.clear();
     }
 }
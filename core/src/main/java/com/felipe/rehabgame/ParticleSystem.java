@@ -0,0 +1,311 @@
+package com.felipe.rehabgame;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+
+/**
+ * Partículas de esforço: poeira da roda traseira quando se pedala forte e respingos quando o ciclista cai
+ * no lago.
+ *
+ * As partículas vivem em arrays primitivos pré-alocados (uma coluna por atributo, struct-of-arrays) do tamanho
+ * do orçamento global; a que morre é trocada pela última, então as vivas ficam sempre em [0, count). Cada
+ * {@link #update} já monta os vértices do {@link Batch} em um array por textura, e {@link #draw} envia cada
+ * textura numa chamada só. Nada é alocado depois do construtor.
+ *
+ * A poeira nasce numa taxa que cresce com a velocidade (quadrado da fração da velocidade máxima, então
+ * pedalar devagar quase não levanta nada). Se o quadro passa do orçamento de tempo, a qualidade cai e com
+ * ela todas as taxas; volta aos poucos quando os quadros ficam leves. Quando o orçamento de partículas
+ * está cheio as novas são descartadas.
+ */
+public class ParticleSystem {
+
+    public static final int DUST = 0;
+    public static final int SPLASH = 1;
+    private static final int KINDS = 2;
+
+    /** Ciclistas que soltam poeira (acumulador de taxa por ciclista). */
+    public static final int MAX_EMITTERS = 4;
+
+    // Poeira: partículas por segundo na velocidade máxima, e abaixo de que fração da velocidade não sai nada
+    private static final float DUST_MAX_RATE = 90f;
+    private static final float DUST_MIN_SPEED_FRACTION = 0.3f;
+    private static final int SPLASH_PARTICLES = 140;
+
+    private static final float MIN_QUALITY = 0.1f;
+    private static final float QUALITY_DROP = 0.9f; // por quadro acima do orçamento
+    private static final float QUALITY_RECOVERY = 0.005f; // por quadro dentro do orçamento (~3 s até 1)
+
+    // Cor base e gravidade de cada tipo
+    private static final float[] RED = {0.72f, 0.55f};
+    private static final float[] GREEN = {0.6f, 0.78f};
+    private static final float[] BLUE = {0.45f, 1f};
+    private static final float[] START_ALPHA = {0.55f, 0.9f};
+    private static final float[] GRAVITY = {0f, RiderPhysics.GRAVITY};
+
+    // Um quad por partícula: 4 vértices de (x, y, cor, u, v), na ordem do SpriteBatch
+    private static final int QUAD_FLOATS = 20;
+
+    private final int budget;
+    private final long frameBudgetNs;
+
+    private final float[] x;
+    private final float[] y;
+    private final float[] vx;
+    private final float[] vy;
+    private final float[] age;
+    private final float[] life;
+    private final float[] size;
+    private final float[] growth;
+    private final byte[] kind;
+    private int count;
+
+    private final float[][] vertices = new float[KINDS][];
+    private final int[] vertexCounts = new int[KINDS];
+    private final Texture[] textures = new Texture[KINDS];
+
+    private final float[] dustAccumulator = new float[MAX_EMITTERS];
+    private float quality = 1f;
+    private int randomState = 0x2545F491;
+
+    public int spawned;
+    public int dropped;
+    public int peakCount;
+    private float lowestQuality = 1f;
+
+    /**
+     * @param budget máximo de partículas vivas (0 desliga)
+     * @param frameBudgetNs tempo de quadro acima do qual as taxas de emissão caem
+     */
+    public ParticleSystem(int budget, long frameBudgetNs) {
+        this.budget = Math.max(0, budget);
+        this.frameBudgetNs = frameBudgetNs;
+        x = new float[this.budget];
+        y = new float[this.budget];
+        vx = new float[this.budget];
+        vy = new float[this.budget];
+        age = new float[this.budget];
+        life = new float[this.budget];
+        size = new float[this.budget];
+        growth = new float[this.budget];
+        kind = new byte[this.budget];
+        for (int k = 0; k < KINDS; k++) {
+            vertices[k] = new float[this.budget * QUAD_FLOATS];
+        }
+    }
+
+    /** Cria as texturas (geradas, sem arquivo): um floco macio para a poeira e uma gota para o respingo. */
+    public void loadTextures(GpuResources gpu) {
+        textures[DUST] = registerDot(gpu, "particle-dust", 16, true);
+        textures[SPLASH] = registerDot(gpu, "particle-drop", 8, false);
+    }
+
+    public void releaseTextures(GpuResources gpu) {
+        for (int k = 0; k < KINDS; k++) {
+            gpu.release(textures[k]);
+            textures[k] = null;
+        }
+    }
+
+    /**
+     * Poeira da roda traseira do ciclista {@code emitter}, proporcional à velocidade. Só sai com a roda no
+     * chão; no ar o acumulador zera para não soltar uma rajada ao pousar.
+     */
+    public void emitDust(int emitter, float wheelX, float groundY, float speedPxPerSec, boolean onGround, float delta) {
+        float speedFraction = speedPxPerSec / RiderPhysics.MAX_SPEED_PX_PER_SEC;
+        if (!onGround || speedFraction < DUST_MIN_SPEED_FRACTION) {
+            dustAccumulator[emitter] = 0f;
+            return;
+        }
+        dustAccumulator[emitter] += DUST_MAX_RATE * speedFraction * speedFraction * quality * delta;
+        while (dustAccumulator[emitter] >= 1f) {
+            dustAccumulator[emitter] -= 1f;
+            spawn(DUST, wheelX + (random() - 0.5f) * 12f, groundY + random() * 4f,
+                -speedPxPerSec * 0.15f + (random() - 0.5f) * 40f, 20f + random() * 50f,
+                0.4f + random() * 0.4f, 6f + random() * 6f, 1.5f);
+        }
+    }
+
+    /** Respingo de quem caiu no lago em (x, y). */
+    public void splash(float centerX, float surfaceY) {
+        int particles = Math.round(SPLASH_PARTICLES * quality);
+        for (int i = 0; i < particles; i++) {
+            spawn(SPLASH, centerX + (random() - 0.5f) * 48f, surfaceY,
+                (random() - 0.5f) * 400f, 200f + random() * 320f,
+                0.6f + random() * 0.5f, 4f + random() * 4f, 0f);
+        }
+    }
+
+    /** Move as partículas, tira as que acabaram e monta os vértices do próximo {@link #draw}. */
+    public void update(float delta) {
+        float drag = Math.max(0f, 1f - 2f * delta);
+        int i = 0;
+        while (i < count) {
+            age[i] += delta;
+            if (age[i] >= life[i]) {
+                removeAt(i);
+                continue;
+            }
+            int k = kind[i];
+            vy[i] += GRAVITY[k] * delta;
+            if (k == DUST) {
+                vx[i] *= drag;
+                vy[i] *= drag;
+            }
+            x[i] += vx[i] * delta;
+            y[i] += vy[i] * delta;
+            i++;
+        }
+        buildVertices();
+    }
+
+    /** Uma chamada por textura. O batch já deve estar aberto com a câmera do mundo. */
+    public void draw(Batch batch) {
+        for (int k = 0; k < KINDS; k++) {
+            if (vertexCounts[k] > 0 && textures[k] != null) {
+                batch.draw(textures[k], vertices[k], 0, vertexCounts[k]);
+            }
+        }
+    }
+
+    /** Ajusta a qualidade (taxas de emissão) pelo tempo gasto no quadro. */
+    public void recordFrameTime(long frameNs) {
+        if (frameNs > frameBudgetNs) {
+            quality = Math.max(MIN_QUALITY, quality * QUALITY_DROP);
+            lowestQuality = Math.min(lowestQuality, quality);
+        } else {
+            quality = Math.min(1f, quality + QUALITY_RECOVERY);
+        }
+    }
+
+    /**
+     * Acompanha o deslocamento de {@code dx} pixels para a esquerda da janela do modo infinito, como o ciclista e o
+     * parallax, para as partículas vivas não pularem um chunk. Refaz os vértices já montados neste quadro.
+     */
+    public void shiftOrigin(float dx) {
+        for (int i = 0; i < count; i++) {
+            x[i] -= dx;
+        }
+        buildVertices();
+    }
+
+    /** Remove todas as partículas (reinício de fase). */
+    public void clear() {
+        count = 0;
+        for (int k = 0; k < KINDS; k++) {
+            vertexCounts[k] = 0;
+        }
+        for (int e = 0; e < MAX_EMITTERS; e++) {
+            dustAccumulator[e] = 0f;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    public String describe() {
+        return String.format("Partículas: %d emitida(s), %d descartada(s) pelo orçamento de %d, pico %d, qualidade mínima %.0f%%",
+            spawned, dropped, budget, peakCount, lowestQuality * 100f);
+    }
+
+    private void spawn(int type, float px, float py, float pvx, float pvy, float lifeSeconds, float startSize, float sizeGrowth) {
+        if (count >= budget) {
+            dropped++;
+            return;
+        }
+        int i = count++;
+        kind[i] = (byte) type;
+        x[i] = px;
+        y[i] = py;
+        vx[i] = pvx;
+        vy[i] = pvy;
+        age[i] = 0f;
+        life[i] = lifeSeconds;
+        size[i] = startSize;
+        growth[i] = sizeGrowth;
+        spawned++;
+        peakCount = Math.max(peakCount, count);
+    }
+
+    private void removeAt(int i) {
+        int last = --count;
+        kind[i] = kind[last];
+        x[i] = x[last];
+        y[i] = y[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        age[i] = age[last];
+        life[i] = life[last];
+        size[i] = size[last];
+        growth[i] = growth[last];
+    }
+
+    private void buildVertices() {
+        for (int k = 0; k < KINDS; k++) {
+            vertexCounts[k] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            int k = kind[i];
+            float t = age[i] / life[i];
+            float s = size[i] * (1f + growth[i] * t);
+            float half = s / 2f;
+            float x0 = x[i] - half;
+            float y0 = y[i] - half;
+            float x1 = x0 + s;
+            float y1 = y0 + s;
+            float color = Color.toFloatBits(RED[k], GREEN[k], BLUE[k], START_ALPHA[k] * (1f - t));
+
+            float[] v = vertices[k];
+            int o = vertexCounts[k];
+            v[o] = x0;       v[o + 1] = y0;  v[o + 2] = color;  v[o + 3] = 0f; v[o + 4] = 1f;
+            v[o + 5] = x0;   v[o + 6] = y1;  v[o + 7] = color;  v[o + 8] = 0f; v[o + 9] = 0f;
+            v[o + 10] = x1;  v[o + 11] = y1; v[o + 12] = color; v[o + 13] = 1f; v[o + 14] = 0f;
+            v[o + 15] = x1;  v[o + 16] = y0; v[o + 17] = color; v[o + 18] = 1f; v[o + 19] = 1f;
+            vertexCounts[k] = o + QUAD_FLOATS;
+        }
+    }
+
+    /** xorshift32 em [0, 1): barato e sem estado compartilhado. */
+    private float random() {
+        int s = randomState;
+        s ^= s << 13;
+        s ^= s >>> 17;
+        s ^= s << 5;
+        randomState = s;
+        return (s >>> 8) * (1f / (1 << 24));
+    }
+
+    /** Textura de {@link #createDot}; null sem VRAM (esse tipo de partícula deixa de ser desenhado). */
+    private static Texture registerDot(GpuResources gpu, String key, int diameter, boolean soft) {
+        Pixmap pixmap = createDot(diameter, soft);
+        try {
+            return gpu.registerTexture(key, pixmap, GpuResources.Category.SPRITE);
+        } finally {
+            pixmap.dispose();
+        }
+    }
+
+    /** Círculo branco (tingido pela cor dos vértices); {@code soft} esmaece até a borda. */
+    private static Pixmap createDot(int diameter, boolean soft) {
+        Pixmap pixmap = new Pixmap(diameter, diameter, Pixmap.Format.RGBA8888);
+        pixmap.setBlending(Pixmap.Blending.None); // alfa gravado como está, sem misturar com o fundo vazio
+        float radius = diameter / 2f;
+        for (int py = 0; py < diameter; py++) {
+            for (int px = 0; px < diameter; px++) {
+                float dx = px + 0.5f - radius;
+                float dy = py + 0.5f - radius;
+                float distance = (float) Math.sqrt(dx * dx + dy * dy) / radius;
+                if (distance >= 1f) continue;
+                float alpha = soft ? (1f - distance) * (1f - distance) : 1f;
+                pixmap.drawPixel(px, py, 0xFFFFFF00 | Math.round(alpha * 255f));
+            }
+        }
+        return pixmap;
+    }
+}
@@ -0,0 +1,86 @@
+package com.felipe.rehabgame;
+
+/**
+ * Cadência de um pedal a partir dos pulsos recebidos (dispositivo IoT ou teclado).
+ *
+ * O intervalo entre pulsos é suavizado exponencialmente; sem pulsos por mais de {@link #PULSE_TIMEOUT_MS}
+ * a cadência cai para zero. Thread-safe: {@link #registerPulse()} pode ser chamado de um listener de
+ * rede/serial enquanto o jogo lê {@link #currentRpm()} na thread de render.
+ */
+public class PedalCadence {
+
+    private static final float SMOOTH_ALPHA = 0.2f;
+    public static final long PULSE_TIMEOUT_MS = 1500L;
+
+    private final Object lock = new Object();
+    private long lastPulseTime = 0L;
+    private float smoothedIntervalMs = 0f;
+
+    /** Registra um pulso no instante atual. */
+    public void registerPulse() {
+        registerPulse(System.currentTimeMillis());
+    }
+
+    /**
+     * Registra um pulso que aconteceu em {@code timeMs} (relógio de {@link System#currentTimeMillis()}), como as
+     * voltas com o instante medido pelo sensor CSC. Pulsos fora de ordem não mudam a cadência.
+     */
+    public void registerPulse(long timeMs) {
+        synchronized (lock) {
+            if (timeMs <= lastPulseTime) return;
+            if (lastPulseTime > 0L) {
+                float interval = (float) (timeMs - lastPulseTime); // ms
+                if (smoothedIntervalMs <= 0f) {
+                    smoothedIntervalMs = interval;
+                } else {
+                    // suavização exponencial para estabilidade
+                    smoothedIntervalMs = SMOOTH_ALPHA * interval + (1f - SMOOTH_ALPHA) * smoothedIntervalMs;
+                }
+            }
+            lastPulseTime = timeMs;
+        }
+    }
+
+    /** RPM atual; 0 quando ainda não há dois pulsos ou o último ficou para trás do tempo limite. */
+    public float currentRpm() {
+        long nowMs = System.currentTimeMillis();
+        synchronized (lock) {
+            // se passou tempo demais desde o último pulso, considerar que parou
+            if (lastPulseTime > 0L && (nowMs - lastPulseTime) > PULSE_TIMEOUT_MS) {
+                smoothedIntervalMs = 0f; // força o ramo de 'sem pulsos recentes'
+            }
+
+            if (smoothedIntervalMs > 0.0f) {
+                return 60_000f / smoothedIntervalMs; // ms -> RPM
+            }
+            return 0f;
+        }
+    }
+
+    /** Guarda o estimador no checkpoint; o último pulso é guardado pela idade em {@code nowMs}. */
+    void saveTo(Checkpoint checkpoint, long nowMs) {
+        synchronized (lock) {
+            checkpoint.smoothedIntervalMs = smoothedIntervalMs;
+            checkpoint.pulseAgeMs = lastPulseTime > 0L ? nowMs - lastPulseTime : -1L;
+        }
+    }
+
+    /**
+     * Volta o estimador ao estado guardado, com o último pulso na mesma idade que tinha na captura: quem
+     * continua pedalando segue na cadência do checkpoint, e quem parou cai para zero no tempo limite de sempre.
+     */
+    void restoreFrom(Checkpoint checkpoint, long nowMs) {
+        synchronized (lock) {
+            smoothedIntervalMs = checkpoint.smoothedIntervalMs;
+            lastPulseTime = checkpoint.pulseAgeMs >= 0L ? nowMs - checkpoint.pulseAgeMs : 0L;
+        }
+    }
+
+    /** Esquece os pulsos anteriores (nova fase ou reinício). */
+    public void reset() {
+        synchronized (lock) {
+            lastPulseTime = 0L;
+            smoothedIntervalMs = 0f;
+        }
+    }
+}
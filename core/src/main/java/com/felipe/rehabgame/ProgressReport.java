@@ -0,0 +1,104 @@
+package com.felipe.rehabgame;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Consulta o progresso gravado pelo jogo sem abrir a janela: últimas sessões, melhor tempo por fase e o tempo
+ * de cada consulta.
+ *
+ * Uso: ProgressReport [--dir pasta] [--patient id] [--last N] [--fill N]
+ * {@code --dir} padrão: {@code progress/} nos dados locais ({@link LocalData}).
+ * {@code --fill} grava N sessões sintéticas antes do relatório (para medir abertura, compactação e consultas
+ * com um histórico grande).
+ */
+public class ProgressReport {
+
+    public static void main(String[] args) throws Exception {
+        Path dir = LocalData.dir(LocalData.PROGRESS);
+        String patient = null;
+        int last = 30;
+        int fill = 0;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--dir".equals(arg) && i + 1 < args.length) {
+                dir = Paths.get(args[++i]);
+            } else if ("--patient".equals(arg) && i + 1 < args.length) {
+                patient = args[++i];
+            } else if ("--last".equals(arg) && i + 1 < args.length) {
+                last = Integer.parseInt(args[++i]);
+            } else if ("--fill".equals(arg) && i + 1 < args.length) {
+                fill = Integer.parseInt(args[++i]);
+            }
+        }
+
+        if (fill > 0) {
+            fillSynthetic(dir, fill);
+        }
+
+        ProgressStore store = ProgressStore.open(dir);
+        try {
+            if (patient == null) {
+                patient = store.getPatients().isEmpty() ? "local" : store.getPatients().iterator().next();
+            }
+            System.out.println(String.format("%d pacientes, %d sessões", store.getPatients().size(),
+                store.getSessionCount()));
+
+            long start = System.nanoTime();
+            List<SessionRecord> recent = store.lastSessions(patient, last);
+            long recentNs = System.nanoTime() - start;
+            System.out.println(String.format("Últimas %d sessões de %s (consulta em %.1f µs):", recent.size(), patient,
+                recentNs / 1000f));
+            for (SessionRecord record : recent) {
+                System.out.println("  " + record);
+            }
+
+            List<String> levels = new ArrayList<>();
+            for (SessionRecord record : store.lastSessions(patient, Integer.MAX_VALUE)) {
+                if (!levels.contains(record.levelId)) levels.add(record.levelId);
+            }
+            levels.sort(null);
+            System.out.println("Melhor tempo por fase:");
+            for (String level : levels) {
+                start = System.nanoTime();
+                SessionRecord best = store.bestTime(patient, level);
+                long bestNs = System.nanoTime() - start;
+                System.out.println(String.format("  %-12s %s (consulta em %.1f µs)", level,
+                    best != null ? String.format("%.2f s", best.durationSeconds) : "nunca concluída", bestNs / 1000f));
+            }
+
+            LocalDate today = LocalDate.now();
+            start = System.nanoTime();
+            int week = store.sessionsBetween(today.minusDays(6), today).size();
+            System.out.println(String.format("Sessões nos últimos 7 dias: %d (consulta em %.1f µs)", week,
+                (System.nanoTime() - start) / 1000f));
+        } finally {
+            store.close();
+        }
+    }
+
+    /** Sessões aleatórias de 20 pacientes nas fases 1 a 5, espalhadas pelos últimos 90 dias. */
+    private static void fillSynthetic(Path dir, int count) throws Exception {
+        Random random = new Random(42);
+        SessionRecord.Outcome[] outcomes = SessionRecord.Outcome.values();
+        long now = System.currentTimeMillis();
+        long start = System.nanoTime();
+        ProgressStore store = ProgressStore.open(dir);
+        for (int i = 0; i < count; i++) {
+            String patient = "paciente-" + random.nextInt(20);
+            String level = "level" + (1 + random.nextInt(5));
+            long startedAt = now - (long) (random.nextDouble() * 90 * 24 * 3600 * 1000L);
+            float rpm = 30f + random.nextFloat() * 50f;
+            store.recordSession(patient, level, startedAt, 20f + random.nextFloat() * 100f,
+                outcomes[random.nextInt(outcomes.length)], rpm, rpm + random.nextFloat() * 20f);
+        }
+        long enqueuedNs = System.nanoTime() - start;
+        store.close();
+        System.out.println(String.format("%d sessões sintéticas: %.1f ms para enfileirar, %.1f ms até gravar tudo",
+            count, enqueuedNs / 1_000_000f, (System.nanoTime() - start) / 1_000_000f));
+    }
+}
@@ -0,0 +1,572 @@
+package com.felipe.rehabgame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Progresso dos pacientes guardado em disco, sem banco de dados externo.
+ *
+ * Os registros vão para um log só de acréscimo, dividido em segmentos {@code segment-NNNNNN.log}. Cada registro
+ * é {@code [tamanho][CRC32][conteúdo]}; na abertura os segmentos são relidos em ordem, o índice em memória é
+ * reconstruído e uma cauda rasgada (queda no meio de uma escrita) é cortada no último registro válido.
+ *
+ * A gravação acontece numa thread própria: {@link #recordSession} atualiza o índice e põe os bytes numa fila,
+ * então o jogo nunca espera pelo fsync. Quando há {@link #COMPACT_SEGMENTS} segmentos fechados e pelo menos
+ * 1/{@link #COMPACT_DEAD_DIVISOR} dos bytes deles é lixo (sessões de pacientes apagados, registros repetidos ou
+ * corrompidos), a mesma thread os junta num só. Sem lixo os segmentos ficam como estão: reescrevê-los não
+ * liberaria nada.
+ *
+ * O índice (por paciente, por paciente+fase e por dia) pertence à thread que abriu o armazenamento; consultas
+ * são buscas em mapas e não tocam no disco.
+ */
+public class ProgressStore implements Closeable {
+
+    /** Segmento ativo passa para o próximo acima deste tamanho. */
+    public static final long SEGMENT_BYTES = 1024 * 1024;
+    public static final int COMPACT_SEGMENTS = 4;
+    /** Compacta quando o lixo nos segmentos fechados chega a 1/N dos bytes deles. */
+    public static final int COMPACT_DEAD_DIVISOR = 4;
+
+    private static final byte TYPE_SESSION = 1;
+    private static final byte TYPE_DELETE_PATIENT = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path dir;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Índice (thread do jogo)
+    private final List<SessionRecord> sessions = new ArrayList<>();
+    private final Map<String, List<SessionRecord>> byPatient = new HashMap<>();
+    private final Map<String, SessionRecord> bestByPatientLevel = new HashMap<>();
+    private final TreeMap<Long, List<SessionRecord>> byDay = new TreeMap<>();
+    private long nextId = 1;
+
+    // Gravação (thread de escrita depois da abertura)
+    private final LinkedBlockingQueue<byte[]> pending = new LinkedBlockingQueue<>();
+    private final List<Path> sealedSegments = new ArrayList<>();
+    private Path activeSegment;
+    private int activeNumber;
+    private FileChannel activeChannel;
+    // Contabilidade do lixo (thread de escrita depois da abertura). Bytes das sessões no log por paciente: uma
+    // lápide torna os do paciente lixo. O lixo criado por uma lápide no segmento ativo só pode ser recolhido
+    // depois que esse segmento fecha, então fica à parte até lá.
+    private final Map<String, Long> patientLogBytes = new HashMap<>();
+    private long sealedBytes;
+    private long sealedDeadBytes;
+    private long activeDeadBytes;
+    private final Thread writer;
+    private volatile boolean closing;
+
+    private ProgressStore(Path dir) {
+        this.dir = dir;
+        this.writer = new Thread(this::writeLoop, "progress-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /** Abre (ou cria) o armazenamento em {@code dir} e reconstrói o índice. */
+    public static ProgressStore open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        ProgressStore store = new ProgressStore(dir);
+        long start = System.nanoTime();
+        List<Path> segments = store.listSegments();
+        int records = store.replay(segments);
+        store.openActiveSegment(segments);
+        store.writer.start();
+        System.out.println(String.format("Progresso: %d sessões em %d segmento(s), %d registros lidos em %.1f ms",
+            store.sessions.size(), segments.size(), records, (System.nanoTime() - start) / 1_000_000f));
+        return store;
+    }
+
+    // ---- Escrita ----
+
+    /** Grava uma tentativa. O registro entra no índice na hora; o disco é atualizado em segundo plano. */
+    public SessionRecord recordSession(String patientId, String levelId, long startedAtMs, float durationSeconds,
+                                       SessionRecord.Outcome outcome, float averageRpm, float maxRpm) {
+        SessionRecord record = new SessionRecord();
+        record.id = nextId++;
+        record.patientId = patientId;
+        record.levelId = levelId;
+        record.startedAtMs = startedAtMs;
+        record.durationSeconds = durationSeconds;
+        record.outcome = outcome;
+        record.averageRpm = averageRpm;
+        record.maxRpm = maxRpm;
+        index(record);
+        enqueue(encodeSession(record));
+        return record;
+    }
+
+    /** Apaga todas as sessões do paciente; no disco elas somem na próxima compactação. */
+    public void deletePatient(String patientId) {
+        long id = nextId++;
+        unindexPatient(patientId);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(TYPE_DELETE_PATIENT);
+            out.writeLong(id);
+            out.writeUTF(patientId);
+            enqueue(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void enqueue(byte[] payload) {
+        if (closing) {
+            System.err.println("Progresso: armazenamento fechado, registro descartado");
+            return;
+        }
+        pending.offer(payload);
+    }
+
+    // ---- Consultas ----
+
+    /** Tentativa concluída mais rápida do paciente na fase, ou null. */
+    public SessionRecord bestTime(String patientId, String levelId) {
+        return bestByPatientLevel.get(key(patientId, levelId));
+    }
+
+    /** Últimas {@code count} sessões do paciente, da mais recente para a mais antiga. */
+    public List<SessionRecord> lastSessions(String patientId, int count) {
+        List<SessionRecord> list = byPatient.get(patientId);
+        return list != null ? newestFirst(list, count) : Collections.<SessionRecord>emptyList();
+    }
+
+    /** Últimas {@code count} sessões de todos os pacientes. */
+    public List<SessionRecord> lastSessions(int count) {
+        return newestFirst(sessions, count);
+    }
+
+    /** Sessões iniciadas entre os dois dias (inclusive), no fuso da máquina, em ordem de gravação. */
+    public List<SessionRecord> sessionsBetween(LocalDate from, LocalDate to) {
+        List<SessionRecord> result = new ArrayList<>();
+        for (List<SessionRecord> day : byDay.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values()) {
+            result.addAll(day);
+        }
+        return result;
+    }
+
+    public Set<String> getPatients() {
+        return Collections.unmodifiableSet(byPatient.keySet());
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    // ---- Índice ----
+
+    private void index(SessionRecord record) {
+        sessions.add(record);
+        byPatient.computeIfAbsent(record.patientId, k -> new ArrayList<>()).add(record);
+        long day = Instant.ofEpochMilli(record.startedAtMs).atZone(zone).toLocalDate().toEpochDay();
+        byDay.computeIfAbsent(day, k -> new ArrayList<>()).add(record);
+        if (record.outcome == SessionRecord.Outcome.COMPLETED) {
+            String key = key(record.patientId, record.levelId);
+            SessionRecord best = bestByPatientLevel.get(key);
+            if (best == null || record.durationSeconds < best.durationSeconds) {
+                bestByPatientLevel.put(key, record);
+            }
+        }
+    }
+
+    private void unindexPatient(String patientId) {
+        if (byPatient.remove(patientId) == null) return;
+        sessions.removeIf(r -> r.patientId.equals(patientId));
+        bestByPatientLevel.values().removeIf(r -> r.patientId.equals(patientId));
+        for (List<SessionRecord> day : byDay.values()) {
+            day.removeIf(r -> r.patientId.equals(patientId));
+        }
+        byDay.values().removeIf(List::isEmpty);
+    }
+
+    private static String key(String patientId, String levelId) {
+        return patientId + '\u0000' + levelId;
+    }
+
+    private static List<SessionRecord> newestFirst(List<SessionRecord> list, int count) {
+        int n = Math.min(count, list.size());
+        List<SessionRecord> result = new ArrayList<>(n);
+        for (int i = list.size() - 1; i >= list.size() - n; i--) {
+            result.add(list.get(i));
+        }
+        return result;
+    }
+
+    // ---- Abertura ----
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                if (segmentNumber(path) >= 0) segments.add(path);
+            }
+        }
+        segments.sort((a, b) -> Integer.compare(segmentNumber(a), segmentNumber(b)));
+        return segments;
+    }
+
+    /** Relê os segmentos em ordem; devolve o número de registros válidos. */
+    private int replay(List<Path> segments) throws IOException {
+        int records = 0;
+        long lastId = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            Path path = segments.get(s);
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            int validEnd = 0;
+            while (true) {
+                int recordStart = buffer.position();
+                ByteBuffer payload = nextRecord(buffer);
+                if (payload == null) break;
+                validEnd = buffer.position();
+                long id = payload.getLong(1);
+                // Uma compactação interrompida antes de apagar os segmentos antigos deixa registros repetidos
+                if (id <= lastId) {
+                    activeDeadBytes += validEnd - recordStart;
+                    continue;
+                }
+                lastId = id;
+                records++;
+                applyReplayed(payload, validEnd - recordStart);
+            }
+            // O lixo do último segmento fica em activeDeadBytes até openActiveSegment decidir se ele continua ativo
+            if (s < segments.size() - 1) {
+                sealedDeadBytes += activeDeadBytes + (buffer.limit() - validEnd);
+                activeDeadBytes = 0;
+            }
+            if (validEnd < buffer.limit()) {
+                if (s == segments.size() - 1) {
+                    System.err.println(String.format("Progresso: cauda inválida em %s, cortando %d bytes",
+                        path.getFileName(), buffer.limit() - validEnd));
+                    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                        channel.truncate(validEnd);
+                        channel.force(true);
+                    }
+                } else {
+                    System.err.println("Progresso: registro corrompido em " + path.getFileName()
+                        + ", resto do segmento ignorado");
+                }
+            }
+        }
+        nextId = lastId + 1;
+        return records;
+    }
+
+    private void applyReplayed(ByteBuffer payload, int recordBytes) {
+        byte type = payload.get(0);
+        payload.position(9);
+        if (type == TYPE_SESSION) {
+            SessionRecord record = decodeSession(payload);
+            if (record != null) index(record);
+        } else if (type == TYPE_DELETE_PATIENT) {
+            unindexPatient(readUtf(payload));
+        }
+        countLogBytes(payload, recordBytes);
+    }
+
+    /** Atualiza a contabilidade do lixo com um registro que acabou de entrar no segmento ativo (ou no relido). */
+    private void countLogBytes(ByteBuffer payload, int recordBytes) {
+        byte type = payload.get(0);
+        payload.position(9);
+        String patientId = readUtf(payload);
+        if (type == TYPE_SESSION) {
+            patientLogBytes.merge(patientId, (long) recordBytes, Long::sum);
+        } else if (type == TYPE_DELETE_PATIENT) {
+            Long killed = patientLogBytes.remove(patientId);
+            if (killed != null) activeDeadBytes += killed;
+        }
+    }
+
+    private void openActiveSegment(List<Path> segments) throws IOException {
+        if (!segments.isEmpty()) {
+            Path last = segments.get(segments.size() - 1);
+            sealedSegments.addAll(segments.subList(0, segments.size() - 1));
+            for (Path sealed : sealedSegments) {
+                sealedBytes += Files.size(sealed);
+            }
+            if (Files.size(last) < SEGMENT_BYTES) {
+                activeNumber = segmentNumber(last);
+                activeSegment = last;
+                activeChannel = FileChannel.open(last, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                return;
+            }
+            seal(last, Files.size(last));
+            activeNumber = segmentNumber(last);
+        }
+        rollSegment();
+    }
+
+    // ---- Thread de escrita ----
+
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<>();
+        while (true) {
+            try {
+                byte[] first = pending.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closing && pending.isEmpty()) break;
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch);
+                writeBatch(batch);
+                batch.clear();
+                if (sealedSegments.size() >= COMPACT_SEGMENTS
+                    && sealedDeadBytes * COMPACT_DEAD_DIVISOR >= sealedBytes) {
+                    compact();
+                }
+            } catch (InterruptedException e) {
+                closing = true;
+            } catch (IOException e) {
+                // Os registros do lote continuam no índice; no disco ficam perdidos
+                System.err.println("Progresso: erro de gravação: " + e.getMessage());
+                batch.clear();
+            }
+        }
+        try {
+            activeChannel.close();
+        } catch (IOException e) {
+            System.err.println("Progresso: erro ao fechar o segmento: " + e.getMessage());
+        }
+    }
+
+    private void writeBatch(List<byte[]> batch) throws IOException {
+        for (byte[] payload : batch) {
+            countLogBytes(ByteBuffer.wrap(payload), activeChannel.write(frame(payload)));
+            long size = activeChannel.size();
+            if (size >= SEGMENT_BYTES) {
+                activeChannel.force(false);
+                activeChannel.close();
+                seal(activeSegment, size);
+                rollSegment();
+            }
+        }
+        // Um fsync por lote, não por registro
+        activeChannel.force(false);
+    }
+
+    /** O segmento fechado passa a contar para a compactação, com o lixo que ele já tinha. */
+    private void seal(Path segment, long size) {
+        sealedSegments.add(segment);
+        sealedBytes += size;
+        sealedDeadBytes += activeDeadBytes;
+        activeDeadBytes = 0;
+    }
+
+    private void rollSegment() throws IOException {
+        activeNumber++;
+        activeSegment = dir.resolve(segmentName(activeNumber));
+        activeChannel = FileChannel.open(activeSegment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Junta os segmentos fechados num só, com o número do mais novo deles. O resultado é escrito num arquivo
+     * temporário e renomeado por cima; se o processo cair antes de apagar os antigos, a releitura ignora os
+     * ids repetidos e a próxima compactação termina o serviço.
+     *
+     * A releitura só aceita ids crescentes, então os antigos são apagados do mais novo para o mais velho, com
+     * fsync do diretório a cada passo: o que sobrar de uma queda é sempre um prefixo dos segmentos originais,
+     * com ids menores que os que só existem no compactado.
+     */
+    private void compact() throws IOException {
+        long start = System.nanoTime();
+        List<Path> inputs = new ArrayList<>(sealedSegments);
+        Path target = inputs.get(inputs.size() - 1);
+
+        // Primeira passada: pacientes apagados (a lápide vale para as sessões gravadas antes dela)
+        Map<String, Long> deletedAt = new HashMap<>();
+        List<ByteBuffer> payloads = new ArrayList<>();
+        long lastId = 0;
+        long inputBytes = 0;
+        for (Path path : inputs) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            inputBytes += buffer.limit();
+            ByteBuffer payload;
+            while ((payload = nextRecord(buffer)) != null) {
+                long id = payload.getLong(1);
+                if (id <= lastId) continue;
+                lastId = id;
+                payloads.add(payload);
+                if (payload.get(0) == TYPE_DELETE_PATIENT) {
+                    payload.position(9);
+                    deletedAt.put(readUtf(payload), id);
+                }
+            }
+        }
+
+        Path temp = dir.resolve(target.getFileName() + ".tmp");
+        Set<String> kept = new HashSet<>();
+        long outputBytes = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (ByteBuffer payload : payloads) {
+                if (payload.get(0) == TYPE_SESSION) {
+                    payload.position(9);
+                    String patientId = readUtf(payload);
+                    Long deleted = deletedAt.get(patientId);
+                    if (deleted != null && payload.getLong(1) < deleted) continue;
+                    kept.add(patientId);
+                }
+                payload.rewind();
+                byte[] bytes = new byte[payload.remaining()];
+                payload.get(bytes);
+                outputBytes += out.write(frame(bytes));
+            }
+            out.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+        for (int i = inputs.size() - 1; i >= 0; i--) {
+            Path path = inputs.get(i);
+            if (path.equals(target)) continue;
+            Files.delete(path);
+            syncDirectory();
+        }
+        sealedSegments.clear();
+        sealedSegments.add(target);
+        // Todo o lixo dos segmentos fechados tinha a lápide entre as entradas, então saiu nesta passada
+        sealedBytes = outputBytes;
+        sealedDeadBytes = 0;
+        System.out.println(String.format("Progresso: %d segmentos compactados, %d -> %d bytes em %.1f ms",
+            inputs.size(), inputBytes, outputBytes, (System.nanoTime() - start) / 1_000_000f));
+    }
+
+    /** Torna renomeações e remoções no diretório duráveis (sem isso uma queda de energia pode desfazê-las). */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Windows não abre diretórios como arquivo; lá a ordem fica por conta do sistema de arquivos
+        }
+    }
+
+    /** Espera a fila ser gravada e encerra a thread de escrita. */
+    @Override
+    public void close() {
+        closing = true;
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            System.err.println("Progresso: gravação não terminou a tempo, " + pending.size() + " registro(s) na fila");
+        }
+    }
+
+    // ---- Formato ----
+
+    private static ByteBuffer frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer framed = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        framed.putInt(payload.length);
+        framed.putInt((int) crc.getValue());
+        framed.put(payload);
+        framed.flip();
+        return framed;
+    }
+
+    /** Próximo registro válido a partir da posição atual, ou null no fim ou no primeiro registro inválido. */
+    private static ByteBuffer nextRecord(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES) return null;
+        int start = buffer.position();
+        int length = buffer.getInt(start);
+        int expected = buffer.getInt(start + 4);
+        if (length < 9 || length > MAX_RECORD_BYTES || buffer.remaining() < HEADER_BYTES + length) return null;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), start + HEADER_BYTES, length);
+        if ((int) crc.getValue() != expected) return null;
+        ByteBuffer payload = ByteBuffer.wrap(buffer.array(), start + HEADER_BYTES, length).slice();
+        buffer.position(start + HEADER_BYTES + length);
+        return payload;
+    }
+
+    private static byte[] encodeSession(SessionRecord record) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(TYPE_SESSION);
+            out.writeLong(record.id);
+            out.writeUTF(record.patientId);
+            out.writeUTF(record.levelId);
+            out.writeLong(record.startedAtMs);
+            out.writeFloat(record.durationSeconds);
+            out.writeByte(record.outcome.ordinal());
+            out.writeFloat(record.averageRpm);
+            out.writeFloat(record.maxRpm);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Lê uma sessão a partir do paciente (depois de tipo e id); null se o resultado é desconhecido. */
+    private static SessionRecord decodeSession(ByteBuffer payload) {
+        SessionRecord record = new SessionRecord();
+        record.id = payload.getLong(1);
+        record.patientId = readUtf(payload);
+        record.levelId = readUtf(payload);
+        record.startedAtMs = payload.getLong();
+        record.durationSeconds = payload.getFloat();
+        int outcome = payload.get() & 0xFF;
+        record.averageRpm = payload.getFloat();
+        record.maxRpm = payload.getFloat();
+        SessionRecord.Outcome[] outcomes = SessionRecord.Outcome.values();
+        if (outcome >= outcomes.length) return null;
+        record.outcome = outcomes[outcome];
+        return record;
+    }
+
+    /** Lê uma string no formato de {@link DataOutputStream#writeUTF} (ids de paciente e fase são ASCII na prática). */
+    private static String readUtf(ByteBuffer payload) {
+        int length = payload.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        // UTF modificado só difere do UTF-8 no caractere nulo e fora do plano básico
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String segmentName(int number) {
+        return String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX);
+    }
+
+    private static int segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) return -1;
+        try {
+            return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
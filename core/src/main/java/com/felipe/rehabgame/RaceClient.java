@@ -0,0 +1,254 @@
+package com.felipe.rehabgame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Cliente de uma corrida em rede (ver {@link RaceHost}).
+ *
+ * Envia a cadência local e a confirmação do último snapshot na mesma taxa dos snapshots, recebe os
+ * snapshots em diferença e guarda os últimos {@link #RECEIVED} decodificados. Os outros ciclistas são
+ * desenhados um pouco no passado ({@code interpolationDelayMs}, normalmente dois intervalos de snapshot),
+ * interpolando entre os dois snapshots que cercam esse instante: perdas e atrasos isolados não aparecem
+ * como saltos. O relógio do host é estimado pelo menor atraso visto (o pacote mais rápido é o que menos
+ * sofreu com a rede).
+ *
+ * O próprio ciclista é simulado localmente pelo jogo; {@link #selfX}/{@link #selfY} trazem a posição
+ * oficial do host para corrigir divergências grandes (ex.: o host o colocou de volta no spawn).
+ */
+public class RaceClient implements Closeable {
+
+    // Maior que o histórico do host, então toda base que o host usar ainda está aqui (potência de 2)
+    private static final int RECEIVED = 64;
+    // Sem snapshot novo, extrapola pela velocidade no máximo por este tempo e depois espera parado
+    private static final long MAX_EXTRAPOLATION_MS = 250L;
+    // Deslocamento entre dois snapshots acima do qual não se interpola (4 tiles, em unidades quantizadas)
+    private static final int TELEPORT_DISTANCE = (int) (4 * 64 * RaceSnapshot.POSITION_SCALE);
+
+    /** Outros ciclistas na posição interpolada, prontos para desenhar. */
+    public static class RemoteRiders {
+        public int count;
+        public final int[] ids = new int[RaceSnapshot.MAX_RIDERS];
+        public final float[] x = new float[RaceSnapshot.MAX_RIDERS];
+        public final float[] y = new float[RaceSnapshot.MAX_RIDERS];
+        public final float[] rpm = new float[RaceSnapshot.MAX_RIDERS];
+    }
+
+    private final DatagramChannel channel;
+    private final long inputIntervalMs;
+    private final long interpolationDelayMs;
+
+    private final RaceSnapshot[] received = new RaceSnapshot[RECEIVED];
+    private final RaceSnapshot decoding = new RaceSnapshot();
+    private int latestSeq = SnapshotCodec.NO_SEQ;
+    private long lastInputMs = 0L;
+
+    private long hostClockOffsetMs;
+    private boolean hostClockKnown = false;
+    private long lastOffsetRelaxMs;
+
+    private final ByteBuffer in = ByteBuffer.allocate(SnapshotCodec.MAX_PACKET_BYTES);
+    private final ByteBuffer out = ByteBuffer.allocate(SnapshotCodec.INPUT_BYTES);
+
+    /** Id deste cliente na corrida; -1 até o primeiro snapshot. */
+    public int selfId = -1;
+    /** Fase em que o host está (a partir de 1); -1 até o primeiro snapshot. */
+    public int hostLevel = -1;
+    public int winnerId = RaceSnapshot.NO_RIDER;
+    public boolean selfKnown = false;
+    public float selfX;
+    public float selfY;
+    /** Instante do host desenhado na última chamada de {@link #interpolate}. */
+    public long renderHostTimeMs;
+
+    public long bytesReceived;
+    public long packetsReceived;
+    /** Snapshots descartados porque a base já não estava no histórico (o host manda um completo em seguida). */
+    public long packetsWithoutBaseline;
+    public long keyframesReceived;
+
+    public RaceClient(InetSocketAddress host, int rateHz, int interpolationDelayMs) throws IOException {
+        this.inputIntervalMs = 1000L / Math.max(1, rateHz);
+        this.interpolationDelayMs = interpolationDelayMs;
+        for (int i = 0; i < RECEIVED; i++) {
+            received[i] = new RaceSnapshot();
+            received[i].seq = -1;
+        }
+
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(host);
+        System.out.println("Entrando na corrida em " + host);
+    }
+
+    /** Recebe os snapshots pendentes e, no intervalo configurado, manda a cadência atual. */
+    public void update(float rpm) {
+        long nowMs = System.currentTimeMillis();
+        receive(nowMs);
+
+        if (nowMs - lastInputMs >= inputIntervalMs) {
+            lastInputMs = nowMs;
+            out.clear();
+            SnapshotCodec.writeInput(out, latestSeq, rpm);
+            out.flip();
+            try {
+                channel.write(out);
+            } catch (IOException e) {
+                // Host ainda não está no ar ou caiu: continuar tentando no próximo intervalo
+            }
+        }
+    }
+
+    /**
+     * Preenche {@code target} com os outros ciclistas no instante {@code nowMs - interpolationDelayMs} do
+     * host. Retorna false se ainda não chegou nenhum snapshot.
+     */
+    public boolean interpolate(long nowMs, RemoteRiders target) {
+        target.count = 0;
+        if (!hostClockKnown) return false;
+
+        long renderTime = nowMs - hostClockOffsetMs - interpolationDelayMs;
+        renderHostTimeMs = renderTime;
+
+        // Snapshots imediatamente antes e depois do instante desenhado
+        RaceSnapshot before = null;
+        RaceSnapshot after = null;
+        for (RaceSnapshot snapshot : received) {
+            if (!isRecent(snapshot)) continue;
+            if (snapshot.hostTimeMs <= renderTime) {
+                if (before == null || snapshot.hostTimeMs > before.hostTimeMs) before = snapshot;
+            } else if (after == null || snapshot.hostTimeMs < after.hostTimeMs) {
+                after = snapshot;
+            }
+        }
+        if (before == null && after == null) return false;
+
+        if (before == null) {
+            // Ainda antes do primeiro snapshot: mostrar o primeiro
+            copyRiders(after, target, 0f);
+        } else if (after == null) {
+            // Snapshots atrasados: seguir pela velocidade por pouco tempo
+            long ahead = Math.min(renderTime - before.hostTimeMs, MAX_EXTRAPOLATION_MS);
+            copyRiders(before, target, ahead / 1000f);
+        } else {
+            float t = (renderTime - before.hostTimeMs) / (float) (after.hostTimeMs - before.hostTimeMs);
+            for (int i = 0; i < before.count; i++) {
+                int id = before.ids[i];
+                if (id == selfId) continue;
+                int j = after.indexOf(id);
+                if (j < 0) continue; // saiu da corrida
+                // Um salto grande é volta ao spawn: ir direto, sem atravessar a fase
+                float s = Math.abs(after.x[j] - before.x[i]) > TELEPORT_DISTANCE ? 1f : t;
+                int n = target.count++;
+                target.ids[n] = id;
+                target.x[n] = lerp(before.x[i], after.x[j], s) / RaceSnapshot.POSITION_SCALE;
+                target.y[n] = lerp(before.y[i], after.y[j], s) / RaceSnapshot.POSITION_SCALE;
+                target.rpm[n] = lerp(before.rpm[i], after.rpm[j], t);
+            }
+        }
+        return true;
+    }
+
+    /** Pacotes recebidos, sem base e completos, para o console. */
+    public String describeTraffic() {
+        return "Rede (cliente " + selfId + "): " + packetsReceived + " snapshot(s), " + bytesReceived + " bytes, "
+            + keyframesReceived + " completo(s), " + packetsWithoutBaseline + " sem base";
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Erro ao fechar o socket do cliente: " + e.getMessage());
+        }
+    }
+
+    private void receive(long nowMs) {
+        while (true) {
+            in.clear();
+            int size;
+            try {
+                if (channel.receive(in) == null) return;
+                size = in.position();
+            } catch (IOException e) {
+                return; // ex.: "porta inalcançável" enquanto o host não está no ar
+            }
+            in.flip();
+            if (size < SnapshotCodec.SNAPSHOT_HEADER_BYTES || in.get(0) != SnapshotCodec.TYPE_SNAPSHOT) continue;
+            bytesReceived += size;
+            packetsReceived++;
+
+            RaceSnapshot baseline = null;
+            int baselineSeq = SnapshotCodec.peekBaselineSeq(in);
+            if (baselineSeq != SnapshotCodec.NO_SEQ) {
+                baseline = received[baselineSeq & (RECEIVED - 1)];
+                if (baseline.seq != baselineSeq) {
+                    packetsWithoutBaseline++;
+                    continue;
+                }
+            } else {
+                keyframesReceived++;
+            }
+
+            int recipientId = SnapshotCodec.readSnapshot(in, baseline, decoding);
+            if (recipientId < 0) continue;
+            received[decoding.seq & (RECEIVED - 1)].set(decoding);
+            trackHostClock(nowMs, decoding.hostTimeMs);
+
+            if (latestSeq == SnapshotCodec.NO_SEQ || SnapshotCodec.isNewer(decoding.seq, latestSeq)) {
+                latestSeq = decoding.seq;
+                selfId = recipientId;
+                hostLevel = decoding.level;
+                winnerId = decoding.winnerId;
+                int self = decoding.indexOf(selfId);
+                selfKnown = self >= 0;
+                if (selfKnown) {
+                    selfX = decoding.x[self] / RaceSnapshot.POSITION_SCALE;
+                    selfY = decoding.y[self] / RaceSnapshot.POSITION_SCALE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Diferença entre o relógio local e o do host. Usa o menor valor visto; a cada segundo relaxa 1 ms para
+     * acompanhar a deriva entre os relógios.
+     */
+    private void trackHostClock(long nowMs, long hostTimeMs) {
+        long offset = nowMs - hostTimeMs;
+        if (!hostClockKnown || offset < hostClockOffsetMs) {
+            hostClockOffsetMs = offset;
+            hostClockKnown = true;
+            lastOffsetRelaxMs = nowMs;
+        } else if (nowMs - lastOffsetRelaxMs >= 1000L) {
+            hostClockOffsetMs++;
+            lastOffsetRelaxMs = nowMs;
+        }
+    }
+
+    /** Só snapshots dentro da janela recente; os mais velhos podem ser de uma sessão anterior do buffer. */
+    private boolean isRecent(RaceSnapshot snapshot) {
+        if (snapshot.seq < 0 || latestSeq == SnapshotCodec.NO_SEQ) return false;
+        int age = (latestSeq - snapshot.seq) & SnapshotCodec.SEQ_MASK;
+        return age < RECEIVED;
+    }
+
+    private void copyRiders(RaceSnapshot snapshot, RemoteRiders target, float extrapolateSeconds) {
+        for (int i = 0; i < snapshot.count; i++) {
+            if (snapshot.ids[i] == selfId) continue;
+            int n = target.count++;
+            target.ids[n] = snapshot.ids[i];
+            target.x[n] = snapshot.x[i] / RaceSnapshot.POSITION_SCALE + snapshot.speed[i] * extrapolateSeconds;
+            target.y[n] = snapshot.y[i] / RaceSnapshot.POSITION_SCALE;
+            target.rpm[n] = snapshot.rpm[i];
+        }
+    }
+
+    private static float lerp(int a, int b, float t) {
+        return a + (b - a) * t;
+    }
+}
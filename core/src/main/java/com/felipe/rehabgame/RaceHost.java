@@ -0,0 +1,306 @@
+package com.felipe.rehabgame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Host de uma corrida em rede: a simulação de todos os ciclistas é a dele.
+ *
+ * Cada cliente manda só a sua cadência (e o último snapshot que recebeu); o host roda a mesma
+ * {@link RiderPhysics} para os ciclistas remotos e, na taxa configurada, envia a cada cliente um
+ * {@link RaceSnapshot} codificado como diferença do último que aquele cliente confirmou
+ * ({@link SnapshotCodec}). Um socket UDP não bloqueante, lido no próprio quadro do jogo: nenhuma thread
+ * extra e nenhuma alocação por pacote.
+ *
+ * Clientes sem dar notícia por {@link #PEER_TIMEOUT_MS} saem da corrida; se voltarem a mandar entradas,
+ * entram de novo no spawn.
+ */
+public class RaceHost implements Closeable {
+
+    public static final long PEER_TIMEOUT_MS = 5000L;
+    // Snapshots enviados guardados como base possível para as diferenças (potência de 2)
+    private static final int HISTORY = 32;
+
+    /** Um cliente conectado e o ciclista que ele controla. */
+    public static class Peer {
+        public final SocketAddress address;
+        public final int riderId;
+        public final RiderPhysics rider;
+        public float rpm;
+        final long joinedMs = System.currentTimeMillis();
+        long lastHeardMs;
+        long lastInputMs;
+        int ackSeq = SnapshotCodec.NO_SEQ;
+
+        public long bytesSent;
+        public long packetsSent;
+        public long keyframesSent;
+
+        Peer(SocketAddress address, int riderId, RiderPhysics rider) {
+            this.address = address;
+            this.riderId = riderId;
+            this.rider = rider;
+        }
+    }
+
+    private final DatagramChannel channel;
+    private final long sendIntervalMs;
+    private final int localRiderCount;
+    private final float riderWidth;
+    private final float riderHeight;
+
+    private final Map<SocketAddress, Peer> peersByAddress = new HashMap<>();
+    private final List<Peer> peers = new ArrayList<>();
+    private final boolean[] usedIds = new boolean[RaceSnapshot.MAX_RIDERS];
+
+    private final RaceSnapshot[] history = new RaceSnapshot[HISTORY];
+    private final RaceSnapshot current = new RaceSnapshot();
+    private int nextSeq = 0;
+    private final long startMs = System.currentTimeMillis();
+    private long lastSendMs = 0L;
+
+    private final ByteBuffer in = ByteBuffer.allocate(64);
+    private final ByteBuffer out = ByteBuffer.allocate(SnapshotCodec.MAX_PACKET_BYTES);
+
+    /** Ciclista vencedor da fase atual ({@link RaceSnapshot#NO_RIDER} enquanto ninguém chegou). */
+    public int winnerId = RaceSnapshot.NO_RIDER;
+
+    /**
+     * @param port            porta UDP (0 para uma porta livre, ex.: testes)
+     * @param snapshotRateHz  snapshots por segundo para cada cliente
+     * @param localRiderCount ciclistas jogando no próprio host; ficam com os ids 0..n-1
+     */
+    public RaceHost(int port, int snapshotRateHz, int localRiderCount, float riderWidth, float riderHeight) throws IOException {
+        this.sendIntervalMs = 1000L / Math.max(1, snapshotRateHz);
+        this.localRiderCount = localRiderCount;
+        this.riderWidth = riderWidth;
+        this.riderHeight = riderHeight;
+        for (int i = 0; i < localRiderCount; i++) {
+            usedIds[i] = true;
+        }
+        for (int i = 0; i < HISTORY; i++) {
+            history[i] = new RaceSnapshot();
+            history[i].seq = -1;
+        }
+
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.bind(new InetSocketAddress(port));
+        System.out.println("Corrida em rede hospedada na porta " + getLocalPort() + " (" + snapshotRateHz + " snapshots/s)");
+    }
+
+    public int getLocalPort() {
+        try {
+            return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /** Relógio do host (ms desde a criação), o mesmo enviado nos snapshots. */
+    public long getHostTimeMs() {
+        return System.currentTimeMillis() - startMs;
+    }
+
+    public List<Peer> getPeers() {
+        return peers;
+    }
+
+    /**
+     * Um passo do host: lê as entradas recebidas, simula os ciclistas remotos e, se já passou o intervalo,
+     * envia um snapshot a cada cliente. {@code localRiders}/{@code localRpms} podem ser null (host sem
+     * jogador, ex.: o harness).
+     */
+    public void update(float delta, LevelData level, int levelNumber, RiderPhysics[] localRiders, float[] localRpms) {
+        long nowMs = System.currentTimeMillis();
+        receive(level, nowMs);
+
+        for (int i = peers.size() - 1; i >= 0; i--) {
+            Peer peer = peers.get(i);
+            if (nowMs - peer.lastHeardMs > PEER_TIMEOUT_MS) {
+                System.out.println("Ciclista remoto " + peer.riderId + " saiu (" + peer.address + ")");
+                removePeer(i);
+                continue;
+            }
+            // Sem entradas recentes o ciclista para, como no pedal local
+            float rpm = nowMs - peer.lastInputMs > PedalCadence.PULSE_TIMEOUT_MS ? 0f : peer.rpm;
+            peer.rider.updateSpeed(rpm, delta);
+            peer.rider.step(level, delta);
+            if (peer.rider.inLake || peer.rider.y < -riderHeight) {
+                // Na corrida quem cai volta ao início da fase
+                peer.rider.placeAtSpawn(level);
+            }
+        }
+
+        if (nowMs - lastSendMs >= sendIntervalMs) {
+            lastSendMs = nowMs;
+            sendSnapshots(nowMs, levelNumber, localRiders, localRpms);
+        }
+    }
+
+    /** Id do primeiro ciclista remoto sobre a bandeira, ou {@link RaceSnapshot#NO_RIDER}. */
+    public int findRemoteFinisher(LevelData level) {
+        for (Peer peer : peers) {
+            // A posição do remoto vem do snapshot, sem step(): a passada de sobreposição é feita aqui
+            if ((peer.rider.overlap(level) & TileRegistry.GOAL) != 0) return peer.riderId;
+        }
+        return RaceSnapshot.NO_RIDER;
+    }
+
+    /** Nova fase ou reinício: todos os remotos voltam ao spawn e a fase fica sem vencedor. */
+    public void resetRiders(LevelData level) {
+        for (Peer peer : peers) {
+            peer.rider.placeAtSpawn(level);
+        }
+        winnerId = RaceSnapshot.NO_RIDER;
+    }
+
+    /** Tráfego médio por cliente e por ciclista desde que cada cliente entrou, para o console. */
+    public String describeTraffic() {
+        long nowMs = System.currentTimeMillis();
+        double bytesPerSecond = 0.0;
+        long bytes = 0L;
+        long packets = 0L;
+        long keyframes = 0L;
+        for (Peer peer : peers) {
+            bytesPerSecond += peer.bytesSent / Math.max(0.001, (nowMs - peer.joinedMs) / 1000.0);
+            bytes += peer.bytesSent;
+            packets += peer.packetsSent;
+            keyframes += peer.keyframesSent;
+        }
+        if (peers.isEmpty() || packets == 0L) {
+            return "Rede: nenhum cliente conectado";
+        }
+        int riders = peers.size() + localRiderCount;
+        double perClient = bytesPerSecond / peers.size();
+        return String.format("Rede: %d cliente(s), %.0f B/s por cliente (%.1f B/s por ciclista, %.1f B por snapshot), %d snapshot(s) completo(s)",
+            peers.size(), perClient, perClient / riders, bytes / (double) packets, keyframes);
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Erro ao fechar o socket do host: " + e.getMessage());
+        }
+    }
+
+    private void receive(LevelData level, long nowMs) {
+        while (true) {
+            in.clear();
+            SocketAddress from;
+            try {
+                from = channel.receive(in);
+            } catch (IOException e) {
+                // ex.: ICMP "porta inalcançável" de um cliente que fechou; o timeout cuida dele
+                return;
+            }
+            if (from == null) return;
+            in.flip();
+            if (in.remaining() < SnapshotCodec.INPUT_BYTES || in.get() != SnapshotCodec.TYPE_INPUT) continue;
+
+            int ackSeq = in.getShort() & SnapshotCodec.SEQ_MASK;
+            int rpm = in.getShort() & 0xFFFF;
+
+            Peer peer = peersByAddress.get(from);
+            if (peer == null) {
+                peer = addPeer(from, level);
+                if (peer == null) continue;
+            }
+            peer.lastHeardMs = nowMs;
+            peer.lastInputMs = nowMs;
+            peer.rpm = rpm;
+            // Entradas podem chegar fora de ordem; a base só avança
+            if (ackSeq != SnapshotCodec.NO_SEQ
+                && (peer.ackSeq == SnapshotCodec.NO_SEQ || SnapshotCodec.isNewer(ackSeq, peer.ackSeq))) {
+                peer.ackSeq = ackSeq;
+            }
+        }
+    }
+
+    private Peer addPeer(SocketAddress address, LevelData level) {
+        int id = -1;
+        for (int i = 0; i < usedIds.length; i++) {
+            if (!usedIds[i]) {
+                id = i;
+                break;
+            }
+        }
+        if (id < 0) {
+            return null; // corrida cheia
+        }
+        usedIds[id] = true;
+
+        RiderPhysics rider = new RiderPhysics(riderWidth, riderHeight);
+        rider.placeAtSpawn(level);
+        Peer peer = new Peer(address, id, rider);
+        peersByAddress.put(address, peer);
+        peers.add(peer);
+        System.out.println("Ciclista remoto " + id + " entrou (" + address + ")");
+        return peer;
+    }
+
+    private void removePeer(int index) {
+        Peer peer = peers.remove(index);
+        peersByAddress.remove(peer.address);
+        usedIds[peer.riderId] = false;
+    }
+
+    private void sendSnapshots(long nowMs, int levelNumber, RiderPhysics[] localRiders, float[] localRpms) {
+        current.clear();
+        current.seq = nextSeq;
+        current.hostTimeMs = nowMs - startMs;
+        current.level = levelNumber;
+        current.winnerId = winnerId;
+        // Ids em ordem crescente: locais (0..n-1) e depois os remotos por id
+        if (localRiders != null) {
+            for (int i = 0; i < localRiders.length; i++) {
+                current.add(i, localRiders[i], localRpms != null ? localRpms[i] : 0f);
+            }
+        }
+        for (int id = localRiderCount; id < RaceSnapshot.MAX_RIDERS; id++) {
+            if (!usedIds[id]) continue;
+            for (Peer peer : peers) {
+                if (peer.riderId == id) {
+                    current.add(id, peer.rider, peer.rpm);
+                    break;
+                }
+            }
+        }
+        history[nextSeq & (HISTORY - 1)].set(current);
+        // Volta a 0 antes de NO_SEQ: o sentinela nunca sai como seq de snapshot
+        nextSeq = (nextSeq + 1) % SnapshotCodec.NO_SEQ;
+
+        for (Peer peer : peers) {
+            RaceSnapshot baseline = findBaseline(peer.ackSeq);
+            out.clear();
+            SnapshotCodec.writeSnapshot(out, current, baseline, peer.riderId);
+            out.flip();
+            int size = out.remaining();
+            try {
+                channel.send(out, peer.address);
+            } catch (IOException e) {
+                continue; // UDP: perder um snapshot não importa, o próximo vem contra a mesma base
+            }
+            peer.bytesSent += size;
+            peer.packetsSent++;
+            if (baseline == null) peer.keyframesSent++;
+        }
+    }
+
+    /** Snapshot já enviado com o seq confirmado pelo cliente, se ainda estiver no histórico. */
+    private RaceSnapshot findBaseline(int ackSeq) {
+        if (ackSeq == SnapshotCodec.NO_SEQ) return null;
+        RaceSnapshot candidate = history[ackSeq & (HISTORY - 1)];
+        return candidate.seq == ackSeq ? candidate : null;
+    }
+}
@@ -0,0 +1,102 @@
+package com.felipe.rehabgame;
+
+/**
+ * Estado de todos os ciclistas de uma corrida em rede num instante do host.
+ *
+ * Os valores já estão quantizados como trafegam na rede (posição em 1/{@link #POSITION_SCALE} px,
+ * velocidade em px/s, cadência em RPM inteiros), então o host e os clientes guardam exatamente os mesmos
+ * números e os deltas entre dois snapshots reconstroem o estado sem erro acumulado. Os ciclistas ficam
+ * ordenados por id.
+ */
+public class RaceSnapshot {
+
+    public static final int MAX_RIDERS = 16;
+    public static final float POSITION_SCALE = 8f;
+    /** Id usado para "nenhum ciclista" (ex.: ainda sem vencedor). */
+    public static final int NO_RIDER = 0xFF;
+
+    public int seq;
+    /** Milissegundos desde o início do host. */
+    public long hostTimeMs;
+    public int level;
+    public int winnerId = NO_RIDER;
+
+    public int count;
+    public final int[] ids = new int[MAX_RIDERS];
+    public final int[] x = new int[MAX_RIDERS];
+    public final int[] y = new int[MAX_RIDERS];
+    public final int[] speed = new int[MAX_RIDERS];
+    public final int[] rpm = new int[MAX_RIDERS];
+
+    public void clear() {
+        count = 0;
+        winnerId = NO_RIDER;
+    }
+
+    /** Posição do ciclista {@code id} na lista, ou -1. */
+    public int indexOf(int id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) return i;
+            if (ids[i] > id) break;
+        }
+        return -1;
+    }
+
+    /** Insere (zerado) ou encontra o ciclista {@code id}, mantendo a ordem. Retorna a posição, ou -1 se cheio. */
+    public int insert(int id) {
+        int index = 0;
+        while (index < count && ids[index] < id) index++;
+        if (index < count && ids[index] == id) return index;
+        if (count == MAX_RIDERS) return -1;
+
+        for (int i = count; i > index; i--) {
+            copyEntry(i - 1, i);
+        }
+        ids[index] = id;
+        x[index] = 0;
+        y[index] = 0;
+        speed[index] = 0;
+        rpm[index] = 0;
+        count++;
+        return index;
+    }
+
+    public void remove(int index) {
+        for (int i = index; i < count - 1; i++) {
+            copyEntry(i + 1, i);
+        }
+        count--;
+    }
+
+    /** Acrescenta um ciclista a partir do estado da física; ids devem chegar em ordem crescente. */
+    public void add(int id, RiderPhysics rider, float currentRpm) {
+        if (count == MAX_RIDERS) return;
+        ids[count] = id;
+        x[count] = Math.round(rider.x * POSITION_SCALE);
+        y[count] = Math.round(rider.y * POSITION_SCALE);
+        speed[count] = Math.round(rider.speedPxPerSec);
+        rpm[count] = Math.round(currentRpm);
+        count++;
+    }
+
+    public void set(RaceSnapshot other) {
+        seq = other.seq;
+        hostTimeMs = other.hostTimeMs;
+        level = other.level;
+        winnerId = other.winnerId;
+        count = other.count;
+        System.arraycopy(other.ids, 0, ids, 0, count);
+        System.arraycopy(other.x, 0, x, 0, count);
+        System.arraycopy(other.y, 0, y, 0, count);
+        System.arraycopy(other.speed, 0, speed, 0, count);
+        System.arraycopy(other.rpm, 0, rpm, 0, count);
+    }
+
+    private void copyEntry(int from, int to) {
+        ids[to] = ids[from];
+        x[to] = x[from];
+        y[to] = y[from];
+        speed[to] = speed[from];
+        rpm[to] = rpm[from];
+    }
+}
@@ -0,0 +1,117 @@
+package com.felipe.rehabgame;
+
+/**
+ * Escala de render do mundo: fração da resolução da tela em que parallax, fase e ciclistas são desenhados
+ * antes de serem ampliados (o HUD fica sempre na resolução nativa).
+ *
+ * Com escala fixa só guarda o valor. No modo automático segue o intervalo real entre quadros (inclui a
+ * espera pela GPU, que o tempo de CPU do render não vê): acima do alvo por alguns quadros a escala desce um
+ * degrau; com folga por um tempo ela sobe um degrau para testar. Como o vsync esconde a folga, subir é
+ * sempre uma tentativa: se a subida estoura o alvo logo em seguida, a próxima tentativa espera o dobro.
+ */
+public class RenderScaleController {
+
+    public static final float MIN_SCALE = 0.25f;
+    private static final float STEP = 0.05f;
+
+    // Média móvel exponencial do intervalo de quadro (~20 quadros)
+    private static final float SMOOTHING = 0.05f;
+    private static final float OVER_TARGET = 1.15f;
+    private static final float UNDER_TARGET = 1.05f;
+    private static final int FRAMES_BEFORE_DOWN = 30;
+    private static final int BASE_FRAMES_BEFORE_UP = 120;
+    private static final int MAX_FRAMES_BEFORE_UP = 1800;
+    // Intervalos maiores que isso (carregamento, janela arrastada) não entram na média
+    private static final float MAX_SAMPLE_SECONDS = 0.25f;
+
+    private final boolean automatic;
+    private final float maxScale;
+    private final float targetFrameSeconds;
+
+    private float scale;
+    private float averageFrameSeconds;
+    private int framesSinceChange;
+    private int framesBeforeUp = BASE_FRAMES_BEFORE_UP;
+    private boolean lastChangeWasUp;
+
+    public int changes;
+
+    /**
+     * @param scale escala fixa, ou a inicial no modo automático (de {@link #MIN_SCALE} a 1)
+     * @param automatic ajustar sozinho para manter {@code targetFps}
+     * @param targetFps taxa de quadros a manter no modo automático
+     */
+    public RenderScaleController(float scale, boolean automatic, int targetFps) {
+        this.automatic = automatic;
+        this.maxScale = automatic ? 1f : clamp(scale);
+        this.scale = clamp(scale);
+        this.targetFrameSeconds = 1f / Math.max(1, targetFps);
+        this.averageFrameSeconds = targetFrameSeconds;
+    }
+
+    /** Registra o intervalo do último quadro de jogo. Retorna true se a escala mudou. */
+    public boolean update(float frameSeconds) {
+        if (!automatic || frameSeconds <= 0f || frameSeconds > MAX_SAMPLE_SECONDS) return false;
+        averageFrameSeconds += (frameSeconds - averageFrameSeconds) * SMOOTHING;
+        framesSinceChange++;
+
+        if (averageFrameSeconds > targetFrameSeconds * OVER_TARGET && framesSinceChange >= FRAMES_BEFORE_DOWN && scale > MIN_SCALE) {
+            // A subida anterior não coube: esperar mais antes de tentar de novo
+            if (lastChangeWasUp && framesSinceChange < framesBeforeUp) {
+                framesBeforeUp = Math.min(MAX_FRAMES_BEFORE_UP, framesBeforeUp * 2);
+            }
+            return change(-STEP);
+        }
+        if (averageFrameSeconds < targetFrameSeconds * UNDER_TARGET && framesSinceChange >= framesBeforeUp && scale < maxScale) {
+            return change(STEP);
+        }
+        if (lastChangeWasUp && framesSinceChange >= MAX_FRAMES_BEFORE_UP) {
+            framesBeforeUp = BASE_FRAMES_BEFORE_UP; // a última subida se manteve
+        }
+        return false;
+    }
+
+    /** Escala atual (1 = resolução da tela). */
+    public float getScale() {
+        return scale;
+    }
+
+    /** Maior escala que o modo pode usar; o framebuffer do mundo é alocado para ela. */
+    public float getMaxScale() {
+        return maxScale;
+    }
+
+    public boolean isAutomatic() {
+        return automatic;
+    }
+
+    /** Intervalo médio recente entre quadros de jogo, em ms. */
+    public float getAverageFrameMs() {
+        return averageFrameSeconds * 1000f;
+    }
+
+    public float getTargetFrameMs() {
+        return targetFrameSeconds * 1000f;
+    }
+
+    public String describe() {
+        return String.format("Escala de render %.0f%%%s (quadro médio %.1f ms, alvo %.1f ms, %d ajuste(s))",
+            scale * 100f, automatic ? " automática" : "", getAverageFrameMs(), getTargetFrameMs(), changes);
+    }
+
+    private boolean change(float amount) {
+        float next = Math.min(maxScale, Math.max(MIN_SCALE, Math.round((scale + amount) / STEP) * STEP));
+        if (next == scale) return false;
+        lastChangeWasUp = next > scale;
+        scale = next;
+        framesSinceChange = 0;
+        // Recomeça a média no alvo: os quadros da escala anterior não dizem nada sobre a nova
+        averageFrameSeconds = targetFrameSeconds;
+        changes++;
+        return true;
+    }
+
+    private static float clamp(float value) {
+        return Math.min(1f, Math.max(MIN_SCALE, value));
+    }
+}
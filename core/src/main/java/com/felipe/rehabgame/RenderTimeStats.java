@@ -0,0 +1,60 @@
+package com.felipe.rehabgame;
+
+/**
+ * Tempo médio de quadro durante o jogo, com um ciclista e com dois lado a lado.
+ *
+ * No modo de dois ciclistas o custo da segunda visão do mundo é medido à parte; descontando-o do quadro
+ * inteiro obtém-se o custo que o mesmo quadro teria com um ciclista só, então as duas colunas vêm da mesma
+ * sessão, no mesmo trecho da fase. Os tempos são da thread de render (CPU e submissão ao driver) e são
+ * impressos a cada {@link #REPORT_INTERVAL_NS} e ao fechar o jogo.
+ */
+public class RenderTimeStats {
+
+    private static final long REPORT_INTERVAL_NS = 5_000_000_000L;
+
+    private final boolean splitScreen;
+
+    private long windowStartNs = System.nanoTime();
+    private long frames;
+    private long frameNs;
+    private long extraViewNs;
+
+    public RenderTimeStats(boolean splitScreen) {
+        this.splitScreen = splitScreen;
+    }
+
+    /**
+     * Registra um quadro de jogo. {@code extraViewNs} é o tempo gasto nas visões além da primeira
+     * (0 com um ciclista).
+     */
+    public void record(long frameNs, long extraViewNs) {
+        frames++;
+        this.frameNs += frameNs;
+        this.extraViewNs += extraViewNs;
+
+        long now = System.nanoTime();
+        if (now - windowStartNs >= REPORT_INTERVAL_NS) {
+            report();
+            windowStartNs = now;
+        }
+    }
+
+    /** Imprime as médias acumuladas desde o último relatório e zera a janela. */
+    public void report() {
+        if (frames == 0L) return;
+
+        double totalMs = frameNs / 1e6 / frames;
+        double extraMs = extraViewNs / 1e6 / frames;
+        if (splitScreen) {
+            double soloMs = totalMs - extraMs;
+            System.out.println(String.format("Tempo de quadro: 1 ciclista %.2f ms | 2 ciclistas %.2f ms (+%.0f%%, %d quadros)",
+                soloMs, totalMs, soloMs > 0.0 ? 100.0 * extraMs / soloMs : 0.0, frames));
+        } else {
+            System.out.println(String.format("Tempo de quadro: 1 ciclista %.2f ms (%d quadros)", totalMs, frames));
+        }
+
+        frames = 0L;
+        frameNs = 0L;
+        extraViewNs = 0L;
+    }
+}
@@ -0,0 +1,202 @@
+package com.felipe.rehabgame;
+
+/**
+ * Física do ciclista: velocidade a partir da cadência, gravidade, colisão com chão, rampas e lagos.
+ * A forma de rampas, descidas e lombadas vem das tabelas do {@link TerrainProfile}.
+ *
+ * Não depende de gráficos nem do libGDX em tempo de execução, então o mesmo código roda no jogo e nas
+ * ferramentas sem janela ({@link LevelValidator}). Cada instância tem seu próprio estado; a fase
+ * ({@link LevelData}) só é lida e pode ser compartilhada entre várias simulações em paralelo.
+ */
+public class RiderPhysics {
+
+    public static final float MAX_SPEED_PX_PER_SEC = 750f; // ajuste conforme necessário (cap atual)
+    public static final float TARGET_RPM_FOR_MAX_SPEED = 400f; // mapeia 400 RPM para velocidade máxima (cap)
+    // desaceleração (px/s^2) — mantém a redução de velocidade quando o usuário para
+    public static final float DECELERATION_PX_PER_SEC2 = 200f; // como diminui quando para
+    public static final float GRAVITY = -980f; // pixels/s^2
+    public static final float RAMP_LAUNCH_VELOCITY_FACTOR = 0.5f; // Multiplier for launch speed (padrão dos perfis)
+
+    public float x;
+    public float y;
+    public float velocityY = 0f;
+    public float speedPxPerSec = 0f;
+    public boolean onGround = false;
+    /** Verdadeiro a partir do passo em que o jogador caiu em um lago. */
+    public boolean inLake = false;
+    /** Propriedades ({@link TileRegistry}) dos tiles sob a caixa no fim do último passo; ver {@link #overlap}. */
+    public int touching = 0;
+    /** Coluna mais à frente de um tile CHECKPOINT sob a caixa no fim do último passo, ou -1. */
+    public int touchingCheckpointColumn = -1;
+
+    public float width;
+    public float height;
+
+    private final TileSweep tileSweep = new TileSweep();
+
+    public RiderPhysics(float width, float height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /** Coloca o jogador em cima do tile de spawn e zera a física. */
+    public void placeAtSpawn(LevelData level) {
+        // O spawn é armazenado como coordenadas (col * tileSize, row * tileSize)
+        int spawnCol = (int)(level.playerSpawn.x / level.tileSize);
+        int spawnRow = (int)(level.playerSpawn.y / level.tileSize);
+
+        x = spawnCol * level.tileSize;
+        // A linha inferior do nível é Y=0, a linha superior é (height-1) * tileSize
+        y = (level.height - spawnRow) * level.tileSize;
+
+        velocityY = 0f;
+        speedPxPerSec = 0f;
+        onGround = false;
+        inLake = false;
+        touching = 0;
+        touchingCheckpointColumn = -1;
+    }
+
+    /**
+     * Ajusta a velocidade horizontal para a cadência atual. {@code rpm <= 0} significa sem pulsos recentes.
+     */
+    public void updateSpeed(float rpm, float delta) {
+        if (rpm > 0f) {
+            // mapeamento linear direto: RPM -> target speed
+            float t = rpm / TARGET_RPM_FOR_MAX_SPEED;
+            if (t > 1f) t = 1f;
+            float targetSpeed = t * MAX_SPEED_PX_PER_SEC;
+
+            // Se o alvo for menor que a velocidade atual, desacelerar gradualmente
+            if (targetSpeed < speedPxPerSec) {
+                speedPxPerSec = Math.max(targetSpeed, speedPxPerSec - DECELERATION_PX_PER_SEC2 * delta);
+            } else {
+                // Se o alvo for maior, aplicar imediatamente (controle responsivo ao aumento de RPM)
+                speedPxPerSec = targetSpeed;
+            }
+        } else {
+            // sem pulsos recentes -> reduzir velocidade gradualmente (inércia)
+            speedPxPerSec = Math.max(0f, speedPxPerSec - DECELERATION_PX_PER_SEC2 * delta);
+        }
+    }
+
+    /** Aplica gravidade e move o jogador com colisão contínua. Retorna o deslocamento horizontal. */
+    public float step(LevelData level, float delta) {
+        velocityY += GRAVITY * delta;
+
+        // Mover com colisão contínua: nenhum tile é atravessado, seja qual for o delta
+        float startX = x;
+        tileSweep.move(level, x, y, width, height, speedPxPerSec * delta, velocityY * delta);
+        x = tileSweep.x;
+        y = tileSweep.y;
+
+        // Verificar colisão do chão e da rampa
+        checkGroundAndRampCollision(level);
+        if (tileSweep.hit == TileSweep.RAMP && onGround && tileSweep.launch > 0f) {
+            // A rampa foi cruzada inteira dentro do quadro: o lançamento ainda vale
+            velocityY = speedPxPerSec * tileSweep.launch;
+            onGround = false;
+        }
+
+        // Colisão com o lago (game over)
+        if (tileSweep.hit == TileSweep.LAKE) {
+            inLake = true;
+        }
+        overlap(level);
+        return x - startX;
+    }
+
+    /**
+     * Uma passada pelas células sob a caixa do jogador: junta (OR) as propriedades delas em {@link #touching}
+     * e guarda em {@link #touchingCheckpointColumn} o checkpoint mais à frente. Bandeira, checkpoint e o que
+     * mais vier saem dos mesmos bits, sem uma varredura por tipo de tile. {@link #step} já chama; quem move o
+     * ciclista por fora (ex.: posição recebida pela rede) chama direto. Não aloca.
+     *
+     * @return os bits de {@link #touching}
+     */
+    public int overlap(LevelData level) {
+        float size = level.tileSize;
+        // Só as células com sobreposição de fato (encostar na borda não conta)
+        int startCol = Math.max(0, (int)Math.floor(x / size));
+        int endCol = Math.min(level.width - 1, (int)Math.ceil((x + width) / size) - 1);
+        // Linha 0 é o topo: a célula de baixo b (worldY = b * size) fica na linha height - 1 - b
+        int bottom = Math.max(0, (int)Math.floor(y / size));
+        int top = Math.min(level.height - 1, (int)Math.ceil((y + height) / size) - 1);
+
+        int properties = 0;
+        int checkpointColumn = -1;
+        for (int cell = bottom; cell <= top; cell++) {
+            int row = level.height - 1 - cell;
+            for (int col = startCol; col <= endCol; col++) {
+                int bits = TileRegistry.properties(level.tiles[row][col]);
+                properties |= bits;
+                if ((bits & TileRegistry.CHECKPOINT) != 0 && col > checkpointColumn) checkpointColumn = col;
+            }
+        }
+        touching = properties;
+        touchingCheckpointColumn = checkpointColumn;
+        return properties;
+    }
+
+    private void checkGroundAndRampCollision(LevelData level) {
+        // Encontrar a posição mais alta de chão/rampa sob o jogador
+        float highestY = -1;
+        // Perfil inclinado que definiu a altura (e onde o centro do jogador está nele); null = só grama
+        TerrainProfile slope = null;
+        float slopeU = 0f;
+
+        int startCol = Math.max(0, (int)(x / level.tileSize));
+        int endCol = Math.min(level.width - 1, (int)((x + width) / level.tileSize));
+
+        // Com índice, só as linhas que têm superfície (SOLID ou SLOPE) em alguma das colunas (mesma ordem de visita)
+        int firstRow = 0;
+        int lastRow = level.height - 1;
+        LevelCollisionIndex index = level.collisionIndex;
+        if (index != null) {
+            firstRow = Integer.MAX_VALUE;
+            lastRow = -1;
+            for (int col = startCol; col <= endCol; col++) {
+                firstRow = Math.min(firstRow, index.firstRow(TileRegistry.SURFACE, col));
+                lastRow = Math.max(lastRow, index.lastRow(TileRegistry.SURFACE, col));
+            }
+        }
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = startCol; col <= endCol; col++) {
+                int tile = level.getTile(row, col);
+                int properties = TileRegistry.properties(tile);
+                if ((properties & TileRegistry.SURFACE) == 0) continue;
+                float worldX = col * level.tileSize;
+                float worldY = (level.height - row - 1) * level.tileSize;
+
+                if ((properties & TileRegistry.SLOPE) == 0) { // Topo plano (grama)
+                    if (x + width > worldX && x < worldX + level.tileSize) {
+                        highestY = Math.max(highestY, worldY + level.tileSize);
+                    }
+                } else {
+                    TerrainProfile profile = TileRegistry.profile(tile); // Rampas, descidas, lombadas
+                    if (x + width > worldX && x < worldX + level.tileSize) {
+                        float u = ((x + width / 2) - worldX) / level.tileSize;
+                        float surfaceY = worldY + profile.heightAt(u) * level.tileSize;
+                        if (surfaceY > highestY) {
+                            highestY = surfaceY;
+                            slope = profile;
+                            slopeU = u;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Colisão
+        if (highestY != -1 && y <= highestY) {
+            y = highestY;
+            // Subindo, a velocidade vertical é influenciada pela velocidade horizontal (lançamento);
+            // no chão plano ou numa descida o jogador acompanha a superfície
+            float launch = slope != null ? slope.launchAt(slopeU) : 0f;
+            velocityY = speedPxPerSec * launch;
+            onGround = launch <= 0f;
+        } else {
+            onGround = false;
+        }
+    }
+}
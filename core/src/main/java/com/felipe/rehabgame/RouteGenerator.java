@@ -0,0 +1,129 @@
+package com.felipe.rehabgame;
+
+import java.util.Random;
+
+/**
+ * Gera trechos (chunks) de percurso para o modo infinito com grama, rampa, lago, spawn e terra. Os códigos
+ * saem do {@link TileRegistry} pelo nome, então renumerar o {@code tiles.txt} não muda o percurso.
+ *
+ * Cada chunk depende apenas de (semente, índice do chunk), então a mesma semente sempre produz o mesmo
+ * percurso, independente de quando ou em qual thread os chunks são gerados. Todo chunk começa e termina
+ * em chão plano na linha de superfície, o que permite encaixar chunks vizinhos sem estado compartilhado.
+ */
+public class RouteGenerator {
+
+    public static final int ROWS = 10;
+    public static final int CHUNK_COLS = 16;
+    /** Linha da superfície (grama/lago); a linha abaixo dela é sempre terra. */
+    public static final int SURFACE_ROW = ROWS - 2;
+
+    private static final int FLAT_EDGE_COLS = 2; // chão plano no início e no fim de cada chunk
+    private static final int DIFFICULTY_RAMP_CHUNKS = 20; // chunks até atingir a dificuldade máxima
+
+    // Códigos dos tiles gerados, pelo nome no TileRegistry
+    private static final int EMPTY = TileRegistry.codeOf("empty");
+    private static final int GRASS = TileRegistry.codeOf("grass");
+    private static final int RAMP = TileRegistry.codeOf("ramp");
+    private static final int LAKE = TileRegistry.codeOf("lake");
+    private static final int SPAWN = TileRegistry.codeOf("spawn");
+    private static final int DIRT = TileRegistry.codeOf("dirt");
+
+    private final long seed;
+    private final Random random = new Random();
+
+    public RouteGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Preenche {@code out} (ROWS x CHUNK_COLS) com o chunk de índice {@code index}.
+     * Não aloca memória: o buffer é reaproveitado pelo chamador.
+     */
+    public void generateChunk(long index, int[][] out) {
+        random.setSeed(mix(seed, index));
+
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < CHUNK_COLS; col++) {
+                out[row][col] = EMPTY;
+            }
+        }
+        for (int col = 0; col < CHUNK_COLS; col++) {
+            out[SURFACE_ROW][col] = GRASS;
+            out[ROWS - 1][col] = DIRT;
+        }
+
+        if (index == 0) {
+            // Spawn logo acima do chão no primeiro chunk
+            out[SURFACE_ROW - 1][1] = SPAWN;
+        }
+
+        float difficulty = Math.min(1f, index / (float) DIFFICULTY_RAMP_CHUNKS);
+        int col = FLAT_EDGE_COLS;
+        int lastFeatureCol = CHUNK_COLS - FLAT_EDGE_COLS;
+
+        while (col < lastFeatureCol) {
+            int remaining = lastFeatureCol - col;
+            int roll = random.nextInt(100);
+
+            if (roll < 35 || remaining < 4) {
+                // Trecho plano
+                col += 1 + random.nextInt(Math.min(3, remaining));
+            } else {
+                // Plataforma com rampa, opcionalmente seguida de um lago
+                int platformHeight = (remaining >= 7 && random.nextFloat() < difficulty) ? 2 : 1;
+                int platformLength = 2 + random.nextInt(2);
+                int used = placePlatform(out, col, platformHeight, Math.min(platformLength, remaining - platformHeight));
+                col += used;
+
+                int maxLake = 1 + (int) (difficulty * 2f); // 1..3 tiles de água
+                int lakeRoom = lastFeatureCol - col - 1; // deixa ao menos um tile de pouso
+                if (lakeRoom > 0 && random.nextInt(100) < 40 + (int) (difficulty * 40f)) {
+                    int lakeWidth = Math.min(lakeRoom, 1 + random.nextInt(maxLake));
+                    for (int i = 0; i < lakeWidth; i++) {
+                        out[SURFACE_ROW][col + i] = LAKE;
+                    }
+                    col += lakeWidth;
+                }
+                col++; // pouso em chão plano
+            }
+        }
+    }
+
+    /**
+     * Desenha uma plataforma "2 1 1" como nas fases feitas à mão: rampa(s) subindo, grama no topo e terra embaixo.
+     * Retorna quantas colunas foram ocupadas.
+     */
+    private int placePlatform(int[][] out, int startCol, int height, int topLength) {
+        int col = startCol;
+        // Rampas em escada (uma por nível de altura)
+        for (int h = 1; h <= height; h++) {
+            int rampRow = SURFACE_ROW - h;
+            out[rampRow][col] = RAMP;
+            for (int below = rampRow + 1; below <= SURFACE_ROW; below++) {
+                out[below][col] = DIRT;
+            }
+            col++;
+        }
+        int topRow = SURFACE_ROW - height;
+        for (int i = 0; i < topLength; i++) {
+            out[topRow][col] = GRASS;
+            for (int below = topRow + 1; below <= SURFACE_ROW; below++) {
+                out[below][col] = DIRT;
+            }
+            col++;
+        }
+        return col - startCol;
+    }
+
+    /** Mistura semente e índice (SplitMix64) para que chunks vizinhos tenham sequências independentes. */
+    private static long mix(long seed, long index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
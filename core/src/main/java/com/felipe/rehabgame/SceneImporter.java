@@ -0,0 +1,605 @@
+package com.felipe.rehabgame;
+
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.SerializationException;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Converte uma cena do Hyperlap2D (projeto em {@code map/}) no texto de fase do {@link LevelLoader}, na hora de
+ * gerar o pacote: o jogo continua carregando só grades compiladas, sem ler o JSON da cena nem depender do
+ * runtime do Hyperlap2D ao abrir a fase.
+ *
+ * Cada imagem da cena vira um retângulo (posição, origem e escala, inclusive dentro de composições) medido
+ * pelas regiões do atlas do projeto, e o retângulo é rasterizado na grade pelo centro das células:
+ * <ul>
+ * <li>chão ({@code grass}) e terra: sólido; a célula de cima de cada coluna vira grama (1), o resto terra (6);</li>
+ * <li>lago: a linha de cima vira água (3), o resto terra;</li>
+ * <li>rampa: cada coluna recebe o perfil do {@link TerrainProfile} mais próximo da diagonal da imagem (2, 7 e 8
+ * subindo; 9, 10 e 11 com a imagem espelhada), com terra embaixo;</li>
+ * <li>moto: ponto de partida (5); bandeira: chegada (4); tag {@code checkpoint}: checkpoint (13). Os marcadores
+ * sobem até a primeira célula livre.</li>
+ * </ul>
+ * Os números são os códigos desses nomes em {@code tiles.txt} ({@link TileRegistry}). As peças são desenhadas
+ * na ordem do zIndex, como no editor. A tag de uma imagem ({@code ground}, {@code dirt},
+ * {@code lake}, {@code ramp}, {@code spawn}, {@code flag} ou {@code checkpoint}) vale mais que o nome da imagem.
+ * Sem bandeira, a chegada fica sobre o último chão à direita; sem moto, a partida sobre o primeiro à esquerda
+ * (com aviso).
+ *
+ * Variáveis da cena (customVariables da composição raiz): {@code time} (limite em segundos) e
+ * {@code tilePixels} (pixels da cena por tile, padrão 64, o mesmo da resolução 640x480 do projeto).
+ *
+ * Também roda sozinho para o designer conferir a grade: {@code SceneImporter <cena.dt> [saída.txt]}
+ * (tarefa Gradle {@code core:importScene}).
+ */
+public class SceneImporter {
+
+    public static final float DEFAULT_TILE_PIXELS = 64f;
+    /** Linhas vazias acima da peça mais alta, para o salto da rampa não bater no teto da fase. */
+    private static final int HEADROOM_ROWS = 4;
+
+    // Célula sólida antes de decidir entre grama e terra
+    private static final int SOLID = -1;
+
+    // Códigos dos tiles gerados, pelo nome no TileRegistry
+    private static final int GRASS = TileRegistry.codeOf("grass");
+    private static final int DIRT = TileRegistry.codeOf("dirt");
+    private static final int LAKE = TileRegistry.codeOf("lake");
+    private static final int FLAG = TileRegistry.codeOf("flag");
+    private static final int SPAWN = TileRegistry.codeOf("spawn");
+    private static final int CHECKPOINT = TileRegistry.codeOf("checkpoint");
+    private static final int RAMP_UP = TileRegistry.codeOf("ramp");
+    private static final int RAMP_UP_LOW = TileRegistry.codeOf("gentle-up-low");
+    private static final int RAMP_UP_HIGH = TileRegistry.codeOf("gentle-up-high");
+    private static final int RAMP_DOWN = TileRegistry.codeOf("downhill");
+    private static final int RAMP_DOWN_HIGH = TileRegistry.codeOf("gentle-down-high");
+    private static final int RAMP_DOWN_LOW = TileRegistry.codeOf("gentle-down-low");
+
+    enum Kind { GROUND, DIRT, LAKE, RAMP, SPAWN, FLAG, CHECKPOINT }
+
+    private static final Map<String, Kind> KIND_BY_NAME = new HashMap<>();
+
+    static {
+        KIND_BY_NAME.put("ground", Kind.GROUND);
+        KIND_BY_NAME.put("grass", Kind.GROUND);
+        KIND_BY_NAME.put("dirt", Kind.DIRT);
+        KIND_BY_NAME.put("lake", Kind.LAKE);
+        KIND_BY_NAME.put("water", Kind.LAKE);
+        KIND_BY_NAME.put("ramp", Kind.RAMP);
+        KIND_BY_NAME.put("spawn", Kind.SPAWN);
+        KIND_BY_NAME.put("moto", Kind.SPAWN);
+        KIND_BY_NAME.put("flag", Kind.FLAG);
+        KIND_BY_NAME.put("checkpoint", Kind.CHECKPOINT);
+    }
+
+    /** Uma imagem da cena já em coordenadas da cena. */
+    static class Piece {
+        Kind kind;
+        String imageName;
+        float left;
+        float bottom;
+        float right;
+        float top;
+        boolean flipped;
+        int zIndex;
+        int order;
+    }
+
+    /** Transformação afim por eixo (escala e deslocamento) das composições aninhadas. */
+    private static class Transform {
+        final float scaleX;
+        final float scaleY;
+        final float offsetX;
+        final float offsetY;
+
+        Transform(float scaleX, float scaleY, float offsetX, float offsetY) {
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+        }
+    }
+
+    private final Path sceneFile;
+    private final Map<String, float[]> regionSizes;
+    private final Path imagesDir;
+    private final List<Piece> pieces = new ArrayList<>();
+    private final List<String> warnings = new ArrayList<>();
+
+    private float tilePixels = DEFAULT_TILE_PIXELS;
+    private float timeLimit;
+    private int columns;
+    private int rows;
+    /** Células indexadas de baixo para cima ({@code cells[0]} é a linha do fundo). */
+    private int[][] cells;
+    private float minX;
+    private float minY;
+
+    private SceneImporter(Path sceneFile, Map<String, float[]> regionSizes, Path imagesDir) {
+        this.sceneFile = sceneFile;
+        this.regionSizes = regionSizes;
+        this.imagesDir = imagesDir;
+    }
+
+    /** Texto de fase gerado a partir de {@code sceneFile}; avisos vão para o System.err. */
+    public static String compile(Path sceneFile) throws IOException {
+        SceneImporter importer = load(sceneFile);
+        for (String warning : importer.warnings) {
+            System.err.println(sceneFile.getFileName() + ": " + warning);
+        }
+        return importer.toLevelText();
+    }
+
+    static SceneImporter load(Path sceneFile) throws IOException {
+        Path projectDir = findProjectDir(sceneFile);
+        String resolution = readResolutionName(projectDir.resolve("project.dt"));
+        Path assetsDir = projectDir.resolve("assets").resolve(resolution);
+        Path atlas = assetsDir.resolve("pack").resolve("pack.atlas");
+        if (!Files.exists(atlas)) atlas = projectDir.resolve("export").resolve(resolution).resolve("pack.atlas");
+
+        SceneImporter importer = new SceneImporter(sceneFile,
+            Files.exists(atlas) ? readAtlasSizes(atlas) : new HashMap<String, float[]>(),
+            assetsDir.resolve("images"));
+
+        JsonValue composite = parse(sceneFile).get("composite");
+        if (composite == null) throw new IOException("cena sem composição raiz: " + sceneFile);
+        importer.readSceneVariables(composite);
+        importer.collect(composite.get("content"), new Transform(1f, 1f, 0f, 0f));
+        importer.rasterize();
+        return importer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------
+    // Leitura da cena
+
+    private static JsonValue parse(Path file) throws IOException {
+        try {
+            return new JsonReader().parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        } catch (SerializationException e) {
+            throw new IOException("JSON inválido em " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /** Pasta do projeto: a primeira acima da cena que tem um {@code project.dt}. */
+    private static Path findProjectDir(Path sceneFile) throws IOException {
+        for (Path dir = sceneFile.toAbsolutePath().getParent(); dir != null; dir = dir.getParent()) {
+            if (Files.exists(dir.resolve("project.dt"))) return dir;
+        }
+        throw new IOException("project.dt não encontrado acima de " + sceneFile);
+    }
+
+    private static String readResolutionName(Path projectFile) throws IOException {
+        JsonValue resolution = parse(projectFile).get("originalResolution");
+        return resolution != null ? resolution.getString("name", "orig") : "orig";
+    }
+
+    /** Largura e altura de cada região do atlas (formato novo "bounds:" ou antigo "size:"). */
+    static Map<String, float[]> readAtlasSizes(Path atlas) throws IOException {
+        Map<String, float[]> sizes = new HashMap<>();
+        String region = null;
+        for (String line : Files.readAllLines(atlas, StandardCharsets.UTF_8)) {
+            if (line.trim().isEmpty()) {
+                region = null;
+                continue;
+            }
+            boolean indented = Character.isWhitespace(line.charAt(0));
+            String trimmed = line.trim();
+            int colon = trimmed.indexOf(':');
+            if (!indented && colon < 0) {
+                region = trimmed;
+            } else if (indented && region != null && colon > 0) {
+                String key = trimmed.substring(0, colon).trim();
+                String[] values = trimmed.substring(colon + 1).split(",");
+                try {
+                    if ("bounds".equals(key) && values.length == 4) {
+                        sizes.put(region, new float[] {Float.parseFloat(values[2].trim()), Float.parseFloat(values[3].trim())});
+                    } else if ("size".equals(key) && values.length == 2 && !sizes.containsKey(region)) {
+                        sizes.put(region, new float[] {Float.parseFloat(values[0].trim()), Float.parseFloat(values[1].trim())});
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IOException("Linha inválida em " + atlas + ": " + line);
+                }
+            }
+        }
+        return sizes;
+    }
+
+    private void readSceneVariables(JsonValue composite) {
+        String time = customVariable(composite, "time");
+        String tile = customVariable(composite, "tilePixels");
+        try {
+            if (time != null) timeLimit = Float.parseFloat(time);
+            if (tile != null) tilePixels = Float.parseFloat(tile);
+        } catch (NumberFormatException e) {
+            warnings.add("variável da cena inválida: " + e.getMessage());
+        }
+        if (tilePixels <= 0f) {
+            warnings.add("tilePixels " + tilePixels + " inválido; usando " + DEFAULT_TILE_PIXELS);
+            tilePixels = DEFAULT_TILE_PIXELS;
+        }
+    }
+
+    /** customVariables como objeto (Hyperlap2D) ou como texto "chave:valor;..." (Overlap2D). */
+    private static String customVariable(JsonValue item, String name) {
+        JsonValue variables = item.get("customVariables");
+        if (variables == null) return null;
+        if (variables.isObject()) return variables.getString(name, null);
+        if (variables.isString()) {
+            for (String pair : variables.asString().split(";")) {
+                int colon = pair.indexOf(':');
+                if (colon > 0 && pair.substring(0, colon).trim().equals(name)) return pair.substring(colon + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Percorre o {@code content} de uma composição: cada chave é uma lista de itens de um tipo (imagens,
+     * composições, textos...). Composições são seguidas; imagens viram peças; o resto é ignorado.
+     */
+    private void collect(JsonValue content, Transform parent) {
+        if (content == null) return;
+        for (JsonValue list : content) {
+            if (!list.isArray()) continue;
+            for (JsonValue item : list) {
+                float x = item.getFloat("x", 0f);
+                float y = item.getFloat("y", 0f);
+                float originX = item.getFloat("originX", 0f);
+                float originY = item.getFloat("originY", 0f);
+                float scaleX = item.getFloat("scaleX", 1f);
+                float scaleY = item.getFloat("scaleY", 1f);
+                if (item.getFloat("rotation", 0f) != 0f) {
+                    warnings.add("rotação de " + describe(item) + " ignorada");
+                }
+
+                if (item.has("content")) {
+                    // Ponto local p da composição vai para x + origem + (p - origem) * escala no pai
+                    Transform child = new Transform(
+                        parent.scaleX * scaleX, parent.scaleY * scaleY,
+                        parent.scaleX * (x + originX - originX * scaleX) + parent.offsetX,
+                        parent.scaleY * (y + originY - originY * scaleY) + parent.offsetY);
+                    collect(item.get("content"), child);
+                } else if (item.has("imageName")) {
+                    addPiece(item, parent, x, y, originX, originY, scaleX, scaleY);
+                } else {
+                    warnings.add(describe(item) + " não é imagem; ignorado");
+                }
+            }
+        }
+    }
+
+    private void addPiece(JsonValue item, Transform parent, float x, float y, float originX, float originY,
+                          float scaleX, float scaleY) {
+        String imageName = item.getString("imageName", "");
+        Kind kind = kindOf(item, imageName);
+        if (kind == null) {
+            warnings.add("imagem '" + imageName + "' sem tipo de tile (use uma tag: ground, dirt, lake, ramp, spawn, flag, checkpoint); ignorada");
+            return;
+        }
+        float[] size = regionSize(imageName);
+        if (size == null) {
+            warnings.add("imagem '" + imageName + "' não está no atlas do projeto; ignorada");
+            return;
+        }
+
+        // Retângulo desenhado (escala em torno da origem), levado para a cena pelas composições acima
+        float x0 = parent.scaleX * (x + originX * (1f - scaleX)) + parent.offsetX;
+        float x1 = x0 + parent.scaleX * size[0] * scaleX;
+        float y0 = parent.scaleY * (y + originY * (1f - scaleY)) + parent.offsetY;
+        float y1 = y0 + parent.scaleY * size[1] * scaleY;
+
+        Piece piece = new Piece();
+        piece.kind = kind;
+        piece.imageName = imageName;
+        piece.left = Math.min(x0, x1);
+        piece.right = Math.max(x0, x1);
+        piece.bottom = Math.min(y0, y1);
+        piece.top = Math.max(y0, y1);
+        piece.flipped = parent.scaleX * scaleX < 0f;
+        piece.zIndex = item.getInt("zIndex", 0);
+        piece.order = pieces.size();
+        pieces.add(piece);
+    }
+
+    private static Kind kindOf(JsonValue item, String imageName) {
+        JsonValue tags = item.get("tags");
+        if (tags != null && tags.isArray()) {
+            for (JsonValue tag : tags) {
+                Kind kind = KIND_BY_NAME.get(tag.asString().trim().toLowerCase(Locale.ROOT));
+                if (kind != null) return kind;
+            }
+        }
+        return KIND_BY_NAME.get(imageName.toLowerCase(Locale.ROOT));
+    }
+
+    private float[] regionSize(String imageName) {
+        float[] size = regionSizes.get(imageName);
+        if (size == null) {
+            // Imagem ainda não empacotada pelo editor: tamanho do cabeçalho do PNG
+            size = readPngSize(imagesDir.resolve(imageName + ".png"));
+            if (size != null) regionSizes.put(imageName, size);
+        }
+        return size;
+    }
+
+    private static float[] readPngSize(Path png) {
+        if (!Files.exists(png)) return null;
+        try (InputStream in = Files.newInputStream(png)) {
+            DataInputStream data = new DataInputStream(in);
+            // Assinatura (8), tamanho e tipo do IHDR (8), largura e altura
+            if (data.skipBytes(16) != 16) return null;
+            return new float[] {data.readInt(), data.readInt()};
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String describe(JsonValue item) {
+        String name = item.getString("itemIdentifier", null);
+        if (name == null || name.isEmpty()) name = item.getString("imageName", null);
+        if (name == null || name.isEmpty()) name = item.getString("uniqueId", "?");
+        return "item '" + name + "'";
+    }
+
+    // -----------------------------------------------------------------------------------------------------------
+    // Rasterização
+
+    private void rasterize() throws IOException {
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        minX = Float.MAX_VALUE;
+        minY = Float.MAX_VALUE;
+        boolean hasTerrain = false;
+        for (Piece piece : pieces) {
+            minX = Math.min(minX, piece.left);
+            minY = Math.min(minY, piece.bottom);
+            maxX = Math.max(maxX, piece.right);
+            maxY = Math.max(maxY, piece.top);
+            hasTerrain |= piece.kind != Kind.SPAWN && piece.kind != Kind.FLAG && piece.kind != Kind.CHECKPOINT;
+        }
+        if (!hasTerrain) throw new IOException("cena sem chão, lago nem rampa: " + sceneFile);
+
+        columns = Math.max(1, (int) Math.ceil((maxX - minX) / tilePixels));
+        rows = Math.max(1, (int) Math.ceil((maxY - minY) / tilePixels)) + HEADROOM_ROWS;
+        cells = new int[rows][columns];
+
+        // Ordem de desenho do editor; empates pela ordem no arquivo
+        pieces.sort((a, b) -> a.zIndex != b.zIndex ? Integer.compare(a.zIndex, b.zIndex) : Integer.compare(a.order, b.order));
+        for (Piece piece : pieces) {
+            switch (piece.kind) {
+                case GROUND:
+                case DIRT:
+                    fillSolid(piece);
+                    break;
+                case LAKE:
+                    fillLake(piece);
+                    break;
+                case RAMP:
+                    fillRamp(piece);
+                    break;
+                default:
+                    break;
+            }
+        }
+        resolveSurfaces();
+
+        // Marcadores por último, para ficarem sobre o terreno
+        boolean spawnPlaced = false;
+        boolean flagPlaced = false;
+        for (Piece piece : pieces) {
+            if (piece.kind == Kind.SPAWN) {
+                if (spawnPlaced) {
+                    warnings.add("mais de um ponto de partida; usando o primeiro");
+                    continue;
+                }
+                spawnPlaced = placeMarker(piece, SPAWN);
+            } else if (piece.kind == Kind.FLAG) {
+                flagPlaced |= placeMarker(piece, FLAG);
+            } else if (piece.kind == Kind.CHECKPOINT) {
+                placeMarker(piece, CHECKPOINT);
+            }
+        }
+        if (!spawnPlaced) placeOnSurface(SPAWN, false, "cena sem moto (ponto de partida)");
+        if (!flagPlaced) placeOnSurface(FLAG, true, "cena sem bandeira (chegada)");
+    }
+
+    private int columnAt(float x) {
+        return (int) Math.floor((x - minX) / tilePixels);
+    }
+
+    private int rowAt(float y) {
+        return (int) Math.floor((y - minY) / tilePixels);
+    }
+
+    /** Primeira e última coluna (inclusive) cujo centro fica dentro de [left, right). */
+    private int firstColumn(float left) {
+        return Math.max(0, (int) Math.ceil((left - minX) / tilePixels - 0.5f));
+    }
+
+    private int lastColumn(float right) {
+        return Math.min(columns - 1, (int) Math.ceil((right - minX) / tilePixels - 0.5f) - 1);
+    }
+
+    private int firstRow(float bottom) {
+        return Math.max(0, (int) Math.ceil((bottom - minY) / tilePixels - 0.5f));
+    }
+
+    private int lastRow(float top) {
+        return Math.min(rows - 1, (int) Math.ceil((top - minY) / tilePixels - 0.5f) - 1);
+    }
+
+    private void fillSolid(Piece piece) {
+        for (int row = firstRow(piece.bottom); row <= lastRow(piece.top); row++) {
+            for (int col = firstColumn(piece.left); col <= lastColumn(piece.right); col++) {
+                cells[row][col] = SOLID;
+            }
+        }
+    }
+
+    private void fillLake(Piece piece) {
+        int top = lastRow(piece.top);
+        for (int row = firstRow(piece.bottom); row <= top; row++) {
+            for (int col = firstColumn(piece.left); col <= lastColumn(piece.right); col++) {
+                cells[row][col] = row == top ? LAKE : SOLID;
+            }
+        }
+    }
+
+    /**
+     * A rampa é seguida coluna a coluna em meios tiles, a partir da altura em que a coluna anterior terminou: cada
+     * coluna sobe (ou desce, espelhada) 0, meio ou um tile, o que deixar a borda direita mais perto da diagonal da
+     * imagem, e recebe o perfil do {@link TerrainProfile} correspondente. Assim a superfície não tem degraus; acima
+     * de um tile por coluna fica a rampa de 45°, a mais íngreme que existe.
+     */
+    private void fillRamp(Piece piece) {
+        int bottomRow = firstRow(piece.bottom);
+        int first = firstColumn(piece.left);
+        float height = halfTiles(rampHeight(piece, Math.max(piece.left, minX + first * tilePixels)));
+        for (int col = first; col <= lastColumn(piece.right); col++) {
+            float target = rampHeight(piece, Math.min(piece.right, minX + (col + 1) * tilePixels));
+            float step = halfTiles(target - height);
+            step = piece.flipped ? Math.max(-1f, Math.min(0f, step)) : Math.min(1f, Math.max(0f, step));
+            boolean half = height != (float) Math.floor(height);
+            // Meia altura não fica plana nem vence um tile inteiro dentro de uma célula
+            if (half) step = piece.flipped ? -0.5f : 0.5f;
+
+            int row;
+            int tile;
+            if (step == 0f) {
+                row = (int) height - 1;
+                tile = SOLID;
+            } else if (!piece.flipped) {
+                row = (int) Math.floor(height);
+                tile = half ? RAMP_UP_HIGH : step == 1f ? RAMP_UP : RAMP_UP_LOW;
+            } else {
+                row = (int) Math.ceil(height) - 1;
+                tile = half ? RAMP_DOWN_LOW : step == -1f ? RAMP_DOWN : RAMP_DOWN_HIGH;
+            }
+            height += step;
+            if (row < 0 || row >= rows) continue;
+            cells[row][col] = tile;
+            for (int below = bottomRow; below < row; below++) {
+                cells[below][col] = SOLID;
+            }
+        }
+    }
+
+    /** Altura da diagonal da rampa em x, em tiles desde o fundo da grade. */
+    private float rampHeight(Piece piece, float x) {
+        float t = (x - piece.left) / (piece.right - piece.left);
+        if (piece.flipped) t = 1f - t;
+        return (piece.bottom + (piece.top - piece.bottom) * t - minY) / tilePixels;
+    }
+
+    private static float halfTiles(float tiles) {
+        return Math.round(tiles * 2f) / 2f;
+    }
+
+    /**
+     * Só a célula exposta por cima é superfície: sólido exposto vira grama, e sólido, água ou rampa cobertos
+     * por outra peça (lagos empilhados, rampa enterrada no chão) viram terra.
+     */
+    private void resolveSurfaces() {
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                if (cells[row][col] == 0) continue;
+                boolean covered = row + 1 < rows && cells[row + 1][col] != 0;
+                if (covered) {
+                    cells[row][col] = DIRT;
+                } else if (cells[row][col] == SOLID) {
+                    cells[row][col] = GRASS;
+                }
+            }
+        }
+    }
+
+    /** Marcador na coluna do centro da imagem, subindo da base da imagem até a primeira célula livre. */
+    private boolean placeMarker(Piece piece, int tile) {
+        int col = columnAt((piece.left + piece.right) / 2f);
+        int row = Math.max(0, rowAt(piece.bottom + tilePixels / 2f));
+        if (col < 0 || col >= columns) return false;
+        while (row < rows && cells[row][col] != 0) row++;
+        if (row >= rows) {
+            warnings.add("sem espaço livre para " + piece.imageName + " na coluna " + col);
+            return false;
+        }
+        cells[row][col] = tile;
+        return true;
+    }
+
+    /** Marcador sobre a superfície de grama ou rampa mais à esquerda (ou à direita). */
+    private void placeOnSurface(int tile, boolean fromRight, String warning) {
+        for (int i = 0; i < columns; i++) {
+            int col = fromRight ? columns - 1 - i : i;
+            int row = rows - 1;
+            while (row >= 0 && cells[row][col] == 0) row--;
+            if (row < 0 || row + 1 >= rows) continue;
+            int surface = cells[row][col];
+            if (!TileRegistry.any(surface, TileRegistry.SURFACE)) continue;
+            cells[row + 1][col] = tile;
+            warnings.add(warning + "; colocado na coluna " + col);
+            return;
+        }
+        warnings.add(warning + " e nenhum chão para colocá-lo");
+    }
+
+    // -----------------------------------------------------------------------------------------------------------
+    // Saída
+
+    /** Mesmo formato dos levelN.txt feitos à mão (linha 0 no topo). */
+    String toLevelText() {
+        StringBuilder text = new StringBuilder();
+        text.append("# Gerado por SceneImporter a partir de ").append(sceneFile.getFileName())
+            .append(" (").append(Math.round(tilePixels)).append(" px da cena por tile). Edite a cena no Hyperlap2D.\n");
+        text.append("#");
+        for (int code = 0; code < TileRegistry.size(); code++) {
+            TileRegistry.Definition definition = TileRegistry.get(code);
+            if (definition != null) text.append(' ').append(code).append('=').append(definition.name);
+        }
+        text.append('\n');
+        if (timeLimit > 0f) text.append("time: ").append(timeLimit).append('\n');
+        text.append('\n');
+        for (int row = rows - 1; row >= 0; row--) {
+            for (int col = 0; col < columns; col++) {
+                text.append(cells[row][col]).append(' ');
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Uso: SceneImporter <cena.dt> [saída.txt]");
+            System.exit(2);
+        }
+        Path scene = Paths.get(args[0]);
+        SceneImporter importer = load(scene);
+        for (String warning : importer.warnings) {
+            System.out.println("Aviso: " + warning);
+        }
+        System.out.println(scene + ": " + importer.pieces.size() + " peça(s), grade " + importer.columns + "x" + importer.rows
+            + " (" + Math.round(importer.tilePixels) + " px por tile)");
+        String text = importer.toLevelText();
+        if (args.length == 2) {
+            Path output = Paths.get(args[1]);
+            if (output.getParent() != null) Files.createDirectories(output.getParent());
+            Files.write(output, text.getBytes(StandardCharsets.UTF_8));
+            System.out.println("Fase gerada: " + output);
+        } else {
+            System.out.print(text);
+        }
+    }
+}
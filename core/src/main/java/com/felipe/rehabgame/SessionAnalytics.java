@@ -0,0 +1,446 @@
+package com.felipe.rehabgame;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Relatórios para os terapeutas a partir dos arquivos de sessão gravados pelo jogo ({@link SessionLogWriter}),
+ * sem abrir a janela.
+ *
+ * Os arquivos são divididos entre threads (uma por núcleo, os maiores primeiro); cada thread lê um arquivo de
+ * cada vez em streaming com o seu {@link SessionLogReader} e, na mesma passada, fecha o resumo da sessão e soma
+ * no agregado semanal do paciente, que é só dela. No fim os agregados das threads são juntados.
+ *
+ * Por sessão: tempo pedalando, cadência média e de pico, tempo dentro da faixa alvo de RPM, distância, fases
+ * concluídas, quedas no lago e a tendência de fadiga (inclinação da reta de RPM pelo tempo, em RPM por minuto;
+ * negativa quando a cadência cai ao longo da sessão). Por paciente: o mesmo somado por semana ISO e no período.
+ *
+ * Uso: SessionAnalytics [--dir pasta] [--out build/session-reports] [--threads N] [--target-rpm 50-80]
+ * [--fill N [--patients P] [--minutes M]]
+ * {@code --dir} padrão: {@code sessions/} nos dados locais ({@link LocalData}).
+ * {@code --fill} grava N sessões sintéticas de P pacientes espalhadas pelo último ano antes da análise (para
+ * medir o tempo com o histórico de uma clínica inteira).
+ */
+public class SessionAnalytics {
+
+    // Menos que isso pedalando não dá uma reta de fadiga confiável
+    private static final double MIN_FATIGUE_SECONDS = 120.0;
+    private static final String ALL_WEEKS = "total";
+    private static final double MINUTES_PER_MS = 1.0 / 60000.0;
+
+    /** Resumo de um arquivo de sessão. */
+    static class SessionSummary {
+        Path file;
+        String patientId;
+        long startedAtMs;
+        long frames;
+        long bytes;
+        boolean truncated;
+        double activeSeconds;
+        double pedalingSeconds;
+        double rpmSeconds;
+        double targetSeconds;
+        double distanceMeters;
+        float peakRpm;
+        int attempts;
+        int levelsFinished;
+        int crashes;
+        int timeOuts;
+        /** RPM por minuto, ou NaN se a sessão foi curta demais. */
+        double fatigueRpmPerMinute = Double.NaN;
+
+        double averageRpm() {
+            return pedalingSeconds > 0 ? rpmSeconds / pedalingSeconds : 0;
+        }
+    }
+
+    /** Soma das sessões de um paciente numa semana (ou no período todo). */
+    static class PatientTotals {
+        String patientId;
+        String week;
+        int sessions;
+        double activeSeconds;
+        double pedalingSeconds;
+        double rpmSeconds;
+        double targetSeconds;
+        double distanceMeters;
+        float peakRpm;
+        int attempts;
+        int levelsFinished;
+        int crashes;
+        double fatigueSum;
+        int fatigueSessions;
+
+        PatientTotals(String patientId, String week) {
+            this.patientId = patientId;
+            this.week = week;
+        }
+
+        void add(SessionSummary session) {
+            sessions++;
+            activeSeconds += session.activeSeconds;
+            pedalingSeconds += session.pedalingSeconds;
+            rpmSeconds += session.rpmSeconds;
+            targetSeconds += session.targetSeconds;
+            distanceMeters += session.distanceMeters;
+            peakRpm = Math.max(peakRpm, session.peakRpm);
+            attempts += session.attempts;
+            levelsFinished += session.levelsFinished;
+            crashes += session.crashes;
+            if (!Double.isNaN(session.fatigueRpmPerMinute)) {
+                fatigueSum += session.fatigueRpmPerMinute;
+                fatigueSessions++;
+            }
+        }
+
+        void merge(PatientTotals other) {
+            sessions += other.sessions;
+            activeSeconds += other.activeSeconds;
+            pedalingSeconds += other.pedalingSeconds;
+            rpmSeconds += other.rpmSeconds;
+            targetSeconds += other.targetSeconds;
+            distanceMeters += other.distanceMeters;
+            peakRpm = Math.max(peakRpm, other.peakRpm);
+            attempts += other.attempts;
+            levelsFinished += other.levelsFinished;
+            crashes += other.crashes;
+            fatigueSum += other.fatigueSum;
+            fatigueSessions += other.fatigueSessions;
+        }
+
+        double averageRpm() {
+            return pedalingSeconds > 0 ? rpmSeconds / pedalingSeconds : 0;
+        }
+
+        double fatigue() {
+            return fatigueSessions > 0 ? fatigueSum / fatigueSessions : Double.NaN;
+        }
+    }
+
+    /** Uma thread de análise: pega o próximo arquivo da fila até acabar. */
+    static class Worker extends Thread {
+        private final List<Path> files;
+        private final AtomicInteger next;
+        private final SessionSummary[] summaries;
+        private final float targetMin;
+        private final float targetMax;
+        private final ZoneId zone = ZoneId.systemDefault();
+        private final SessionLogReader reader = new SessionLogReader();
+        final Map<String, PatientTotals> totals = new HashMap<>();
+
+        Worker(int index, List<Path> files, AtomicInteger next, SessionSummary[] summaries, float targetMin, float targetMax) {
+            super("session-analytics-" + index);
+            this.files = files;
+            this.next = next;
+            this.summaries = summaries;
+            this.targetMin = targetMin;
+            this.targetMax = targetMax;
+        }
+
+        @Override
+        public void run() {
+            for (int i = next.getAndIncrement(); i < files.size(); i = next.getAndIncrement()) {
+                Path file = files.get(i);
+                try {
+                    SessionSummary session = analyze(reader, file, targetMin, targetMax);
+                    summaries[i] = session;
+                    LocalDate day = Instant.ofEpochMilli(session.startedAtMs).atZone(zone).toLocalDate();
+                    String week = String.format("%d-W%02d", day.get(IsoFields.WEEK_BASED_YEAR),
+                        day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+                    totals.computeIfAbsent(session.patientId + '\t' + week, k -> new PatientTotals(session.patientId, week))
+                        .add(session);
+                    totals.computeIfAbsent(session.patientId + '\t' + ALL_WEEKS, k -> new PatientTotals(session.patientId, ALL_WEEKS))
+                        .add(session);
+                } catch (IOException e) {
+                    System.err.println("Sessão ignorada (" + e.getMessage() + "): " + file);
+                }
+            }
+            try {
+                reader.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = LocalData.dir(LocalData.SESSIONS);
+        Path out = Paths.get("build/session-reports");
+        int threads = Runtime.getRuntime().availableProcessors();
+        float targetMin = 50f;
+        float targetMax = 80f;
+        int fill = 0;
+        int patients = 30;
+        int minutes = 25;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--dir".equals(arg) && i + 1 < args.length) {
+                dir = Paths.get(args[++i]);
+            } else if ("--out".equals(arg) && i + 1 < args.length) {
+                out = Paths.get(args[++i]);
+            } else if ("--threads".equals(arg) && i + 1 < args.length) {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--target-rpm".equals(arg) && i + 1 < args.length) {
+                String[] range = args[++i].split("-");
+                targetMin = Float.parseFloat(range[0]);
+                targetMax = range.length > 1 ? Float.parseFloat(range[1]) : Float.MAX_VALUE;
+            } else if ("--fill".equals(arg) && i + 1 < args.length) {
+                fill = Integer.parseInt(args[++i]);
+            } else if ("--patients".equals(arg) && i + 1 < args.length) {
+                patients = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--minutes".equals(arg) && i + 1 < args.length) {
+                minutes = Math.max(1, Integer.parseInt(args[++i]));
+            } else {
+                System.err.println("Uso: SessionAnalytics [--dir pasta] [--out pasta] [--threads N] [--target-rpm 50-80]"
+                    + " [--fill N [--patients P] [--minutes M]]");
+                System.exit(2);
+            }
+        }
+
+        if (fill > 0) {
+            long start = System.nanoTime();
+            fillSynthetic(dir, fill, patients, minutes);
+            System.out.println(String.format("%d sessões sintéticas gravadas em %.1f s", fill,
+                (System.nanoTime() - start) / 1e9));
+        }
+        if (!Files.isDirectory(dir)) {
+            System.out.println("Nenhuma sessão em " + dir);
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(p -> p.toString().endsWith(SessionLogWriter.EXTENSION)).collect(Collectors.toList());
+        }
+        // Os maiores primeiro: o último arquivo a sobrar para uma thread é sempre curto
+        Map<Path, Long> sizes = new HashMap<>();
+        for (Path file : files) sizes.put(file, Files.size(file));
+        files.sort((a, b) -> Long.compare(sizes.get(b), sizes.get(a)));
+        long listNs = System.nanoTime() - start;
+
+        SessionSummary[] summaries = new SessionSummary[files.size()];
+        AtomicInteger next = new AtomicInteger();
+        Worker[] workers = new Worker[Math.min(threads, Math.max(1, files.size()))];
+        for (int t = 0; t < workers.length; t++) {
+            workers[t] = new Worker(t, files, next, summaries, targetMin, targetMax);
+            workers[t].start();
+        }
+        Map<String, PatientTotals> totals = new TreeMap<>();
+        for (Worker worker : workers) {
+            worker.join();
+            for (Map.Entry<String, PatientTotals> entry : worker.totals.entrySet()) {
+                PatientTotals existing = totals.get(entry.getKey());
+                if (existing == null) totals.put(entry.getKey(), entry.getValue());
+                else existing.merge(entry.getValue());
+            }
+        }
+        long analyzeNs = System.nanoTime() - start - listNs;
+
+        long bytes = 0;
+        long frames = 0;
+        int truncated = 0;
+        List<SessionSummary> sessions = new ArrayList<>();
+        for (SessionSummary session : summaries) {
+            if (session == null) continue;
+            sessions.add(session);
+            bytes += session.bytes;
+            frames += session.frames;
+            if (session.truncated) truncated++;
+        }
+        System.out.println(String.format("%d sessões, %.1f MB, %d quadros: listagem %.0f ms, análise %.0f ms com %d thread(s) (%.0f MB/s)",
+            sessions.size(), bytes / 1048576.0, frames, listNs / 1e6, analyzeNs / 1e6, workers.length,
+            bytes / 1048576.0 / Math.max(1e-9, analyzeNs / 1e9)));
+        if (truncated > 0) {
+            System.out.println(truncated + " sessão(ões) terminavam num registro cortado (lidas até o último inteiro)");
+        }
+
+        sessions.sort((a, b) -> a.patientId.equals(b.patientId)
+            ? Long.compare(a.startedAtMs, b.startedAtMs) : a.patientId.compareTo(b.patientId));
+        Files.createDirectories(out);
+        writeSessions(out.resolve("sessions.csv"), sessions, targetMin, targetMax);
+        writePatients(out.resolve("patients.csv"), totals.values());
+
+        System.out.println(String.format("Faixa alvo %.0f-%.0f RPM. Período inteiro por paciente:", targetMin,
+            Math.min(targetMax, 999f)));
+        System.out.println("  paciente             sessões    horas  RPM médio  pico  % no alvo      km  fases  quedas  fadiga RPM/min");
+        for (PatientTotals patient : totals.values()) {
+            if (!ALL_WEEKS.equals(patient.week)) continue;
+            System.out.println(String.format("  %-20s %7d %8.1f %10.1f %5.0f %10.1f %7.2f %6d %7d %15s",
+                patient.patientId, patient.sessions, patient.activeSeconds / 3600.0, patient.averageRpm(), patient.peakRpm,
+                percent(patient.targetSeconds, patient.activeSeconds), patient.distanceMeters / 1000.0,
+                patient.levelsFinished, patient.crashes, formatFatigue(patient.fatigue())));
+        }
+        System.out.println("Relatórios: " + out.resolve("sessions.csv") + ", " + out.resolve("patients.csv"));
+    }
+
+    /** Uma passada pelo arquivo, sem guardar os quadros. */
+    static SessionSummary analyze(SessionLogReader reader, Path file, float targetMin, float targetMax) throws IOException {
+        SessionSummary session = new SessionSummary();
+        session.file = file;
+        reader.open(file);
+        session.patientId = reader.patientId;
+        session.startedAtMs = reader.startedAtMs;
+
+        // Somas locais em ms (convertidas no fim) e reta de RPM pelo tempo em minutos, ponderada pela duração
+        // de cada quadro pedalando
+        long activeMs = 0;
+        long pedalingMs = 0;
+        long targetMs = 0;
+        double rpmMs = 0;
+        double distancePxMs = 0;
+        float peakRpm = 0f;
+        long frames = 0;
+        double st = 0;
+        double stt = 0;
+        double str = 0;
+        while (reader.next()) {
+            if (reader.type == SessionLogWriter.FRAME) {
+                int dt = reader.deltaMs;
+                float rpm = reader.rpm;
+                frames++;
+                activeMs += dt;
+                distancePxMs += reader.speedPxPerSec * dt;
+                if (rpm > peakRpm) peakRpm = rpm;
+                if (rpm >= targetMin && rpm <= targetMax) targetMs += dt;
+                if (rpm > 0f) {
+                    double minutes = reader.timeMs * MINUTES_PER_MS;
+                    double weightedMinutes = dt * minutes;
+                    pedalingMs += dt;
+                    rpmMs += rpm * dt;
+                    st += weightedMinutes;
+                    stt += weightedMinutes * minutes;
+                    str += weightedMinutes * rpm;
+                }
+            } else if (reader.type == SessionLogWriter.LEVEL_START) {
+                session.attempts++;
+            } else if (reader.outcome == SessionRecord.Outcome.COMPLETED) {
+                session.levelsFinished++;
+            } else if (reader.outcome == SessionRecord.Outcome.LAKE) {
+                session.crashes++;
+            } else if (reader.outcome == SessionRecord.Outcome.TIME_OUT) {
+                session.timeOuts++;
+            }
+        }
+        session.frames = frames;
+        session.activeSeconds = activeMs / 1000.0;
+        session.pedalingSeconds = pedalingMs / 1000.0;
+        session.targetSeconds = targetMs / 1000.0;
+        session.rpmSeconds = rpmMs / 1000.0;
+        session.distanceMeters = distancePxMs / 1000.0 / SessionLogWriter.PIXELS_PER_METER;
+        session.peakRpm = peakRpm;
+
+        // Mínimos quadrados com pesos em ms; a inclinação não depende da unidade do peso
+        double sw = pedalingMs;
+        double sr = rpmMs;
+        double denominator = sw * stt - st * st;
+        if (pedalingMs >= MIN_FATIGUE_SECONDS * 1000 && denominator > 1e-9) {
+            session.fatigueRpmPerMinute = (sw * str - st * sr) / denominator;
+        }
+        session.truncated = reader.truncated;
+        session.bytes = reader.bytesRead;
+        reader.close();
+        return session;
+    }
+
+    private static void writeSessions(Path file, List<SessionSummary> sessions, float targetMin, float targetMax) throws IOException {
+        ZoneId zone = ZoneId.systemDefault();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("patient,started,active_min,avg_rpm,peak_rpm,target_pct,distance_m,attempts,finished,crashes,time_outs,fatigue_rpm_per_min,file");
+            for (SessionSummary s : sessions) {
+                // Locale.ROOT: ponto decimal no CSV independente do idioma do sistema
+                out.println(String.format(Locale.ROOT, "%s,%s,%.1f,%.1f,%.0f,%.1f,%.0f,%d,%d,%d,%d,%s,%s",
+                    s.patientId, Instant.ofEpochMilli(s.startedAtMs).atZone(zone).toLocalDateTime().withNano(0),
+                    s.activeSeconds / 60.0, s.averageRpm(), s.peakRpm, percent(s.targetSeconds, s.activeSeconds),
+                    s.distanceMeters, s.attempts, s.levelsFinished, s.crashes, s.timeOuts,
+                    formatFatigue(s.fatigueRpmPerMinute), s.file.getFileName()));
+            }
+        }
+    }
+
+    private static void writePatients(Path file, Iterable<PatientTotals> totals) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("patient,week,sessions,active_min,avg_rpm,peak_rpm,target_pct,distance_m,attempts,finished,crashes,fatigue_rpm_per_min");
+            for (PatientTotals p : totals) {
+                out.println(String.format(Locale.ROOT, "%s,%s,%d,%.1f,%.1f,%.0f,%.1f,%.0f,%d,%d,%d,%s",
+                    p.patientId, p.week, p.sessions, p.activeSeconds / 60.0, p.averageRpm(), p.peakRpm,
+                    percent(p.targetSeconds, p.activeSeconds), p.distanceMeters, p.attempts, p.levelsFinished,
+                    p.crashes, formatFatigue(p.fatigue())));
+            }
+        }
+    }
+
+    private static double percent(double part, double whole) {
+        return whole > 0 ? part * 100.0 / whole : 0;
+    }
+
+    private static String formatFatigue(double rpmPerMinute) {
+        return Double.isNaN(rpmPerMinute) ? "" : String.format(Locale.ROOT, "%.2f", rpmPerMinute);
+    }
+
+    /**
+     * Sessões sintéticas a 60 Hz: cadência própria de cada paciente caindo devagar ao longo da sessão, pedaladas
+     * com ruído, fases de 1,5 a 3 minutos que terminam na bandeira, no lago ou no tempo.
+     */
+    private static void fillSynthetic(Path dir, int count, int patients, int minutes) throws IOException {
+        Random random = new Random(7);
+        long yearMs = 365L * 24 * 3600 * 1000;
+        long firstMs = System.currentTimeMillis() - yearMs;
+        float frameSeconds = 1f / 60f;
+        for (int s = 0; s < count; s++) {
+            int patient = s % patients;
+            Random patientRandom = new Random(patient);
+            float baseRpm = 55f + patientRandom.nextFloat() * 25f;
+            float fatiguePerMinute = 0.1f + patientRandom.nextFloat() * 0.5f;
+            long startedAtMs = firstMs + s * (yearMs / count);
+            String patientId = "paciente-" + patient;
+            SessionLogWriter writer = new SessionLogWriter(dir, patientId, startedAtMs);
+
+            float sessionSeconds = minutes * 60f * (0.7f + random.nextFloat() * 0.6f);
+            float time = 0f;
+            int level = 0;
+            while (time < sessionSeconds) {
+                writer.levelStart("fase-" + (level++ % 3 + 1));
+                float levelSeconds = 90f + random.nextFloat() * 90f;
+                float x = 128f;
+                float rpm = 0f;
+                float nextPulse = 0f;
+                for (float t = 0f; t < levelSeconds; t += frameSeconds) {
+                    if (t >= nextPulse) {
+                        // Cadência muda a cada pedalada
+                        float expected = baseRpm - fatiguePerMinute * (time + t) / 60f;
+                        rpm = Math.max(0f, expected + (float) random.nextGaussian() * 4f);
+                        nextPulse = t + 60f / Math.max(20f, rpm);
+                    }
+                    float speed = Math.min(1f, rpm / RiderPhysics.TARGET_RPM_FOR_MAX_SPEED) * RiderPhysics.MAX_SPEED_PX_PER_SEC;
+                    x += speed * frameSeconds;
+                    float y = 64f + 32f * (float) Math.sin(x / 300f);
+                    writer.frame(frameSeconds, rpm, speed, x, y);
+                }
+                time += levelSeconds;
+                float roll = random.nextFloat();
+                writer.levelEnd(roll < 0.75f ? SessionRecord.Outcome.COMPLETED
+                    : roll < 0.87f ? SessionRecord.Outcome.LAKE
+                    : roll < 0.97f ? SessionRecord.Outcome.TIME_OUT : SessionRecord.Outcome.ABANDONED);
+            }
+            writer.close();
+        }
+    }
+}
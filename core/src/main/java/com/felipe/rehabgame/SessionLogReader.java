@@ -0,0 +1,222 @@
+package com.felipe.rehabgame;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lê um arquivo de {@link SessionLogWriter} registro a registro, sem carregar o arquivo inteiro: os bytes
+ * passam por um buffer fixo que é reaproveitado de um arquivo para o outro.
+ *
+ * Depois de cada {@link #next} os campos públicos descrevem o registro lido (valores absolutos, já somados os
+ * deltas). Uma cauda cortada (jogo fechado no meio de uma escrita) termina a leitura no último registro
+ * inteiro e marca {@link #truncated}. Uma instância por thread.
+ */
+public class SessionLogReader {
+
+    private static final int BUFFER_BYTES = 256 * 1024;
+    // Maior registro de quadro: cinco varints de até 5 bytes
+    private static final int MAX_RECORD_BYTES = 25;
+    private static final SessionRecord.Outcome[] OUTCOMES = SessionRecord.Outcome.values();
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final byte[] bytes = buffer.array();
+    private int position;
+    private int limit;
+    private FileChannel channel;
+    private boolean endOfFile;
+
+    // Cabeçalho
+    public String patientId;
+    public long startedAtMs;
+
+    // Último registro
+    public int type;
+    /** Tempo de pedalada desde o início da sessão. */
+    public long timeMs;
+    /** Duração do quadro (diferença para o registro anterior). */
+    public int deltaMs;
+    public float rpm;
+    public float speedPxPerSec;
+    public int x;
+    public int y;
+    public String levelId;
+    public SessionRecord.Outcome outcome;
+
+    public boolean truncated;
+    public long bytesRead;
+
+    private int qRpm;
+    private int qSpeed;
+
+    /** Abre {@code file} e lê o cabeçalho; fecha o arquivo anterior, se houver. */
+    public void open(Path file) throws IOException {
+        close();
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        position = 0;
+        limit = 0;
+        endOfFile = false;
+        truncated = false;
+        bytesRead = 0;
+        timeMs = 0;
+        qRpm = 0;
+        qSpeed = 0;
+        x = 0;
+        y = 0;
+        levelId = null;
+        outcome = null;
+        try {
+            if (readInt() != SessionLogWriter.MAGIC || readInt() != SessionLogWriter.VERSION) {
+                throw new IOException("formato desconhecido");
+            }
+            patientId = readString();
+            startedAtMs = ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+        } catch (EOFException e) {
+            throw new IOException("cabeçalho incompleto");
+        }
+    }
+
+    /** Lê o próximo registro; false no fim do arquivo. */
+    public boolean next() throws IOException {
+        // Caminho rápido (curto para ser embutido pelo JIT no laço de quem lê): quadro inteiro no buffer,
+        // varints sem checar o fim
+        if (limit - position >= MAX_RECORD_BYTES && (bytes[position] & 3) == SessionLogWriter.FRAME) {
+            int header = fastVarint();
+            type = SessionLogWriter.FRAME;
+            deltaMs = header >>> 2;
+            timeMs += deltaMs;
+            qRpm += unzigzag(fastVarint());
+            qSpeed += unzigzag(fastVarint());
+            x += unzigzag(fastVarint());
+            y += unzigzag(fastVarint());
+            rpm = qRpm / 10f;
+            speedPxPerSec = qSpeed;
+            return true;
+        }
+        return nextChecked();
+    }
+
+    /** Fim do buffer próximo, eventos e cauda cortada. */
+    private boolean nextChecked() throws IOException {
+        if (channel == null) return false;
+        // Completa o buffer antes do registro para ele quase nunca ficar dividido
+        if (limit - position < MAX_RECORD_BYTES) {
+            fill();
+            if (position == limit) return false;
+        }
+        try {
+            int header = readVarint();
+            type = header & 3;
+            deltaMs = header >>> 2;
+            timeMs += deltaMs;
+            switch (type) {
+                case SessionLogWriter.FRAME:
+                    qRpm += unzigzag(readVarint());
+                    qSpeed += unzigzag(readVarint());
+                    x += unzigzag(readVarint());
+                    y += unzigzag(readVarint());
+                    rpm = qRpm / 10f;
+                    speedPxPerSec = qSpeed;
+                    break;
+                case SessionLogWriter.LEVEL_START:
+                    levelId = readString();
+                    break;
+                case SessionLogWriter.LEVEL_END:
+                    int ordinal = readVarint();
+                    outcome = ordinal < OUTCOMES.length ? OUTCOMES[ordinal] : SessionRecord.Outcome.ABANDONED;
+                    break;
+                default:
+                    throw new IOException("registro de tipo " + type + " desconhecido");
+            }
+        } catch (EOFException e) {
+            // Sobrou o começo de um registro: a escrita foi interrompida
+            truncated = true;
+            return false;
+        }
+        return true;
+    }
+
+    public void close() throws IOException {
+        position = 0;
+        limit = 0;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /** Completa o buffer com o resto do arquivo; false se não havia mais nada para ler. */
+    private boolean fill() throws IOException {
+        if (endOfFile) return false;
+        int remaining = limit - position;
+        System.arraycopy(bytes, position, bytes, 0, remaining);
+        buffer.clear();
+        buffer.position(remaining);
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                endOfFile = true;
+                break;
+            }
+            total += read;
+        }
+        bytesRead += total;
+        position = 0;
+        limit = buffer.position();
+        return total > 0;
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit && !fill()) throw new EOFException();
+        return bytes[position++];
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("varint inválido");
+    }
+
+    /** Varint com pelo menos 5 bytes garantidos no buffer. */
+    private int fastVarint() throws IOException {
+        int p = position;
+        int b = bytes[p++];
+        int value = b & 0x7F;
+        int shift = 7;
+        while (b < 0) {
+            if (shift == 35) throw new IOException("varint inválido");
+            b = bytes[p++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        position = p;
+        return value;
+    }
+
+    private int readInt() throws IOException {
+        return (readByte() & 0xFF) << 24 | (readByte() & 0xFF) << 16 | (readByte() & 0xFF) << 8 | (readByte() & 0xFF);
+    }
+
+    private String readString() throws IOException {
+        int length = readVarint();
+        if (length > 1024) throw new IOException("texto de " + length + " bytes");
+        if (limit - position < length) fill();
+        if (limit - position < length) throw new EOFException();
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,196 @@
+package com.felipe.rehabgame;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Grava uma sessão de jogo quadro a quadro num arquivo compacto, para as análises de {@link SessionAnalytics}.
+ *
+ * Uma sessão vai da abertura ao fechamento do jogo e cobre todas as tentativas do ciclista 1. O relógio do
+ * arquivo é o tempo de pedalada: só avança nos quadros gravados, então menus e pausas não aparecem.
+ *
+ * Arquivo: {@code RRSL}, versão, id do paciente (UTF-8 com tamanho em varint), início da sessão (relógio do
+ * sistema, ms) e os registros até o fim do arquivo. Cada registro começa com um varint
+ * {@code (Δtempo em ms << 2) | tipo}:
+ * <ul>
+ * <li>{@link #FRAME}: Δ de RPM (décimos), velocidade (px/s), x e y (px), em zigzag + varint. Pedalando a
+ * 60 Hz são 5 a 6 bytes por quadro, cerca de 20 KB por minuto.</li>
+ * <li>{@link #LEVEL_START}: id da fase (UTF-8 com tamanho).</li>
+ * <li>{@link #LEVEL_END}: o {@link SessionRecord.Outcome} da tentativa ({@code LAKE} é a queda).</li>
+ * </ul>
+ * Os bytes se acumulam num buffer e vão para o arquivo quando ele enche e no fim de cada tentativa, sem
+ * fsync: se o jogo cair, o leitor para no último registro inteiro.
+ */
+public class SessionLogWriter {
+
+    static final int MAGIC = 0x5252534C; // "RRSL"
+    static final int VERSION = 1;
+    static final int FRAME = 0;
+    static final int LEVEL_START = 1;
+    static final int LEVEL_END = 2;
+    static final String EXTENSION = ".rrs";
+    // Sessões iniciadas no mesmo segundo para o mesmo paciente antes de desistir de achar um nome livre
+    private static final int MAX_NAME_ATTEMPTS = 100;
+    /** Escala das distâncias: um tile (64 px) é um metro de pista. */
+    public static final float PIXELS_PER_METER = 64f;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    // O maior registro: varint de tempo + quatro varints de 5 bytes
+    private static final int MAX_FRAME_BYTES = 25;
+
+    private final Path file;
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+    private int length;
+    private long records;
+
+    // Relógio de pedalada e último quadro gravado (quantizados)
+    private double clockSeconds;
+    private long prevTimeMs;
+    private int prevRpm;
+    private int prevSpeed;
+    private int prevX;
+    private int prevY;
+
+    /**
+     * Abre um arquivo novo para a sessão em {@code dir}. O arquivo é criado com CREATE_NEW, nunca
+     * truncado: uma segunda sessão iniciada no mesmo segundo ganha um sufixo (-2, -3...) em vez de
+     * sobrescrever a primeira.
+     */
+    public SessionLogWriter(Path dir, String patientId, long startedAtMs) throws IOException {
+        Path candidate = sessionFile(dir, patientId, startedAtMs, 1);
+        Files.createDirectories(candidate.toAbsolutePath().getParent());
+        OutputStream opened = null;
+        for (int attempt = 1; opened == null; attempt++) {
+            candidate = sessionFile(dir, patientId, startedAtMs, attempt);
+            try {
+                opened = Files.newOutputStream(candidate, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            } catch (FileAlreadyExistsException e) {
+                if (attempt >= MAX_NAME_ATTEMPTS) throw e;
+            }
+        }
+        this.file = candidate;
+        this.out = opened;
+        writeInt(MAGIC);
+        writeInt(VERSION);
+        writeString(patientId);
+        writeInt((int) (startedAtMs >>> 32));
+        writeInt((int) startedAtMs);
+    }
+
+    /** Arquivo da sessão em {@code dir}: uma pasta por paciente, um arquivo por início de sessão. */
+    private static Path sessionFile(Path dir, String patientId, long startedAtMs, int attempt) {
+        String folder = patientId.replaceAll("[^A-Za-z0-9_-]", "_");
+        String name = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(startedAtMs));
+        if (attempt > 1) name += "-" + attempt;
+        return dir.resolve(folder).resolve(name + EXTENSION);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /** Começa uma tentativa na fase {@code levelId}. */
+    public void levelStart(String levelId) {
+        ensureRoom(8 + levelId.length() * 3);
+        writeHeader(LEVEL_START);
+        writeString(levelId);
+    }
+
+    /** Fecha a tentativa e manda o que está no buffer para o arquivo. */
+    public void levelEnd(SessionRecord.Outcome outcome) {
+        ensureRoom(8);
+        writeHeader(LEVEL_END);
+        writeVarint(outcome.ordinal());
+        flush();
+    }
+
+    /** Um quadro de jogo que durou {@code delta} segundos. */
+    public void frame(float delta, float rpm, float speedPxPerSec, float x, float y) {
+        clockSeconds += delta;
+        int qRpm = Math.round(rpm * 10f);
+        int qSpeed = Math.round(speedPxPerSec);
+        int qx = Math.round(x);
+        int qy = Math.round(y);
+        ensureRoom(MAX_FRAME_BYTES);
+        writeHeader(FRAME);
+        writeVarint(zigzag(qRpm - prevRpm));
+        writeVarint(zigzag(qSpeed - prevSpeed));
+        writeVarint(zigzag(qx - prevX));
+        writeVarint(zigzag(qy - prevY));
+        prevRpm = qRpm;
+        prevSpeed = qSpeed;
+        prevX = qx;
+        prevY = qy;
+    }
+
+    public long getRecordCount() {
+        return records;
+    }
+
+    /** Fecha o arquivo; uma sessão sem nenhuma tentativa não deixa arquivo. */
+    public void close() {
+        flush();
+        try {
+            out.close();
+            if (records == 0) Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Erro ao fechar o registro da sessão " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void writeHeader(int type) {
+        long timeMs = Math.round(clockSeconds * 1000.0);
+        writeVarint((int) ((timeMs - prevTimeMs) << 2) | type);
+        prevTimeMs = timeMs;
+        records++;
+    }
+
+    private void flush() {
+        if (length == 0) return;
+        try {
+            out.write(buffer, 0, length);
+        } catch (IOException e) {
+            System.err.println("Erro ao gravar o registro da sessão " + file + ": " + e.getMessage());
+        }
+        length = 0;
+    }
+
+    private void ensureRoom(int bytes) {
+        if (length + bytes > buffer.length) flush();
+    }
+
+    private void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureRoom(5 + bytes.length);
+        writeVarint(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void writeInt(int value) {
+        buffer[length++] = (byte) (value >>> 24);
+        buffer[length++] = (byte) (value >>> 16);
+        buffer[length++] = (byte) (value >>> 8);
+        buffer[length++] = (byte) value;
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+}
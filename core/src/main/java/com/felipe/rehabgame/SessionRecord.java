@@ -0,0 +1,33 @@
+package com.felipe.rehabgame;
+
+/** Uma tentativa de fase de um paciente, como gravada pelo {@link ProgressStore}. */
+public class SessionRecord {
+
+    public enum Outcome {
+        /** Chegou na bandeira. */
+        COMPLETED,
+        /** Corrida: outro ciclista chegou antes. */
+        RACE_LOST,
+        LAKE,
+        TIME_OUT,
+        /** Reiniciou ou fechou o jogo no meio da fase. */
+        ABANDONED
+    }
+
+    /** Crescente na ordem de gravação; único dentro do armazenamento. */
+    public long id;
+    public String patientId;
+    public String levelId;
+    /** Início da tentativa (relógio do sistema, ms). */
+    public long startedAtMs;
+    public float durationSeconds;
+    public Outcome outcome;
+    public float averageRpm;
+    public float maxRpm;
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s %s %s %.1f s, %.0f RPM médio, %.0f máx", id, patientId, levelId, outcome,
+            durationSeconds, averageRpm, maxRpm);
+    }
+}
@@ -0,0 +1,182 @@
+package com.felipe.rehabgame;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Formato dos pacotes UDP da corrida em rede.
+ *
+ * <pre>
+ * INPUT    (cliente -> host): tipo, u16 último snapshot recebido, u16 cadência (RPM)
+ * SNAPSHOT (host -> cliente): tipo, u16 seq, u16 seq da base, u32 tempo do host (ms), u8 fase,
+ *                             u8 id do destinatário, u8 vencedor, u8 entradas, entradas...
+ * entrada:                    u8 id, u8 máscara, um varint por campo marcado na máscara
+ * </pre>
+ * O snapshot é codificado como diferença em relação à base, o último snapshot que o cliente confirmou.
+ * Ciclistas que não mudaram não ocupam nenhum byte; os que mudaram levam só os campos alterados, cada um
+ * como a diferença em zigzag + varint (1 a 2 bytes por quadro para um ciclista em movimento). Sem base
+ * confirmada o snapshot vai inteiro (diferença contra zero).
+ */
+public final class SnapshotCodec {
+
+    public static final int TYPE_INPUT = 1;
+    public static final int TYPE_SNAPSHOT = 2;
+
+    /** "Nenhum snapshot" (sem base, sem confirmação); o host pula este valor ao numerar. */
+    public static final int NO_SEQ = 0xFFFF;
+    public static final int SEQ_MASK = 0xFFFF;
+
+    public static final int INPUT_BYTES = 5;
+    public static final int SNAPSHOT_HEADER_BYTES = 13;
+    // Cabeçalho + 16 ciclistas com todos os campos no pior caso (5 bytes por varint)
+    public static final int MAX_PACKET_BYTES = SNAPSHOT_HEADER_BYTES + RaceSnapshot.MAX_RIDERS * (2 + 4 * 5);
+
+    private static final int FIELD_X = 1;
+    private static final int FIELD_Y = 2;
+    private static final int FIELD_SPEED = 4;
+    private static final int FIELD_RPM = 8;
+    private static final int REMOVED = 16;
+
+    private SnapshotCodec() {
+    }
+
+    public static void writeInput(ByteBuffer out, int ackSeq, float rpm) {
+        out.put((byte) TYPE_INPUT);
+        out.putShort((short) ackSeq);
+        out.putShort((short) Math.max(0, Math.min(0xFFFF, Math.round(rpm))));
+    }
+
+    /**
+     * Codifica {@code current} como diferença de {@code baseline} (null = snapshot completo) para o
+     * ciclista {@code recipientId}.
+     */
+    public static void writeSnapshot(ByteBuffer out, RaceSnapshot current, RaceSnapshot baseline, int recipientId) {
+        out.put((byte) TYPE_SNAPSHOT);
+        out.putShort((short) current.seq);
+        out.putShort((short) (baseline != null ? baseline.seq : NO_SEQ));
+        out.putInt((int) current.hostTimeMs);
+        out.put((byte) current.level);
+        out.put((byte) recipientId);
+        out.put((byte) current.winnerId);
+        int countPosition = out.position();
+        out.put((byte) 0);
+
+        int entries = 0;
+        int b = 0;
+        int baseCount = baseline != null ? baseline.count : 0;
+        for (int c = 0; c < current.count; c++) {
+            int id = current.ids[c];
+            // Ciclistas da base que saíram da corrida
+            while (b < baseCount && baseline.ids[b] < id) {
+                out.put((byte) baseline.ids[b]);
+                out.put((byte) REMOVED);
+                entries++;
+                b++;
+            }
+            boolean inBase = b < baseCount && baseline.ids[b] == id;
+            int baseX = inBase ? baseline.x[b] : 0;
+            int baseY = inBase ? baseline.y[b] : 0;
+            int baseSpeed = inBase ? baseline.speed[b] : 0;
+            int baseRpm = inBase ? baseline.rpm[b] : 0;
+            if (inBase) b++;
+
+            int mask = 0;
+            if (current.x[c] != baseX || !inBase) mask |= FIELD_X;
+            if (current.y[c] != baseY || !inBase) mask |= FIELD_Y;
+            if (current.speed[c] != baseSpeed) mask |= FIELD_SPEED;
+            if (current.rpm[c] != baseRpm) mask |= FIELD_RPM;
+            if (mask == 0) continue;
+
+            out.put((byte) id);
+            out.put((byte) mask);
+            if ((mask & FIELD_X) != 0) writeVarint(out, current.x[c] - baseX);
+            if ((mask & FIELD_Y) != 0) writeVarint(out, current.y[c] - baseY);
+            if ((mask & FIELD_SPEED) != 0) writeVarint(out, current.speed[c] - baseSpeed);
+            if ((mask & FIELD_RPM) != 0) writeVarint(out, current.rpm[c] - baseRpm);
+            entries++;
+        }
+        for (; b < baseCount; b++) {
+            out.put((byte) baseline.ids[b]);
+            out.put((byte) REMOVED);
+            entries++;
+        }
+        out.put(countPosition, (byte) entries);
+    }
+
+    /** Seq da base de um pacote SNAPSHOT já posicionado no início, sem consumir bytes. */
+    public static int peekBaselineSeq(ByteBuffer in) {
+        return in.getShort(in.position() + 3) & SEQ_MASK;
+    }
+
+    /**
+     * Decodifica um SNAPSHOT aplicando as diferenças sobre {@code baseline} (null para snapshots completos).
+     * Retorna o id do destinatário, ou -1 se o pacote estiver corrompido.
+     */
+    public static int readSnapshot(ByteBuffer in, RaceSnapshot baseline, RaceSnapshot out) {
+        try {
+            if (in.get() != TYPE_SNAPSHOT) return -1;
+            int seq = in.getShort() & SEQ_MASK;
+            in.getShort(); // base, já conferida por quem chamou
+            long hostTimeMs = in.getInt() & 0xFFFFFFFFL;
+            int level = in.get() & 0xFF;
+            int recipientId = in.get() & 0xFF;
+            int winnerId = in.get() & 0xFF;
+            int entries = in.get() & 0xFF;
+
+            if (baseline != null) {
+                out.set(baseline);
+            } else {
+                out.clear();
+            }
+            out.seq = seq;
+            out.hostTimeMs = hostTimeMs;
+            out.level = level;
+            out.winnerId = winnerId;
+
+            for (int e = 0; e < entries; e++) {
+                int id = in.get() & 0xFF;
+                int mask = in.get() & 0xFF;
+                if ((mask & REMOVED) != 0) {
+                    int index = out.indexOf(id);
+                    if (index >= 0) out.remove(index);
+                    continue;
+                }
+                int index = out.insert(id);
+                if (index < 0) return -1;
+                if ((mask & FIELD_X) != 0) out.x[index] += readVarint(in);
+                if ((mask & FIELD_Y) != 0) out.y[index] += readVarint(in);
+                if ((mask & FIELD_SPEED) != 0) out.speed[index] += readVarint(in);
+                if ((mask & FIELD_RPM) != 0) out.rpm[index] += readVarint(in);
+            }
+            return recipientId;
+        } catch (BufferUnderflowException e) {
+            return -1;
+        }
+    }
+
+    /** Verdadeiro se {@code a} é mais novo que {@code b}, considerando a volta do contador de 16 bits. */
+    public static boolean isNewer(int a, int b) {
+        return (short) (a - b) > 0;
+    }
+
+    static void writeVarint(ByteBuffer out, int value) {
+        int zigzag = (value << 1) ^ (value >> 31);
+        while ((zigzag & ~0x7F) != 0) {
+            out.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.put((byte) zigzag);
+    }
+
+    static int readVarint(ByteBuffer in) {
+        int zigzag = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.get() & 0xFF;
+            zigzag |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 35);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
@@ -0,0 +1,310 @@
+package com.felipe.rehabgame;
+
+import java.util.Arrays;
+
+/**
+ * Broadphase de objetos móveis (troncos rolando, pássaros, moedas, outros ciclistas) numa grade uniforme com
+ * hash espacial. Fica ao lado da colisão com a grade de tiles ({@link TileSweep}): os tiles são estáticos e
+ * indexados pela própria fase, aqui ficam as caixas (AABB) que mudam de lugar a cada passo.
+ *
+ * Tudo em arrays primitivos indexados pelo id do objeto. Cada célula da grade cai num balde de uma tabela de
+ * tamanho potência de dois; {@link #update} reconstrói os baldes com uma contagem (counting sort) em O(n),
+ * mas só quando algum objeto mudou de faixa de células: mover sem sair das células é só escrever a caixa nova.
+ * Consultas marcam os objetos já vistos com um carimbo, então um objeto que ocupa várias células (ou dois
+ * baldes que colidem no hash) aparece uma vez só. Nada é alocado por passo; os arrays só crescem ao
+ * adicionar objetos além da capacidade.
+ *
+ * Não é thread-safe: uma instância por simulação, como o {@link RiderPhysics}.
+ */
+public class SpatialHash {
+
+    /** Recebe cada par de objetos que se sobrepõem (a &lt; b), sem alocar. */
+    public interface PairVisitor {
+        void overlap(int a, int b);
+    }
+
+    private final float cellSize;
+    private final float inverseCellSize;
+
+    // Caixa e faixa de células de cada objeto (por id)
+    private float[] minX;
+    private float[] minY;
+    private float[] maxX;
+    private float[] maxY;
+    private int[] cellMinX;
+    private int[] cellMinY;
+    private int[] cellMaxX;
+    private int[] cellMaxY;
+    private boolean[] live;
+    private int[] stamps;
+
+    // Ids livres para reaproveitar e maior id já usado + 1
+    private int[] freeIds;
+    private int freeCount;
+    private int idLimit;
+    private int count;
+
+    // Baldes: os ids do balde b ficam em entries[bucketStart[b] .. bucketStart[b + 1])
+    private int bucketMask;
+    private int[] bucketStart;
+    private int[] bucketCursor;
+    private int[] entries = new int[0];
+    private boolean dirty;
+    private int stamp;
+
+    /** Quantas vezes os baldes foram reconstruídos (o resto dos passos só atualizou caixas). */
+    public int rebuilds;
+
+    /**
+     * @param cellSize lado da célula em pixels; algo entre o tamanho típico e o dobro do tamanho dos objetos
+     * @param capacity número de objetos esperado (os arrays crescem se passar)
+     */
+    public SpatialHash(float cellSize, int capacity) {
+        if (cellSize <= 0f) throw new IllegalArgumentException("Tamanho de célula inválido: " + cellSize);
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1f / cellSize;
+        allocate(Math.max(16, capacity));
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    /** Objetos vivos. */
+    public int size() {
+        return count;
+    }
+
+    /** Adiciona a caixa (x, y, largura, altura) e devolve o id do objeto. */
+    public int add(float x, float y, float width, float height) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            if (idLimit == live.length) allocate(live.length * 2);
+            id = idLimit++;
+        }
+        live[id] = true;
+        count++;
+        setBounds(id, x, y, width, height);
+        dirty = true;
+        return id;
+    }
+
+    /** Tira o objeto; o id pode ser devolvido de novo por {@link #add}. */
+    public void remove(int id) {
+        if (!live[id]) return;
+        live[id] = false;
+        freeIds[freeCount++] = id;
+        count--;
+        dirty = true;
+    }
+
+    /** Tira todos os objetos. */
+    public void clear() {
+        Arrays.fill(live, 0, idLimit, false);
+        idLimit = 0;
+        freeCount = 0;
+        count = 0;
+        dirty = true;
+    }
+
+    public boolean isLive(int id) {
+        return id >= 0 && id < idLimit && live[id];
+    }
+
+    /** Move o objeto mantendo o tamanho. */
+    public void move(int id, float x, float y) {
+        setBounds(id, x, y, maxX[id] - minX[id], maxY[id] - minY[id]);
+    }
+
+    /** Nova caixa do objeto; os baldes só ficam sujos se a faixa de células mudou. */
+    public void setBounds(int id, float x, float y, float width, float height) {
+        minX[id] = x;
+        minY[id] = y;
+        maxX[id] = x + width;
+        maxY[id] = y + height;
+
+        int cx0 = cell(x);
+        int cy0 = cell(y);
+        int cx1 = cell(x + width);
+        int cy1 = cell(y + height);
+        if (cx0 != cellMinX[id] || cy0 != cellMinY[id] || cx1 != cellMaxX[id] || cy1 != cellMaxY[id]) {
+            cellMinX[id] = cx0;
+            cellMinY[id] = cy0;
+            cellMaxX[id] = cx1;
+            cellMaxY[id] = cy1;
+            dirty = true;
+        }
+    }
+
+    public float getX(int id) {
+        return minX[id];
+    }
+
+    public float getY(int id) {
+        return minY[id];
+    }
+
+    /**
+     * Reconstrói os baldes se algum objeto entrou, saiu ou mudou de células desde a última vez. As consultas
+     * já chamam; chamar no fim do passo só adianta o trabalho.
+     */
+    public void update() {
+        if (!dirty) return;
+        dirty = false;
+        rebuilds++;
+
+        // Tabela com ao menos o dobro de baldes que objetos, para poucas colisões de hash
+        int wanted = Integer.highestOneBit(Math.max(16, count * 2) - 1) << 1;
+        if (wanted > bucketMask + 1) {
+            bucketMask = wanted - 1;
+            bucketStart = new int[wanted + 1];
+            bucketCursor = new int[wanted];
+        }
+        int buckets = bucketMask + 1;
+        Arrays.fill(bucketStart, 0);
+
+        // 1) quantos ids em cada balde (um por célula coberta)
+        int total = 0;
+        for (int id = 0; id < idLimit; id++) {
+            if (!live[id]) continue;
+            for (int cy = cellMinY[id]; cy <= cellMaxY[id]; cy++) {
+                for (int cx = cellMinX[id]; cx <= cellMaxX[id]; cx++) {
+                    bucketStart[bucket(cx, cy) + 1]++;
+                    total++;
+                }
+            }
+        }
+        if (total > entries.length) entries = new int[Math.max(total, entries.length * 2)];
+
+        // 2) soma de prefixos: início de cada balde
+        for (int b = 0; b < buckets; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        System.arraycopy(bucketStart, 0, bucketCursor, 0, buckets);
+
+        // 3) distribuir os ids
+        for (int id = 0; id < idLimit; id++) {
+            if (!live[id]) continue;
+            for (int cy = cellMinY[id]; cy <= cellMaxY[id]; cy++) {
+                for (int cx = cellMinX[id]; cx <= cellMaxX[id]; cx++) {
+                    entries[bucketCursor[bucket(cx, cy)]++] = id;
+                }
+            }
+        }
+    }
+
+    /**
+     * Ids dos objetos cuja caixa se sobrepõe a (x, y, largura, altura), escritos em {@code out}.
+     * Retorna quantos foram encontrados (pode passar de {@code out.length}; só os primeiros são escritos).
+     */
+    public int query(float x, float y, float width, float height, int[] out) {
+        return query(x, y, x + width, y + height, -1, out);
+    }
+
+    /** Objetos que se sobrepõem ao objeto {@code id} (ele mesmo fica de fora). */
+    public int queryOverlaps(int id, int[] out) {
+        return query(minX[id], minY[id], maxX[id], maxY[id], id, out);
+    }
+
+    /** Visita uma vez cada par de objetos que se sobrepõem. */
+    public void forEachOverlap(PairVisitor visitor) {
+        update();
+        for (int id = 0; id < idLimit; id++) {
+            if (!live[id]) continue;
+            float x0 = minX[id];
+            float y0 = minY[id];
+            float x1 = maxX[id];
+            float y1 = maxY[id];
+            nextStamp();
+            stamps[id] = stamp;
+            for (int cy = cellMinY[id]; cy <= cellMaxY[id]; cy++) {
+                for (int cx = cellMinX[id]; cx <= cellMaxX[id]; cx++) {
+                    int b = bucket(cx, cy);
+                    for (int e = bucketStart[b], end = bucketStart[b + 1]; e < end; e++) {
+                        int other = entries[e];
+                        // Cada par sai só pelo menor id
+                        if (other < id || stamps[other] == stamp) continue;
+                        stamps[other] = stamp;
+                        if (minX[other] < x1 && maxX[other] > x0 && minY[other] < y1 && maxY[other] > y0) {
+                            visitor.overlap(id, other);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private int query(float x0, float y0, float x1, float y1, int skip, int[] out) {
+        update();
+        nextStamp();
+        int found = 0;
+        int cx0 = cell(x0);
+        int cy0 = cell(y0);
+        int cx1 = cell(x1);
+        int cy1 = cell(y1);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int b = bucket(cx, cy);
+                for (int e = bucketStart[b], end = bucketStart[b + 1]; e < end; e++) {
+                    int id = entries[e];
+                    if (stamps[id] == stamp) continue;
+                    stamps[id] = stamp;
+                    if (id == skip) continue;
+                    if (minX[id] < x1 && maxX[id] > x0 && minY[id] < y1 && maxY[id] > y0) {
+                        if (found < out.length) out[found] = id;
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private void nextStamp() {
+        if (++stamp == 0) {
+            // Deu a volta no int: zera os carimbos para nenhum objeto parecer já visto
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+
+    private int cell(float coordinate) {
+        return (int) Math.floor(coordinate * inverseCellSize);
+    }
+
+    private int bucket(int cx, int cy) {
+        return ((cx * 73856093) ^ (cy * 19349663)) & bucketMask;
+    }
+
+    private void allocate(int capacity) {
+        int old = live == null ? 0 : live.length;
+        minX = grow(minX, capacity);
+        minY = grow(minY, capacity);
+        maxX = grow(maxX, capacity);
+        maxY = grow(maxY, capacity);
+        cellMinX = grow(cellMinX, capacity);
+        cellMinY = grow(cellMinY, capacity);
+        cellMaxX = grow(cellMaxX, capacity);
+        cellMaxY = grow(cellMaxY, capacity);
+        stamps = grow(stamps, capacity);
+        freeIds = grow(freeIds, capacity);
+        live = live == null ? new boolean[capacity] : Arrays.copyOf(live, capacity);
+        // Faixa impossível: o primeiro setBounds sempre marca os baldes como sujos
+        Arrays.fill(cellMinX, old, capacity, Integer.MIN_VALUE);
+        if (bucketStart == null) {
+            bucketMask = 15;
+            bucketStart = new int[17];
+            bucketCursor = new int[16];
+        }
+    }
+
+    private static float[] grow(float[] array, int capacity) {
+        return array == null ? new float[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+}
@@ -0,0 +1,225 @@
+package com.felipe.rehabgame;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+/**
+ * Mede o {@link SpatialHash} com milhares de objetos se movendo, sem janela: a cada passo todos andam
+ * (troncos rolando no chão, pássaros ondulando no ar, moedas paradas), o jogador consulta a própria caixa e
+ * todos os pares sobrepostos são visitados. A densidade é a mesma em todos os tamanhos (a pista cresce com
+ * o número de objetos), como numa fase mais longa.
+ *
+ * Para cada quantidade informa o custo por passo do hash e, até {@code --brute-max} objetos, da comparação de
+ * todos contra todos, conferindo que os dois acham os mesmos pares. Também mostra os bytes alocados por
+ * passo (deve ser zero depois do aquecimento). Uso (tarefa Gradle {@code core:broadphaseBench}):
+ * <pre>
+ * SpatialHashBenchmark [--counts 500,1000,...] [--steps N] [--brute-max N] [--seed N]
+ * </pre>
+ */
+public class SpatialHashBenchmark {
+
+    private static final float STEP_SECONDS = 1f / 60f;
+    private static final float CELL_SIZE = 128f;
+    private static final float WORLD_HEIGHT = 1280f;
+    // Área de pista por objeto: ~20 tiles de 64 px de altura por objeto a cada 2 tiles de largura
+    private static final float WORLD_WIDTH_PER_OBJECT = 128f;
+    private static final float PLAYER_WIDTH = 348 * 0.35f;
+    private static final float PLAYER_HEIGHT = 207 * 0.35f;
+
+    /** Objetos da simulação, também em arrays primitivos. */
+    static class Scene {
+        final SpatialHash hash = new SpatialHash(CELL_SIZE, 16);
+        final float worldWidth;
+        final int[] ids;
+        final float[] x;
+        final float[] y;
+        final float[] w;
+        final float[] h;
+        final float[] vx;
+        final float[] baseY;
+        final float[] phase;
+        final byte[] kind; // 0 = tronco, 1 = pássaro, 2 = moeda
+        float time;
+
+        Scene(int count, long seed) {
+            Random random = new Random(seed);
+            worldWidth = count * WORLD_WIDTH_PER_OBJECT;
+            ids = new int[count];
+            x = new float[count];
+            y = new float[count];
+            w = new float[count];
+            h = new float[count];
+            vx = new float[count];
+            baseY = new float[count];
+            phase = new float[count];
+            kind = new byte[count];
+            for (int i = 0; i < count; i++) {
+                int roll = random.nextInt(10);
+                kind[i] = (byte) (roll < 4 ? 0 : roll < 7 ? 1 : 2);
+                x[i] = random.nextFloat() * worldWidth;
+                switch (kind[i]) {
+                    case 0:
+                        w[i] = 96f;
+                        h[i] = 40f;
+                        baseY[i] = 64f * random.nextInt(4);
+                        vx[i] = -(40f + random.nextFloat() * 120f);
+                        break;
+                    case 1:
+                        w[i] = 48f;
+                        h[i] = 32f;
+                        baseY[i] = 300f + random.nextFloat() * (WORLD_HEIGHT - 400f);
+                        vx[i] = (random.nextBoolean() ? 1f : -1f) * (80f + random.nextFloat() * 200f);
+                        break;
+                    default:
+                        w[i] = 32f;
+                        h[i] = 32f;
+                        baseY[i] = 64f + random.nextFloat() * 500f;
+                        vx[i] = 0f;
+                        break;
+                }
+                phase[i] = random.nextFloat() * 6.2831855f;
+                y[i] = baseY[i];
+                ids[i] = hash.add(x[i], y[i], w[i], h[i]);
+            }
+        }
+
+        void step() {
+            time += STEP_SECONDS;
+            for (int i = 0; i < ids.length; i++) {
+                x[i] += vx[i] * STEP_SECONDS;
+                // Dá a volta na pista para a densidade não mudar
+                if (x[i] < -w[i]) x[i] += worldWidth + w[i];
+                else if (x[i] > worldWidth) x[i] -= worldWidth + w[i];
+                if (kind[i] == 1) y[i] = baseY[i] + 40f * (float) Math.sin(time * 3f + phase[i]);
+                hash.move(ids[i], x[i], y[i]);
+            }
+            hash.update();
+        }
+    }
+
+    /** Conta pares e soma os ids, para comparar hash e força bruta sem guardar os pares. */
+    static class PairCounter implements SpatialHash.PairVisitor {
+        long pairs;
+        long checksum;
+
+        @Override
+        public void overlap(int a, int b) {
+            pairs++;
+            checksum += (long) a * 31 + b;
+        }
+
+        void reset() {
+            pairs = 0;
+            checksum = 0;
+        }
+    }
+
+    public static void main(String[] args) {
+        int[] counts = {500, 1000, 2000, 4000, 8000, 16000, 32000};
+        int steps = 600;
+        int bruteMax = 8000;
+        long seed = 42L;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--counts".equals(arg) && i + 1 < args.length) {
+                String[] parts = args[++i].split(",");
+                counts = new int[parts.length];
+                for (int p = 0; p < parts.length; p++) counts[p] = Integer.parseInt(parts[p].trim());
+            } else if ("--steps".equals(arg) && i + 1 < args.length) {
+                steps = Integer.parseInt(args[++i]);
+            } else if ("--brute-max".equals(arg) && i + 1 < args.length) {
+                bruteMax = Integer.parseInt(args[++i]);
+            } else if ("--seed".equals(arg) && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else {
+                System.err.println("Uso: SpatialHashBenchmark [--counts 500,1000,...] [--steps N] [--brute-max N] [--seed N]");
+                System.exit(2);
+            }
+        }
+
+        System.out.println("Broadphase: célula " + (int) CELL_SIZE + " px, " + steps + " passos por tamanho");
+        System.out.println(" objetos  rebuilds  pares/passo  mover+hash   consulta   pares hash   total/passo  força bruta  bytes/passo");
+        for (int count : counts) {
+            run(count, steps, count <= bruteMax, seed);
+        }
+    }
+
+    private static void run(int count, int steps, boolean brute, long seed) {
+        Scene scene = new Scene(count, seed);
+        PairCounter counter = new PairCounter();
+        int[] hits = new int[64];
+        float playerY = 64f;
+
+        // Aquecimento (JIT e tamanho final dos arrays)
+        for (int s = 0; s < Math.min(steps, 200); s++) {
+            scene.step();
+            scene.hash.query(s * 4f % scene.worldWidth, playerY, PLAYER_WIDTH, PLAYER_HEIGHT, hits);
+            counter.reset();
+            scene.hash.forEachOverlap(counter);
+        }
+
+        long allocatedBefore = allocatedBytes();
+        int rebuildsBefore = scene.hash.rebuilds;
+        long moveNs = 0L;
+        long queryNs = 0L;
+        long pairNs = 0L;
+        long pairTotal = 0L;
+        long bruteNs = 0L;
+        int mismatches = 0;
+        long sink = 0L;
+        for (int s = 0; s < steps; s++) {
+            long t0 = System.nanoTime();
+            scene.step();
+            long t1 = System.nanoTime();
+            sink += scene.hash.query(s * 4f % scene.worldWidth, playerY, PLAYER_WIDTH, PLAYER_HEIGHT, hits);
+            long t2 = System.nanoTime();
+            counter.reset();
+            scene.hash.forEachOverlap(counter);
+            long t3 = System.nanoTime();
+            moveNs += t1 - t0;
+            queryNs += t2 - t1;
+            pairNs += t3 - t2;
+            pairTotal += counter.pairs;
+
+            // A força bruta é cara: compara só um passo em cada dez
+            if (brute && s % 10 == 0) {
+                long b0 = System.nanoTime();
+                long pairs = 0L;
+                long checksum = 0L;
+                for (int a = 0; a < count; a++) {
+                    for (int b = a + 1; b < count; b++) {
+                        if (scene.x[a] < scene.x[b] + scene.w[b] && scene.x[a] + scene.w[a] > scene.x[b]
+                            && scene.y[a] < scene.y[b] + scene.h[b] && scene.y[a] + scene.h[a] > scene.y[b]) {
+                            pairs++;
+                            checksum += (long) scene.ids[a] * 31 + scene.ids[b];
+                        }
+                    }
+                }
+                bruteNs += System.nanoTime() - b0;
+                if (pairs != counter.pairs || checksum != counter.checksum) mismatches++;
+            }
+        }
+        long allocated = allocatedBefore >= 0 ? allocatedBytes() - allocatedBefore : -1L;
+
+        String bruteText = brute ? String.format("%9.1f µs", bruteNs / 1e3 / ((steps + 9) / 10)) : "        -   ";
+        String allocText = allocated >= 0 ? String.format("%11d", allocated / steps) : "          ?";
+        System.out.printf("%8d  %8d  %11.1f  %8.1f µs  %6.2f µs  %8.1f µs  %9.1f µs  %s  %s%n",
+            count, scene.hash.rebuilds - rebuildsBefore, pairTotal / (double) steps,
+            moveNs / 1e3 / steps, queryNs / 1e3 / steps, pairNs / 1e3 / steps,
+            (moveNs + queryNs + pairNs) / 1e3 / steps, bruteText, allocText);
+        if (mismatches > 0) {
+            System.out.println("  ERRO: " + mismatches + " passo(s) com pares diferentes da força bruta");
+        }
+        if (sink == Long.MIN_VALUE) System.out.println(); // mantém as consultas vivas para o JIT
+    }
+
+    /** Bytes alocados pela thread atual, ou -1 se a JVM não informa. */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1L;
+    }
+}
@@ -0,0 +1,52 @@
+package com.felipe.rehabgame;
+
+import com.badlogic.gdx.Gdx;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Mede o tempo de partida a frio até o primeiro quadro de jogo (após o carregamento dos assets).
+ *
+ * O resultado é impresso em duas formas: uma legível e uma linha "STARTUP_MS=..." usada pela tarefa
+ * Gradle {@code startupBenchmark} para comparar os perfis de inicialização (padrão, rápido, AppCDS).
+ */
+public class StartupTimer {
+
+    private final GameConfig config;
+    private boolean firstFrameReported = false;
+
+    public StartupTimer(GameConfig config) {
+        this.config = config;
+    }
+
+    /** Chamado ao fim de cada quadro de jogo; só faz algo no primeiro. */
+    public void onGameFrame() {
+        if (firstFrameReported) return;
+        firstFrameReported = true;
+
+        long nowMs = System.currentTimeMillis();
+        long startMs = processStartMs();
+        long elapsedMs = nowMs - startMs;
+
+        System.out.println("Primeiro quadro em " + elapsedMs + " ms (perfil: " + config.startupProfile + ")");
+        System.out.println("STARTUP_MS=" + elapsedMs + " PROFILE=" + config.startupProfile);
+
+        if (config.exitAfterFirstFrame) {
+            Gdx.app.exit();
+        }
+    }
+
+    /**
+     * Momento em que o processo começou. Usa o início da JVM quando disponível (inclui o boot da JVM);
+     * senão, o instante em que o launcher leu os argumentos.
+     */
+    private long processStartMs() {
+        try {
+            long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+            if (jvmStart > 0L) return jvmStart;
+        } catch (Throwable e) {
+            // nem todo runtime expõe o RuntimeMXBean
+        }
+        return config.launchTimeMs;
+    }
+}
@@ -0,0 +1,127 @@
+package com.felipe.rehabgame;
+
+/**
+ * Forma da superfície de um tile inclinado (rampas, subidas suaves, descidas e lombadas), em tabelas
+ * pré-calculadas de altura e normal. A física consulta o perfil pelo código do tile e amostra a tabela em
+ * O(1) com interpolação linear, então cada forma nova custa por quadro o mesmo que a rampa original.
+ *
+ * Alturas e posições são frações do tile: {@code u} vai de 0 (borda esquerda) a 1 (direita) e a altura de 0
+ * (base do tile) a 1 (topo). Fora de [0, 1] (centro do jogador ainda sobre o tile vizinho) a superfície
+ * segue a tangente da borda: à direita sem limite, como a rampa original sempre fez no topo (o "lábio" do
+ * salto); à esquerda nunca acima da altura da borda, para uma descida não puxar o jogador para cima antes
+ * de começar.
+ *
+ * Cada tile SLOPE do {@link TileRegistry} tem o seu, descrito em {@code tiles.txt} por {@link #parse}: alturas
+ * ligadas por retas (a rampa de 45° é {@code 0,1}) ou uma das formas com nome.
+ */
+public final class TerrainProfile {
+
+    /** Segmentos da tabela por tile; as amostras ficam em u = i / SEGMENTS. */
+    public static final int SEGMENTS = 32;
+
+    /** Altura (fração do tile) em função de u; só é avaliada ao montar as tabelas. */
+    interface Shape {
+        double height(double u);
+    }
+
+    public final int tileType;
+    public final String name;
+    /** Multiplica a inclinação no ponto de contato para dar a velocidade vertical do lançamento. */
+    public final float launchFactor;
+
+    private final float[] heights = new float[SEGMENTS + 1];
+    private final float[] normalX = new float[SEGMENTS + 1];
+    private final float[] normalY = new float[SEGMENTS + 1];
+
+    TerrainProfile(int tileType, String name, float launchFactor, Shape shape) {
+        this.tileType = tileType;
+        this.name = name;
+        this.launchFactor = launchFactor;
+
+        double step = 1.0 / SEGMENTS;
+        for (int i = 0; i <= SEGMENTS; i++) {
+            double u = i * step;
+            heights[i] = (float) shape.height(u);
+
+            // Derivada por diferença central (de um lado só nas bordas)
+            double before = Math.max(0.0, u - step / 2);
+            double after = Math.min(1.0, u + step / 2);
+            double slope = (shape.height(after) - shape.height(before)) / (after - before);
+            double length = Math.sqrt(1.0 + slope * slope);
+            normalX[i] = (float) (-slope / length);
+            normalY[i] = (float) (1.0 / length);
+        }
+    }
+
+    /**
+     * Perfil descrito por {@code spec}: {@code bump} (lombada em cosseno elevado, pico de 0.3 tile no meio, sem
+     * degrau nem quina nas bordas) ou alturas igualmente espaçadas de u = 0 a u = 1, ligadas por retas.
+     */
+    static TerrainProfile parse(int tileType, String name, String spec, float launchFactor) {
+        if ("bump".equals(spec)) {
+            return new TerrainProfile(tileType, name, launchFactor, u -> 0.15 * (1.0 - Math.cos(2.0 * Math.PI * u)));
+        }
+        String[] values = spec.split(",");
+        if (values.length < 2) throw new IllegalArgumentException("perfil precisa de ao menos duas alturas: " + spec);
+        double[] points = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            points[i] = Double.parseDouble(values[i].trim());
+        }
+        int last = points.length - 1;
+        return new TerrainProfile(tileType, name, launchFactor, u -> {
+            double position = u * last;
+            int i = Math.min((int) position, last - 1);
+            return points[i] + (points[i + 1] - points[i]) * (position - i);
+        });
+    }
+
+    /** Altura da superfície (fração do tile) na posição {@code u}. */
+    public float heightAt(float u) {
+        if (u < 0f) {
+            return Math.min(heights[0], heights[0] + slopeOf(0) * u);
+        }
+        if (u > 1f) {
+            return heights[SEGMENTS] + slopeOf(SEGMENTS) * (u - 1f);
+        }
+        float position = u * SEGMENTS;
+        int i = Math.min((int) position, SEGMENTS - 1);
+        float fraction = position - i;
+        return heights[i] + (heights[i + 1] - heights[i]) * fraction;
+    }
+
+    /** Normal da superfície em {@code u}, interpolada entre amostras (sem renormalizar). */
+    public float normalXAt(float u) {
+        return sample(normalX, u);
+    }
+
+    public float normalYAt(float u) {
+        return sample(normalY, u);
+    }
+
+    /** Inclinação dy/dx da superfície em {@code u}, a partir da normal: positiva subindo para a direita. */
+    public float slopeAt(float u) {
+        return -normalXAt(u) / normalYAt(u);
+    }
+
+    /**
+     * Velocidade vertical, por unidade de velocidade horizontal, de quem passa por {@code u}: positiva é um
+     * lançamento (subida), zero ou negativa o jogador acompanha a superfície.
+     */
+    public float launchAt(float u) {
+        float slope = slopeAt(u);
+        return slope > 0f ? slope * launchFactor : slope;
+    }
+
+    private float slopeOf(int i) {
+        return -normalX[i] / normalY[i];
+    }
+
+    private static float sample(float[] table, float u) {
+        if (u <= 0f) return table[0];
+        if (u >= 1f) return table[SEGMENTS];
+        float position = u * SEGMENTS;
+        int i = Math.min((int) position, SEGMENTS - 1);
+        float fraction = position - i;
+        return table[i] + (table[i + 1] - table[i]) * fraction;
+    }
+}
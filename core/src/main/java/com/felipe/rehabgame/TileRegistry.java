@@ -0,0 +1,212 @@
+package com.felipe.rehabgame;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tipos de tile lidos de {@code tiles.txt} (recurso ao lado desta classe): para cada código das fases, nome,
+ * propriedades em bits, imagem e forma ({@link TerrainProfile}).
+ *
+ * Física, desenho e índice de colisão perguntam por propriedades ("algum SOLID ou HAZARD aqui?") com uma
+ * consulta a array e um E de bits, sem comparar códigos; um tipo novo com propriedades que já existem não
+ * muda código nem acrescenta varredura por quadro. Códigos sem definição não têm propriedade nenhuma (vazio).
+ *
+ * Não depende do libGDX: as ferramentas sem janela ({@link LevelValidator}) usam as mesmas definições.
+ */
+public final class TileRegistry {
+
+    public static final int SOLID = 1;
+    public static final int SLOPE = 1 << 1;
+    public static final int HAZARD = 1 << 2;
+    public static final int GOAL = 1 << 3;
+    public static final int SPAWN = 1 << 4;
+    public static final int CHECKPOINT = 1 << 5;
+    public static final int DECORATIVE = 1 << 6;
+    /** Onde o jogador se apoia. */
+    public static final int SURFACE = SOLID | SLOPE;
+
+    private static final String[] PROPERTY_NAMES = {"SOLID", "SLOPE", "HAZARD", "GOAL", "SPAWN", "CHECKPOINT", "DECORATIVE"};
+    public static final int PROPERTY_COUNT = PROPERTY_NAMES.length;
+
+    private static final String DEFINITIONS_FILE = "tiles.txt";
+    // Maior código aceito no arquivo (os arrays vão até o maior definido)
+    private static final int MAX_CODE = 255;
+
+    /** Um tipo de tile. Cor de {@code tint} em RGBA8888 (branco = sem tinta). */
+    public static final class Definition {
+        public final int code;
+        public final String name;
+        public final int properties;
+        /** Imagem desenhada no tile inteiro, ou null. */
+        public final String texture;
+        /** Imagem desenhada em faixas com a altura do perfil, ou null. */
+        public final String fill;
+        public final TerrainProfile profile;
+        public final int tint;
+
+        Definition(int code, String name, int properties, String texture, String fill, TerrainProfile profile, int tint) {
+            this.code = code;
+            this.name = name;
+            this.properties = properties;
+            this.texture = texture;
+            this.fill = fill;
+            this.profile = profile;
+            this.tint = tint;
+        }
+    }
+
+    private static final Definition[] DEFINITIONS;
+    private static final int[] PROPERTIES;
+    private static final TerrainProfile[] PROFILES;
+    private static final Map<String, Definition> BY_NAME = new HashMap<>();
+
+    static {
+        List<Definition> definitions;
+        try (InputStream in = TileRegistry.class.getResourceAsStream(DEFINITIONS_FILE)) {
+            if (in == null) throw new IOException("arquivo não encontrado");
+            definitions = parse(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Definições de tiles (" + DEFINITIONS_FILE + "): " + e.getMessage(), e);
+        }
+
+        int size = 0;
+        for (Definition definition : definitions) {
+            size = Math.max(size, definition.code + 1);
+        }
+        DEFINITIONS = new Definition[size];
+        PROPERTIES = new int[size];
+        PROFILES = new TerrainProfile[size];
+        for (Definition definition : definitions) {
+            DEFINITIONS[definition.code] = definition;
+            PROPERTIES[definition.code] = definition.properties;
+            PROFILES[definition.code] = definition.profile;
+            BY_NAME.put(definition.name, definition);
+        }
+    }
+
+    private TileRegistry() {
+    }
+
+    /** Propriedades do código (0 para códigos sem definição). Chamado por tile em todo quadro: só um acesso a array. */
+    public static int properties(int code) {
+        return code >= 0 && code < PROPERTIES.length ? PROPERTIES[code] : 0;
+    }
+
+    /** Verdadeiro se o código tem alguma das propriedades de {@code mask}. */
+    public static boolean any(int code, int mask) {
+        return (properties(code) & mask) != 0;
+    }
+
+    /** Forma da superfície de um tile SLOPE, ou null. */
+    public static TerrainProfile profile(int code) {
+        return code >= 0 && code < PROFILES.length ? PROFILES[code] : null;
+    }
+
+    /** Definição do código, ou null. */
+    public static Definition get(int code) {
+        return code >= 0 && code < DEFINITIONS.length ? DEFINITIONS[code] : null;
+    }
+
+    /** Um acima do maior código definido. */
+    public static int size() {
+        return DEFINITIONS.length;
+    }
+
+    /** Código do tipo {@code name}; para quem gera fases (conversor de cenas) não repetir números. */
+    public static int codeOf(String name) {
+        Definition definition = BY_NAME.get(name);
+        if (definition == null) throw new IllegalArgumentException("Tile sem definição: " + name);
+        return definition.code;
+    }
+
+    static List<Definition> parse(BufferedReader reader) throws IOException {
+        List<Definition> definitions = new ArrayList<>();
+        boolean[] seen = new boolean[MAX_CODE + 1];
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            try {
+                Definition definition = parseLine(trimmed.split("\\s+"));
+                if (seen[definition.code]) throw new IOException("código " + definition.code + " repetido");
+                seen[definition.code] = true;
+                definitions.add(definition);
+            } catch (IOException | RuntimeException e) {
+                throw new IOException("linha " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return definitions;
+    }
+
+    private static Definition parseLine(String[] fields) throws IOException {
+        if (fields.length < 3) throw new IOException("esperado: código nome propriedades [chave=valor...]");
+        int code = Integer.parseInt(fields[0]);
+        if (code < 0 || code > MAX_CODE) throw new IOException("código fora de 0.." + MAX_CODE);
+        String name = fields[1];
+        int properties = parseProperties(fields[2]);
+
+        String texture = null;
+        String fill = null;
+        String profileSpec = null;
+        float launch = RiderPhysics.RAMP_LAUNCH_VELOCITY_FACTOR;
+        int tint = 0xFFFFFFFF;
+        for (int i = 3; i < fields.length; i++) {
+            int equals = fields[i].indexOf('=');
+            if (equals <= 0) throw new IOException("atributo inválido: " + fields[i]);
+            String key = fields[i].substring(0, equals);
+            String value = fields[i].substring(equals + 1);
+            switch (key) {
+                case "texture":
+                    texture = value;
+                    break;
+                case "fill":
+                    fill = value;
+                    break;
+                case "profile":
+                    profileSpec = value;
+                    break;
+                case "launch":
+                    launch = Float.parseFloat(value);
+                    break;
+                case "tint":
+                    if (value.length() != 8) throw new IOException("tint deve ser RRGGBBAA: " + value);
+                    tint = (int) Long.parseLong(value, 16);
+                    break;
+                default:
+                    throw new IOException("atributo desconhecido: " + key);
+            }
+        }
+
+        boolean slope = (properties & SLOPE) != 0;
+        if (slope != (profileSpec != null)) {
+            throw new IOException("SLOPE e profile vão juntos (" + name + ")");
+        }
+        if (fill != null && !slope) throw new IOException("fill precisa de profile (" + name + ")");
+        TerrainProfile profile = slope ? TerrainProfile.parse(code, name, profileSpec, launch) : null;
+        return new Definition(code, name, properties, texture, fill, profile, tint);
+    }
+
+    private static int parseProperties(String field) throws IOException {
+        if ("-".equals(field)) return 0;
+        int properties = 0;
+        for (String name : field.split("\\|")) {
+            int bit = -1;
+            for (int i = 0; i < PROPERTY_NAMES.length; i++) {
+                if (PROPERTY_NAMES[i].equals(name.toUpperCase(Locale.ROOT))) bit = i;
+            }
+            if (bit < 0) throw new IOException("propriedade desconhecida: " + name);
+            properties |= 1 << bit;
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,254 @@
+package com.felipe.rehabgame;
+
+/**
+ * Colisão contínua (swept AABB) do jogador contra a grade de tiles.
+ *
+ * Em vez de testar só a posição final do quadro, {@link #move} percorre as colunas que a caixa do jogador
+ * atravessa, na ordem do movimento (no estilo de uma travessia DDA), e em cada coluna só as linhas que a
+ * caixa cobre enquanto está sobre ela. O primeiro contato é exato para qualquer velocidade ou delta, sem
+ * sub-passos, e a busca para assim que as próximas colunas só seriam alcançadas depois dele.
+ *
+ * Os tiles são reconhecidos pelas propriedades do {@link TileRegistry}. Superfícies: o topo de um tile SOLID
+ * (grama) é uma plataforma de mão única (só se pousa vindo de cima) e os tiles SLOPE seguem o
+ * {@link TerrainProfile} sob o centro do jogador, como na checagem de apoio do {@link RiderPhysics}. Um tile
+ * HAZARD (lago) mata ao primeiro instante de sobreposição. O resultado fica nos campos
+ * públicos para não alocar por quadro.
+ */
+public class TileSweep {
+    public static final int NONE = 0;
+    public static final int GROUND = 1;
+    public static final int RAMP = 2;
+    public static final int LAKE = 3;
+
+    // Folga para o jogador apoiado exatamente no topo de um tile continuar contando como "em cima"
+    private static final float EPSILON = 0.01f;
+
+    /** Tipo do primeiro contato (NONE, GROUND, RAMP ou LAKE). */
+    public int hit;
+    /** Fração do deslocamento (0..1) em que o contato aconteceu; 1 sem contato. */
+    public float time;
+    /** Posição final do jogador. */
+    public float x;
+    public float y;
+    /** Com hit RAMP, {@link TerrainProfile#launchAt} no ponto de contato. */
+    public float launch;
+
+    // Contato mais cedo achado pela varredura em andamento
+    private int bestKind;
+    private float bestTime;
+    private float bestSurfaceY;
+    private float bestLaunch;
+
+    /**
+     * Move a caixa (x, y, largura, altura) por (dx, dy) e para no primeiro contato.
+     * Ao pousar em grama ou rampa, o resto do quadro segue na horizontal sobre a superfície, ainda testando
+     * lagos e rampas (uma rampa cruzada inteira dentro do quadro é reportada como RAMP). Subir a rampa e
+     * corrigir a velocidade fica com a checagem de apoio no fim do quadro.
+     */
+    public void move(LevelData level, float startX, float startY, float width, float height, float dx, float dy) {
+        sweep(level, startX, startY, width, height, dx, dy, true);
+
+        if (bestKind == NONE) {
+            set(NONE, 1f, startX + dx, startY + dy);
+            return;
+        }
+        if (bestKind == LAKE) {
+            set(LAKE, bestTime, startX + dx * bestTime, startY + dy * bestTime);
+            return;
+        }
+
+        int surfaceKind = bestKind;
+        float contactTime = bestTime;
+        float surfaceY = bestSurfaceY;
+        launch = bestLaunch;
+        float contactX = startX + dx * contactTime;
+        float remainingDx = dx * (1f - contactTime);
+
+        sweep(level, contactX, surfaceY, width, height, remainingDx, 0f, false);
+        if (bestKind == LAKE) {
+            set(LAKE, contactTime + (1f - contactTime) * bestTime, contactX + remainingDx * bestTime, surfaceY);
+            return;
+        }
+        if (bestKind == RAMP && surfaceKind == GROUND) {
+            launch = bestLaunch;
+            set(RAMP, contactTime + (1f - contactTime) * bestTime, startX + dx, surfaceY);
+            return;
+        }
+        set(surfaceKind, contactTime, startX + dx, surfaceY);
+    }
+
+    private void set(int kind, float contactTime, float endX, float endY) {
+        hit = kind;
+        time = contactTime;
+        x = endX;
+        y = endY;
+    }
+
+    /** Com {@code landing} false só lagos e rampas são testados (deslocamento horizontal sobre uma superfície). */
+    private void sweep(LevelData level, float x, float y, float w, float h, float dx, float dy, boolean landing) {
+        bestKind = NONE;
+        bestTime = 2f; // qualquer contato real está em [0, 1]
+
+        // Sem pouso, só lagos e rampas
+        int mask = landing ? TileRegistry.HAZARD | TileRegistry.SURFACE : TileRegistry.HAZARD | TileRegistry.SLOPE;
+        LevelCollisionIndex index = level.collisionIndex;
+        float tileSize = level.tileSize;
+        int firstCol = Math.max(0, (int) Math.floor(Math.min(x, x + dx) / tileSize));
+        int lastCol = Math.min(level.width - 1, (int) Math.floor((Math.max(x, x + dx) + w) / tileSize));
+        if (firstCol > lastCol) return;
+
+        int step = dx >= 0f ? 1 : -1;
+        int col = dx >= 0f ? firstCol : lastCol;
+        for (int i = 0; i <= lastCol - firstCol; i++, col += step) {
+            float cellLeft = col * tileSize;
+            float cellRight = cellLeft + tileSize;
+
+            // Intervalo de tempo em que a caixa está sobre esta coluna
+            float enter;
+            float exit;
+            if (dx > 0f) {
+                enter = (cellLeft - (x + w)) / dx;
+                exit = (cellRight - x) / dx;
+            } else if (dx < 0f) {
+                enter = (cellRight - x) / dx;
+                exit = (cellLeft - (x + w)) / dx;
+            } else {
+                if (x + w <= cellLeft || x >= cellRight) continue;
+                enter = 0f;
+                exit = 1f;
+            }
+            if (enter < 0f) enter = 0f;
+            if (exit > 1f) exit = 1f;
+            if (enter >= exit) continue;
+            // As colunas seguintes só são alcançadas depois do contato já encontrado
+            if (enter > bestTime) break;
+
+            // Linhas cobertas pela caixa enquanto ela passa por esta coluna
+            float bottomAtEnter = y + dy * enter;
+            float bottomAtExit = y + dy * exit;
+            float low = Math.min(bottomAtEnter, bottomAtExit) - EPSILON;
+            float high = Math.max(bottomAtEnter, bottomAtExit) + h;
+            int topRow = Math.max(0, rowAt(level, high));
+            int bottomRow = Math.min(level.height - 1, rowAt(level, low));
+            if (index != null) {
+                // Só as linhas com algum tile que interessa nesta coluna (nenhuma numa coluna vazia)
+                topRow = Math.max(topRow, index.firstRow(mask, col));
+                bottomRow = Math.min(bottomRow, index.lastRow(mask, col));
+            }
+
+            for (int row = topRow; row <= bottomRow; row++) {
+                int tile = level.getTile(row, col);
+                int properties = TileRegistry.properties(tile) & mask;
+                if (properties == 0) continue;
+                float cellBottom = (level.height - row - 1) * tileSize;
+                if ((properties & TileRegistry.HAZARD) != 0) {
+                    testLake(y, h, dy, enter, exit, cellBottom, cellBottom + tileSize);
+                } else if ((properties & TileRegistry.SLOPE) != 0) {
+                    testRamp(TileRegistry.profile(tile), x + w / 2f, y, dx, dy, enter, exit, cellLeft, cellBottom, tileSize);
+                } else {
+                    testGround(y, dy, enter, exit, cellBottom + tileSize);
+                }
+            }
+        }
+    }
+
+    /** Uma superfície substitui o contato atual se vier antes, ou no mesmo instante de um lago. */
+    private boolean beats(float t) {
+        return t < bestTime || (t == bestTime && bestKind == LAKE);
+    }
+
+    private static int rowAt(LevelData level, float worldY) {
+        return level.height - 1 - (int) Math.floor(worldY / level.tileSize);
+    }
+
+    /** Primeiro instante em (enter, exit) em que a caixa se sobrepõe verticalmente ao lago. */
+    private void testLake(float y, float h, float dy, float enter, float exit, float cellBottom, float cellTop) {
+        float from = enter;
+        float to = exit;
+
+        // y + dy*t < cellTop
+        if (dy == 0f) {
+            if (y >= cellTop) return;
+        } else if (dy > 0f) {
+            to = Math.min(to, (cellTop - y) / dy);
+        } else {
+            from = Math.max(from, (cellTop - y) / dy);
+        }
+
+        // y + dy*t + h > cellBottom
+        if (dy == 0f) {
+            if (y + h <= cellBottom) return;
+        } else if (dy > 0f) {
+            from = Math.max(from, (cellBottom - h - y) / dy);
+        } else {
+            to = Math.min(to, (cellBottom - h - y) / dy);
+        }
+
+        // Empate com uma superfície: a superfície vence, como na checagem de apoio (o jogador fica em cima)
+        if (from < to && from < bestTime) {
+            bestKind = LAKE;
+            bestTime = from;
+        }
+    }
+
+    /** Pouso no topo da grama: só vale descendo e vindo de cima da superfície. */
+    private void testGround(float y, float dy, float enter, float exit, float surfaceY) {
+        if (dy >= 0f) return;
+        if (y + dy * enter < surfaceY - EPSILON) return;
+
+        float t = Math.max(enter, (surfaceY - y) / dy);
+        if (t >= exit || !beats(t)) return;
+        bestKind = GROUND;
+        bestTime = t;
+        bestSurfaceY = surfaceY;
+    }
+
+    /**
+     * Cruzamento da base do jogador com a superfície do perfil, cuja altura acompanha o centro do jogador
+     * sobre o tile. Dentro do quadro a superfície é tomada como a corda entre as alturas da tabela na entrada
+     * e na saída (exata para rampas retas); a checagem de apoio no fim do quadro usa a altura da tabela.
+     */
+    private void testRamp(TerrainProfile profile, float centerX, float y, float dx, float dy, float enter, float exit,
+                          float cellLeft, float cellBottom, float tileSize) {
+        // Intervalo em que o centro do jogador está sobre o tile
+        float from;
+        float to;
+        if (dx > 0f) {
+            from = (cellLeft - centerX) / dx;
+            to = (cellLeft + tileSize - centerX) / dx;
+        } else if (dx < 0f) {
+            from = (cellLeft + tileSize - centerX) / dx;
+            to = (cellLeft - centerX) / dx;
+        } else {
+            if (centerX < cellLeft || centerX > cellLeft + tileSize) return;
+            from = 0f;
+            to = 1f;
+        }
+        from = Math.max(from, enter);
+        to = Math.min(to, exit);
+        if (from > to) return;
+
+        // Distância vertical entre a base do jogador e a superfície nos dois extremos do intervalo
+        float dFrom = y + dy * from - surfaceAt(profile, centerX + dx * from, cellLeft, cellBottom, tileSize);
+        if (dFrom < -EPSILON) return; // já estava abaixo da superfície (entrou por baixo ou pelo lado)
+
+        float t;
+        if (dFrom <= 0f) {
+            t = from;
+        } else {
+            float dTo = y + dy * to - surfaceAt(profile, centerX + dx * to, cellLeft, cellBottom, tileSize);
+            if (dTo > 0f) return;
+            t = from + (to - from) * dFrom / (dFrom - dTo);
+        }
+        if (!beats(t)) return;
+        float u = (centerX + dx * t - cellLeft) / tileSize;
+        bestKind = RAMP;
+        bestTime = t;
+        bestSurfaceY = cellBottom + profile.heightAt(u) * tileSize;
+        bestLaunch = profile.launchAt(u);
+    }
+
+    private static float surfaceAt(TerrainProfile profile, float centerX, float cellLeft, float cellBottom, float tileSize) {
+        return cellBottom + profile.heightAt((centerX - cellLeft) / tileSize) * tileSize;
+    }
+}
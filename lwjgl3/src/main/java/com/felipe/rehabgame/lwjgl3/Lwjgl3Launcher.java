@@ -2,17 +2,18 @@ package com.felipe.rehabgame.lwjgl3;
 
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
+import com.felipe.rehabgame.GameConfig;
 import com.felipe.rehabgame.MainGame;
 
 /** Launches the desktop (LWJGL3) application. */
 public class Lwjgl3Launcher {
     public static void main(String[] args) {
         if (StartupHelper.startNewJvmIfRequired()) return; // This handles macOS support and helps on Windows.
-        createApplication();
+        createApplication(GameConfig.fromArgs(args));
     }
 
-    private static Lwjgl3Application createApplication() {
-        return new Lwjgl3Application(new MainGame(), getDefaultConfiguration());
+    private static Lwjgl3Application createApplication(GameConfig gameConfig) {
+        return new Lwjgl3Application(new MainGame(gameConfig), getDefaultConfiguration());
     }
 
     private static Lwjgl3ApplicationConfiguration getDefaultConfiguration() {
@@ -27,6 +28,9 @@ public class Lwjgl3Launcher {
         //// If you remove the above line and set Vsync to false, you can get unlimited FPS, which can be
         //// useful for testing performance, but can also be very stressful to some hardware.
         //// You may also need to configure GPU drivers to fully disable Vsync; this can cause screen tearing.
+        //// MainGame turns continuous rendering off in menus; while nothing needs drawing the loop only polls
+        //// input at this rate, so paused bikes stay cool. Keep it high enough that menu keys feel instant.
+        configuration.setIdleFPS(20);
 
         configuration.setWindowedMode(1280, 720);
         configuration.setResizable(true);
@@ -0,0 +1,51 @@
+package com.felipe.rehabgame.lwjgl3;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Files;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.felipe.rehabgame.DecodedImageCache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Pré-decodifica as imagens da pasta de trabalho (assets/) para o cache usado pelo jogo.
+ * Roda sem janela nem contexto OpenGL; só precisa das natives do gdx para decodificar PNG/JPEG.
+ */
+public class PredecodeAssets {
+    public static void main(String[] args) {
+        GdxNativesLoader.load();
+        Gdx.files = new Lwjgl3Files();
+
+        File root = new File("").getAbsoluteFile();
+        List<String> images = new ArrayList<>();
+        collectImages(root, "", images);
+        Collections.sort(images);
+
+        DecodedImageCache cache = new DecodedImageCache();
+        int written = 0;
+        for (String path : images) {
+            if (cache.ensureCached(path)) {
+                System.out.println("Decodificado: " + path);
+                written++;
+            }
+        }
+        System.out.println(written + " de " + images.size() + " imagens atualizadas no cache");
+    }
+
+    private static void collectImages(File dir, String prefix, List<String> out) {
+        File[] children = dir.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            String path = prefix + child.getName();
+            if (child.isDirectory()) {
+                collectImages(child, path + "/", out);
+            } else {
+                String name = child.getName().toLowerCase();
+                if (name.endsWith(".png") || name.endsWith(".jpg") || name.endsWith(".jpeg")) out.add(path);
+            }
+        }
+    }
+}